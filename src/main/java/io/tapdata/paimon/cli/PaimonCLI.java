@@ -1,10 +1,28 @@
 package io.tapdata.paimon.cli;
 
+import io.tapdata.paimon.cli.cache.LocalBlockCache;
 import io.tapdata.paimon.cli.catalog.CatalogManager;
+import io.tapdata.paimon.cli.completion.CommandCompleter;
+import io.tapdata.paimon.cli.completion.MetadataSnapshot;
 import io.tapdata.paimon.cli.config.ConfigHistoryManager;
+import io.tapdata.paimon.cli.config.S3PerformanceProfile;
 import io.tapdata.paimon.cli.config.StorageConfig;
+import io.tapdata.paimon.cli.jfr.CommandEvent;
+import io.tapdata.paimon.cli.jfr.SessionRecording;
+import io.tapdata.paimon.cli.job.BackgroundJob;
+import io.tapdata.paimon.cli.job.JobManager;
+import io.tapdata.paimon.cli.service.ArrowIpcWriter;
+import io.tapdata.paimon.cli.service.Benchmark;
 import io.tapdata.paimon.cli.service.DataQueryService;
 import io.tapdata.paimon.cli.service.MetadataService;
+import io.tapdata.paimon.cli.service.OrderBySpec;
+import io.tapdata.paimon.cli.service.OutputFormat;
+import io.tapdata.paimon.cli.service.QueryOptions;
+import io.tapdata.paimon.cli.service.SampleSpec;
+import io.tapdata.paimon.cli.service.TableMaintenanceService;
+import org.apache.paimon.catalog.CachingCatalog;
+import org.apache.paimon.options.MemorySize;
+import org.apache.paimon.utils.TimeUtils;
 
 import org.jline.reader.LineReader;
 import org.jline.reader.LineReaderBuilder;
@@ -14,20 +32,39 @@ import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Paimon CLI Main Program
  */
 public class PaimonCLI {
 
+    // 可以在后台执行的命令
+    private static final List<String> BACKGROUND_COMMANDS = Arrays.asList("count", "select", "get", "export", "diff");
+    private static final int JOB_THREADS = 4;
+
     private CatalogManager catalogManager;
     private MetadataService metadataService;
     private DataQueryService dataQueryService;
+    private TableMaintenanceService tableMaintenanceService;
+    private volatile MetadataSnapshot metadataSnapshot; // Tab 补全使用的元数据快照
     private LineReader lineReader;
     private Terminal terminal;
     private ConfigHistoryManager configHistoryManager;
-    private String currentDatabase; // 当前选中的数据库
+    private volatile String currentDatabase; // 当前选中的数据库
+    private JobManager jobManager;
+    private volatile boolean waitInterrupted;
 
     public PaimonCLI() {
         try {
@@ -43,6 +80,7 @@ public class PaimonCLI {
                     .terminal(terminal)
                     .history(history)
                     .variable(LineReader.HISTORY_SIZE, 5)
+                    .completer(new CommandCompleter(() -> metadataSnapshot, () -> currentDatabase))
                     .build();
 
             // Initialize config history manager
@@ -54,8 +92,43 @@ public class PaimonCLI {
     }
     
     public static void main(String[] args) {
+        String jfrFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--bench".equals(args[i])) {
+                // 基准测试模式：不连接存储，在本地仓库中运行后退出
+                System.exit(runBenchmark(args, i + 1) ? 0 : 1);
+            } else if ("--jfr".equals(args[i]) && i + 1 < args.length) {
+                jfrFile = args[++i];
+            } else if (args[i].startsWith("--jfr=")) {
+                jfrFile = args[i].substring("--jfr=".length());
+            } else {
+                System.err.println("Usage: paimon-cli [--jfr <file>] | --bench [<bench options>]");
+                System.err.println("  --jfr <file>  Record the session with Java Flight Recorder, including the");
+                System.err.println("                command, catalog, scan planning and split read events");
+                System.err.println("  --bench       Run the query benchmark in a local warehouse and print JSON,");
+                System.err.println("                options as for the 'bench' command");
+                System.exit(1);
+            }
+        }
+
+        SessionRecording recording = null;
+        if (jfrFile != null) {
+            try {
+                recording = SessionRecording.start(Paths.get(jfrFile));
+                System.out.println("Recording JFR events to " + recording.getDestination().toAbsolutePath());
+            } catch (Exception e) {
+                System.err.println("Failed to start JFR recording: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
         PaimonCLI cli = new PaimonCLI();
         cli.run();
+
+        if (recording != null) {
+            recording.close();
+            System.out.println("JFR recording written to " + recording.getDestination().toAbsolutePath());
+        }
     }
     
     public void run() {
@@ -67,6 +140,19 @@ public class PaimonCLI {
             return;
         }
 
+        // Ctrl+C while a command runs cancels the query instead of exiting
+        terminal.handle(Terminal.Signal.INT, signal -> {
+            if (dataQueryService != null && dataQueryService.cancelCurrentQuery()) {
+                System.err.println("\nCancelling query...");
+            } else {
+                waitInterrupted = true;
+            }
+        });
+
+        jobManager = new JobManager(JOB_THREADS, job -> lineReader.printAbove("[" + job.getId() + "] "
+                + job.getStatus().name().toLowerCase() + "  " + job.getCommand() + ", type 'result " + job.getId()
+                + "' to see its output"));
+
         // Enter command loop
         commandLoop();
 
@@ -145,9 +231,7 @@ public class PaimonCLI {
             }
 
             System.out.println("\nConnecting to storage...");
-            catalogManager = new CatalogManager(config);
-            metadataService = new MetadataService(catalogManager);
-            dataQueryService = new DataQueryService(catalogManager);
+            connect(config);
 
             System.out.println("Storage connected successfully!");
             System.out.println("Configuration: " + config);
@@ -168,6 +252,37 @@ public class PaimonCLI {
         }
     }
 
+    /**
+     * 根据配置创建 Catalog 和查询服务；全部创建成功后才替换当前的实例，失败时保持原有连接不变
+     */
+    private void connect(StorageConfig config) throws Exception {
+        Duration refreshInterval;
+        try {
+            refreshInterval = TimeUtils.parseDuration(config.getOptions().getOrDefault(
+                    StorageConfig.COMPLETION_REFRESH_INTERVAL, StorageConfig.DEFAULT_COMPLETION_REFRESH_INTERVAL));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid " + StorageConfig.COMPLETION_REFRESH_INTERVAL + ", using "
+                    + StorageConfig.DEFAULT_COMPLETION_REFRESH_INTERVAL + ": " + e.getMessage());
+            refreshInterval = TimeUtils.parseDuration(StorageConfig.DEFAULT_COMPLETION_REFRESH_INTERVAL);
+        }
+
+        CatalogManager newCatalogManager = new CatalogManager(config);
+        try {
+            // 确认存储可访问后再切换，避免切换到无法使用的连接
+            newCatalogManager.listDatabases();
+        } catch (Exception e) {
+            newCatalogManager.close();
+            throw e;
+        }
+        catalogManager = newCatalogManager;
+        metadataService = new MetadataService(catalogManager);
+        dataQueryService = new DataQueryService(catalogManager);
+        tableMaintenanceService = new TableMaintenanceService(catalogManager);
+        // 补全元数据在后台加载，按键时只读取内存中的快照
+        metadataSnapshot = new MetadataSnapshot(catalogManager, refreshInterval.toMillis());
+        metadataSnapshot.preload(currentDatabase);
+    }
+
     /**
      * 提示用户输入新配置
      */
@@ -233,7 +348,31 @@ public class PaimonCLI {
             String endpoint = lineReader.readLine("Enter Endpoint (optional, press Enter to skip): ").trim();
             String region = lineReader.readLine("Enter Region (optional, press Enter to skip): ").trim();
 
-            return StorageConfig.createS3(s3Path, accessKey, secretKey, endpoint, region);
+            StorageConfig config = StorageConfig.createS3(s3Path, accessKey, secretKey, endpoint, region);
+
+            System.out.println("Performance profiles:");
+            S3PerformanceProfile[] profiles = S3PerformanceProfile.values();
+            for (int i = 0; i < profiles.length; i++) {
+                System.out.println("  " + (i + 1) + ". " + profiles[i].getProfileName() + (i == 0 ? " (default)" : ""));
+            }
+            System.out.println("  " + (profiles.length + 1) + ". none (Hadoop defaults)");
+            String profileChoice = lineReader.readLine("Select profile (1-" + (profiles.length + 1) + "): ").trim();
+            S3PerformanceProfile profile = profileChoice.isEmpty() ? profiles[0] : S3PerformanceProfile.fromName(profileChoice);
+            if (profile == null && profileChoice.matches("\\d+")) {
+                int profileIndex = Integer.parseInt(profileChoice);
+                profile = profileIndex >= 1 && profileIndex <= profiles.length ? profiles[profileIndex - 1] : null;
+            }
+            if (profile != null) {
+                config.applyProfile(profile);
+            }
+
+            String enableCache = lineReader.readLine("Enable local disk cache for warehouse files? (y/N): ").trim();
+            if ("y".equalsIgnoreCase(enableCache) || "yes".equalsIgnoreCase(enableCache)) {
+                String cacheDir = lineReader.readLine("Cache directory (default " + StorageConfig.DEFAULT_CACHE_DIR + "): ").trim();
+                String cacheSize = lineReader.readLine("Max cache size (default " + StorageConfig.DEFAULT_CACHE_MAX_SIZE + "): ").trim();
+                config.enableLocalCache(cacheDir, cacheSize);
+            }
+            return config;
         } catch (org.jline.reader.UserInterruptException | org.jline.reader.EndOfFileException e) {
             // User pressed Ctrl+C or Ctrl+D
             throw new RuntimeException("Operation cancelled", e);
@@ -259,32 +398,13 @@ public class PaimonCLI {
                     continue;
                 }
 
-                input = input.trim();
-                String[] parts = input.split("\\s+");
-                String command = parts[0].toLowerCase();
-
-                if ("exit".equals(command) || "quit".equals(command)) {
+                if (!executeCommand(input.trim())) {
                     System.out.println("Goodbye!");
                     break;
-                } else if ("help".equals(command)) {
-                    printHelp();
-                } else if ("use".equals(command)) {
-                    handleUseCommand(parts);
-                } else if ("show".equals(command)) {
-                    handleShowCommand(parts);
-                } else if ("desc".equals(command) || "describe".equals(command)) {
-                    handleDescribeCommand(parts);
-                } else if ("count".equals(command)) {
-                    handleCountCommand(parts);
-                } else if ("select".equals(command)) {
-                    handleSelectCommand(parts);
-                } else {
-                    System.err.println("Unknown command: " + command + ", type 'help' for available commands");
                 }
             } catch (org.jline.reader.UserInterruptException e) {
-                // User pressed Ctrl+C
-                System.out.println("\nGoodbye!");
-                break;
+                // User pressed Ctrl+C at the prompt, discard the line and keep the session
+                continue;
             } catch (org.jline.reader.EndOfFileException e) {
                 // User pressed Ctrl+D
                 System.out.println("\nGoodbye!");
@@ -295,6 +415,87 @@ public class PaimonCLI {
         }
     }
 
+    /**
+     * 执行一条命令，返回 false 表示退出；整个命令记录为一个 JFR 事件
+     */
+    private boolean executeCommand(String input) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        try {
+            return dispatchCommand(input);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.command = input.split("\\s+")[0].toLowerCase();
+                event.input = input;
+                event.background = BackgroundJob.current() != null;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 解析并分派一条命令；以 & 结尾的命令在后台任务中执行
+     */
+    private boolean dispatchCommand(String input) {
+        if (input.endsWith("&")) {
+            submitJob(input.substring(0, input.length() - 1).trim());
+            return true;
+        }
+
+        String[] parts = input.split("\\s+");
+        String command = parts[0].toLowerCase();
+
+        if ("exit".equals(command) || "quit".equals(command)) {
+            return false;
+        } else if ("help".equals(command)) {
+            printHelp();
+        } else if ("use".equals(command)) {
+            handleUseCommand(parts);
+        } else if ("show".equals(command)) {
+            handleShowCommand(parts);
+        } else if ("desc".equals(command) || "describe".equals(command)) {
+            handleDescribeCommand(parts);
+        } else if ("count".equals(command)) {
+            handleCountCommand(parts);
+        } else if ("select".equals(command)) {
+            handleSelectCommand(parts);
+        } else if ("get".equals(command)) {
+            handleGetCommand(parts);
+        } else if ("export".equals(command)) {
+            handleExportCommand(parts);
+        } else if ("diff".equals(command)) {
+            handleDiffCommand(parts);
+        } else if ("analyze".equals(command)) {
+            handleAnalyzeCommand(parts);
+        } else if ("compact".equals(command)) {
+            handleCompactCommand(parts);
+        } else if ("load".equals(command)) {
+            handleLoadCommand(parts);
+        } else if ("generate".equals(command)) {
+            handleGenerateCommand(parts);
+        } else if ("expire".equals(command)) {
+            handleExpireCommand(parts);
+        } else if ("bench".equals(command)) {
+            handleBenchCommand(parts);
+        } else if ("remove".equals(command)) {
+            handleRemoveCommand(parts);
+        } else if ("cache".equals(command)) {
+            handleCacheCommand(parts);
+        } else if ("set".equals(command)) {
+            handleSetCommand(parts);
+        } else if ("bg".equals(command)) {
+            submitJob(input.substring(parts[0].length()).trim());
+        } else if ("jobs".equals(command)) {
+            handleJobsCommand();
+        } else if ("wait".equals(command) || "result".equals(command) || "cancel".equals(command)) {
+            handleJobCommand(command, parts);
+        } else {
+            System.err.println("Unknown command: " + command + ", type 'help' for available commands");
+        }
+        return true;
+    }
+
     /**
      * Print help information
      */
@@ -306,12 +507,62 @@ public class PaimonCLI {
         System.out.println("  use <database>                              - Set current database");
         System.out.println("  desc <database>.<table>                     - Show table structure");
         System.out.println("  desc <table>                                - Show table structure (use current database)");
-        System.out.println("  count <database>.<table> [where <filter>]   - Count total rows in a table with optional filter");
-        System.out.println("  count <table> [where <filter>]              - Count total rows (use current database)");
-        System.out.println("  select <database>.<table> [limit|all] [where <filter>]");
+        System.out.println("  count <database>.<table> [distinct <col> [exact]] [sample <spec>] [where <filter>]");
+        System.out.println("                                              - Count total rows in a table with optional filter");
+        System.out.println("  count <table> [distinct <col> [exact]] [sample <spec>] [where <filter>]");
+        System.out.println("                                              - Count total rows (use current database)");
+        System.out.println("                                                'distinct' counts distinct values (HyperLogLog");
+        System.out.println("                                                estimate, or 'exact' for small cardinalities)");
+        System.out.println("  select <database>.<table> [limit|all] [sample <spec>] [format table|json|arrow <path>] [columns <col>,...] [where <filter>] [order by <col> [desc] [limit <n>]]");
         System.out.println("                                              - Query table data with optional limit and filter");
-        System.out.println("  select <table> [limit|all] [where <filter>] - Query table (use current database)");
-        System.out.println("                                                Use 'all' for pagination mode (5 rows/page)");
+        System.out.println("  select <table> [limit|all] [sample <spec>] [format table|json|arrow <path>] [columns <col>,...] [where <filter>] [order by <col> [desc] [limit <n>]]");
+        System.out.println("                                              - Query table (use current database)");
+        System.out.println("                                                Use 'all' for pagination mode (5 rows/page,");
+        System.out.println("                                                'it' next page, 'prev', 'goto <n>')");
+        System.out.println("                                                Use 'format table' for aligned table output,");
+        System.out.println("                                                'format arrow <path>' writes an Arrow IPC file");
+        System.out.println("                                                Sample spec: <N>% of splits or <N> rows,");
+        System.out.println("                                                counts are scaled to estimates with error bounds");
+        System.out.println("                                                'columns' reads only the listed columns");
+        System.out.println("                                                System tables: <table>$snapshots, $files,");
+        System.out.println("                                                $manifests, $partitions, ...");
+        System.out.println("  get <database>.<table> <pk>=<value> [AND ...]");
+        System.out.println("                                              - Look up a row by primary key (reads only its bucket)");
+        System.out.println("  get <table> <pk>=<value> [AND ...]          - Look up a row by primary key (use current database)");
+        System.out.println("  export <database>.<table> <path> [stream] [limit <n>] [where <filter>]");
+        System.out.println("                                              - Export rows to an Arrow IPC file ('stream' for the");
+        System.out.println("                                                IPC stream format), readable by pyarrow/pandas/DuckDB");
+        System.out.println("  diff <database>.<table>[@<snapshot>] <database>.<table>[@<snapshot>] [limit <n>]");
+        System.out.println("                                              - Compare two snapshots or tables by primary key,");
+        System.out.println("                                                showing inserted/updated/deleted keys (default 10 each)");
+        System.out.println("  analyze health <database>.<table> [top <n>] - Show small files, sorted runs, deletion vectors and read");
+        System.out.println("                                                amplification, ranking buckets and partitions by");
+        System.out.println("                                                compaction benefit (default top 10)");
+        System.out.println("  compact <database>.<table> [<key>=<value>[,...] ...] [parallelism <n>]");
+        System.out.println("                                              - Compact a table or some partitions in this process and");
+        System.out.println("                                                commit once (memory: cli.compact.max-memory)");
+        System.out.println("  load <file|dir> into <database>.<table> [format csv|json|parquet] [delimiter <c>] [parallelism <n>]");
+        System.out.println("                                              - Load CSV (with header), JSON lines or Parquet files and");
+        System.out.println("                                                commit once (memory: cli.load.max-memory)");
+        System.out.println("  generate <database>.<table> rows <n> [column <name>[:<type>]=<generator>[,nulls=<ratio>] ...]");
+        System.out.println("           [primary-key <cols>] [partition <cols>] [buckets <n>] [batch <n>] [parallelism <n>] [seed <n>]");
+        System.out.println("                                              - Generate synthetic rows, creating the table if needed;");
+        System.out.println("                                                generators: seq, uniform(min,max), zipf(n,exponent),");
+        System.out.println("                                                string(min,max); commits every batch (default 10m) rows");
+        System.out.println("  expire snapshots <database>.<table> [retain_max <n>] [retain_min <n>] [older_than <duration>]");
+        System.out.println("                 [parallelism <n>] [dry-run]  - Expire old snapshots (defaults: the table's retention)");
+        System.out.println("  remove orphan files <database>.<table> [older_than <duration>] [parallelism <n>] [dry-run]");
+        System.out.println("                                              - Delete unreferenced files older than 1 d (default)");
+        System.out.println("  bench [rows <n>] [columns <n>] [partitions <n>] [buckets <n>] [iterations <n>] [warmup <n>]");
+        System.out.println("        [warehouse <dir>] [option <key>=<value>] [output <file>]");
+        System.out.println("                                              - Benchmark queries on synthetic local tables and");
+        System.out.println("                                                print latency percentiles and rows/s as JSON");
+        System.out.println("  cache [stats|clear]                         - Show metadata/disk cache statistics or clear the disk cache");
+        System.out.println("  set [profile <name> | <key> <value>]        - Show or change storage options (S3A profile, fs.s3a.*, cli.*)");
+        System.out.println("  <command> & | bg <command>                  - Run "
+                + String.join("/", BACKGROUND_COMMANDS) + " as a background job");
+        System.out.println("  jobs                                        - List background jobs with their progress");
+        System.out.println("  wait <id> | result <id> | cancel <id>       - Wait for, show the output of, or cancel a job");
         System.out.println("  help                                        - Show help information");
         System.out.println("  exit/quit                                   - Exit the program");
         System.out.println();
@@ -320,10 +571,28 @@ public class PaimonCLI {
         System.out.println("  show tables                                 - Show tables in current database");
         System.out.println("  select users 10                             - Show first 10 rows (using current database)");
         System.out.println("  select default.users 10                     - Show first 10 rows");
-        System.out.println("  select default.users all                    - Show all rows with pagination (type 'it' to continue)");
+        System.out.println("  select default.users all                    - Show all rows with pagination (type 'it' to continue, 'prev' to go back)");
         System.out.println("  select default.users 10 where age>18        - Show 10 rows where age > 18");
         System.out.println("  select default.users all where age>18       - Show all rows where age > 18 with pagination");
         System.out.println("  select default.users where age>=18 AND name=Alice");
+        System.out.println("  select default.users 10 sample 5%           - Show 10 rows from a random 5% of splits");
+        System.out.println("  select default.users order by age desc limit 5");
+        System.out.println("                                              - Show the 5 oldest users");
+        System.out.println("  select default.users$files columns file_path,record_count order by file_size_in_bytes desc limit 5");
+        System.out.println("                                              - Show the 5 largest data files of default.users");
+        System.out.println("  count default.users sample 10% where age>18 - Estimate rows where age > 18 from 10% of splits");
+        System.out.println("  count default.users distinct age            - Approximate number of distinct ages");
+        System.out.println("  get default.users id=42                     - Look up the user with primary key 42");
+        System.out.println("  diff default.users@1 default.users          - Rows changed since snapshot 1");
+        System.out.println("  analyze health default.users                - Check whether default.users needs compaction");
+        System.out.println("  compact default.events dt=2024-01-01 parallelism 4");
+        System.out.println("                                              - Compact one partition on 4 threads");
+        System.out.println("  load /data/users.csv into default.users     - Load a CSV file with a header row");
+        System.out.println("  expire snapshots default.events retain_max 10 dry-run");
+        System.out.println("                                              - Show what keeping only 10 snapshots would free");
+        System.out.println("  generate default.orders rows 1b column id:bigint=seq column user_id:bigint=zipf(1000000,1.1)");
+        System.out.println("           primary-key id buckets 16           - Generate a billion orders with skewed user ids");
+        System.out.println("  bench rows 100000 output bench.json         - Benchmark 100000-row tables, save the JSON result");
         System.out.println();
     }
 
@@ -346,6 +615,7 @@ public class PaimonCLI {
             }
 
             currentDatabase = database;
+            metadataSnapshot.preload(database);
             System.out.println("Database changed to: " + currentDatabase);
         } catch (Exception e) {
             System.err.println("Failed to switch database: " + e.getMessage());
@@ -373,11 +643,11 @@ public class PaimonCLI {
                 database = parts[2];
             } else {
                 // 格式: show tables (使用当前数据库)
-                if (currentDatabase == null) {
+                if (resolveCurrentDatabase() == null) {
                     System.err.println("No database selected. Use 'use <database>' first or specify as 'show tables <database>'");
                     return;
                 }
-                database = currentDatabase;
+                database = resolveCurrentDatabase();
             }
 
             metadataService.showTables(database);
@@ -405,11 +675,11 @@ public class PaimonCLI {
             tableName = dbTable[1];
         } else if (dbTable.length == 1) {
             // 格式: table (使用当前数据库)
-            if (currentDatabase == null) {
+            if (resolveCurrentDatabase() == null) {
                 System.err.println("No database selected. Use 'use <database>' first or specify as <database>.<table>");
                 return;
             }
-            database = currentDatabase;
+            database = resolveCurrentDatabase();
             tableName = dbTable[0];
         } else {
             System.err.println("Invalid table name format, should be: <database>.<table> or <table>");
@@ -424,7 +694,9 @@ public class PaimonCLI {
      */
     private void handleCountCommand(String[] parts) {
         if (parts.length < 2) {
-            System.err.println("Usage: count <database>.<table> [where <filter>] or count <table> [where <filter>] (when database is set)");
+            System.err.println("Usage: count <database>.<table> [distinct <column> [exact]] [sample <N>%|<N> rows] [where <filter>]");
+            System.err.println("   or: count <table> [distinct <column> [exact]] [sample <N>%|<N> rows] [where <filter>]");
+            System.err.println("       (when database is set)");
             return;
         }
 
@@ -438,24 +710,55 @@ public class PaimonCLI {
             tableName = dbTable[1];
         } else if (dbTable.length == 1) {
             // 格式: table (使用当前数据库)
-            if (currentDatabase == null) {
+            if (resolveCurrentDatabase() == null) {
                 System.err.println("No database selected. Use 'use <database>' first or specify as <database>.<table>");
                 return;
             }
-            database = currentDatabase;
+            database = resolveCurrentDatabase();
             tableName = dbTable[0];
         } else {
             System.err.println("Invalid table name format, should be: <database>.<table> or <table>");
             return;
         }
 
+        int currentIndex = 2;
+
+        // Parse optional "distinct <column> [exact]" clause
+        String distinctColumn = null;
+        boolean exact = false;
+        if (currentIndex < parts.length && "distinct".equalsIgnoreCase(parts[currentIndex])) {
+            if (currentIndex + 1 >= parts.length) {
+                System.err.println("Invalid distinct clause, should be: distinct <column> [exact]");
+                return;
+            }
+            distinctColumn = parts[currentIndex + 1];
+            currentIndex += 2;
+            if (currentIndex < parts.length && "exact".equalsIgnoreCase(parts[currentIndex])) {
+                exact = true;
+                currentIndex++;
+            }
+        }
+
+        // Parse optional sample clause
+        SampleSpec sample = null;
+        if (currentIndex < parts.length && "sample".equalsIgnoreCase(parts[currentIndex])) {
+            try {
+                sample = parseSampleClause(parts, currentIndex);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+            currentIndex += sampleClauseLength(sample);
+        }
+
         // Parse filter expression if "where" keyword is present
         String filter = null;
-        if (parts.length > 2 && parts[2].equalsIgnoreCase("where")) {
+        if (currentIndex < parts.length && parts[currentIndex].equalsIgnoreCase("where")) {
+            currentIndex++;
             // Collect remaining parts as filter expression
             StringBuilder filterBuilder = new StringBuilder();
-            for (int i = 3; i < parts.length; i++) {
-                if (i > 3) {
+            for (int i = currentIndex; i < parts.length; i++) {
+                if (i > currentIndex) {
                     filterBuilder.append(" ");
                 }
                 filterBuilder.append(parts[i]);
@@ -463,25 +766,768 @@ public class PaimonCLI {
             filter = filterBuilder.toString();
         }
 
-        dataQueryService.countTable(database, tableName, filter);
+        QueryOptions options = QueryOptions.defaults().withSample(sample);
+        if (distinctColumn != null) {
+            dataQueryService.countDistinct(database, tableName, distinctColumn, exact, filter, options);
+        } else {
+            dataQueryService.countTable(database, tableName, filter, options);
+        }
+    }
+
+    /**
+     * Parse a sample clause starting at the 'sample' keyword
+     * Supports: sample <N>% and sample <N> rows
+     */
+    private SampleSpec parseSampleClause(String[] parts, int index) {
+        String usage = "Invalid sample clause, should be: sample <N>% or sample <N> rows";
+        if (index + 1 >= parts.length) {
+            throw new IllegalArgumentException(usage);
+        }
+
+        String value = parts[index + 1];
+        try {
+            if (value.endsWith("%")) {
+                return SampleSpec.percent(Double.parseDouble(value.substring(0, value.length() - 1)));
+            }
+            if (index + 2 < parts.length && "rows".equalsIgnoreCase(parts[index + 2])) {
+                return SampleSpec.rows(Long.parseLong(value));
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to usage error
+        }
+        throw new IllegalArgumentException(usage);
+    }
+
+    /**
+     * Number of tokens taken by a parsed sample clause
+     */
+    private int sampleClauseLength(SampleSpec sample) {
+        return sample.getMode() == SampleSpec.Mode.ROWS ? 3 : 2;
+    }
+
+    /**
+     * Handle get command
+     * Supports: get <database>.<table> <pk>=<value> [AND <pk>=<value> ...]
+     */
+    private void handleGetCommand(String[] parts) {
+        if (parts.length < 3) {
+            System.err.println("Usage: get <database>.<table> <pk>=<value> [AND <pk>=<value> ...]");
+            System.err.println("   or: get <table> <pk>=<value> [AND <pk>=<value> ...] (when database is set)");
+            System.err.println("Example: get default.users id=42");
+            return;
+        }
+
+        String[] dbTable = parts[1].split("\\.");
+        String database;
+        String tableName;
+
+        if (dbTable.length == 2) {
+            // 格式: database.table
+            database = dbTable[0];
+            tableName = dbTable[1];
+        } else if (dbTable.length == 1) {
+            // 格式: table (使用当前数据库)
+            if (resolveCurrentDatabase() == null) {
+                System.err.println("No database selected. Use 'use <database>' first or specify as <database>.<table>");
+                return;
+            }
+            database = resolveCurrentDatabase();
+            tableName = dbTable[0];
+        } else {
+            System.err.println("Invalid table name format, should be: <database>.<table> or <table>");
+            return;
+        }
+
+        StringBuilder keyBuilder = new StringBuilder();
+        for (int i = 2; i < parts.length; i++) {
+            if (i > 2) {
+                keyBuilder.append(" ");
+            }
+            keyBuilder.append(parts[i]);
+        }
+
+        dataQueryService.getByPrimaryKey(database, tableName, keyBuilder.toString());
+    }
+
+    /**
+     * Handle diff command
+     * Supports: diff <database>.<table>[@<snapshot>] <database>.<table>[@<snapshot>] [limit <n>]
+     */
+    private void handleDiffCommand(String[] parts) {
+        if (parts.length != 3 && !(parts.length == 5 && "limit".equalsIgnoreCase(parts[3]))) {
+            System.err.println("Usage: diff <database>.<table>[@<snapshot>] <database>.<table>[@<snapshot>] [limit <n>]");
+            System.err.println("   or: diff <table>[@<snapshot>] <table>[@<snapshot>] [limit <n>] (when database is set)");
+            System.err.println("Example: diff default.users@1 default.users");
+            return;
+        }
+
+        String[] left = parseTableRef(parts[1]);
+        String[] right = left == null ? null : parseTableRef(parts[2]);
+        if (right == null) {
+            return;
+        }
+
+        int sampleLimit = 10;
+        if (parts.length == 5) {
+            try {
+                sampleLimit = Integer.parseInt(parts[4]);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid limit: " + parts[4]);
+                return;
+            }
+        }
+
+        dataQueryService.diffTables(left[0], left[1], left[2] == null ? null : Long.parseLong(left[2]),
+                right[0], right[1], right[2] == null ? null : Long.parseLong(right[2]), sampleLimit);
+    }
+
+    /**
+     * Handle analyze command
+     * Supports: analyze health <database>.<table> [top <n>]
+     */
+    private void handleAnalyzeCommand(String[] parts) {
+        if (!((parts.length == 3 || (parts.length == 5 && "top".equalsIgnoreCase(parts[3])))
+                && "health".equalsIgnoreCase(parts[1]))) {
+            System.err.println("Usage: analyze health <database>.<table> [top <n>]");
+            System.err.println("   or: analyze health <table> [top <n>] (when database is set)");
+            System.err.println("Example: analyze health default.users");
+            return;
+        }
+
+        String[] table = parseTableRef(parts[2]);
+        if (table == null) {
+            return;
+        }
+        if (table[2] != null) {
+            System.err.println("analyze health always reads the latest snapshot");
+            return;
+        }
+
+        int top = 10;
+        if (parts.length == 5) {
+            try {
+                top = Integer.parseInt(parts[4]);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid top: " + parts[4]);
+                return;
+            }
+        }
+
+        metadataService.analyzeHealth(table[0], table[1], top);
+    }
+
+    /**
+     * Handle compact command
+     * Supports: compact <database>.<table> [<key>=<value>[,<key>=<value>...] ...] [parallelism <n>]
+     */
+    private void handleCompactCommand(String[] parts) {
+        if (parts.length < 2) {
+            System.err.println("Usage: compact <database>.<table> [<key>=<value>[,<key>=<value>...] ...] [parallelism <n>]");
+            System.err.println("   or: compact <table> [<key>=<value>[,<key>=<value>...] ...] [parallelism <n>] (when database is set)");
+            System.err.println("Example: compact default.events dt=2024-01-01 dt=2024-01-02 parallelism 4");
+            return;
+        }
+
+        String[] table = parseTableRef(parts[1]);
+        if (table == null) {
+            return;
+        }
+        if (table[2] != null) {
+            System.err.println("compact always works on the latest snapshot");
+            return;
+        }
+
+        List<String> partitions = new ArrayList<>();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < parts.length; i++) {
+            if ("parallelism".equalsIgnoreCase(parts[i]) && i + 1 < parts.length) {
+                try {
+                    parallelism = Integer.parseInt(parts[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid parallelism: " + parts[i]);
+                    return;
+                }
+            } else {
+                partitions.add(parts[i]);
+            }
+        }
+
+        tableMaintenanceService.compactTable(table[0], table[1], partitions, parallelism);
+    }
+
+    /**
+     * Handle load command
+     * Supports: load <file|dir> into <database>.<table> [format csv|json|parquet] [delimiter <c>] [parallelism <n>]
+     */
+    private void handleLoadCommand(String[] parts) {
+        if (parts.length < 4 || !"into".equalsIgnoreCase(parts[2])) {
+            System.err.println("Usage: load <file|dir> into <database>.<table> [format csv|json|parquet] [delimiter <c>]"
+                    + " [parallelism <n>]");
+            System.err.println("Example: load /data/users.csv into default.users parallelism 8");
+            return;
+        }
+
+        String[] table = parseTableRef(parts[3]);
+        if (table == null) {
+            return;
+        }
+        if (table[2] != null) {
+            System.err.println("load always writes a new snapshot");
+            return;
+        }
+
+        String format = null;
+        Character delimiter = null;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        for (int i = 4; i < parts.length; i++) {
+            String name = parts[i].toLowerCase();
+            if (i + 1 >= parts.length) {
+                System.err.println("Missing value for " + parts[i]);
+                return;
+            } else if ("format".equals(name)) {
+                format = parts[++i];
+            } else if ("delimiter".equals(name)) {
+                String value = parts[++i];
+                // 制表符无法直接在命令行中输入
+                delimiter = "tab".equalsIgnoreCase(value) || "\\t".equals(value) ? '\t' : value.charAt(0);
+                if (value.length() != 1 && delimiter != '\t') {
+                    System.err.println("Invalid delimiter: " + value + ", expected a single character or 'tab'");
+                    return;
+                }
+            } else if ("parallelism".equals(name)) {
+                try {
+                    parallelism = Integer.parseInt(parts[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid parallelism: " + parts[i]);
+                    return;
+                }
+            } else {
+                System.err.println("Unknown option: " + parts[i]);
+                return;
+            }
+        }
+        if (delimiter == null) {
+            delimiter = parts[1].toLowerCase().endsWith(".tsv") ? '\t' : ',';
+        }
+
+        tableMaintenanceService.loadFiles(table[0], table[1], parts[1], format, delimiter, parallelism);
+    }
+
+    /**
+     * Handle bench command
+     * Supports: bench [rows <n>] [columns <n>] [partitions <n>] [buckets <n>] [iterations <n>] [warmup <n>]
+     *           [warehouse <dir>] [option <key>=<value>] [output <file>]
+     */
+    private void handleBenchCommand(String[] parts) {
+        if (jobManager.hasRunningJobs()) {
+            // 基准测试会临时替换 System.out，后台任务的输出会丢失
+            System.err.println("Wait for the background jobs to finish before running bench");
+            return;
+        }
+        runBenchmark(parts, 1);
+    }
+
+    /**
+     * 从 args[from] 开始解析基准测试选项并运行，JSON 结果输出到标准输出或 output 指定的文件
+     */
+    private static boolean runBenchmark(String[] args, int from) {
+        Benchmark.Settings settings = new Benchmark.Settings();
+        String output = null;
+        try {
+            for (int i = from; i < args.length; i++) {
+                String name = args[i].toLowerCase();
+                if (i + 1 >= args.length) {
+                    System.err.println("Missing value for " + args[i]);
+                    return false;
+                } else if ("rows".equals(name)) {
+                    settings.rows = Long.parseLong(args[++i]);
+                } else if ("columns".equals(name)) {
+                    settings.columns = Integer.parseInt(args[++i]);
+                } else if ("partitions".equals(name)) {
+                    settings.partitions = Integer.parseInt(args[++i]);
+                } else if ("buckets".equals(name)) {
+                    settings.buckets = Integer.parseInt(args[++i]);
+                } else if ("iterations".equals(name)) {
+                    settings.iterations = Integer.parseInt(args[++i]);
+                } else if ("warmup".equals(name)) {
+                    settings.warmup = Integer.parseInt(args[++i]);
+                } else if ("warehouse".equals(name)) {
+                    settings.warehouse = args[++i];
+                } else if ("output".equals(name)) {
+                    output = args[++i];
+                } else if ("option".equals(name)) {
+                    String option = args[++i];
+                    int eq = option.indexOf('=');
+                    if (eq <= 0) {
+                        System.err.println("Invalid option: " + option + ", expected <key>=<value>");
+                        return false;
+                    }
+                    settings.options.put(option.substring(0, eq), option.substring(eq + 1));
+                } else {
+                    System.err.println("Unknown option: " + args[i]);
+                    return false;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            String json = Benchmark.toJson(new Benchmark(settings).run());
+            if (output == null) {
+                System.out.println(json);
+            } else {
+                Files.write(Paths.get(output), (json + "\n").getBytes(StandardCharsets.UTF_8));
+                System.out.println("Benchmark results written to " + Paths.get(output).toAbsolutePath());
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Handle generate command
+     * Supports: generate <database>.<table> rows <n> [column <name>[:<type>]=<generator>[,nulls=<ratio>] ...]
+     *           [primary-key <cols>] [partition <cols>] [buckets <n>] [batch <n>] [parallelism <n>] [seed <n>]
+     */
+    private void handleGenerateCommand(String[] parts) {
+        if (parts.length < 4) {
+            System.err.println("Usage: generate <database>.<table> rows <n> [column <name>[:<type>]=<generator>[,nulls=<ratio>] ...]"
+                    + " [primary-key <cols>] [partition <cols>] [buckets <n>] [batch <n>] [parallelism <n>] [seed <n>]");
+            System.err.println("Example: generate default.events rows 10m column id:bigint=seq column dt:string=uniform(1,30)"
+                    + " column name:string=string(8,32),nulls=0.1 partition dt");
+            return;
+        }
+
+        String[] table = parseTableRef(parts[1]);
+        if (table == null) {
+            return;
+        }
+        if (table[2] != null) {
+            System.err.println("generate always writes new snapshots");
+            return;
+        }
+
+        Long rows = null;
+        List<String> columns = new ArrayList<>();
+        List<String> primaryKeys = new ArrayList<>();
+        List<String> partitionKeys = new ArrayList<>();
+        Integer buckets = null;
+        long batch = 10_000_000;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+        try {
+            for (int i = 2; i < parts.length; i++) {
+                String name = parts[i].toLowerCase();
+                if (i + 1 >= parts.length) {
+                    System.err.println("Missing value for " + parts[i]);
+                    return;
+                } else if ("rows".equals(name)) {
+                    rows = parseCount(parts[++i]);
+                } else if ("column".equals(name)) {
+                    columns.add(parts[++i]);
+                } else if ("primary-key".equals(name)) {
+                    primaryKeys.addAll(Arrays.asList(parts[++i].split(",")));
+                } else if ("partition".equals(name)) {
+                    partitionKeys.addAll(Arrays.asList(parts[++i].split(",")));
+                } else if ("buckets".equals(name)) {
+                    buckets = Integer.parseInt(parts[++i]);
+                } else if ("batch".equals(name)) {
+                    batch = parseCount(parts[++i]);
+                } else if ("parallelism".equals(name)) {
+                    parallelism = Integer.parseInt(parts[++i]);
+                } else if ("seed".equals(name)) {
+                    seed = Long.parseLong(parts[++i]);
+                } else {
+                    System.err.println("Unknown option: " + parts[i]);
+                    return;
+                }
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            System.err.println("Invalid value: " + e.getMessage());
+            return;
+        }
+        if (rows == null || rows <= 0 || batch <= 0) {
+            System.err.println("generate needs a positive 'rows <n>' and batch size");
+            return;
+        }
+
+        tableMaintenanceService.generateData(table[0], table[1], rows, columns, primaryKeys, partitionKeys, buckets,
+                batch, parallelism, seed);
+        metadataSnapshot.invalidate();
+    }
+
+    /**
+     * 解析行数，支持 k、m、b 后缀，如 10m、1b
+     */
+    private static long parseCount(String value) {
+        String lower = value.toLowerCase();
+        long multiplier = 1;
+        if (lower.endsWith("k")) {
+            multiplier = 1_000L;
+        } else if (lower.endsWith("m")) {
+            multiplier = 1_000_000L;
+        } else if (lower.endsWith("b")) {
+            multiplier = 1_000_000_000L;
+        }
+        if (multiplier > 1) {
+            lower = lower.substring(0, lower.length() - 1);
+        }
+        return Math.multiplyExact(Long.parseLong(lower), multiplier);
+    }
+
+    /**
+     * Handle expire command
+     * Supports: expire snapshots <database>.<table> [retain_max <n>] [retain_min <n>] [older_than <duration>]
+     *           [parallelism <n>] [dry-run]
+     */
+    private void handleExpireCommand(String[] parts) {
+        if (parts.length < 3 || !"snapshots".equalsIgnoreCase(parts[1])) {
+            System.err.println("Usage: expire snapshots <database>.<table> [retain_max <n>] [retain_min <n>]"
+                    + " [older_than <duration>] [parallelism <n>] [dry-run]");
+            System.err.println("Example: expire snapshots default.events retain_max 10 older_than 1d dry-run");
+            return;
+        }
+
+        String[] table = parseTableRef(parts[2]);
+        MaintenanceArgs args = table == null ? null : MaintenanceArgs.parse(parts, 3, true);
+        if (args == null) {
+            return;
+        }
+        tableMaintenanceService.expireSnapshots(table[0], table[1], args.retainMin, args.retainMax, args.olderThan,
+                args.parallelism, args.dryRun);
+    }
+
+    /**
+     * Handle remove command
+     * Supports: remove orphan files <database>.<table> [older_than <duration>] [parallelism <n>] [dry-run]
+     */
+    private void handleRemoveCommand(String[] parts) {
+        if (parts.length < 4 || !"orphan".equalsIgnoreCase(parts[1]) || !"files".equalsIgnoreCase(parts[2])) {
+            System.err.println("Usage: remove orphan files <database>.<table> [older_than <duration>] [parallelism <n>] [dry-run]");
+            System.err.println("Example: remove orphan files default.events older_than 3d dry-run");
+            return;
+        }
+
+        String[] table = parseTableRef(parts[3]);
+        MaintenanceArgs args = table == null ? null : MaintenanceArgs.parse(parts, 4, false);
+        if (args == null) {
+            return;
+        }
+        tableMaintenanceService.removeOrphanFiles(table[0], table[1],
+                args.olderThan != null ? args.olderThan : Duration.ofDays(1), args.parallelism, args.dryRun);
+    }
+
+    /**
+     * expire / remove 命令的可选参数
+     */
+    private static class MaintenanceArgs {
+        Integer retainMin;
+        Integer retainMax;
+        Duration olderThan;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        boolean dryRun;
+
+        /**
+         * 从 parts[from] 开始解析，出错时打印原因并返回 null
+         */
+        static MaintenanceArgs parse(String[] parts, int from, boolean retention) {
+            MaintenanceArgs args = new MaintenanceArgs();
+            try {
+                for (int i = from; i < parts.length; i++) {
+                    String name = parts[i].toLowerCase();
+                    if ("dry-run".equals(name)) {
+                        args.dryRun = true;
+                    } else if (i + 1 >= parts.length) {
+                        System.err.println("Missing value for " + parts[i]);
+                        return null;
+                    } else if ("older_than".equals(name)) {
+                        args.olderThan = TimeUtils.parseDuration(parts[++i]);
+                    } else if ("parallelism".equals(name)) {
+                        args.parallelism = Integer.parseInt(parts[++i]);
+                    } else if (retention && "retain_max".equals(name)) {
+                        args.retainMax = Integer.parseInt(parts[++i]);
+                    } else if (retention && "retain_min".equals(name)) {
+                        args.retainMin = Integer.parseInt(parts[++i]);
+                    } else {
+                        System.err.println("Unknown option: " + parts[i]);
+                        return null;
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid value: " + e.getMessage());
+                return null;
+            }
+            return args;
+        }
+    }
+
+    /**
+     * 解析 [<database>.]<table>[@<snapshot>]，返回 {database, table, snapshot}，snapshot 可为 null
+     */
+    private String[] parseTableRef(String ref) {
+        String snapshot = null;
+        int at = ref.indexOf('@');
+        if (at >= 0) {
+            snapshot = ref.substring(at + 1);
+            ref = ref.substring(0, at);
+            if (!snapshot.matches("\\d+")) {
+                System.err.println("Invalid snapshot id: " + snapshot);
+                return null;
+            }
+        }
+
+        String[] dbTable = ref.split("\\.");
+        if (dbTable.length == 2) {
+            // 格式: database.table
+            return new String[] {dbTable[0], dbTable[1], snapshot};
+        } else if (dbTable.length == 1) {
+            // 格式: table (使用当前数据库)
+            if (resolveCurrentDatabase() == null) {
+                System.err.println("No database selected. Use 'use <database>' first or specify as <database>.<table>");
+                return null;
+            }
+            return new String[] {resolveCurrentDatabase(), dbTable[0], snapshot};
+        }
+        System.err.println("Invalid table name format, should be: <database>.<table> or <table>");
+        return null;
+    }
+
+    /**
+     * Handle export command
+     */
+    private void handleExportCommand(String[] parts) {
+        if (parts.length < 3) {
+            System.err.println("Usage: export <database>.<table> <path> [stream] [limit <n>] [where <filter>]");
+            System.err.println("   or: export <table> <path> [stream] [limit <n>] [where <filter>] (when database is set)");
+            System.err.println("Example: export default.users /tmp/users.arrow where age>18");
+            return;
+        }
+
+        String[] dbTable = parts[1].split("\\.");
+        String database;
+        String tableName;
+
+        if (dbTable.length == 2) {
+            // 格式: database.table
+            database = dbTable[0];
+            tableName = dbTable[1];
+        } else if (dbTable.length == 1) {
+            // 格式: table (使用当前数据库)
+            if (resolveCurrentDatabase() == null) {
+                System.err.println("No database selected. Use 'use <database>' first or specify as <database>.<table>");
+                return;
+            }
+            database = resolveCurrentDatabase();
+            tableName = dbTable[0];
+        } else {
+            System.err.println("Invalid table name format, should be: <database>.<table> or <table>");
+            return;
+        }
+
+        String path = parts[2];
+        int currentIndex = 3;
+
+        ArrowIpcWriter.Format format = ArrowIpcWriter.Format.FILE;
+        if (currentIndex < parts.length && "stream".equalsIgnoreCase(parts[currentIndex])) {
+            format = ArrowIpcWriter.Format.STREAM;
+            currentIndex++;
+        }
+
+        long limit = -1;
+        if (currentIndex < parts.length && "limit".equalsIgnoreCase(parts[currentIndex])) {
+            try {
+                limit = Long.parseLong(parts[currentIndex + 1]);
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.err.println("Invalid limit, should be: limit <n>");
+                return;
+            }
+            currentIndex += 2;
+        }
+
+        // Parse filter expression if "where" keyword is present
+        String filter = null;
+        if (currentIndex < parts.length && parts[currentIndex].equalsIgnoreCase("where")) {
+            currentIndex++;
+            StringBuilder filterBuilder = new StringBuilder();
+            for (int i = currentIndex; i < parts.length; i++) {
+                if (i > currentIndex) {
+                    filterBuilder.append(" ");
+                }
+                filterBuilder.append(parts[i]);
+            }
+            filter = filterBuilder.toString();
+        } else if (currentIndex < parts.length) {
+            System.err.println("Unexpected argument: " + parts[currentIndex]);
+            return;
+        }
+
+        dataQueryService.exportTable(database, tableName, path, format, filter, limit);
+    }
+
+    /**
+     * Handle cache command
+     */
+    private void handleCacheCommand(String[] parts) {
+        LocalBlockCache cache = catalogManager.getBlockCache();
+        String action = parts.length > 1 ? parts[1].toLowerCase() : "stats";
+
+        if ("clear".equals(action)) {
+            if (cache == null) {
+                System.out.println("Local disk cache is not enabled for this warehouse");
+                return;
+            }
+            cache.clear();
+            System.out.println("Local disk cache cleared: " + cache.getDirectory());
+        } else if ("stats".equals(action)) {
+            CachingCatalog.CacheSizes metadata = catalogManager.getMetadataCacheSizes();
+            if (metadata != null) {
+                System.out.println("\nMetadata cache:");
+                System.out.println("  Tables:      " + metadata.tableCacheSize());
+                System.out.println("  Manifests:   " + metadata.manifestCacheSize() + " ("
+                        + new MemorySize(metadata.manifestCacheBytes()) + ")");
+                System.out.println("  Partitions:  " + metadata.partitionCacheSize());
+            }
+
+            if (cache == null) {
+                System.out.println("\nLocal disk cache: not enabled");
+                System.out.println();
+                return;
+            }
+            long requests = cache.getHits() + cache.getMisses();
+            System.out.println("\nLocal disk cache: " + cache.getDirectory());
+            System.out.println("  Size:        " + new MemorySize(cache.getTotalBytes()) + " / "
+                    + new MemorySize(cache.getMaxBytes()) + " (" + cache.getBlockCount() + " blocks)");
+            System.out.println("  Hits:        " + cache.getHits() + (requests > 0
+                    ? String.format(" (%.1f%%)", cache.getHits() * 100.0 / requests) : ""));
+            System.out.println("  Misses:      " + cache.getMisses());
+            System.out.println("  From cache:  " + new MemorySize(cache.getBytesFromCache()));
+            System.out.println("  Downloaded:  " + new MemorySize(cache.getBytesDownloaded()));
+            System.out.println("  Evictions:   " + cache.getEvictions());
+            System.out.println();
+        } else {
+            System.err.println("Usage: cache [stats|clear]");
+        }
+    }
+
+    /**
+     * Handle set command
+     */
+    private void handleSetCommand(String[] parts) {
+        StorageConfig config = catalogManager.getConfig();
+
+        if (parts.length > 1 && jobManager.hasRunningJobs()) {
+            System.err.println("Cannot change storage options while background jobs are running, see 'jobs'");
+            return;
+        }
+
+        if (parts.length == 1) {
+            System.out.println("\nStorage options:");
+            if (config.getProfileName() != null) {
+                System.out.println("  profile = " + config.getProfileName());
+            }
+            new TreeMap<>(config.getOptions()).forEach((key, value) -> {
+                if (!key.endsWith(".secret.key") && !StorageConfig.S3_PROFILE.equals(key)) {
+                    System.out.println("  " + key + " = " + value);
+                }
+            });
+            System.out.println("\nProfiles: " + Arrays.stream(S3PerformanceProfile.values())
+                    .map(S3PerformanceProfile::getProfileName)
+                    .collect(Collectors.joining(", ")));
+            System.out.println();
+            return;
+        }
+
+        if (parts.length != 3) {
+            System.err.println("Usage: set                        - show current options");
+            System.err.println("   or: set profile <name>         - apply an S3A performance profile");
+            System.err.println("   or: set <key> <value>          - change one option (fs.s3a.* or cli.*)");
+            return;
+        }
+
+        String key = parts[1];
+        String value = parts[2];
+        Map<String, String> previousOptions = new HashMap<>(config.getOptions());
+        if ("profile".equalsIgnoreCase(key)) {
+            if (config.getType() != StorageConfig.StorageType.S3) {
+                System.err.println("Performance profiles only apply to S3 storage");
+                return;
+            }
+            S3PerformanceProfile profile = S3PerformanceProfile.fromName(value);
+            if (profile == null) {
+                System.err.println("Unknown profile: " + value);
+                return;
+            }
+            config.applyProfile(profile);
+        } else if (key.startsWith("fs.s3a.") || key.startsWith(StorageConfig.CLI_OPTION_PREFIX)) {
+            try {
+                StorageConfig.validateOption(key, value);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+            config.getOptions().put(key, value);
+            if (key.startsWith("fs.s3a.")) {
+                // Hand-tuned options no longer match a named profile
+                config.getOptions().remove(StorageConfig.S3_PROFILE);
+            }
+        } else {
+            System.err.println("Only fs.s3a.* and cli.* options can be set");
+            return;
+        }
+
+        // Options are read when the catalog and its FileIO are created, so reconnect to apply them.
+        // The new connection is built first; the old one is only closed once it works.
+        CatalogManager previousCatalogManager = catalogManager;
+        DataQueryService previousDataQueryService = dataQueryService;
+        MetadataSnapshot previousMetadataSnapshot = metadataSnapshot;
+        try {
+            connect(config);
+        } catch (Exception e) {
+            config.getOptions().clear();
+            config.getOptions().putAll(previousOptions);
+            System.err.println("Failed to apply option, previous options restored: " + e.getMessage());
+            return;
+        }
+
+        try {
+            previousMetadataSnapshot.close();
+            previousDataQueryService.close();
+            previousCatalogManager.close();
+        } catch (Exception e) {
+            System.err.println("Failed to close previous connection: " + e.getMessage());
+        }
+        configHistoryManager.saveConfig(config);
+        System.out.println("Option applied, storage reconnected");
     }
 
     /**
      * Handle select command
-     * Supports: select <database>.<table> [limit|all] [where <filter>]
-     * Supports: select <table> [limit|all] [where <filter>] (when database is set)
+     * Supports: select <database>.<table> [limit|all] [sample <N>%|<N> rows] [where <filter>] [order by <col> [desc] [limit <n>]]
+     * Supports: select <table> [limit|all] [sample <N>%|<N> rows] [where <filter>] [order by ...] (when database is set)
      */
     private void handleSelectCommand(String[] parts) {
         if (parts.length < 2) {
-            System.err.println("Usage: select <database>.<table> [limit|all] [where <filter>]");
-            System.err.println("   or: select <table> [limit|all] [where <filter>] (when database is set)");
+            System.err.println("Usage: select <database>.<table> [limit|all] [sample <N>%|<N> rows] [format table|json|arrow <path>] [columns <col>,...] [where <filter>] [order by <col> [desc] [limit <n>]]");
+            System.err.println("   or: select <table> [limit|all] [sample <N>%|<N> rows] [format table|json|arrow <path>] [columns <col>,...] [where <filter>] [order by <col> [desc] [limit <n>]]");
+            System.err.println("       (when database is set)");
             System.err.println("Example: select default.users 10");
             System.err.println("Example: select users 10 (using current database)");
             System.err.println("Example: select default.users all");
             System.err.println("Example: select default.users all where age>18");
             System.err.println("Example: select default.users 10 where age>18");
             System.err.println("Example: select default.users where age>=18 AND name=Alice");
-            System.err.println("\nNote: Using 'all' enables pagination mode (5 rows per page, type 'it' to continue)");
+            System.err.println("Example: select default.users 10 sample 5%");
+            System.err.println("Example: select default.users 20 format table where age>18");
+            System.err.println("Example: select default.users where age>18 order by age desc limit 5");
+            System.err.println("Example: select default.users columns id,name where age>18");
+            System.err.println("Example: select default.users all format arrow /tmp/users.arrow columns id,name");
+            System.err.println("Example: select default.users$files columns partition,file_path,file_size_in_bytes where level=0");
+            System.err.println("\nNote: Using 'all' enables pagination mode (5 rows per page, type 'it' to continue, 'prev' or 'goto <n>' to go back)");
             return;
         }
 
@@ -497,11 +1543,11 @@ public class PaimonCLI {
             currentIndex = 2;
         } else if (dbTable.length == 1) {
             // 格式: table (使用当前数据库)
-            if (currentDatabase == null) {
+            if (resolveCurrentDatabase() == null) {
                 System.err.println("No database selected. Use 'use <database>' first or specify as <database>.<table>");
                 return;
             }
-            database = currentDatabase;
+            database = resolveCurrentDatabase();
             tableName = dbTable[0];
             currentIndex = 2;
         } else {
@@ -530,12 +1576,64 @@ public class PaimonCLI {
             }
         }
 
+        // Check for "sample" keyword
+        SampleSpec sample = null;
+        if (currentIndex < parts.length && "sample".equalsIgnoreCase(parts[currentIndex])) {
+            try {
+                sample = parseSampleClause(parts, currentIndex);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+            currentIndex += sampleClauseLength(sample);
+        }
+
+        // Check for "format table|json|arrow <path>"
+        OutputFormat format = OutputFormat.JSON;
+        String outputPath = null;
+        if (currentIndex < parts.length && "format".equalsIgnoreCase(parts[currentIndex])) {
+            try {
+                format = OutputFormat.valueOf(parts[currentIndex + 1].toUpperCase());
+                if (format == OutputFormat.ARROW) {
+                    outputPath = parts[currentIndex + 2];
+                    currentIndex++;
+                }
+            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+                System.err.println("Invalid format clause, should be: format table|json|arrow <path>");
+                return;
+            }
+            currentIndex += 2;
+        }
+
+        // Check for "columns <col>[,<col>...]"
+        List<String> columns = null;
+        if (currentIndex < parts.length && "columns".equalsIgnoreCase(parts[currentIndex])) {
+            if (currentIndex + 1 >= parts.length) {
+                System.err.println("Invalid columns clause, should be: columns <col>[,<col>...]");
+                return;
+            }
+            columns = Arrays.stream(parts[currentIndex + 1].split(","))
+                    .map(String::trim)
+                    .filter(column -> !column.isEmpty())
+                    .collect(Collectors.toList());
+            currentIndex += 2;
+        }
+
+        // Locate optional "order by" clause, the filter ends where it starts
+        int orderIndex = parts.length;
+        for (int i = currentIndex; i + 1 < parts.length; i++) {
+            if ("order".equalsIgnoreCase(parts[i]) && "by".equalsIgnoreCase(parts[i + 1])) {
+                orderIndex = i;
+                break;
+            }
+        }
+
         // Check for "where" keyword
-        if (currentIndex < parts.length && parts[currentIndex].equalsIgnoreCase("where")) {
+        if (currentIndex < orderIndex && parts[currentIndex].equalsIgnoreCase("where")) {
             currentIndex++;
-            // Collect remaining parts as filter expression
+            // Collect parts up to "order by" as filter expression
             StringBuilder filterBuilder = new StringBuilder();
-            for (int i = currentIndex; i < parts.length; i++) {
+            for (int i = currentIndex; i < orderIndex; i++) {
                 if (i > currentIndex) {
                     filterBuilder.append(" ");
                 }
@@ -544,12 +1642,159 @@ public class PaimonCLI {
             filter = filterBuilder.toString();
         }
 
+        // Check for "order by <column> [asc|desc] [limit <n>]"
+        OrderBySpec orderBy = null;
+        if (orderIndex < parts.length) {
+            currentIndex = orderIndex + 2;
+            if (currentIndex >= parts.length) {
+                System.err.println("Invalid order by clause, should be: order by <column> [asc|desc] [limit <n>]");
+                return;
+            }
+            String column = parts[currentIndex++];
+            boolean descending = false;
+            if (currentIndex < parts.length && ("desc".equalsIgnoreCase(parts[currentIndex])
+                    || "asc".equalsIgnoreCase(parts[currentIndex]))) {
+                descending = "desc".equalsIgnoreCase(parts[currentIndex]);
+                currentIndex++;
+            }
+            if (currentIndex + 1 < parts.length && "limit".equalsIgnoreCase(parts[currentIndex])) {
+                try {
+                    limit = Integer.parseInt(parts[currentIndex + 1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid limit: " + parts[currentIndex + 1]);
+                    return;
+                }
+            }
+            if (usePagination) {
+                System.err.println("Order by cannot be used with 'all', specify a limit instead");
+                return;
+            }
+            orderBy = new OrderBySpec(column, descending);
+        }
+
+        QueryOptions options = QueryOptions.defaults()
+                .withSample(sample)
+                .withOrderBy(orderBy)
+                .withFormat(format)
+                .withColumns(columns)
+                .withOutputPath(outputPath);
+
+        // Arrow output goes to a file, so 'all' writes every row instead of paging
+        if (usePagination && format == OutputFormat.ARROW) {
+            usePagination = false;
+            limit = 0;
+        }
+
         // Execute query with or without pagination
+        if (usePagination && BackgroundJob.current() != null) {
+            System.err.println("Pagination ('all') is not available in background jobs, use a limit or export instead");
+            return;
+        }
         if (usePagination) {
-            dataQueryService.selectTableWithPagination(database, tableName, filter);
+            dataQueryService.selectTableWithPagination(database, tableName, filter, 5, options);
         } else {
-            dataQueryService.selectTable(database, tableName, limit, filter);
+            dataQueryService.selectTable(database, tableName, limit, filter, options);
+        }
+    }
+
+    /**
+     * 当前数据库；后台任务使用提交时的数据库
+     */
+    private String resolveCurrentDatabase() {
+        BackgroundJob job = BackgroundJob.current();
+        return job != null ? job.getDatabase() : currentDatabase;
+    }
+
+    /**
+     * 在后台任务中执行命令，任务使用提交时的当前数据库
+     */
+    private void submitJob(String command) {
+        String name = command.split("\\s+")[0].toLowerCase();
+        if (!BACKGROUND_COMMANDS.contains(name)) {
+            System.err.println("Only " + String.join(", ", BACKGROUND_COMMANDS)
+                    + " can run in the background, e.g. count default.events &");
+            return;
+        }
+        BackgroundJob job = jobManager.submit(command, currentDatabase, () -> executeCommand(command));
+        System.out.println("[" + job.getId() + "] " + command);
+    }
+
+    /**
+     * Handle jobs command
+     */
+    private void handleJobsCommand() {
+        List<BackgroundJob> jobs = jobManager.getJobs();
+        if (jobs.isEmpty()) {
+            System.out.println("No background jobs");
+            return;
         }
+        System.out.println();
+        for (BackgroundJob job : jobs) {
+            String progress = job.getProgress();
+            long dropped = job.getDroppedOutputBytes();
+            System.out.println(String.format("[%d] %-9s %8.1fs  %s%s%s", job.getId(), job.getStatus().name().toLowerCase(),
+                    job.getElapsedMillis() / 1000.0, job.getCommand(), progress.isEmpty() ? "" : "  (" + progress + ")",
+                    dropped == 0 ? "" : "  [output truncated, " + dropped + " earlier byte(s) dropped]"));
+        }
+        System.out.println();
+    }
+
+    /**
+     * Handle wait, result and cancel commands for a background job
+     */
+    private void handleJobCommand(String command, String[] parts) {
+        if (parts.length != 2) {
+            System.err.println("Usage: " + command + " <job id>");
+            return;
+        }
+        BackgroundJob job;
+        try {
+            job = jobManager.getJob(Integer.parseInt(parts[1]));
+        } catch (NumberFormatException e) {
+            job = null;
+        }
+        if (job == null) {
+            System.err.println("No such job: " + parts[1] + ", see 'jobs'");
+            return;
+        }
+
+        if ("cancel".equals(command)) {
+            if (job.isFinished()) {
+                System.out.println("Job [" + job.getId() + "] already " + job.getStatus().name().toLowerCase());
+            } else {
+                job.cancel();
+                System.out.println("Cancelling job [" + job.getId() + "]");
+            }
+            return;
+        }
+
+        if ("wait".equals(command)) {
+            // Ctrl+C stops waiting, the job keeps running
+            waitInterrupted = false;
+            try {
+                while (!job.await(200, TimeUnit.MILLISECONDS)) {
+                    if (waitInterrupted) {
+                        System.out.println("\nStopped waiting for job [" + job.getId() + "], it keeps running");
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        System.out.println("[" + job.getId() + "] " + job.getStatus().name().toLowerCase() + "  " + job.getCommand()
+                + (job.getProgress().isEmpty() ? "" : "  (" + job.getProgress() + ")"));
+        // 只保留最后 1 MB 输出，更早的输出已丢弃
+        byte[] output = job.getOutput();
+        long dropped = job.getDroppedOutputBytes();
+        if (dropped > 0) {
+            System.out.println("... " + dropped + " earlier byte(s) of output dropped, showing the last "
+                    + output.length + " byte(s)");
+        }
+        System.out.write(output, 0, output.length);
+        System.out.flush();
     }
 
     /**
@@ -557,6 +1802,15 @@ public class PaimonCLI {
      */
     private void cleanup() {
         try {
+            if (jobManager != null) {
+                jobManager.close();
+            }
+            if (metadataSnapshot != null) {
+                metadataSnapshot.close();
+            }
+            if (dataQueryService != null) {
+                dataQueryService.close();
+            }
             if (catalogManager != null) {
                 catalogManager.close();
             }
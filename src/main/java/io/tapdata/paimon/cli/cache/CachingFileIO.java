@@ -0,0 +1,168 @@
+package io.tapdata.paimon.cli.cache;
+
+import org.apache.paimon.catalog.CatalogContext;
+import org.apache.paimon.fs.FileIO;
+import org.apache.paimon.fs.FileStatus;
+import org.apache.paimon.fs.Path;
+import org.apache.paimon.fs.PositionOutputStream;
+import org.apache.paimon.fs.RemoteIterator;
+import org.apache.paimon.fs.SeekableInputStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * FileIO that reads immutable Paimon files through the local block cache
+ * and delegates everything else to the FileIO resolved for the warehouse scheme.
+ */
+public class CachingFileIO implements FileIO {
+
+    private static final long serialVersionUID = 1L;
+
+    // File name prefixes of files Paimon never rewrites in place
+    private static final String[] IMMUTABLE_PREFIXES = {"data-", "changelog-", "manifest-", "index-"};
+
+    private final Path path;
+    private final transient LocalBlockCache cache;
+    private FileIO delegate;
+
+    public CachingFileIO(Path path, LocalBlockCache cache) {
+        this.path = path;
+        this.cache = cache;
+    }
+
+    @Override
+    public void configure(CatalogContext context) {
+        // Resolve the real FileIO from the same options, without this cache as preferred IO
+        try {
+            delegate = FileIO.get(path, CatalogContext.create(context.options(), context.hadoopConf()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isObjectStore() {
+        return delegate.isObjectStore();
+    }
+
+    @Override
+    public SeekableInputStream newInputStream(Path file) throws IOException {
+        if (cache == null || !isImmutable(file)) {
+            return delegate.newInputStream(file);
+        }
+        long length = cache.cachedLength(file.toString());
+        if (length < 0) {
+            length = delegate.getFileSize(file);
+        }
+        return new CachingInputStream(delegate, file, length, cache);
+    }
+
+    private static boolean isImmutable(Path file) {
+        String name = file.getName();
+        for (String prefix : IMMUTABLE_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public PositionOutputStream newOutputStream(Path file, boolean overwrite) throws IOException {
+        return delegate.newOutputStream(file, overwrite);
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path file) throws IOException {
+        return delegate.getFileStatus(file);
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path file) throws IOException {
+        return delegate.listStatus(file);
+    }
+
+    @Override
+    public FileStatus[] listFiles(Path file, boolean recursive) throws IOException {
+        return delegate.listFiles(file, recursive);
+    }
+
+    @Override
+    public RemoteIterator<FileStatus> listFilesIterative(Path file, boolean recursive) throws IOException {
+        return delegate.listFilesIterative(file, recursive);
+    }
+
+    @Override
+    public FileStatus[] listDirectories(Path file) throws IOException {
+        return delegate.listDirectories(file);
+    }
+
+    @Override
+    public boolean exists(Path file) throws IOException {
+        return delegate.exists(file);
+    }
+
+    @Override
+    public boolean delete(Path file, boolean recursive) throws IOException {
+        return delegate.delete(file, recursive);
+    }
+
+    @Override
+    public boolean mkdirs(Path file) throws IOException {
+        return delegate.mkdirs(file);
+    }
+
+    @Override
+    public boolean rename(Path src, Path dst) throws IOException {
+        return delegate.rename(src, dst);
+    }
+
+    @Override
+    public long getFileSize(Path file) throws IOException {
+        return delegate.getFileSize(file);
+    }
+
+    @Override
+    public boolean isDir(Path file) throws IOException {
+        return delegate.isDir(file);
+    }
+
+    @Override
+    public boolean tryToWriteAtomic(Path file, String content) throws IOException {
+        return delegate.tryToWriteAtomic(file, content);
+    }
+
+    @Override
+    public void writeFile(Path file, String content, boolean overwrite) throws IOException {
+        delegate.writeFile(file, content, overwrite);
+    }
+
+    @Override
+    public void overwriteFileUtf8(Path file, String content) throws IOException {
+        delegate.overwriteFileUtf8(file, content);
+    }
+
+    @Override
+    public void overwriteHintFile(Path file, String content) throws IOException {
+        delegate.overwriteHintFile(file, content);
+    }
+
+    @Override
+    public Optional<String> readOverwrittenFileUtf8(Path file) throws IOException {
+        return delegate.readOverwrittenFileUtf8(file);
+    }
+
+    @Override
+    public void copyFile(Path src, Path dst, boolean overwrite) throws IOException {
+        delegate.copyFile(src, dst, overwrite);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.tapdata.paimon.cli.cache;
+
+import org.apache.paimon.fs.FileIO;
+import org.apache.paimon.fs.FileIOLoader;
+import org.apache.paimon.fs.Path;
+
+/**
+ * Preferred FileIO loader that wraps the warehouse FileIO with the local block cache
+ */
+public class CachingFileIOLoader implements FileIOLoader {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String scheme;
+    private final transient LocalBlockCache cache;
+
+    public CachingFileIOLoader(String scheme, LocalBlockCache cache) {
+        this.scheme = scheme;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getScheme() {
+        return scheme;
+    }
+
+    @Override
+    public FileIO load(Path path) {
+        return new CachingFileIO(path, cache);
+    }
+}
@@ -0,0 +1,120 @@
+package io.tapdata.paimon.cli.cache;
+
+import org.apache.paimon.fs.FileIO;
+import org.apache.paimon.fs.Path;
+import org.apache.paimon.fs.SeekableInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Input stream that serves reads block by block from the local block cache.
+ * The remote stream is only opened on the first miss and kept open, so consecutive
+ * missing blocks are downloaded with one sequential read.
+ */
+public class CachingInputStream extends SeekableInputStream {
+
+    private final FileIO delegate;
+    private final Path path;
+    private final String pathKey;
+    private final long length;
+    private final LocalBlockCache cache;
+
+    private final byte[] block = new byte[LocalBlockCache.BLOCK_SIZE];
+    private long blockIndex = -1;
+    private int blockLength;
+
+    private SeekableInputStream remote;
+    private long pos;
+
+    public CachingInputStream(FileIO delegate, Path path, long length, LocalBlockCache cache) {
+        this.delegate = delegate;
+        this.path = path;
+        this.pathKey = path.toString();
+        this.length = length;
+        this.cache = cache;
+    }
+
+    @Override
+    public void seek(long desired) throws IOException {
+        if (desired < 0 || desired > length) {
+            throw new EOFException("Cannot seek to " + desired + " in " + path + " of length " + length);
+        }
+        pos = desired;
+    }
+
+    @Override
+    public long getPos() {
+        return pos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos >= length) {
+            return -1;
+        }
+        // Serve the byte straight from the current block
+        loadBlock(pos / LocalBlockCache.BLOCK_SIZE);
+        return block[(int) (pos++ % LocalBlockCache.BLOCK_SIZE)] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+
+        int total = 0;
+        while (len > 0 && pos < length) {
+            loadBlock(pos / LocalBlockCache.BLOCK_SIZE);
+            int offsetInBlock = (int) (pos % LocalBlockCache.BLOCK_SIZE);
+            int n = Math.min(len, blockLength - offsetInBlock);
+            System.arraycopy(block, offsetInBlock, b, off, n);
+            pos += n;
+            off += n;
+            len -= n;
+            total += n;
+        }
+        return total;
+    }
+
+    private void loadBlock(long index) throws IOException {
+        if (index == blockIndex) {
+            return;
+        }
+        long start = index * LocalBlockCache.BLOCK_SIZE;
+        int size = (int) Math.min(LocalBlockCache.BLOCK_SIZE, length - start);
+
+        if (!cache.readBlock(pathKey, length, index, block, size)) {
+            if (remote == null) {
+                remote = delegate.newInputStream(path);
+            }
+            if (remote.getPos() != start) {
+                remote.seek(start);
+            }
+            int read = 0;
+            while (read < size) {
+                int n = remote.read(block, read, size - read);
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of " + path + " at " + (start + read));
+                }
+                read += n;
+            }
+            cache.writeBlock(pathKey, length, index, block, size);
+        }
+
+        blockIndex = index;
+        blockLength = size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (remote != null) {
+            remote.close();
+            remote = null;
+        }
+    }
+}
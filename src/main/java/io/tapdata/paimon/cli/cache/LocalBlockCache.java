@@ -0,0 +1,292 @@
+package io.tapdata.paimon.cli.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded block cache for immutable warehouse files on local disk.
+ * Files are split into fixed-size blocks stored under {@code <dir>/<hash(path)>-<length>/<block>.blk},
+ * so an entry is keyed on path and length and a rewritten file never hits stale blocks.
+ * Blocks are evicted in LRU order; the cache directory is rescanned on startup, so cached
+ * blocks survive CLI sessions.
+ */
+public class LocalBlockCache {
+
+    public static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final String BLOCK_SUFFIX = ".blk";
+
+    private final File directory;
+    private final long maxBytes;
+
+    // Block key -> block size, in access order
+    private final LinkedHashMap<String, Long> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    // Path hash -> file length, so cached files can be opened without asking the object store
+    private final Map<String, Long> lengths = new HashMap<>();
+    // File directory (<hash>-<length>) -> number of cached blocks, the directory goes with its last block
+    private final Map<String, Integer> blockCounts = new HashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesFromCache = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LocalBlockCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        directory.mkdirs();
+        load();
+    }
+
+    /**
+     * Rebuild the index from the blocks left by earlier sessions, least recently used first
+     */
+    private synchronized void load() {
+        List<File> found = new ArrayList<>();
+        File[] fileDirs = directory.listFiles(File::isDirectory);
+        if (fileDirs == null) {
+            return;
+        }
+        for (File fileDir : fileDirs) {
+            int dash = fileDir.getName().lastIndexOf('-');
+            if (dash <= 0) {
+                continue;
+            }
+            long length;
+            try {
+                length = Long.parseLong(fileDir.getName().substring(dash + 1));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            File[] blockFiles = fileDir.listFiles((dir, name) -> name.endsWith(BLOCK_SUFFIX));
+            if (blockFiles == null || blockFiles.length == 0) {
+                fileDir.delete();
+                continue;
+            }
+            lengths.put(fileDir.getName().substring(0, dash), length);
+            found.addAll(List.of(blockFiles));
+        }
+
+        found.sort(Comparator.comparingLong(File::lastModified));
+        for (File blockFile : found) {
+            String key = blockFile.getParentFile().getName() + "/" + blockFile.getName();
+            blocks.put(key, blockFile.length());
+            blockCounts.merge(blockFile.getParentFile().getName(), 1, Integer::sum);
+            totalBytes += blockFile.length();
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Cached length of a file, or -1 if the file has no cached blocks
+     */
+    public synchronized long cachedLength(String path) {
+        Long length = lengths.get(hash(path));
+        return length == null ? -1 : length;
+    }
+
+    /**
+     * Read a cached block into the buffer, returns false on a miss
+     */
+    public boolean readBlock(String path, long length, long blockIndex, byte[] buffer, int blockLength) {
+        String key = blockKey(path, length, blockIndex);
+        synchronized (this) {
+            // get() rather than containsKey() so the hit moves the block to the recent end
+            if (blocks.get(key) == null) {
+                misses.incrementAndGet();
+                return false;
+            }
+        }
+
+        File blockFile = new File(directory, key);
+        try {
+            byte[] bytes = Files.readAllBytes(blockFile.toPath());
+            if (bytes.length != blockLength) {
+                remove(key);
+                misses.incrementAndGet();
+                return false;
+            }
+            System.arraycopy(bytes, 0, buffer, 0, blockLength);
+            // Keep the on-disk recency in line with the in-memory order for the next session
+            blockFile.setLastModified(System.currentTimeMillis());
+        } catch (IOException e) {
+            remove(key);
+            misses.incrementAndGet();
+            return false;
+        }
+
+        hits.incrementAndGet();
+        bytesFromCache.addAndGet(blockLength);
+        return true;
+    }
+
+    /**
+     * Store a block downloaded from the warehouse
+     */
+    public void writeBlock(String path, long length, long blockIndex, byte[] buffer, int blockLength) {
+        bytesDownloaded.addAndGet(blockLength);
+        if (blockLength > maxBytes) {
+            return;
+        }
+
+        String key = blockKey(path, length, blockIndex);
+        File blockFile = new File(directory, key);
+        try {
+            blockFile.getParentFile().mkdirs();
+            // Write to a temporary file first so readers never see a partial block
+            File tempFile = File.createTempFile("block", ".tmp", blockFile.getParentFile());
+            Files.write(tempFile.toPath(), Arrays.copyOf(buffer, blockLength));
+            Files.move(tempFile.toPath(), blockFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The cache is best effort, the block was already read from the warehouse
+            return;
+        }
+
+        synchronized (this) {
+            Long previous = blocks.put(key, (long) blockLength);
+            totalBytes += blockLength - (previous == null ? 0 : previous);
+            if (previous == null) {
+                blockCounts.merge(fileDir(key), 1, Integer::sum);
+            }
+            lengths.put(hash(path), length);
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Remove every cached block
+     */
+    public synchronized void clear() {
+        for (String key : new ArrayList<>(blocks.keySet())) {
+            remove(key);
+        }
+        File[] fileDirs = directory.listFiles(File::isDirectory);
+        if (fileDirs != null) {
+            for (File fileDir : fileDirs) {
+                File[] children = fileDir.listFiles();
+                if (children != null) {
+                    for (File child : children) {
+                        child.delete();
+                    }
+                }
+                fileDir.delete();
+            }
+        }
+        lengths.clear();
+        blockCounts.clear();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> iterator = blocks.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            new File(directory, eldest.getKey()).delete();
+            blockRemoved(eldest.getKey());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = blocks.remove(key);
+        new File(directory, key).delete();
+        if (size != null) {
+            totalBytes -= size;
+            blockRemoved(key);
+        }
+    }
+
+    /**
+     * Drop the directory and cached length of a file once its last block is gone
+     */
+    private void blockRemoved(String key) {
+        String fileDir = fileDir(key);
+        if (blockCounts.merge(fileDir, -1, Integer::sum) > 0) {
+            return;
+        }
+        blockCounts.remove(fileDir);
+        // Fails while a block of the file is being written, which then stays cached with its directory
+        new File(directory, fileDir).delete();
+        int dash = fileDir.lastIndexOf('-');
+        String hash = fileDir.substring(0, dash);
+        // The length may already belong to a rewritten version of the file
+        if (String.valueOf(lengths.get(hash)).equals(fileDir.substring(dash + 1))) {
+            lengths.remove(hash);
+        }
+    }
+
+    private static String fileDir(String key) {
+        return key.substring(0, key.indexOf('/'));
+    }
+
+    private static String blockKey(String path, long length, long blockIndex) {
+        return hash(path) + "-" + length + "/" + blockIndex + BLOCK_SUFFIX;
+    }
+
+    private static String hash(String path) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(path.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getBlockCount() {
+        return blocks.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getBytesFromCache() {
+        return bytesFromCache.get();
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -1,14 +1,22 @@
 package io.tapdata.paimon.cli.catalog;
 
+import io.tapdata.paimon.cli.cache.CachingFileIOLoader;
+import io.tapdata.paimon.cli.cache.LocalBlockCache;
 import io.tapdata.paimon.cli.config.StorageConfig;
+import io.tapdata.paimon.cli.jfr.CatalogLookupEvent;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.paimon.catalog.CachingCatalog;
 import org.apache.paimon.catalog.Catalog;
 import org.apache.paimon.catalog.CatalogContext;
 import org.apache.paimon.catalog.CatalogFactory;
 import org.apache.paimon.catalog.Identifier;
+import org.apache.paimon.fs.Path;
+import org.apache.paimon.options.CatalogOptions;
+import org.apache.paimon.options.MemorySize;
 import org.apache.paimon.options.Options;
 import org.apache.paimon.table.Table;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -18,6 +26,7 @@ public class CatalogManager implements AutoCloseable {
     
     private final Catalog catalog;
     private final StorageConfig config;
+    private LocalBlockCache blockCache;
     
     public CatalogManager(StorageConfig config) throws Exception {
         this.config = config;
@@ -31,11 +40,31 @@ public class CatalogManager implements AutoCloseable {
         Options options = new Options();
         options.set("warehouse", config.getWarehouse());
 
+        // 元数据缓存：表、快照和 manifest 文件在会话内共享，按内存预算淘汰。
+        // 设置 manifest 最大内存后所有 manifest 文件都会被缓存，而不仅是小文件
+        options.set(CatalogOptions.CACHE_ENABLED, true);
+        options.set(CatalogOptions.CACHE_MANIFEST_MAX_MEMORY, MemorySize.parse(config.getOptions()
+                .getOrDefault(StorageConfig.METADATA_CACHE_MAX_MEMORY, StorageConfig.DEFAULT_METADATA_CACHE_MAX_MEMORY)));
+
         // 创建 Hadoop Configuration 并设置 S3 配置
         Configuration hadoopConf = new Configuration();
-        config.getOptions().forEach(hadoopConf::set);
+        config.getOptions().forEach((key, value) -> {
+            if (!key.startsWith(StorageConfig.CLI_OPTION_PREFIX)) {
+                hadoopConf.set(key, value);
+            }
+        });
+
+        // 启用本地缓存时，通过 preferIO 包装仓库的 FileIO
+        CachingFileIOLoader cachingLoader = null;
+        if (config.isLocalCacheEnabled()) {
+            blockCache = new LocalBlockCache(
+                    new File(config.getOptions().getOrDefault(StorageConfig.CACHE_DIR, StorageConfig.DEFAULT_CACHE_DIR)),
+                    MemorySize.parse(config.getOptions().getOrDefault(
+                            StorageConfig.CACHE_MAX_SIZE, StorageConfig.DEFAULT_CACHE_MAX_SIZE)).getBytes());
+            cachingLoader = new CachingFileIOLoader(new Path(config.getWarehouse()).toUri().getScheme(), blockCache);
+        }
 
-        CatalogContext context = CatalogContext.create(options, hadoopConf);
+        CatalogContext context = CatalogContext.create(options, hadoopConf, cachingLoader, null);
         return CatalogFactory.createCatalog(context);
     }
     
@@ -43,32 +72,44 @@ public class CatalogManager implements AutoCloseable {
      * 获取所有数据库列表
      */
     public List<String> listDatabases() throws Exception {
-        return catalog.listDatabases();
+        CatalogLookupEvent event = lookupEvent("listDatabases", null, null);
+        List<String> databases = catalog.listDatabases();
+        commit(event, true);
+        return databases;
     }
     
     /**
      * 获取指定数据库的所有表
      */
     public List<String> listTables(String database) throws Exception {
-        return catalog.listTables(database);
+        CatalogLookupEvent event = lookupEvent("listTables", database, null);
+        List<String> tables = catalog.listTables(database);
+        commit(event, true);
+        return tables;
     }
     
     /**
      * 获取表对象
      */
     public Table getTable(String database, String tableName) throws Exception {
+        CatalogLookupEvent event = lookupEvent("getTable", database, tableName);
         Identifier identifier = Identifier.create(database, tableName);
-        return catalog.getTable(identifier);
+        Table table = catalog.getTable(identifier);
+        commit(event, true);
+        return table;
     }
     
     /**
      * 检查数据库是否存在
      */
     public boolean databaseExists(String database) {
+        CatalogLookupEvent event = lookupEvent("getDatabase", database, null);
         try {
             catalog.getDatabase(database);
+            commit(event, true);
             return true;
         } catch (Catalog.DatabaseNotExistException e) {
+            commit(event, false);
             return false;
         }
     }
@@ -77,14 +118,37 @@ public class CatalogManager implements AutoCloseable {
      * 检查表是否存在
      */
     public boolean tableExists(String database, String tableName) {
+        CatalogLookupEvent event = lookupEvent("tableExists", database, tableName);
         try {
             Identifier identifier = Identifier.create(database, tableName);
             catalog.getTable(identifier);
+            commit(event, true);
             return true;
         } catch (Catalog.TableNotExistException e) {
+            commit(event, false);
             return false;
         }
     }
+
+    /**
+     * 开始记录一次 Catalog 调用的 JFR 事件
+     */
+    private static CatalogLookupEvent lookupEvent(String operation, String database, String tableName) {
+        CatalogLookupEvent event = new CatalogLookupEvent();
+        event.operation = operation;
+        event.database = database;
+        event.table = tableName;
+        event.begin();
+        return event;
+    }
+
+    private static void commit(CatalogLookupEvent event, boolean found) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.found = found;
+            event.commit();
+        }
+    }
     
     public Catalog getCatalog() {
         return catalog;
@@ -93,6 +157,32 @@ public class CatalogManager implements AutoCloseable {
     public StorageConfig getConfig() {
         return config;
     }
+
+    /**
+     * 获取元数据缓存的估算大小，Catalog 未启用缓存时返回 null
+     */
+    public CachingCatalog.CacheSizes getMetadataCacheSizes() {
+        if (catalog instanceof CachingCatalog) {
+            return ((CachingCatalog) catalog).estimatedCacheSizes();
+        }
+        return null;
+    }
+
+    /**
+     * 表被本进程修改（如 compact）后，丢弃缓存的表对象及其分区信息
+     */
+    public void invalidateTable(String database, String tableName) {
+        if (catalog instanceof CachingCatalog) {
+            ((CachingCatalog) catalog).invalidateTable(Identifier.create(database, tableName));
+        }
+    }
+
+    /**
+     * 获取本地磁盘块缓存，未启用时返回 null
+     */
+    public LocalBlockCache getBlockCache() {
+        return blockCache;
+    }
     
     @Override
     public void close() throws Exception {
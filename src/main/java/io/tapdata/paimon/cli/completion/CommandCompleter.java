@@ -0,0 +1,211 @@
+package io.tapdata.paimon.cli.completion;
+
+import org.jline.builtins.Completers;
+import org.jline.reader.Candidate;
+import org.jline.reader.Completer;
+import org.jline.reader.LineReader;
+import org.jline.reader.ParsedLine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Completes commands, their keywords, databases, tables and column names. Catalog names come
+ * from a {@link MetadataSnapshot}, so completing never waits for storage; names that are not
+ * loaded yet show up at a later press of Tab.
+ */
+public class CommandCompleter implements Completer {
+
+    private static final List<String> COMMANDS = Arrays.asList("show", "use", "desc", "describe", "count", "select",
+            "get", "export", "diff", "analyze", "compact", "load", "generate", "expire", "remove", "bench", "cache",
+            "set", "bg", "jobs", "wait", "result", "cancel", "help", "exit", "quit");
+
+    /**
+     * Paimon system tables, queried as {@code <table>$<name>}
+     */
+    private static final List<String> SYSTEM_TABLES = Arrays.asList("snapshots", "schemas", "options", "tags",
+            "branches", "consumers", "files", "manifests", "partitions", "buckets", "statistics", "audit_log", "ro");
+
+    /**
+     * Fixed words after a command, by position
+     */
+    private static final Map<String, List<List<String>>> SUBCOMMANDS = new HashMap<>();
+
+    /**
+     * Position of the table argument(s) of a command
+     */
+    private static final Map<String, List<Integer>> TABLE_ARGUMENTS = new HashMap<>();
+
+    /**
+     * Option keywords offered after the table argument
+     */
+    private static final Map<String, List<String>> OPTIONS = new HashMap<>();
+
+    static {
+        SUBCOMMANDS.put("show", Collections.singletonList(Arrays.asList("databases", "tables")));
+        SUBCOMMANDS.put("analyze", Collections.singletonList(Collections.singletonList("health")));
+        SUBCOMMANDS.put("expire", Collections.singletonList(Collections.singletonList("snapshots")));
+        SUBCOMMANDS.put("remove", Arrays.asList(Collections.singletonList("orphan"), Collections.singletonList("files")));
+        SUBCOMMANDS.put("cache", Collections.singletonList(Arrays.asList("stats", "clear")));
+        SUBCOMMANDS.put("set", Collections.singletonList(Collections.singletonList("profile")));
+
+        for (String command : Arrays.asList("desc", "describe", "count", "select", "get", "export", "compact", "generate")) {
+            TABLE_ARGUMENTS.put(command, Collections.singletonList(1));
+        }
+        TABLE_ARGUMENTS.put("diff", Arrays.asList(1, 2));
+        TABLE_ARGUMENTS.put("analyze", Collections.singletonList(2));
+        TABLE_ARGUMENTS.put("expire", Collections.singletonList(2));
+        TABLE_ARGUMENTS.put("remove", Collections.singletonList(3));
+        TABLE_ARGUMENTS.put("load", Collections.singletonList(3));
+
+        OPTIONS.put("count", Arrays.asList("distinct", "exact", "sample", "rows", "where", "and"));
+        OPTIONS.put("select", Arrays.asList("all", "sample", "rows", "format", "table", "json", "arrow", "columns",
+                "where", "and", "order", "by", "desc", "limit"));
+        OPTIONS.put("export", Arrays.asList("stream", "limit", "where", "and"));
+        OPTIONS.put("get", Collections.singletonList("and"));
+        OPTIONS.put("diff", Collections.singletonList("limit"));
+        OPTIONS.put("analyze", Collections.singletonList("top"));
+        OPTIONS.put("compact", Collections.singletonList("parallelism"));
+        OPTIONS.put("load", Arrays.asList("format", "csv", "json", "parquet", "delimiter", "parallelism"));
+        OPTIONS.put("generate", Arrays.asList("rows", "column", "primary-key", "partition", "buckets", "batch",
+                "parallelism", "seed"));
+        OPTIONS.put("expire", Arrays.asList("retain_max", "retain_min", "older_than", "parallelism", "dry-run"));
+        OPTIONS.put("remove", Arrays.asList("older_than", "parallelism", "dry-run"));
+        OPTIONS.put("bench", Arrays.asList("rows", "columns", "partitions", "buckets", "iterations", "warmup",
+                "warehouse", "option", "output"));
+    }
+
+    private final Supplier<MetadataSnapshot> snapshot;
+    private final Supplier<String> currentDatabase;
+    private final Completer fileNames = new Completers.FileNameCompleter();
+
+    /**
+     * @param snapshot        metadata of the connected catalog, null before connecting
+     * @param currentDatabase database selected with 'use', or null
+     */
+    public CommandCompleter(Supplier<MetadataSnapshot> snapshot, Supplier<String> currentDatabase) {
+        this.snapshot = snapshot;
+        this.currentDatabase = currentDatabase;
+    }
+
+    @Override
+    public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
+        List<String> words = line.words();
+        int index = line.wordIndex();
+        int offset = 0;
+        // 'bg <command>' completes like the command itself
+        while (index > offset && "bg".equalsIgnoreCase(words.get(offset))) {
+            offset++;
+        }
+        if (index == offset) {
+            addAll(candidates, COMMANDS, "commands", true);
+            return;
+        }
+
+        String command = words.get(offset).toLowerCase();
+        int position = index - offset;
+        MetadataSnapshot metadata = snapshot.get();
+
+        if (("load".equals(command) && position == 1) || ("export".equals(command) && position == 2)
+                || ("bench".equals(command) && position > 1
+                && Arrays.asList("warehouse", "output").contains(words.get(index - 1).toLowerCase()))
+                || ("select".equals(command) && position > 2 && "arrow".equalsIgnoreCase(words.get(index - 1)))) {
+            fileNames.complete(reader, line, candidates);
+            return;
+        }
+        if ("load".equals(command) && position == 2) {
+            candidates.add(new Candidate("into"));
+            return;
+        }
+
+        List<List<String>> subcommands = SUBCOMMANDS.get(command);
+        if (subcommands != null && position <= subcommands.size()) {
+            addAll(candidates, subcommands.get(position - 1), "keywords", true);
+            return;
+        }
+        if (metadata == null) {
+            return;
+        }
+        if (("use".equals(command) && position == 1)
+                || ("show".equals(command) && position == 2 && "tables".equalsIgnoreCase(words.get(offset + 1)))) {
+            addAll(candidates, metadata.databases(), "databases", true);
+            return;
+        }
+
+        List<Integer> tableArguments = TABLE_ARGUMENTS.get(command);
+        if (tableArguments == null) {
+            addAll(candidates, OPTIONS.getOrDefault(command, Collections.emptyList()), "keywords", true);
+            return;
+        }
+        if (tableArguments.contains(position)) {
+            completeTable(metadata, line.word().substring(0, line.wordCursor()), candidates);
+            return;
+        }
+
+        int lastTable = tableArguments.get(tableArguments.size() - 1);
+        if (position > lastTable) {
+            addAll(candidates, OPTIONS.getOrDefault(command, Collections.emptyList()), "keywords", true);
+            String[] table = resolveTable(words.get(offset + lastTable));
+            if (table != null) {
+                // Columns are usually followed by an operator or a value, so no space is appended
+                addAll(candidates, metadata.columns(table[0], table[1]), "columns", false);
+            }
+        }
+    }
+
+    /**
+     * Candidates for a [database.]table[$system] word: 'database.' and the tables of the current
+     * database, the tables of the database already typed, or the system tables of the table typed
+     */
+    private void completeTable(MetadataSnapshot metadata, String word, List<Candidate> candidates) {
+        int dollar = word.indexOf('$');
+        if (dollar >= 0) {
+            String table = word.substring(0, dollar);
+            for (String systemTable : SYSTEM_TABLES) {
+                candidates.add(new Candidate(table + "$" + systemTable, table + "$" + systemTable, "system tables",
+                        null, null, null, true));
+            }
+            return;
+        }
+        int dot = word.indexOf('.');
+        if (dot >= 0) {
+            String database = word.substring(0, dot);
+            for (String table : metadata.tables(database)) {
+                candidates.add(new Candidate(database + "." + table, database + "." + table, "tables",
+                        null, null, null, true));
+            }
+            return;
+        }
+        for (String database : metadata.databases()) {
+            candidates.add(new Candidate(database + ".", database + ".", "databases", null, null, null, false));
+        }
+        String database = currentDatabase.get();
+        if (database != null) {
+            addAll(candidates, metadata.tables(database), "tables", true);
+        }
+    }
+
+    /**
+     * {database, table} of a table argument, ignoring a snapshot suffix, or null if unknown
+     */
+    private String[] resolveTable(String word) {
+        int at = word.indexOf('@');
+        String ref = at >= 0 ? word.substring(0, at) : word;
+        String[] parts = ref.split("\\.");
+        if (parts.length == 2) {
+            return parts;
+        }
+        String database = currentDatabase.get();
+        return parts.length == 1 && database != null ? new String[] {database, parts[0]} : null;
+    }
+
+    private static void addAll(List<Candidate> candidates, List<String> values, String group, boolean complete) {
+        for (String value : values) {
+            candidates.add(new Candidate(value, value, group, null, null, null, complete));
+        }
+    }
+}
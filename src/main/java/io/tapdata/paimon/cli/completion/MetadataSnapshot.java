@@ -0,0 +1,118 @@
+package io.tapdata.paimon.cli.completion;
+
+import io.tapdata.paimon.cli.catalog.CatalogManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * In-memory snapshot of the databases, tables and columns of a catalog, for tab completion.
+ * Lookups never touch storage: they return what has been loaded and, when an entry is missing or
+ * older than the refresh interval, queue a reload on a background thread, so a later completion
+ * sees the result. Each entry has at most one reload in flight, and a failed reload keeps the old
+ * value until the next interval.
+ */
+public class MetadataSnapshot implements AutoCloseable {
+
+    private static final int REFRESH_THREADS = 2;
+
+    private final CatalogManager catalogManager;
+    private final long refreshIntervalMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    private volatile long staleBeforeMillis;
+
+    public MetadataSnapshot(CatalogManager catalogManager, long refreshIntervalMillis) {
+        this.catalogManager = catalogManager;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.refresher = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "paimon-cli-completion");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start loading the databases and the tables of the given database, if any
+     */
+    public void preload(String database) {
+        databases();
+        if (database != null) {
+            tables(database);
+        }
+    }
+
+    public List<String> databases() {
+        return lookup("databases", catalogManager::listDatabases);
+    }
+
+    public List<String> tables(String database) {
+        return lookup("tables:" + database, () -> catalogManager.listTables(database));
+    }
+
+    public List<String> columns(String database, String table) {
+        return lookup("columns:" + database + "." + table,
+                () -> catalogManager.getTable(database, table).rowType().getFieldNames());
+    }
+
+    /**
+     * Treat everything loaded so far as stale, e.g. after a command created a table; the old
+     * values are still served until the reloads finish
+     */
+    public void invalidate() {
+        staleBeforeMillis = System.currentTimeMillis();
+    }
+
+    private List<String> lookup(String key, Callable<List<String>> loader) {
+        Entry entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry == null || entry.loadedAtMillis < staleBeforeMillis
+                || now - entry.loadedAtMillis > refreshIntervalMillis) {
+            reload(key, loader);
+        }
+        return entry == null ? Collections.emptyList() : entry.values;
+    }
+
+    private void reload(String key, Callable<List<String>> loader) {
+        if (!pending.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    entries.put(key, new Entry(loader.call()));
+                } catch (Exception e) {
+                    // Not found or storage unavailable: keep what we had and retry after the interval
+                    Entry old = entries.get(key);
+                    entries.put(key, new Entry(old == null ? Collections.emptyList() : old.values));
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+        }
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private static class Entry {
+        final List<String> values;
+        final long loadedAtMillis = System.currentTimeMillis();
+
+        Entry(List<String> values) {
+            this.values = Collections.unmodifiableList(values);
+        }
+    }
+}
@@ -136,7 +136,9 @@ public class ConfigHistoryManager {
     private StorageConfig parseConfig(StorageConfig.StorageType type, String warehouse, List<String> options) {
         try {
             if (type == StorageConfig.StorageType.LOCAL) {
-                return StorageConfig.createLocal(warehouse);
+                StorageConfig config = StorageConfig.createLocal(warehouse);
+                restoreOptions(config, options);
+                return config;
             } else if (type == StorageConfig.StorageType.S3) {
                 String accessKey = "";
                 String secretKey = "";
@@ -161,7 +163,9 @@ public class ConfigHistoryManager {
                     }
                 }
                 
-                return StorageConfig.createS3(warehouse, accessKey, secretKey, endpoint, region);
+                StorageConfig config = StorageConfig.createS3(warehouse, accessKey, secretKey, endpoint, region);
+                restoreOptions(config, options);
+                return config;
             }
         } catch (Exception e) {
             System.err.println("Failed to parse config: " + e.getMessage());
@@ -170,6 +174,18 @@ public class ConfigHistoryManager {
         return null;
     }
     
+    /**
+     * 恢复其余选项（例如性能配置模板、缓存配置和 set 命令修改的参数）
+     */
+    private void restoreOptions(StorageConfig config, List<String> options) {
+        for (String option : options) {
+            String[] parts = option.split("=", 2);
+            if (parts.length == 2) {
+                config.getOptions().put(parts[0], parts[1]);
+            }
+        }
+    }
+    
     /**
      * 写入历史记录到文件
      */
@@ -239,6 +255,10 @@ public class ConfigHistoryManager {
             if (endpoint != null && !endpoint.isEmpty()) {
                 sb.append(" (endpoint: ").append(endpoint).append(")");
             }
+            String profile = config.getProfileName();
+            if (profile != null) {
+                sb.append(" [").append(profile).append("]");
+            }
         }
         
         return sb.toString();
@@ -0,0 +1,65 @@
+package io.tapdata.paimon.cli.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * S3A 性能配置模板，按访问模式预设连接池、线程数、预读和 vectored IO 参数
+ */
+public enum S3PerformanceProfile {
+
+    /**
+     * 交互式随机读：Parquet footer 和列块的小范围随机读取，关闭大块预读
+     */
+    INTERACTIVE_RANDOM_READ("interactive-random-read",
+            "fs.s3a.connection.maximum", "200",
+            "fs.s3a.threads.max", "64",
+            "fs.s3a.experimental.input.fadvise", "random",
+            "fs.s3a.readahead.range", "256K",
+            "fs.s3a.vectored.read.min.seek.size", "64K",
+            "fs.s3a.vectored.read.max.merged.size", "2M",
+            "fs.s3a.multipart.size", "64M"),
+
+    /**
+     * 批量顺序导出：整文件顺序读取和大文件上传，使用大预读和大分片
+     */
+    BULK_SEQUENTIAL_EXPORT("bulk-sequential-export",
+            "fs.s3a.connection.maximum", "100",
+            "fs.s3a.threads.max", "128",
+            "fs.s3a.experimental.input.fadvise", "sequential",
+            "fs.s3a.readahead.range", "8M",
+            "fs.s3a.vectored.read.min.seek.size", "1M",
+            "fs.s3a.vectored.read.max.merged.size", "8M",
+            "fs.s3a.multipart.size", "128M",
+            "fs.s3a.fast.upload.active.blocks", "8");
+
+    private final String profileName;
+    private final Map<String, String> options = new LinkedHashMap<>();
+
+    S3PerformanceProfile(String profileName, String... keyValues) {
+        this.profileName = profileName;
+        for (int i = 0; i < keyValues.length; i += 2) {
+            options.put(keyValues[i], keyValues[i + 1]);
+        }
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    /**
+     * 按名称查找配置模板，未找到时返回 null
+     */
+    public static S3PerformanceProfile fromName(String name) {
+        for (S3PerformanceProfile profile : values()) {
+            if (profile.profileName.equalsIgnoreCase(name)) {
+                return profile;
+            }
+        }
+        return null;
+    }
+}
@@ -1,6 +1,11 @@
 package io.tapdata.paimon.cli.config;
 
+import org.apache.paimon.options.MemorySize;
+import org.apache.paimon.utils.TimeUtils;
+
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -12,6 +17,44 @@ public class StorageConfig {
         LOCAL,
         S3
     }
+
+    /**
+     * CLI 自身的选项前缀，这些选项不会传给 Hadoop
+     */
+    public static final String CLI_OPTION_PREFIX = "cli.";
+    public static final String CACHE_ENABLED = "cli.cache.enabled";
+    public static final String CACHE_DIR = "cli.cache.dir";
+    public static final String CACHE_MAX_SIZE = "cli.cache.max-size";
+    public static final String DEFAULT_CACHE_DIR = System.getProperty("user.home") + "/.paimon-cli/cache";
+    public static final String DEFAULT_CACHE_MAX_SIZE = "10 gb";
+    public static final String S3_PROFILE = "cli.s3.profile";
+    public static final String METADATA_CACHE_MAX_MEMORY = "cli.metadata-cache.max-memory";
+    public static final String DEFAULT_METADATA_CACHE_MAX_MEMORY = "256 mb";
+    public static final String PREFETCH_SPLITS = "cli.prefetch.splits";
+    public static final int DEFAULT_PREFETCH_SPLITS = 4;
+    public static final String PAGE_BUFFER_MAX_SIZE = "cli.page-buffer.max-size";
+    public static final String DEFAULT_PAGE_BUFFER_MAX_SIZE = "64 mb";
+    public static final String QUERY_TIMEOUT = "cli.query.timeout";
+    public static final String QUERY_MAX_ROWS = "cli.query.max-rows";
+    public static final String QUERY_MAX_BYTES = "cli.query.max-bytes";
+    public static final String QUERY_MAX_SPLITS = "cli.query.max-splits";
+    public static final String COMPACT_MAX_MEMORY = "cli.compact.max-memory";
+    public static final String DEFAULT_COMPACT_MAX_MEMORY = "1 gb";
+    public static final String LOAD_MAX_MEMORY = "cli.load.max-memory";
+    public static final String DEFAULT_LOAD_MAX_MEMORY = "1 gb";
+    public static final String GENERATE_MAX_MEMORY = "cli.generate.max-memory";
+    public static final String DEFAULT_GENERATE_MAX_MEMORY = "1 gb";
+    public static final String COMPLETION_REFRESH_INTERVAL = "cli.completion.refresh-interval";
+    public static final String DEFAULT_COMPLETION_REFRESH_INTERVAL = "1 min";
+    public static final String MAINTENANCE_MAX_REQUESTS = "cli.maintenance.max-requests-per-second";
+    public static final int DEFAULT_OBJECT_STORE_MAX_REQUESTS = 1000;
+
+    private static final List<String> SIZE_OPTIONS = Arrays.asList(CACHE_MAX_SIZE, METADATA_CACHE_MAX_MEMORY,
+            PAGE_BUFFER_MAX_SIZE, QUERY_MAX_BYTES, COMPACT_MAX_MEMORY, LOAD_MAX_MEMORY, GENERATE_MAX_MEMORY);
+    private static final List<String> COUNT_OPTIONS = Arrays.asList(PREFETCH_SPLITS, MAINTENANCE_MAX_REQUESTS);
+    // 查询预算按 long 解析，见 QueryContext.fromOptions
+    private static final List<String> LIMIT_OPTIONS = Arrays.asList(QUERY_MAX_ROWS, QUERY_MAX_SPLITS);
+    private static final List<String> DURATION_OPTIONS = Arrays.asList(QUERY_TIMEOUT, COMPLETION_REFRESH_INTERVAL);
     
     private final StorageType type;
     private final String warehouse;
@@ -34,7 +77,62 @@ public class StorageConfig {
     public Map<String, String> getOptions() {
         return options;
     }
+
+    /**
+     * 是否启用本地磁盘块缓存
+     */
+    public boolean isLocalCacheEnabled() {
+        return Boolean.parseBoolean(options.get(CACHE_ENABLED));
+    }
+
+    /**
+     * 启用本地磁盘块缓存（缓存不可变的数据文件和 manifest 文件）
+     */
+    public void enableLocalCache(String directory, String maxSize) {
+        options.put(CACHE_ENABLED, "true");
+        options.put(CACHE_DIR, directory == null || directory.isEmpty() ? DEFAULT_CACHE_DIR : directory);
+        options.put(CACHE_MAX_SIZE, maxSize == null || maxSize.isEmpty() ? DEFAULT_CACHE_MAX_SIZE : maxSize);
+    }
     
+    /**
+     * 校验 CLI 选项的取值，非法时抛出 IllegalArgumentException；fs.s3a.* 等 Hadoop 选项不在此校验
+     */
+    public static void validateOption(String key, String value) {
+        if (!key.startsWith(CLI_OPTION_PREFIX)) {
+            return;
+        }
+        try {
+            if (CACHE_ENABLED.equals(key)) {
+                if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                    throw new IllegalArgumentException("expected true or false");
+                }
+            } else if (CACHE_DIR.equals(key)) {
+                if (value.trim().isEmpty()) {
+                    throw new IllegalArgumentException("expected a directory");
+                }
+            } else if (SIZE_OPTIONS.contains(key)) {
+                MemorySize.parse(value);
+            } else if (COUNT_OPTIONS.contains(key)) {
+                if (Integer.parseInt(value.trim()) < 0) {
+                    throw new IllegalArgumentException("expected a non-negative number");
+                }
+            } else if (LIMIT_OPTIONS.contains(key)) {
+                if (Long.parseLong(value.trim()) < 0) {
+                    throw new IllegalArgumentException("expected a non-negative number");
+                }
+            } else if (DURATION_OPTIONS.contains(key)) {
+                TimeUtils.parseDuration(value);
+            } else if (S3_PROFILE.equals(key)) {
+                throw new IllegalArgumentException("use 'set profile <name>' instead");
+            } else {
+                throw new IllegalArgumentException("unknown option");
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException 也是 IllegalArgumentException
+            throw new IllegalArgumentException("Invalid value '" + value + "' for " + key + ": " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 创建 Local 存储配置
      */
@@ -71,10 +169,27 @@ public class StorageConfig {
         // 其他 S3 配置
         options.put("fs.s3a.path.style.access", "true");
         options.put("fs.s3a.impl", "org.apache.hadoop.fs.s3a.S3AFileSystem");
+        // 每个 Catalog 使用独立的 FileSystem 实例，会话中修改的 S3A 参数在重新连接后生效
+        options.put("fs.s3a.impl.disable.cache", "true");
 
         return new StorageConfig(StorageType.S3, s3Path, options);
     }
     
+    /**
+     * 应用 S3A 性能配置模板，覆盖模板涉及的参数
+     */
+    public void applyProfile(S3PerformanceProfile profile) {
+        options.putAll(profile.getOptions());
+        options.put(S3_PROFILE, profile.getProfileName());
+    }
+
+    /**
+     * 当前使用的性能配置模板名称，未使用模板时返回 null
+     */
+    public String getProfileName() {
+        return options.get(S3_PROFILE);
+    }
+
     @Override
     public String toString() {
         return "StorageConfig{" +
@@ -0,0 +1,30 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A catalog call: listing databases or tables, or loading a table
+ */
+@Name("paimon.cli.CatalogLookup")
+@Label("Catalog Lookup")
+@Description("A catalog call listing databases or tables or loading a table, cached or not")
+@Category({"Paimon CLI", "Catalog"})
+@StackTrace(false)
+public class CatalogLookupEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Database")
+    public String database;
+
+    @Label("Table")
+    public String table;
+
+    @Label("Found")
+    public boolean found;
+}
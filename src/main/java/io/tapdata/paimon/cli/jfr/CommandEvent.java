@@ -0,0 +1,28 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One command of the session, from parsing its input to printing its output
+ */
+@Name("paimon.cli.Command")
+@Label("Command")
+@Description("A CLI command, from parsing its input to printing its output")
+@Category({"Paimon CLI"})
+@StackTrace(false)
+public class CommandEvent extends jdk.jfr.Event {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Input")
+    public String input;
+
+    @Label("Background")
+    @Description("Whether the command ran as a background job")
+    public boolean background;
+}
@@ -0,0 +1,24 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing of a where clause into predicates
+ */
+@Name("paimon.cli.FilterParse")
+@Label("Filter Parse")
+@Description("Parsing of a where clause into predicates")
+@Category({"Paimon CLI", "Query"})
+@StackTrace(false)
+public class FilterParseEvent extends jdk.jfr.Event {
+
+    @Label("Filter")
+    public String filter;
+
+    @Label("Predicates")
+    public int predicates;
+}
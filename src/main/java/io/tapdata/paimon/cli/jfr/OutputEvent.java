@@ -0,0 +1,27 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rendering and printing of query results
+ */
+@Name("paimon.cli.Output")
+@Label("Output")
+@Description("Rendering and printing of query results")
+@Category({"Paimon CLI", "Query"})
+@StackTrace(false)
+public class OutputEvent extends jdk.jfr.Event {
+
+    @Label("Table")
+    public String table;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Rows")
+    public long rows;
+}
@@ -0,0 +1,27 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Filtering and conversion of a batch or page of rows into display values
+ */
+@Name("paimon.cli.RowConversion")
+@Label("Row Conversion")
+@Description("Row-level filtering and conversion of a batch or page of rows into display values")
+@Category({"Paimon CLI", "Query"})
+@StackTrace(false)
+public class RowConversionEvent extends jdk.jfr.Event {
+
+    @Label("Table")
+    public String table;
+
+    @Label("Rows Read")
+    public long rowsRead;
+
+    @Label("Rows Converted")
+    public long rowsConverted;
+}
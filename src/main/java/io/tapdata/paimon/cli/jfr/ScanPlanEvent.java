@@ -0,0 +1,35 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Planning of the splits of a table read, including manifest reads and pruning
+ */
+@Name("paimon.cli.ScanPlan")
+@Label("Scan Plan")
+@Description("Planning of the splits of a table read, including manifest reads and pruning")
+@Category({"Paimon CLI", "Query"})
+@StackTrace(false)
+public class ScanPlanEvent extends jdk.jfr.Event {
+
+    @Label("Table")
+    public String table;
+
+    @Label("Predicate")
+    public String predicate;
+
+    @Label("Splits")
+    public int splits;
+
+    @Label("Files")
+    public int files;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
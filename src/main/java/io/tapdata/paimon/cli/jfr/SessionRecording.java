@@ -0,0 +1,51 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * JFR recording of a whole CLI session to a file, with the JDK's profiling settings and the
+ * Paimon CLI events. The file is also written if the JVM exits without closing the recording.
+ */
+public class SessionRecording implements AutoCloseable {
+
+    private final Recording recording;
+    private final Path destination;
+
+    private SessionRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+
+    public static SessionRecording start(Path destination) throws Exception {
+        Recording recording = new Recording(Configuration.getConfiguration("profile"));
+        recording.setName("paimon-cli");
+        recording.setToDisk(true);
+        recording.setDumpOnExit(true);
+        recording.setDestination(destination);
+        for (Class<? extends Event> event : List.of(CommandEvent.class, FilterParseEvent.class,
+                CatalogLookupEvent.class, ScanPlanEvent.class, SplitReadEvent.class, RowConversionEvent.class,
+                OutputEvent.class)) {
+            recording.enable(event).withoutStackTrace();
+        }
+        recording.start();
+        return new SessionRecording(recording, destination);
+    }
+
+    public Path getDestination() {
+        return destination;
+    }
+
+    /**
+     * Stop recording and write the file
+     */
+    @Override
+    public void close() {
+        recording.stop();
+        recording.close();
+    }
+}
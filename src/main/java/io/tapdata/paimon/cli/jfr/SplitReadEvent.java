@@ -0,0 +1,46 @@
+package io.tapdata.paimon.cli.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Read of one split, from opening its reader to closing it
+ */
+@Name("paimon.cli.SplitRead")
+@Label("Split Read")
+@Description("Read of one split, from opening its reader to closing it; prefetched splits include the "
+        + "time they waited to be consumed")
+@Category({"Paimon CLI", "Query"})
+@StackTrace(false)
+public class SplitReadEvent extends jdk.jfr.Event {
+
+    @Label("Table")
+    public String table;
+
+    @Label("Predicate")
+    public String predicate;
+
+    @Label("Partition")
+    public String partition;
+
+    @Label("Bucket")
+    public int bucket;
+
+    @Label("Snapshot")
+    public long snapshot;
+
+    @Label("Files")
+    public int files;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Rows")
+    @Description("Rows returned by the reader, before row-level filtering")
+    public long rows;
+}
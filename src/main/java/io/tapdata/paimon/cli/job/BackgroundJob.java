@@ -0,0 +1,216 @@
+package io.tapdata.paimon.cli.job;
+
+import io.tapdata.paimon.cli.service.QueryContext;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A command running on the job pool. Its output is captured instead of printed, and the query it
+ * runs registers its {@link QueryContext} here so the job can report progress, be cancelled and fail
+ * with the query.
+ * Only the last {@link #MAX_OUTPUT_BYTES} of output are kept, so a large select cannot fill the heap.
+ */
+public class BackgroundJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    /**
+     * Output kept per job; older output is dropped
+     */
+    public static final int MAX_OUTPUT_BYTES = 1 << 20;
+
+    private static final ThreadLocal<BackgroundJob> CURRENT = new ThreadLocal<>();
+
+    private final int id;
+    private final String command;
+    private final String database;
+    private final int maxOutputBytes;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private long droppedBytes;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private volatile Status status = Status.QUEUED;
+    private volatile QueryContext context;
+    private volatile boolean queryFailed;
+    private volatile boolean cancelRequested;
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    BackgroundJob(int id, String command, String database) {
+        this(id, command, database, MAX_OUTPUT_BYTES);
+    }
+
+    BackgroundJob(int id, String command, String database, int maxOutputBytes) {
+        this.id = id;
+        this.command = command;
+        this.database = database;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    /**
+     * Job run by the calling thread, or null in the foreground
+     */
+    public static BackgroundJob current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Body of a thread started by a job's query, run as part of the job of the calling thread
+     */
+    public static Runnable propagate(Runnable runnable) {
+        BackgroundJob job = CURRENT.get();
+        if (job == null) {
+            return runnable;
+        }
+        return () -> {
+            CURRENT.set(job);
+            try {
+                runnable.run();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    void run(Runnable task) {
+        if (cancelRequested) {
+            finish(Status.CANCELLED);
+            return;
+        }
+        CURRENT.set(this);
+        startNanos = System.nanoTime();
+        status = Status.RUNNING;
+        try {
+            task.run();
+            finish(cancelRequested ? Status.CANCELLED : isQueryFailed() ? Status.FAILED : Status.DONE);
+        } catch (Throwable t) {
+            appendOutput(("Job failed: " + t + System.lineSeparator()).getBytes());
+            finish(Status.FAILED);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private void finish(Status finalStatus) {
+        endNanos = System.nanoTime();
+        status = finalStatus;
+        finished.countDown();
+    }
+
+    /**
+     * Register the context of a query started by this job
+     */
+    public void attach(QueryContext queryContext) {
+        QueryContext previous = context;
+        if (previous != null && previous.isFailed()) {
+            queryFailed = true;
+        }
+        this.context = queryContext;
+        if (cancelRequested) {
+            queryContext.cancel();
+        }
+    }
+
+    private boolean isQueryFailed() {
+        QueryContext queryContext = context;
+        return queryFailed || (queryContext != null && queryContext.isFailed());
+    }
+
+    /**
+     * Stop the job at the next checkpoint of its query, or before it starts when still queued
+     */
+    public void cancel() {
+        cancelRequested = true;
+        QueryContext queryContext = context;
+        if (queryContext != null) {
+            queryContext.cancel();
+        }
+    }
+
+    /**
+     * Wait up to the given time for the job to finish
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    void appendOutput(byte[] bytes) {
+        appendOutput(bytes, 0, bytes.length);
+    }
+
+    void appendOutput(byte[] bytes, int offset, int length) {
+        synchronized (output) {
+            output.write(bytes, offset, length);
+            // Compact once the buffer holds twice the limit, so trimming stays amortized O(1) per byte
+            if (output.size() > 2 * maxOutputBytes) {
+                byte[] all = output.toByteArray();
+                int drop = all.length - maxOutputBytes;
+                output.reset();
+                output.write(all, drop, maxOutputBytes);
+                droppedBytes += drop;
+            }
+        }
+    }
+
+    /**
+     * The last {@link #MAX_OUTPUT_BYTES} the job printed so far
+     */
+    public byte[] getOutput() {
+        synchronized (output) {
+            byte[] all = output.toByteArray();
+            if (all.length <= maxOutputBytes) {
+                return all;
+            }
+            return Arrays.copyOfRange(all, all.length - maxOutputBytes, all.length);
+        }
+    }
+
+    /**
+     * Bytes of earlier output no longer returned by {@link #getOutput()}
+     */
+    public long getDroppedOutputBytes() {
+        synchronized (output) {
+            return droppedBytes + Math.max(0, output.size() - maxOutputBytes);
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    public long getElapsedMillis() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        return ((isFinished() ? endNanos : System.nanoTime()) - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Progress of the job's current or last query, e.g. "splits 3/10, 12000 row(s), 5000 rows/s"
+     */
+    public String getProgress() {
+        QueryContext queryContext = context;
+        return queryContext == null ? "" : queryContext.getProgress();
+    }
+}
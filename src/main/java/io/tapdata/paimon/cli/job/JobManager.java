@@ -0,0 +1,125 @@
+package io.tapdata.paimon.cli.job;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs commands in the background on a fixed pool and keeps the table of submitted jobs.
+ * System.out and System.err are replaced by streams that send whatever a job thread prints
+ * to that job's buffer, so background output never interleaves with the prompt.
+ */
+public class JobManager implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Map<Integer, BackgroundJob> jobs = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Consumer<BackgroundJob> onFinished;
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+
+    public JobManager(int threads, Consumer<BackgroundJob> onFinished) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "paimon-cli-job-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.onFinished = onFinished;
+        System.setOut(new PrintStream(new RoutingStream(originalOut), true));
+        System.setErr(new PrintStream(new RoutingStream(originalErr), true));
+    }
+
+    /**
+     * Queue a command; {@code database} is the current database at submission time
+     */
+    public BackgroundJob submit(String command, String database, Runnable task) {
+        BackgroundJob job = new BackgroundJob(nextId.getAndIncrement(), command, database);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> {
+            job.run(task);
+            onFinished.accept(job);
+        });
+        return job;
+    }
+
+    public BackgroundJob getJob(int id) {
+        return jobs.get(id);
+    }
+
+    public List<BackgroundJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public boolean hasRunningJobs() {
+        for (BackgroundJob job : jobs.values()) {
+            if (!job.isFinished()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cancel all jobs and restore the original output streams
+     */
+    @Override
+    public void close() {
+        for (BackgroundJob job : jobs.values()) {
+            job.cancel();
+        }
+        executor.shutdown();
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    /**
+     * Writes to the job buffer of the calling thread, or to the console in the foreground
+     */
+    private static class RoutingStream extends OutputStream {
+
+        private final OutputStream console;
+
+        RoutingStream(OutputStream console) {
+            this.console = console;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            BackgroundJob job = BackgroundJob.current();
+            if (job != null) {
+                job.appendOutput(bytes, offset, length);
+            } else {
+                try {
+                    console.write(bytes, offset, length);
+                } catch (IOException e) {
+                    // Console output is best effort, like System.out itself
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (BackgroundJob.current() == null) {
+                try {
+                    console.flush();
+                } catch (IOException e) {
+                    // Console output is best effort, like System.out itself
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.paimon.casting.CastExecutor;
+import org.apache.paimon.casting.CastExecutors;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.Decimal;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.Timestamp;
+import org.apache.paimon.types.DataField;
+import org.apache.paimon.types.DataType;
+import org.apache.paimon.types.DecimalType;
+import org.apache.paimon.types.LocalZonedTimestampType;
+import org.apache.paimon.types.RowType;
+import org.apache.paimon.types.TimestampType;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes rows as Arrow IPC record batches (stream or file format) through Arrow Java vectors.
+ * Values go from the typed row accessors into the vectors without boxing or text conversion, and a
+ * record batch is written every {@link #BATCH_ROWS} rows. Type mapping:
+ * <ul>
+ *     <li>BOOLEAN, TINYINT, SMALLINT, INT, BIGINT, FLOAT, DOUBLE to the Arrow type of the same width</li>
+ *     <li>DECIMAL(p, s) to Decimal128(p, s)</li>
+ *     <li>DATE to Date(DAY), TIME to Time(MILLISECOND, 32)</li>
+ *     <li>TIMESTAMP(p) to Timestamp(MICROSECOND) up to p = 6 and Timestamp(NANOSECOND) above, which
+ *     only holds the years 1677 to 2262; TIMESTAMP_LTZ likewise, with time zone UTC</li>
+ *     <li>CHAR, VARCHAR to Utf8, BINARY, VARBINARY to Binary</li>
+ *     <li>nested types (array, map, row) to Utf8 holding their string form</li>
+ * </ul>
+ */
+public class ArrowIpcWriter implements Closeable {
+
+    public enum Format {
+        /**
+         * Random-access file format ("ARROW1" magic and footer), e.g. for pyarrow.ipc.open_file
+         */
+        FILE,
+        /**
+         * Streaming format, e.g. for pyarrow.ipc.open_stream
+         */
+        STREAM
+    }
+
+    public static final int BATCH_ROWS = 64 * 1024;
+
+    private final BufferAllocator allocator;
+    private final VectorSchemaRoot root;
+    private final ArrowWriter writer;
+    private final Column[] columns;
+
+    private int batchRows;
+    private int batchCount;
+    private long rowCount;
+
+    public ArrowIpcWriter(OutputStream out, RowType rowType, Format format) throws IOException {
+        this.allocator = new RootAllocator();
+        List<Field> fields = new ArrayList<>();
+        for (DataField field : rowType.getFields()) {
+            fields.add(new Field(field.name(), new FieldType(field.type().isNullable(), arrowType(field.type()), null),
+                    null));
+        }
+        this.root = VectorSchemaRoot.create(new Schema(fields), allocator);
+        this.columns = new Column[rowType.getFieldCount()];
+        for (int i = 0; i < columns.length; i++) {
+            FieldVector vector = root.getVector(i);
+            vector.setInitialCapacity(BATCH_ROWS);
+            vector.allocateNew();
+            columns[i] = column(rowType.getTypeAt(i), i, vector);
+        }
+
+        OutputStream buffered = new BufferedOutputStream(out, 1 << 20);
+        this.writer = format == Format.FILE
+                ? new ArrowFileWriter(root, null, Channels.newChannel(buffered))
+                : new ArrowStreamWriter(root, null, Channels.newChannel(buffered));
+        writer.start();
+    }
+
+    /**
+     * Arrow type of a Paimon type, per the mapping in the class comment
+     */
+    static ArrowType arrowType(DataType type) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return ArrowType.Bool.INSTANCE;
+            case TINYINT:
+                return new ArrowType.Int(8, true);
+            case SMALLINT:
+                return new ArrowType.Int(16, true);
+            case INTEGER:
+                return new ArrowType.Int(32, true);
+            case BIGINT:
+                return new ArrowType.Int(64, true);
+            case FLOAT:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+            case DOUBLE:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case DECIMAL:
+                DecimalType decimalType = (DecimalType) type;
+                return new ArrowType.Decimal(decimalType.getPrecision(), decimalType.getScale(), 128);
+            case DATE:
+                return new ArrowType.Date(DateUnit.DAY);
+            case TIME_WITHOUT_TIME_ZONE:
+                return new ArrowType.Time(TimeUnit.MILLISECOND, 32);
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+                return new ArrowType.Timestamp(timestampUnit(type), null);
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                // Local zoned timestamps are instants, written in UTC
+                return new ArrowType.Timestamp(timestampUnit(type), "UTC");
+            case BINARY:
+            case VARBINARY:
+                return ArrowType.Binary.INSTANCE;
+            default:
+                return ArrowType.Utf8.INSTANCE;
+        }
+    }
+
+    private static TimeUnit timestampUnit(DataType type) {
+        return timestampPrecision(type) > 6 ? TimeUnit.NANOSECOND : TimeUnit.MICROSECOND;
+    }
+
+    private static int timestampPrecision(DataType type) {
+        if (type instanceof TimestampType) {
+            return ((TimestampType) type).getPrecision();
+        }
+        if (type instanceof LocalZonedTimestampType) {
+            return ((LocalZonedTimestampType) type).getPrecision();
+        }
+        return 0;
+    }
+
+    /**
+     * Append a row; a record batch is written every {@link #BATCH_ROWS} rows
+     */
+    public void write(InternalRow row) throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            // Slots left unset are null: validity bits start cleared and offsets are filled in on set
+            if (!row.isNullAt(i)) {
+                columns[i].set(row, batchRows);
+            }
+        }
+        batchRows++;
+        rowCount++;
+        if (batchRows == BATCH_ROWS) {
+            flushBatch();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public long getBytesWritten() {
+        return writer.bytesWritten();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (batchRows > 0) {
+                flushBatch();
+            }
+            writer.end();
+        } finally {
+            writer.close();
+            root.close();
+            allocator.close();
+        }
+    }
+
+    private void flushBatch() throws IOException {
+        root.setRowCount(batchRows);
+        writer.writeBatch();
+        batchCount++;
+        for (FieldVector vector : root.getFieldVectors()) {
+            vector.reset();
+        }
+        batchRows = 0;
+    }
+
+    /**
+     * Copies one field of a non-null row into its vector
+     */
+    private interface Column {
+        void set(InternalRow row, int index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Column column(DataType type, int field, FieldVector vector) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                BitVector bits = (BitVector) vector;
+                return (row, index) -> bits.set(index, row.getBoolean(field) ? 1 : 0);
+            case TINYINT:
+                TinyIntVector tinyInts = (TinyIntVector) vector;
+                return (row, index) -> tinyInts.set(index, row.getByte(field));
+            case SMALLINT:
+                SmallIntVector smallInts = (SmallIntVector) vector;
+                return (row, index) -> smallInts.set(index, row.getShort(field));
+            case INTEGER:
+                IntVector ints = (IntVector) vector;
+                return (row, index) -> ints.set(index, row.getInt(field));
+            case BIGINT:
+                BigIntVector bigInts = (BigIntVector) vector;
+                return (row, index) -> bigInts.set(index, row.getLong(field));
+            case FLOAT:
+                Float4Vector floats = (Float4Vector) vector;
+                return (row, index) -> floats.set(index, row.getFloat(field));
+            case DOUBLE:
+                Float8Vector doubles = (Float8Vector) vector;
+                return (row, index) -> doubles.set(index, row.getDouble(field));
+            case DECIMAL:
+                DecimalType decimalType = (DecimalType) type;
+                DecimalVector decimals = (DecimalVector) vector;
+                return (row, index) -> {
+                    Decimal decimal = row.getDecimal(field, decimalType.getPrecision(), decimalType.getScale());
+                    if (decimal.isCompact()) {
+                        decimals.set(index, decimal.toUnscaledLong());
+                    } else {
+                        // Unscaled big-endian two's complement, sign extended to 128 bits
+                        decimals.setBigEndian(index, decimal.toUnscaledBytes());
+                    }
+                };
+            case DATE:
+                DateDayVector dates = (DateDayVector) vector;
+                return (row, index) -> dates.set(index, row.getInt(field));
+            case TIME_WITHOUT_TIME_ZONE:
+                TimeMilliVector times = (TimeMilliVector) vector;
+                return (row, index) -> times.set(index, row.getInt(field));
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                int precision = timestampPrecision(type);
+                TimeStampVector timestamps = (TimeStampVector) vector;
+                if (precision > 6) {
+                    return (row, index) -> timestamps.set(index, epochNanos(row.getTimestamp(field, precision)));
+                }
+                return (row, index) -> {
+                    Timestamp timestamp = row.getTimestamp(field, precision);
+                    long micros = timestamp.getMillisecond() * 1_000L + timestamp.getNanoOfMillisecond() / 1_000;
+                    timestamps.set(index, micros);
+                };
+            case CHAR:
+            case VARCHAR:
+                VarCharVector strings = (VarCharVector) vector;
+                return (row, index) -> strings.setSafe(index, row.getString(field).toBytes());
+            case BINARY:
+            case VARBINARY:
+                VarBinaryVector binaries = (VarBinaryVector) vector;
+                return (row, index) -> binaries.setSafe(index, row.getBinary(field));
+            default:
+                VarCharVector texts = (VarCharVector) vector;
+                InternalRow.FieldGetter getter = InternalRow.createFieldGetter(type, field);
+                CastExecutor<Object, BinaryString> toString =
+                        (CastExecutor<Object, BinaryString>) CastExecutors.resolveToString(type);
+                return (row, index) -> {
+                    Object value = getter.getFieldOrNull(row);
+                    texts.setSafe(index, toString != null
+                            ? toString.cast(value).toBytes()
+                            : String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                };
+        }
+    }
+
+    private static long epochNanos(Timestamp timestamp) {
+        try {
+            return Math.addExact(Math.multiplyExact(timestamp.getMillisecond(), 1_000_000L),
+                    timestamp.getNanoOfMillisecond());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Timestamp " + timestamp
+                    + " is outside the years 1677 to 2262 of Arrow nanosecond timestamps");
+        }
+    }
+}
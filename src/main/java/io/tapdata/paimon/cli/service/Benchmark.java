@@ -0,0 +1,424 @@
+package io.tapdata.paimon.cli.service;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.tapdata.paimon.cli.catalog.CatalogManager;
+import io.tapdata.paimon.cli.config.StorageConfig;
+import org.apache.paimon.CoreOptions;
+import org.apache.paimon.catalog.Catalog;
+import org.apache.paimon.catalog.Identifier;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.disk.IOManager;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.table.sink.BatchTableCommit;
+import org.apache.paimon.table.sink.BatchTableWrite;
+import org.apache.paimon.table.sink.BatchWriteBuilder;
+import org.apache.paimon.types.DataTypes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Reproducible end-to-end query benchmark. Creates a synthetic append table and primary-key table
+ * in a local warehouse, runs a fixed suite of queries against each through {@link DataQueryService}
+ * with the console output discarded, and reports latency percentiles and rows/s as JSON.
+ * The data comes from a fixed seed, so runs with the same settings read identical tables; tables
+ * left in a given warehouse by an earlier run with the same settings are reused.
+ */
+public class Benchmark {
+
+    public static final String DATABASE = "bench";
+    public static final String APPEND_TABLE = "append_table";
+    public static final String PRIMARY_KEY_TABLE = "pk_table";
+
+    private static final long SEED = 42;
+    private static final int SELECT_LIMIT = 100;
+    private static final int PAGE_SIZE = 1000;
+    private static final int PAGES = 10;
+    private static final int COMMIT_ROWS = 1_000_000;
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    /**
+     * Table shape, iteration counts and where to keep the warehouse
+     */
+    public static class Settings {
+        public long rows = 1_000_000;
+        public int columns = 8;
+        public int partitions = 4;
+        public int buckets = 4;
+        public int iterations = 10;
+        public int warmup = 2;
+        /** Warehouse directory, kept after the run; null for a temporary one */
+        public String warehouse;
+        /** Extra storage options such as cli.prefetch.splits */
+        public final Map<String, String> options = new LinkedHashMap<>();
+
+        String describe() {
+            return "paimon-cli bench rows=" + rows + " columns=" + columns + " partitions=" + partitions
+                    + " buckets=" + buckets + " seed=" + SEED;
+        }
+    }
+
+    private interface Query {
+        void run(DataQueryService service);
+    }
+
+    private final Settings settings;
+
+    public Benchmark(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Create or reuse the tables, run the suite and return the results; progress goes to stderr
+     */
+    public JsonObject run() throws Exception {
+        if (settings.rows <= 0 || settings.columns < 0 || settings.partitions < 0 || settings.buckets <= 0
+                || settings.iterations <= 0 || settings.warmup < 0) {
+            throw new IllegalArgumentException("rows, buckets and iterations must be positive, "
+                    + "columns, partitions and warmup must not be negative");
+        }
+        boolean temporary = settings.warehouse == null;
+        Path warehouse = temporary
+                ? Files.createTempDirectory("paimon-cli-bench")
+                : Paths.get(settings.warehouse).toAbsolutePath();
+
+        StorageConfig config = StorageConfig.createLocal(warehouse.toString());
+        config.getOptions().putAll(settings.options);
+        try (CatalogManager catalogManager = new CatalogManager(config);
+             DataQueryService service = new DataQueryService(catalogManager)) {
+            JsonObject result = new JsonObject();
+            result.add("settings", settingsJson(warehouse, temporary));
+            result.add("environment", environmentJson());
+
+            JsonArray setup = new JsonArray();
+            setup.add(prepareTable(catalogManager, APPEND_TABLE, false));
+            setup.add(prepareTable(catalogManager, PRIMARY_KEY_TABLE, true));
+            result.add("setup", setup);
+
+            JsonArray queries = new JsonArray();
+            for (String table : Arrays.asList(APPEND_TABLE, PRIMARY_KEY_TABLE)) {
+                runSuite(service, table, queries, warehouse);
+            }
+            result.add("queries", queries);
+            return result;
+        } finally {
+            if (temporary) {
+                deleteRecursively(warehouse);
+            }
+        }
+    }
+
+    public static String toJson(JsonObject result) {
+        return new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(result);
+    }
+
+    private void runSuite(DataQueryService service, String table, JsonArray queries, Path warehouse)
+            throws Exception {
+        String name = DATABASE + "." + table;
+        queries.add(measure(service, table, "count", "count " + name, true,
+                s -> s.countTable(DATABASE, table)));
+        queries.add(measure(service, table, "count_filtered", "count " + name + " where k<10", false,
+                s -> s.countTable(DATABASE, table, "k<10")));
+        queries.add(measure(service, table, "select_limit", "select " + name + " " + SELECT_LIMIT, false,
+                s -> s.selectTable(DATABASE, table, SELECT_LIMIT)));
+        queries.add(measure(service, table, "pagination",
+                "select " + name + " all (" + PAGES + " pages of " + PAGE_SIZE + " rows)", false,
+                s -> s.selectTableWithPagination(DATABASE, table, null, PAGE_SIZE)));
+        // Full scan of two columns, streamed to an Arrow file so that console rendering is not measured
+        Path arrowFile = warehouse.resolve(table + "-projection.arrow");
+        QueryOptions projection = QueryOptions.defaults()
+                .withColumns(Arrays.asList("id", "k"))
+                .withFormat(OutputFormat.ARROW)
+                .withOutputPath(arrowFile.toString());
+        try {
+            queries.add(measure(service, table, "projection",
+                    "select " + name + " all format arrow " + arrowFile.getFileName() + " columns id,k", false,
+                    s -> s.selectTable(DATABASE, table, 0, null, projection)));
+        } finally {
+            Files.deleteIfExists(arrowFile);
+        }
+    }
+
+    /**
+     * Run a query for the warmup and measured iterations. Console output is discarded and the
+     * pagination prompts are answered with 'it'; anything printed to stderr fails the benchmark.
+     *
+     * @param metadataOnly the query is answered without reading rows, its rows/s counts the table rows
+     */
+    private JsonObject measure(DataQueryService service, String table, String name, String statement,
+                               boolean metadataOnly, Query query) throws Exception {
+        System.err.println("Running " + name + " on " + DATABASE + "." + table + " ("
+                + settings.warmup + " warmup + " + settings.iterations + " iterations)");
+        long[] latencies = new long[settings.iterations];
+        long rowsScanned = 0;
+        long bytesScanned = 0;
+        long splitsOpened = 0;
+        for (int i = -settings.warmup; i < settings.iterations; i++) {
+            long elapsed = runSilently(service, query, name);
+            if (i >= 0) {
+                QueryContext context = service.getLastQuery();
+                latencies[i] = elapsed;
+                rowsScanned += context.getRowsScanned();
+                bytesScanned += context.getBytesScanned();
+                splitsOpened += context.getSplitsOpened();
+            }
+        }
+
+        Arrays.sort(latencies);
+        long totalNanos = Arrays.stream(latencies).sum();
+        long rows = metadataOnly ? settings.rows * settings.iterations : rowsScanned;
+
+        JsonObject latency = new JsonObject();
+        latency.addProperty("min", millis(latencies[0]));
+        latency.addProperty("p50", millis(percentile(latencies, 50)));
+        latency.addProperty("p90", millis(percentile(latencies, 90)));
+        latency.addProperty("p99", millis(percentile(latencies, 99)));
+        latency.addProperty("max", millis(latencies[latencies.length - 1]));
+        latency.addProperty("mean", millis(totalNanos / latencies.length));
+
+        JsonObject result = new JsonObject();
+        result.addProperty("table", table);
+        result.addProperty("query", name);
+        result.addProperty("statement", statement);
+        result.addProperty("iterations", settings.iterations);
+        result.add("latency_ms", latency);
+        result.addProperty("rows", rows / settings.iterations);
+        result.addProperty("rows_per_second", Math.round(rows / (totalNanos / 1e9)));
+        result.addProperty("rows_scanned", rowsScanned / settings.iterations);
+        result.addProperty("bytes_scanned", bytesScanned / settings.iterations);
+        result.addProperty("splits_opened", splitsOpened / settings.iterations);
+        return result;
+    }
+
+    private static long runSilently(DataQueryService service, Query query, String name) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        InputStream in = System.in;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        StringBuilder answers = new StringBuilder();
+        for (int i = 1; i < PAGES; i++) {
+            answers.append("it\n");
+        }
+        long start;
+        long elapsed;
+        try {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            System.setErr(new PrintStream(errors, true));
+            System.setIn(new ByteArrayInputStream(answers.toString().getBytes(StandardCharsets.UTF_8)));
+            start = System.nanoTime();
+            query.run(service);
+            elapsed = System.nanoTime() - start;
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+            System.setIn(in);
+        }
+        if (errors.size() > 0) {
+            throw new IllegalStateException("Query " + name + " failed: "
+                    + errors.toString(StandardCharsets.UTF_8).trim().split("\n")[0]);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e4) / 100.0;
+    }
+
+    /**
+     * Reuse the table if an earlier run created it with the same settings, otherwise (re)create and fill it
+     */
+    private JsonObject prepareTable(CatalogManager catalogManager, String name, boolean primaryKey)
+            throws Exception {
+        Catalog catalog = catalogManager.getCatalog();
+        Identifier identifier = Identifier.create(DATABASE, name);
+        String spec = settings.describe() + (primaryKey ? " primary-key" : " append");
+
+        JsonObject result = new JsonObject();
+        result.addProperty("table", name);
+        result.addProperty("primary_key", primaryKey);
+        result.addProperty("rows", settings.rows);
+
+        catalog.createDatabase(DATABASE, true);
+        if (catalogManager.tableExists(DATABASE, name)) {
+            Table existing = catalog.getTable(identifier);
+            if (spec.equals(existing.comment().orElse(null))) {
+                System.err.println("Reusing " + DATABASE + "." + name);
+                result.addProperty("generated", false);
+                return result;
+            }
+            catalog.dropTable(identifier, false);
+        }
+
+        System.err.println("Generating " + settings.rows + " rows into " + DATABASE + "." + name);
+        long start = System.nanoTime();
+        catalog.createTable(identifier, schema(primaryKey, spec), false);
+        // Drop the half-written table if generating fails, so that it is not reused
+        try {
+            generate((FileStoreTable) catalog.getTable(identifier));
+        } catch (Exception e) {
+            catalog.dropTable(identifier, true);
+            throw e;
+        }
+        result.addProperty("generated", true);
+        result.addProperty("seconds", Math.round((System.nanoTime() - start) / 1e7) / 100.0);
+        return result;
+    }
+
+    /**
+     * id BIGINT, k INT (0-99), dt STRING partition, then columns cycling through BIGINT, DOUBLE and STRING(16)
+     */
+    private Schema schema(boolean primaryKey, String comment) {
+        Schema.Builder builder = Schema.newBuilder()
+                .column("id", DataTypes.BIGINT().notNull())
+                .column("k", DataTypes.INT());
+        if (settings.partitions > 0) {
+            builder.column("dt", DataTypes.STRING().notNull()).partitionKeys("dt");
+        }
+        for (int i = 0; i < settings.columns; i++) {
+            switch (i % 3) {
+                case 0:
+                    builder.column("c" + i, DataTypes.BIGINT());
+                    break;
+                case 1:
+                    builder.column("c" + i, DataTypes.DOUBLE());
+                    break;
+                default:
+                    builder.column("c" + i, DataTypes.STRING());
+                    break;
+            }
+        }
+        if (primaryKey) {
+            builder.primaryKey(settings.partitions > 0 ? Arrays.asList("id", "dt") : Collections.singletonList("id"));
+            builder.option(CoreOptions.BUCKET.key(), String.valueOf(settings.buckets));
+        } else {
+            builder.option(CoreOptions.BUCKET.key(), "-1");
+        }
+        return builder.comment(comment).build();
+    }
+
+    private void generate(FileStoreTable table) throws Exception {
+        FileStoreTable spillable = table.copy(Collections.singletonMap(
+                CoreOptions.WRITE_BUFFER_SPILLABLE.key(), "true"));
+        BatchWriteBuilder writeBuilder = spillable.newBatchWriteBuilder();
+        SplittableRandom random = new SplittableRandom(SEED);
+        BinaryString[] partitions = new BinaryString[settings.partitions];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = BinaryString.fromString("p" + i);
+        }
+        int fields = table.rowType().getFieldCount();
+        int firstColumn = settings.partitions > 0 ? 3 : 2;
+        char[] chars = new char[16];
+
+        try (IOManager ioManager = IOManager.create(System.getProperty("java.io.tmpdir"))) {
+            for (long from = 0; from < settings.rows; from += COMMIT_ROWS) {
+                long to = Math.min(settings.rows, from + COMMIT_ROWS);
+                try (BatchTableWrite write = writeBuilder.newWrite();
+                     BatchTableCommit commit = writeBuilder.newCommit()) {
+                    write.withIOManager(ioManager);
+                    for (long id = from; id < to; id++) {
+                        GenericRow row = new GenericRow(fields);
+                        row.setField(0, id);
+                        row.setField(1, random.nextInt(100));
+                        if (partitions.length > 0) {
+                            row.setField(2, partitions[(int) (id % partitions.length)]);
+                        }
+                        for (int i = 0; i < settings.columns; i++) {
+                            switch (i % 3) {
+                                case 0:
+                                    row.setField(firstColumn + i, random.nextLong());
+                                    break;
+                                case 1:
+                                    row.setField(firstColumn + i, random.nextDouble() * 1000);
+                                    break;
+                                default:
+                                    for (int c = 0; c < chars.length; c++) {
+                                        chars[c] = ALPHABET[random.nextInt(ALPHABET.length)];
+                                    }
+                                    row.setField(firstColumn + i, BinaryString.fromString(new String(chars)));
+                                    break;
+                            }
+                        }
+                        write.write(row);
+                    }
+                    commit.commit(write.prepareCommit());
+                }
+            }
+        }
+    }
+
+    private JsonObject settingsJson(Path warehouse, boolean temporary) {
+        JsonObject json = new JsonObject();
+        json.addProperty("rows", settings.rows);
+        json.addProperty("columns", settings.columns);
+        json.addProperty("partitions", settings.partitions);
+        json.addProperty("buckets", settings.buckets);
+        json.addProperty("iterations", settings.iterations);
+        json.addProperty("warmup", settings.warmup);
+        json.addProperty("seed", SEED);
+        json.addProperty("warehouse", temporary ? null : warehouse.toString());
+        JsonObject options = new JsonObject();
+        settings.options.forEach(options::addProperty);
+        json.add("options", options);
+        return json;
+    }
+
+    private static JsonObject environmentJson() {
+        Runtime runtime = Runtime.getRuntime();
+        JsonObject json = new JsonObject();
+        json.addProperty("time", Instant.now().toString());
+        json.addProperty("java", System.getProperty("java.version"));
+        json.addProperty("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        json.addProperty("processors", runtime.availableProcessors());
+        json.addProperty("max_heap_bytes", runtime.maxMemory());
+        String version = Benchmark.class.getPackage().getImplementationVersion();
+        json.addProperty("cli_version", version);
+        return json;
+    }
+
+    private static void deleteRecursively(Path root) {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(paths::add);
+        } catch (Exception e) {
+            System.err.println("Failed to clean up " + root + ": " + e.getMessage());
+            return;
+        }
+        for (Path path : paths) {
+            File file = path.toFile();
+            if (!file.delete()) {
+                System.err.println("Failed to delete " + path);
+            }
+        }
+    }
+}
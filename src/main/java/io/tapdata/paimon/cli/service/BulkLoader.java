@@ -0,0 +1,634 @@
+package io.tapdata.paimon.cli.service;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.Timestamp;
+import org.apache.paimon.data.serializer.InternalRowSerializer;
+import org.apache.paimon.format.FileFormat;
+import org.apache.paimon.format.FormatReaderContext;
+import org.apache.paimon.format.FormatReaderFactory;
+import org.apache.paimon.fs.local.LocalFileIO;
+import org.apache.paimon.options.Options;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.sink.CommitMessage;
+import org.apache.paimon.types.DataField;
+import org.apache.paimon.types.DataType;
+import org.apache.paimon.types.DataTypeRoot;
+import org.apache.paimon.types.RowType;
+import org.apache.paimon.types.TimestampType;
+import org.apache.paimon.utils.TypeUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Loads CSV, newline delimited JSON and Parquet files into a table as a single commit
+ */
+public class BulkLoader {
+
+    public enum Format {
+        CSV, JSON, PARQUET;
+
+        /**
+         * Format of a file from its extension, or null if unknown
+         */
+        public static Format fromFileName(String fileName) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv") || name.endsWith(".tsv")) {
+                return CSV;
+            } else if (name.endsWith(".json") || name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return JSON;
+            } else if (name.endsWith(".parquet")) {
+                return PARQUET;
+            }
+            return null;
+        }
+    }
+
+    private static final int CHUNK_RECORDS = 4096;
+    private static final int ROW_BATCH = TableWritePipeline.ROW_BATCH;
+    // Divisor truncating nanoseconds to each timestamp precision
+    private static final int[] NANOS_DIVISORS = {
+            1_000_000_000, 100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1000, 100, 10, 1};
+
+    private final FileStoreTable table;
+    private final List<Path> files;
+    private final Format format;
+    private final char delimiter;
+    private final int parallelism;
+    private final long maxMemory;
+    private final RowType rowType;
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
+    private final boolean ordered;
+
+    private TableWritePipeline pipeline;
+    private int writers;
+    private long bytesRead;
+
+    /**
+     * @param format      format of all files, or null to pick it from each file's extension
+     * @param delimiter   CSV field delimiter
+     * @param parallelism number of parser threads and of writer threads
+     * @param maxMemory   memory budget shared by the writer threads
+     */
+    public BulkLoader(FileStoreTable table, List<Path> files, Format format, char delimiter, int parallelism,
+                      long maxMemory) {
+        this.table = table;
+        this.files = files;
+        this.format = format;
+        this.delimiter = delimiter;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxMemory = maxMemory;
+        this.rowType = table.rowType();
+        this.ordered = !table.primaryKeys().isEmpty();
+        List<DataField> fields = rowType.getFields();
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            fieldIndexes.put(fields.get(i).name(), i);
+            fieldIndexes.putIfAbsent(fields.get(i).name().toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    /**
+     * Load all files and commit; nothing is committed if any file fails
+     */
+    public void execute() throws Exception {
+        // One extra thread routes the chunks of primary key tables in input order
+        pipeline = new TableWritePipeline(table, "Load", parallelism, ordered ? 1 : 0, maxMemory);
+        writers = pipeline.getWriters();
+        try {
+            pipeline.startWriters();
+            BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(parallelism * 2);
+            // Chunks in input order, for the router of primary key tables
+            BlockingQueue<Chunk> routingOrder = ordered ? new ArrayBlockingQueue<>(parallelism * 4) : null;
+            AtomicInteger runningParsers = new AtomicInteger(parallelism);
+
+            List<Future<?>> stages = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                int parserIndex = i;
+                stages.add(pipeline.submit(() -> {
+                    try {
+                        runParser(parserIndex, chunks);
+                    } finally {
+                        // The last parser to finish tells the writers that no more rows are coming
+                        if (runningParsers.decrementAndGet() == 0 && !ordered) {
+                            pipeline.endWriters();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            if (ordered) {
+                stages.add(pipeline.submit(() -> {
+                    runRouter(routingOrder);
+                    return null;
+                }));
+            }
+
+            // After a failure the other stages give up on their own, finish reports the first failure
+            try {
+                splitFiles(chunks, routingOrder);
+                for (int i = 0; i < parallelism; i++) {
+                    pipeline.put(chunks, Chunk.END);
+                }
+                if (ordered) {
+                    pipeline.put(routingOrder, Chunk.END);
+                }
+            } catch (Throwable t) {
+                pipeline.fail(t);
+            }
+            List<CommitMessage> messages = pipeline.finish(stages);
+
+            if (pipeline.getRowsWritten() == 0) {
+                pipeline.abort(messages);
+                return;
+            }
+            pipeline.commit(messages);
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Read the files on the calling thread and queue them as chunks of raw records
+     */
+    private void splitFiles(BlockingQueue<Chunk> chunks, BlockingQueue<Chunk> routingOrder) throws Exception {
+        for (Path file : files) {
+            if (pipeline.isFailed()) {
+                return;
+            }
+            bytesRead += Files.size(file);
+            Format fileFormat = format != null ? format : Format.fromFileName(file.getFileName().toString());
+            if (fileFormat == null) {
+                throw new IllegalArgumentException("Unknown format of " + file + ", use 'format csv|json|parquet'");
+            }
+            if (fileFormat == Format.PARQUET) {
+                queueChunk(new Chunk(file, fileFormat, null, 0, null), chunks, routingOrder);
+                continue;
+            }
+
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                int[] columns = null;
+                long lineNumber = 0;
+                if (fileFormat == Format.CSV) {
+                    String header = readRecord(reader);
+                    if (header == null) {
+                        continue;
+                    }
+                    lineNumber++;
+                    columns = mapHeader(file, header);
+                }
+                List<String> records = new ArrayList<>(CHUNK_RECORDS);
+                long firstLine = lineNumber + 1;
+                String record;
+                while ((record = fileFormat == Format.CSV ? readRecord(reader) : reader.readLine()) != null) {
+                    records.add(record);
+                    if (records.size() == CHUNK_RECORDS) {
+                        queueChunk(new Chunk(file, fileFormat, columns, firstLine, records), chunks, routingOrder);
+                        firstLine += records.size();
+                        records = new ArrayList<>(CHUNK_RECORDS);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    queueChunk(new Chunk(file, fileFormat, columns, firstLine, records), chunks, routingOrder);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a chunk for the parsers, and for the router first when rows must keep the input order
+     */
+    private void queueChunk(Chunk chunk, BlockingQueue<Chunk> chunks, BlockingQueue<Chunk> routingOrder)
+            throws InterruptedException {
+        if (ordered) {
+            chunk.output = new ArrayBlockingQueue<>(CHUNK_RECORDS / ROW_BATCH + writers + 1);
+            pipeline.put(routingOrder, chunk);
+        }
+        pipeline.put(chunks, chunk);
+    }
+
+    /**
+     * Forward the batches of each chunk to the writers in input order until the end marker.
+     * The chunk being forwarded was taken by a parser before any later chunk, so it always makes progress.
+     */
+    private void runRouter(BlockingQueue<Chunk> routingOrder) throws InterruptedException {
+        while (true) {
+            Chunk chunk = pipeline.take(routingOrder);
+            if (chunk == Chunk.END) {
+                break;
+            }
+            while (true) {
+                RoutedBatch batch = pipeline.take(chunk.output);
+                if (batch == RoutedBatch.END) {
+                    break;
+                }
+                pipeline.send(batch.writer, batch.rows);
+            }
+        }
+        pipeline.endWriters();
+    }
+
+    /**
+     * Next CSV record, joining physical lines while a quoted field is open
+     */
+    private static String readRecord(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        if (!hasOddQuotes(line)) {
+            return line;
+        }
+        // Each joined line flips the quote parity when it has an odd number of quotes
+        StringBuilder record = new StringBuilder(line);
+        boolean open = true;
+        while (open) {
+            String next = reader.readLine();
+            if (next == null) {
+                break;
+            }
+            record.append('\n').append(next);
+            open = open != hasOddQuotes(next);
+        }
+        return record.toString();
+    }
+
+    private static boolean hasOddQuotes(String text) {
+        boolean odd = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    /**
+     * Table field index of each CSV column; every column must exist in the table and every
+     * NOT NULL field must have a column
+     */
+    private int[] mapHeader(Path file, String header) {
+        List<String> names = splitCsv(header);
+        int[] columns = new int[names.size()];
+        boolean[] present = new boolean[rowType.getFieldCount()];
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i) == null ? "" : names.get(i).trim();
+            columns[i] = fieldIndex(name);
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("Column '" + name + "' of " + file + " does not exist in the table, "
+                        + "expected some of " + rowType.getFieldNames());
+            }
+            present[columns[i]] = true;
+        }
+        for (int i = 0; i < present.length; i++) {
+            if (!present[i] && !rowType.getTypeAt(i).isNullable()) {
+                throw new IllegalArgumentException("Column '" + rowType.getFieldNames().get(i) + "' is missing in "
+                        + file + " but cannot be null");
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Index of a field by name, ignoring case
+     */
+    private int fieldIndex(String name) {
+        Integer index = fieldIndexes.get(name);
+        if (index == null) {
+            index = fieldIndexes.get(name.toLowerCase(Locale.ROOT));
+        }
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Split one CSV record, quoted fields may contain the delimiter, newlines and doubled quotes.
+     * Empty unquoted fields are null, empty quoted fields are empty strings.
+     */
+    private List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        return fields;
+    }
+
+    /**
+     * Convert chunks into rows until the end marker, routing each row to the writer of its bucket.
+     * Full batches go straight to the writers, or to the chunk's own queue when the router keeps the order.
+     */
+    private void runParser(int parserIndex, BlockingQueue<Chunk> chunks) throws Exception {
+        ToIntFunction<InternalRow> router = pipeline.newRouter(parserIndex);
+        InternalRowSerializer serializer = new InternalRowSerializer(rowType);
+        List<List<InternalRow>> batches = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            batches.add(new ArrayList<>(ROW_BATCH));
+        }
+
+        while (true) {
+            Chunk chunk = pipeline.take(chunks);
+            if (chunk == Chunk.END) {
+                break;
+            }
+            RowSink sink = row -> {
+                int writer = router.applyAsInt(row);
+                List<InternalRow> batch = batches.get(writer);
+                batch.add(row);
+                if (batch.size() == ROW_BATCH) {
+                    send(chunk, writer, batch);
+                    batches.set(writer, new ArrayList<>(ROW_BATCH));
+                }
+            };
+            if (chunk.format == Format.PARQUET) {
+                parseParquet(chunk.file, serializer, sink);
+            } else {
+                long lineNumber = chunk.firstLine;
+                for (String record : chunk.records) {
+                    GenericRow row;
+                    try {
+                        row = chunk.format == Format.CSV ? parseCsv(record, chunk.columns) : parseJson(record);
+                    } catch (RuntimeException e) {
+                        throw new IllegalArgumentException(chunk.file + ":" + lineNumber + ": " + e.getMessage(), e);
+                    }
+                    lineNumber++;
+                    if (row != null) {
+                        sink.accept(row);
+                    }
+                }
+            }
+            if (ordered) {
+                flushBatches(chunk, batches);
+                pipeline.put(chunk.output, RoutedBatch.END);
+            }
+        }
+        flushBatches(null, batches);
+    }
+
+    private void flushBatches(Chunk chunk, List<List<InternalRow>> batches) throws InterruptedException {
+        for (int i = 0; i < writers; i++) {
+            if (!batches.get(i).isEmpty()) {
+                send(chunk, i, batches.get(i));
+                batches.set(i, new ArrayList<>(ROW_BATCH));
+            }
+        }
+    }
+
+    /**
+     * Hand a batch to its writer, through the chunk's queue when the router keeps the order
+     */
+    private void send(Chunk chunk, int writer, List<InternalRow> batch) throws InterruptedException {
+        if (ordered) {
+            pipeline.put(chunk.output, new RoutedBatch(writer, batch));
+        } else {
+            pipeline.send(writer, batch);
+        }
+    }
+
+    private GenericRow parseCsv(String record, int[] columns) {
+        if (record.isEmpty()) {
+            return null;
+        }
+        List<String> values = splitCsv(record);
+        if (values.size() != columns.length) {
+            throw new IllegalArgumentException("expected " + columns.length + " fields but got " + values.size());
+        }
+        GenericRow row = new GenericRow(rowType.getFieldCount());
+        for (int i = 0; i < columns.length; i++) {
+            row.setField(columns[i], convert(values.get(i), columns[i]));
+        }
+        return row;
+    }
+
+    private GenericRow parseJson(String record) {
+        if (record.trim().isEmpty()) {
+            return null;
+        }
+        // Stream the object rather than building a tree, only nested values become JSON text
+        GenericRow row = new GenericRow(rowType.getFieldCount());
+        try (JsonReader reader = new JsonReader(new StringReader(record))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int index = fieldIndex(reader.nextName());
+                JsonToken token = reader.peek();
+                if (index < 0 || token == JsonToken.NULL) {
+                    reader.skipValue();
+                } else if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+                    row.setField(index, convert(JsonParser.parseReader(reader).toString(), index));
+                } else if (token == JsonToken.BOOLEAN) {
+                    row.setField(index, convert(String.valueOf(reader.nextBoolean()), index));
+                } else {
+                    row.setField(index, convert(reader.nextString(), index));
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException e) {
+            throw new IllegalArgumentException("invalid JSON object: " + e.getMessage(), e);
+        }
+        return row;
+    }
+
+    private Object convert(String value, int index) {
+        if (value == null) {
+            return null;
+        }
+        DataType type = rowType.getTypeAt(index);
+        if (type.getTypeRoot() == DataTypeRoot.TIMESTAMP_WITHOUT_TIME_ZONE) {
+            Timestamp timestamp = parseTimestamp(value, ((TimestampType) type).getPrecision());
+            if (timestamp != null) {
+                return timestamp;
+            }
+        }
+        try {
+            return TypeUtils.castFromString(value, type);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("cannot convert '" + value + "' to " + type + " for column '"
+                    + rowType.getFieldNames().get(index) + "'", e);
+        }
+    }
+
+    /**
+     * Parse 'yyyy-MM-dd HH:mm:ss[.fraction]' (or with 'T' between date and time) without the
+     * formatter machinery of castFromString, truncating the fraction to the precision like it does.
+     * Returns null for any other form, which is then left to castFromString.
+     */
+    private static Timestamp parseTimestamp(String value, int precision) {
+        int length = value.length();
+        if (length < 19 || value.charAt(4) != '-' || value.charAt(7) != '-'
+                || (value.charAt(10) != ' ' && value.charAt(10) != 'T')
+                || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        int hour = digits(value, 11, 13);
+        int minute = digits(value, 14, 16);
+        int second = digits(value, 17, 19);
+        int nanos = 0;
+        if (length > 19) {
+            if (value.charAt(19) != '.' || length == 20 || length > 29) {
+                return null;
+            }
+            nanos = digits(value, 20, length);
+            for (int i = length; i < 29; i++) {
+                nanos *= 10;
+            }
+        }
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || nanos < 0) {
+            return null;
+        }
+        nanos -= nanos % NANOS_DIVISORS[precision];
+        try {
+            return Timestamp.fromLocalDateTime(LocalDateTime.of(year, month, day, hour, minute, second, nanos));
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The number in value[from, to), or -1 if it is not all digits
+     */
+    private static int digits(String value, int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    /**
+     * Read a Parquet file with the table row type, columns are matched by name and missing ones are null
+     */
+    private void parseParquet(Path file, InternalRowSerializer serializer, RowSink sink) throws Exception {
+        FormatReaderFactory readerFactory = FileFormat.fromIdentifier("parquet", new Options())
+                .createReaderFactory(rowType);
+        org.apache.paimon.fs.Path path = new org.apache.paimon.fs.Path(file.toAbsolutePath().toString());
+        try (RecordReader<InternalRow> reader = readerFactory.createReader(
+                new FormatReaderContext(LocalFileIO.create(), path, Files.size(file)))) {
+            RecordReader.RecordIterator<InternalRow> batch;
+            while ((batch = reader.readBatch()) != null) {
+                try {
+                    InternalRow row;
+                    while ((row = batch.next()) != null) {
+                        // Batches reuse their rows
+                        sink.accept(serializer.copy(row));
+                    }
+                } finally {
+                    batch.releaseBatch();
+                }
+            }
+        }
+    }
+
+    private interface RowSink {
+        void accept(InternalRow row) throws Exception;
+    }
+
+    /**
+     * Records of one text file starting at a line, or a whole Parquet file
+     */
+    private static class Chunk {
+        static final Chunk END = new Chunk(null, null, null, 0, null);
+
+        final Path file;
+        final Format format;
+        final int[] columns;
+        final long firstLine;
+        final List<String> records;
+        // Parsed batches waiting for the router, only when rows keep the input order
+        BlockingQueue<RoutedBatch> output;
+
+        Chunk(Path file, Format format, int[] columns, long firstLine, List<String> records) {
+            this.file = file;
+            this.format = format;
+            this.columns = columns;
+            this.firstLine = firstLine;
+            this.records = records;
+        }
+    }
+
+    /**
+     * Rows of a chunk for one writer
+     */
+    private static class RoutedBatch {
+        static final RoutedBatch END = new RoutedBatch(-1, null);
+
+        final int writer;
+        final List<InternalRow> rows;
+
+        RoutedBatch(int writer, List<InternalRow> rows) {
+            this.writer = writer;
+            this.rows = rows;
+        }
+    }
+
+    public long getRowsLoaded() {
+        return pipeline == null ? 0 : pipeline.getRowsWritten();
+    }
+
+    public int getFilesRead() {
+        return files.size();
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public int getFilesWritten() {
+        return pipeline == null ? 0 : pipeline.getFilesWritten();
+    }
+
+    public long getBytesWritten() {
+        return pipeline == null ? 0 : pipeline.getBytesWritten();
+    }
+
+    public int getWriters() {
+        return writers;
+    }
+}
@@ -0,0 +1,445 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.Decimal;
+import org.apache.paimon.data.Timestamp;
+import org.apache.paimon.types.DataType;
+import org.apache.paimon.types.DataTypeJsonParser;
+import org.apache.paimon.types.DataTypeRoot;
+import org.apache.paimon.types.DecimalType;
+import org.apache.paimon.types.VarCharType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generator of synthetic values for one column, parsed from specs such as 'id:bigint=seq',
+ * 'user_id=zipf(100000,1.2)' or 'name:string=string(8,32),nulls=0.1'. Each value is a function
+ * of the seed, the column and the row number only, so the data does not depend on how the rows
+ * are spread over threads.
+ * <ul>
+ *   <li>seq[(start[,step])]: start + row * step</li>
+ *   <li>uniform(min,max): uniformly distributed in [min, max]</li>
+ *   <li>zipf(n[,exponent]): 1..n, with 1 the most frequent, following a Zipf distribution</li>
+ *   <li>string(length) or string(min,max): random alphanumeric text of a uniform length</li>
+ * </ul>
+ * Numbers become text in string columns, epoch days in DATE and epoch milliseconds in TIMESTAMP columns.
+ */
+public class ColumnGenerator {
+
+    public enum Kind {
+        SEQUENTIAL,
+        UNIFORM,
+        ZIPFIAN,
+        STRING
+    }
+
+    private static final char[] ALPHABET =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+    // 2024-01-01 and the end of 2024
+    private static final long DEFAULT_MIN_DAY = 19723;
+    private static final long DEFAULT_MAX_DAY = 20088;
+    private static final long DEFAULT_MIN_MILLIS = 1704067200000L;
+    private static final long DEFAULT_MAX_MILLIS = 1735689599999L;
+
+    private final String column;
+    private final DataType type;
+    private final Kind kind;
+    private final double[] args;
+    private final double nullRatio;
+    private final Zipf zipf;
+
+    private ColumnGenerator(String column, DataType type, Kind kind, double[] args, double nullRatio) {
+        this.column = column;
+        this.type = type;
+        this.kind = kind;
+        this.args = args;
+        this.nullRatio = nullRatio;
+        this.zipf = kind == Kind.ZIPFIAN ? new Zipf((long) args[0], args[1]) : null;
+    }
+
+    /**
+     * Parse '<name>[:<type>]=<generator>[,nulls=<ratio>]'; the type is only needed to create the table
+     */
+    public static ColumnGenerator parse(String spec) {
+        int eq = spec.indexOf('=');
+        if (eq <= 0) {
+            throw new IllegalArgumentException("Invalid column generator: " + spec
+                    + ", expected <name>[:<type>]=<generator>[,nulls=<ratio>]");
+        }
+        String name = spec.substring(0, eq).trim();
+        DataType type = null;
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            try {
+                type = DataTypeJsonParser.parseAtomicTypeSQLString(name.substring(colon + 1).trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid type of column generator " + spec + ": " + e.getMessage());
+            }
+            name = name.substring(0, colon).trim();
+        }
+
+        List<String> parts = splitTopLevel(spec.substring(eq + 1));
+        double nullRatio = 0;
+        for (int i = 1; i < parts.size(); i++) {
+            String option = parts.get(i).trim().toLowerCase(Locale.ROOT);
+            if (!option.startsWith("nulls=")) {
+                throw new IllegalArgumentException("Unknown option of column generator " + name + ": " + option);
+            }
+            nullRatio = Double.parseDouble(option.substring("nulls=".length()));
+            if (nullRatio < 0 || nullRatio > 1) {
+                throw new IllegalArgumentException("Null ratio of " + name + " must be in [0, 1]: " + nullRatio);
+            }
+        }
+
+        String generator = parts.get(0).trim().toLowerCase(Locale.ROOT);
+        String function = generator;
+        double[] values = new double[0];
+        int open = generator.indexOf('(');
+        if (open >= 0) {
+            if (!generator.endsWith(")")) {
+                throw new IllegalArgumentException("Invalid generator of " + name + ": " + generator);
+            }
+            function = generator.substring(0, open).trim();
+            String inner = generator.substring(open + 1, generator.length() - 1).trim();
+            if (!inner.isEmpty()) {
+                String[] tokens = inner.split(",");
+                values = new double[tokens.length];
+                for (int i = 0; i < tokens.length; i++) {
+                    values[i] = Double.parseDouble(tokens[i].trim());
+                }
+            }
+        }
+
+        Kind kind;
+        double[] args;
+        if ("seq".equals(function) || "sequential".equals(function)) {
+            kind = Kind.SEQUENTIAL;
+            args = new double[] {values.length > 0 ? values[0] : 0, values.length > 1 ? values[1] : 1};
+            checkArgs(name, generator, values.length <= 2);
+        } else if ("uniform".equals(function)) {
+            kind = Kind.UNIFORM;
+            checkArgs(name, generator, values.length == 2 && values[0] <= values[1]);
+            args = values;
+        } else if ("zipf".equals(function) || "zipfian".equals(function)) {
+            kind = Kind.ZIPFIAN;
+            checkArgs(name, generator, (values.length == 1 || values.length == 2) && values[0] >= 1
+                    && (values.length == 1 || values[1] > 0));
+            args = new double[] {values[0], values.length > 1 ? values[1] : 1.0};
+        } else if ("string".equals(function)) {
+            kind = Kind.STRING;
+            checkArgs(name, generator, (values.length == 1 || values.length == 2) && values[0] >= 0
+                    && values[values.length - 1] >= values[0]);
+            args = new double[] {values[0], values[values.length - 1]};
+        } else {
+            throw new IllegalArgumentException("Unknown generator of " + name + ": " + generator
+                    + ", expected seq, uniform, zipf or string");
+        }
+        return new ColumnGenerator(name, type, kind, args, nullRatio);
+    }
+
+    private static void checkArgs(String name, String generator, boolean valid) {
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid arguments of generator " + generator + " for " + name
+                    + ", expected seq[(start[,step])], uniform(min,max), zipf(n[,exponent]) or string(min[,max])");
+        }
+    }
+
+    /**
+     * Split at the commas outside parentheses
+     */
+    private static List<String> splitTopLevel(String text) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+
+    /**
+     * Generator for a column without a spec: seq for primary key fields, otherwise uniform values
+     * in a plausible range (0-9 for partition fields) or strings of 8 to 16 characters
+     */
+    public static ColumnGenerator defaultFor(String column, DataType type, boolean primaryKey, boolean partition) {
+        if (primaryKey && !partition) {
+            return new ColumnGenerator(column, null, Kind.SEQUENTIAL, new double[] {0, 1}, 0).withType(type);
+        }
+        DataTypeRoot root = type.getTypeRoot();
+        double[] range;
+        if (partition && root != DataTypeRoot.DATE && root != DataTypeRoot.TIMESTAMP_WITHOUT_TIME_ZONE
+                && root != DataTypeRoot.TIMESTAMP_WITH_LOCAL_TIME_ZONE) {
+            range = new double[] {0, 9};
+        } else if (root == DataTypeRoot.CHAR || root == DataTypeRoot.VARCHAR) {
+            int maxLength = root == DataTypeRoot.VARCHAR ? ((VarCharType) type).getLength() : 16;
+            int max = Math.min(16, maxLength);
+            return new ColumnGenerator(column, null, Kind.STRING, new double[] {Math.min(8, max), max}, 0)
+                    .withType(type);
+        } else if (root == DataTypeRoot.DATE) {
+            range = partition ? new double[] {DEFAULT_MIN_DAY, DEFAULT_MIN_DAY + 9}
+                    : new double[] {DEFAULT_MIN_DAY, DEFAULT_MAX_DAY};
+        } else if (root == DataTypeRoot.TIMESTAMP_WITHOUT_TIME_ZONE
+                || root == DataTypeRoot.TIMESTAMP_WITH_LOCAL_TIME_ZONE) {
+            range = new double[] {DEFAULT_MIN_MILLIS, DEFAULT_MAX_MILLIS};
+        } else if (root == DataTypeRoot.BOOLEAN) {
+            range = new double[] {0, 1};
+        } else if (root == DataTypeRoot.TINYINT) {
+            range = new double[] {0, 100};
+        } else if (root == DataTypeRoot.SMALLINT) {
+            range = new double[] {0, 10_000};
+        } else if (root == DataTypeRoot.DECIMAL) {
+            DecimalType decimal = (DecimalType) type;
+            range = new double[] {0, Math.min(1000, Math.pow(10, decimal.getPrecision() - decimal.getScale()) - 1)};
+        } else if (root == DataTypeRoot.FLOAT || root == DataTypeRoot.DOUBLE) {
+            range = new double[] {0, 1000};
+        } else {
+            range = new double[] {0, 1_000_000};
+        }
+        return new ColumnGenerator(column, null, Kind.UNIFORM, range, 0).withType(type);
+    }
+
+    /**
+     * This generator for a column of the given type, checking that it can produce values of the type
+     */
+    public ColumnGenerator withType(DataType columnType) {
+        DataTypeRoot root = columnType.getTypeRoot();
+        boolean text = root == DataTypeRoot.CHAR || root == DataTypeRoot.VARCHAR;
+        boolean supported = text || root == DataTypeRoot.BOOLEAN || root == DataTypeRoot.TINYINT
+                || root == DataTypeRoot.SMALLINT || root == DataTypeRoot.INTEGER || root == DataTypeRoot.BIGINT
+                || root == DataTypeRoot.FLOAT || root == DataTypeRoot.DOUBLE || root == DataTypeRoot.DECIMAL
+                || root == DataTypeRoot.DATE || root == DataTypeRoot.TIMESTAMP_WITHOUT_TIME_ZONE
+                || root == DataTypeRoot.TIMESTAMP_WITH_LOCAL_TIME_ZONE;
+        if (!supported) {
+            throw new IllegalArgumentException("Cannot generate values of type " + columnType + " for " + column);
+        }
+        if (kind == Kind.STRING && !text) {
+            throw new IllegalArgumentException("string() generates text but " + column + " is " + columnType);
+        }
+        if (nullRatio > 0 && !columnType.isNullable()) {
+            throw new IllegalArgumentException(column + " is NOT NULL and cannot have nulls");
+        }
+        return new ColumnGenerator(column, columnType, kind, args, nullRatio);
+    }
+
+    /**
+     * Value of this column in a row, in Paimon's internal representation; the random source is
+     * reset for the row and column by the caller
+     */
+    public Object generate(long row, RowRandom random) {
+        if (nullRatio > 0 && random.nextDouble() < nullRatio) {
+            return null;
+        }
+        switch (kind) {
+            case SEQUENTIAL:
+                return fromLong((long) args[0] + row * (long) args[1]);
+            case UNIFORM:
+                DataTypeRoot root = type.getTypeRoot();
+                if (root == DataTypeRoot.FLOAT || root == DataTypeRoot.DOUBLE || root == DataTypeRoot.DECIMAL) {
+                    return fromDouble(args[0] + random.nextDouble() * (args[1] - args[0]));
+                }
+                long min = (long) args[0];
+                long range = (long) args[1] - min + 1;
+                return fromLong(range <= 0 ? random.nextLong() : min + Math.floorMod(random.nextLong(), range));
+            case ZIPFIAN:
+                return fromLong(zipf.sample(random));
+            default:
+                int length = (int) args[0] + random.nextInt((int) (args[1] - args[0]) + 1);
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) {
+                    chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+                }
+                return BinaryString.fromString(new String(chars));
+        }
+    }
+
+    private Object fromLong(long value) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return value % 2 != 0;
+            case TINYINT:
+                return (byte) value;
+            case SMALLINT:
+                return (short) value;
+            case INTEGER:
+            case DATE:
+                return (int) value;
+            case BIGINT:
+                return value;
+            case FLOAT:
+                return (float) value;
+            case DOUBLE:
+                return (double) value;
+            case DECIMAL:
+                return toDecimal(BigDecimal.valueOf(value));
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                return Timestamp.fromEpochMillis(value);
+            default:
+                return BinaryString.fromString(Long.toString(value));
+        }
+    }
+
+    private Object fromDouble(double value) {
+        switch (type.getTypeRoot()) {
+            case FLOAT:
+                return (float) value;
+            case DECIMAL:
+                return toDecimal(BigDecimal.valueOf(value));
+            default:
+                return value;
+        }
+    }
+
+    private Decimal toDecimal(BigDecimal value) {
+        DecimalType decimal = (DecimalType) type;
+        Decimal result = Decimal.fromBigDecimal(value.setScale(decimal.getScale(), RoundingMode.HALF_UP),
+                decimal.getPrecision(), decimal.getScale());
+        if (result == null) {
+            throw new IllegalArgumentException(value + " does not fit " + type + " of " + column);
+        }
+        return result;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Declared type, or null if the spec did not give one
+     */
+    public DataType getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        String generator;
+        switch (kind) {
+            case SEQUENTIAL:
+                generator = "seq(" + (long) args[0] + "," + (long) args[1] + ")";
+                break;
+            case UNIFORM:
+                generator = "uniform(" + format(args[0]) + "," + format(args[1]) + ")";
+                break;
+            case ZIPFIAN:
+                generator = "zipf(" + (long) args[0] + "," + format(args[1]) + ")";
+                break;
+            default:
+                generator = "string(" + (long) args[0] + "," + (long) args[1] + ")";
+                break;
+        }
+        return nullRatio > 0 ? generator + ",nulls=" + format(nullRatio) : generator;
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    /**
+     * SplitMix64 random source that is reset for every row and column, so that values do not
+     * depend on the order in which rows are generated
+     */
+    public static final class RowRandom {
+
+        private final long seed;
+        private long state;
+
+        public RowRandom(long seed) {
+            this.seed = mix(seed);
+        }
+
+        /**
+         * Start the sequence of a column of a row
+         */
+        public void reset(int column, long row) {
+            state = mix(mix(seed + column * 0xD1B54A32D192ED03L) ^ row * 0x9E3779B97F4A7C15L);
+        }
+
+        public long nextLong() {
+            state += 0x9E3779B97F4A7C15L;
+            return mix(state);
+        }
+
+        public double nextDouble() {
+            return (nextLong() >>> 11) * 0x1.0p-53;
+        }
+
+        public int nextInt(int bound) {
+            return (int) ((nextLong() >>> 33) * bound >>> 31);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * Zipf sampler using rejection-inversion (Hörmann and Derflinger), constant time per sample for any n
+     */
+    private static final class Zipf {
+
+        private final long n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        Zipf(long n, double exponent) {
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1.0;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        long sample(RowRandom random) {
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                long k = Math.max(1, Math.min(n, (long) (x + 0.5)));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return helper2((1.0 - exponent) * logX) * logX;
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1.0, x * (1.0 - exponent));
+            return Math.exp(helper1(t) * x);
+        }
+
+        // log(1 + x) / x, accurate near 0
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+        }
+
+        // (exp(x) - 1) / x, accurate near 0
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+        }
+    }
+}
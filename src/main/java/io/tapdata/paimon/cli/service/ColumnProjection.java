@@ -0,0 +1,107 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.predicate.PredicateBuilder;
+import org.apache.paimon.types.DataField;
+import org.apache.paimon.types.RowType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Columns clause of a query. The read is projected to the selected columns followed by the other
+ * columns the row-level predicates need, so nothing else is decoded; for system tables such as
+ * $files, whose rows are computed lazily, the other values are not even computed.
+ */
+public class ColumnProjection {
+
+    private final RowType tableType;
+    private final int[] readFields;
+    private final int selected;
+
+    private ColumnProjection(RowType tableType, int[] readFields, int selected) {
+        this.tableType = tableType;
+        this.readFields = readFields;
+        this.selected = selected;
+    }
+
+    /**
+     * Project the table row type to the given columns (case insensitive) plus the fields of the predicates
+     */
+    public static ColumnProjection of(RowType tableType, List<String> columns, List<Predicate> predicates) {
+        List<DataField> fields = tableType.getFields();
+        List<Integer> read = new ArrayList<>();
+        for (String column : columns) {
+            int index = -1;
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).name().equalsIgnoreCase(column)) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == -1) {
+                throw new IllegalArgumentException("Field not found: " + column);
+            }
+            if (!read.contains(index)) {
+                read.add(index);
+            }
+        }
+        int selected = read.size();
+        for (int i = 0; i < fields.size(); i++) {
+            Set<String> field = Collections.singleton(fields.get(i).name());
+            if (!read.contains(i) && predicates.stream().anyMatch(p -> PredicateBuilder.containsFields(p, field))) {
+                read.add(i);
+            }
+        }
+        return new ColumnProjection(tableType, read.stream().mapToInt(Integer::intValue).toArray(), selected);
+    }
+
+    /**
+     * Field indexes of the table to read, for {@code ReadBuilder.withProjection}
+     */
+    public int[] getReadFields() {
+        return readFields;
+    }
+
+    public RowType getReadType() {
+        return tableType.project(readFields);
+    }
+
+    /**
+     * Positions of the selected columns in a projected row
+     */
+    public int[] getOutputFields() {
+        int[] output = new int[selected];
+        for (int i = 0; i < selected; i++) {
+            output[i] = i;
+        }
+        return output;
+    }
+
+    /**
+     * Positions of the selected columns in a full table row
+     */
+    public int[] getTableFields() {
+        return Arrays.copyOf(readFields, selected);
+    }
+
+    /**
+     * Rewrite predicates on the table row type to the projected row type
+     */
+    public List<Predicate> remap(List<Predicate> predicates) {
+        int[] mapping = new int[tableType.getFieldCount()];
+        Arrays.fill(mapping, -1);
+        for (int i = 0; i < readFields.length; i++) {
+            mapping[readFields[i]] = i;
+        }
+        List<Predicate> remapped = new ArrayList<>();
+        for (Predicate predicate : predicates) {
+            remapped.add(PredicateBuilder.transformFieldMapping(predicate, mapping)
+                    .orElseThrow(() -> new IllegalStateException("Predicate field not projected: " + predicate)));
+        }
+        return remapped;
+    }
+}
@@ -0,0 +1,250 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.CoreOptions;
+import org.apache.paimon.append.AppendCompactCoordinator;
+import org.apache.paimon.append.AppendCompactTask;
+import org.apache.paimon.data.BinaryRow;
+import org.apache.paimon.disk.IOManager;
+import org.apache.paimon.io.CompactIncrement;
+import org.apache.paimon.io.DataFileMeta;
+import org.apache.paimon.manifest.BucketEntry;
+import org.apache.paimon.memory.HeapMemorySegmentPool;
+import org.apache.paimon.operation.BaseAppendFileStoreWrite;
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.table.BucketMode;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.sink.BatchTableCommit;
+import org.apache.paimon.table.sink.BatchTableWrite;
+import org.apache.paimon.table.sink.BatchWriteBuilder;
+import org.apache.paimon.table.sink.CommitMessage;
+import org.apache.paimon.table.sink.CommitMessageImpl;
+import org.apache.paimon.table.source.EndOfScanException;
+import org.apache.paimon.table.source.snapshot.SnapshotReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Compacts a table or some of its partitions on worker threads, committed as one snapshot
+ */
+public class CompactOperator {
+
+    private final FileStoreTable table;
+    private final Predicate partitionFilter;
+    private final int parallelism;
+    private final long maxMemory;
+
+    private int bucketsCompacted;
+    private final Set<BinaryRow> partitions = new HashSet<>();
+    private int filesBefore;
+    private int filesAfter;
+    private long bytesBefore;
+    private long bytesAfter;
+
+    /**
+     * @param partitionFilter predicate on the partition fields of the table row type, or null for the whole table
+     * @param parallelism     number of worker threads
+     * @param maxMemory       memory budget shared by the worker threads
+     */
+    public CompactOperator(FileStoreTable table, Predicate partitionFilter, int parallelism, long maxMemory) {
+        this.table = table;
+        this.partitionFilter = partitionFilter;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Compact and commit; nothing is committed if any bucket fails
+     */
+    public void execute() throws Exception {
+        if (table.bucketMode() == BucketMode.POSTPONE_MODE) {
+            throw new UnsupportedOperationException("Tables with postponed buckets cannot be compacted from the CLI");
+        }
+
+        long memoryPerThread = maxMemory / parallelism;
+        FileStoreTable bounded = table.copy(memoryOptions(memoryPerThread));
+        BatchWriteBuilder writeBuilder = bounded.newBatchWriteBuilder();
+        List<CommitMessage> messages = table.bucketMode() == BucketMode.BUCKET_UNAWARE
+                ? compactAppendTasks(bounded)
+                : compactBuckets(bounded, writeBuilder, memoryPerThread);
+        if (messages.isEmpty()) {
+            return;
+        }
+        try (BatchTableCommit commit = writeBuilder.newCommit()) {
+            commit.commit(messages);
+        }
+    }
+
+    private List<CommitMessage> compactBuckets(FileStoreTable bounded, BatchWriteBuilder writeBuilder,
+                                               long memoryPerThread) throws Exception {
+        SnapshotReader snapshotReader = bounded.newSnapshotReader();
+        if (partitionFilter != null) {
+            snapshotReader.withFilter(partitionFilter);
+        }
+        List<BucketEntry> buckets = new ArrayList<>(snapshotReader.bucketEntries());
+        if (buckets.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Largest bucket first to the least loaded thread
+        buckets.sort(Comparator.comparingLong(BucketEntry::fileSizeInBytes).reversed());
+        int threads = Math.min(parallelism, buckets.size());
+        List<List<BucketEntry>> assignments = new ArrayList<>();
+        long[] load = new long[threads];
+        for (int i = 0; i < threads; i++) {
+            assignments.add(new ArrayList<>());
+        }
+        for (BucketEntry bucket : buckets) {
+            int target = 0;
+            for (int i = 1; i < threads; i++) {
+                if (load[i] < load[target]) {
+                    target = i;
+                }
+            }
+            assignments.get(target).add(bucket);
+            load[target] += bucket.fileSizeInBytes();
+        }
+
+        int pageSize = bounded.coreOptions().pageSize();
+
+        try (IOManager ioManager = IOManager.create(System.getProperty("java.io.tmpdir"))) {
+            List<CommitMessage> messages = runOnThreads(assignments, assigned -> {
+                try (BatchTableWrite write = writeBuilder.newWrite()) {
+                    write.withIOManager(ioManager);
+                    write.withMemoryPool(new HeapMemorySegmentPool(memoryPerThread / 2, pageSize));
+                    for (BucketEntry bucket : assigned) {
+                        write.compact(bucket.partition(), bucket.bucket(), true);
+                    }
+                    // Waits for the compactions of this thread
+                    return write.prepareCommit();
+                }
+            });
+            for (CommitMessage message : messages) {
+                CompactIncrement increment = ((CommitMessageImpl) message).compactIncrement();
+                if (!increment.isEmpty()) {
+                    bucketsCompacted++;
+                    partitions.add(message.partition());
+                    countFiles(increment.compactBefore(), increment.compactAfter());
+                }
+            }
+            return messages;
+        }
+    }
+
+    private List<CommitMessage> compactAppendTasks(FileStoreTable bounded) throws Exception {
+        List<AppendCompactTask> tasks;
+        try {
+            tasks = new AppendCompactCoordinator(bounded, false, partitionFilter).run();
+        } catch (EndOfScanException e) {
+            // No files in the selected partitions
+            return Collections.emptyList();
+        }
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int threads = Math.min(parallelism, tasks.size());
+        List<List<AppendCompactTask>> assignments = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            assignments.add(new ArrayList<>());
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            assignments.get(i % threads).add(tasks.get(i));
+        }
+
+        String commitUser = UUID.randomUUID().toString();
+        List<CommitMessage> messages = runOnThreads(assignments, assigned -> {
+            List<CommitMessage> result = new ArrayList<>();
+            BaseAppendFileStoreWrite write = (BaseAppendFileStoreWrite) bounded.store().newWrite(commitUser);
+            try {
+                for (AppendCompactTask task : assigned) {
+                    result.add(task.doCompact(bounded, write));
+                }
+            } finally {
+                write.close();
+            }
+            return result;
+        });
+        for (AppendCompactTask task : tasks) {
+            bucketsCompacted++;
+            partitions.add(task.partition());
+            countFiles(task.compactBefore(), task.compactAfter());
+        }
+        return messages;
+    }
+
+    /**
+     * Options bounding the memory of one worker: half for its write buffer pool, half for sort spills
+     */
+    private Map<String, String> memoryOptions(long memoryPerThread) {
+        Map<String, String> options = new HashMap<>();
+        options.put(CoreOptions.WRITE_ONLY.key(), "false");
+        options.put(CoreOptions.SORT_SPILL_BUFFER_SIZE.key(), String.valueOf(memoryPerThread / 2));
+        if (!table.options().containsKey(CoreOptions.SORT_SPILL_THRESHOLD.key())) {
+            // Merge at most this many sorted runs in memory, spill the rest
+            options.put(CoreOptions.SORT_SPILL_THRESHOLD.key(),
+                    String.valueOf(table.coreOptions().localSortMaxNumFileHandles()));
+        }
+        return options;
+    }
+
+    private interface Worker<T> {
+        List<CommitMessage> run(List<T> assigned) throws Exception;
+    }
+
+    private static <T> List<CommitMessage> runOnThreads(List<List<T>> assignments, Worker<T> worker)
+            throws Exception {
+        List<Callable<List<CommitMessage>>> tasks = new ArrayList<>();
+        for (List<T> assigned : assignments) {
+            tasks.add(() -> worker.run(assigned));
+        }
+        List<CommitMessage> messages = new ArrayList<>();
+        for (List<CommitMessage> assignedMessages : ParallelTasks.runAll(tasks, assignments.size(), "compact")) {
+            messages.addAll(assignedMessages);
+        }
+        return messages;
+    }
+
+    private void countFiles(List<DataFileMeta> before, List<DataFileMeta> after) {
+        filesBefore += before.size();
+        filesAfter += after.size();
+        for (DataFileMeta file : before) {
+            bytesBefore += file.fileSize();
+        }
+        for (DataFileMeta file : after) {
+            bytesAfter += file.fileSize();
+        }
+    }
+
+    public int getBucketsCompacted() {
+        return bucketsCompacted;
+    }
+
+    public int getPartitionsCompacted() {
+        return partitions.size();
+    }
+
+    public int getFilesBefore() {
+        return filesBefore;
+    }
+
+    public int getFilesAfter() {
+        return filesAfter;
+    }
+
+    public long getBytesBefore() {
+        return bytesBefore;
+    }
+
+    public long getBytesAfter() {
+        return bytesAfter;
+    }
+}
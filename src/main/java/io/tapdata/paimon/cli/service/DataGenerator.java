@@ -0,0 +1,152 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.sink.CommitMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes synthetic rows from column generators into a table, one snapshot per batch of rows
+ */
+public class DataGenerator {
+
+    private final FileStoreTable table;
+    private final List<ColumnGenerator> generators;
+    private final long rows;
+    private final long batchRows;
+    private final int parallelism;
+    private final long maxMemory;
+    private final long seed;
+
+    private TableWritePipeline pipeline;
+    private int batches;
+
+    /**
+     * Called after each committed batch
+     */
+    public interface BatchListener {
+        void committed(int batch, long rowsCommitted, long snapshotId);
+    }
+
+    /**
+     * @param generators  one generator per field of the table, in field order
+     * @param batchRows   rows per commit
+     * @param parallelism number of generator threads and of writer threads
+     * @param maxMemory   memory budget shared by the writer threads
+     */
+    public DataGenerator(FileStoreTable table, List<ColumnGenerator> generators, long rows, long batchRows,
+                         int parallelism, long maxMemory, long seed) {
+        this.table = table;
+        this.generators = generators;
+        this.rows = rows;
+        this.batchRows = Math.max(1, batchRows);
+        this.parallelism = Math.max(1, parallelism);
+        this.maxMemory = maxMemory;
+        this.seed = seed;
+    }
+
+    /**
+     * Generate and commit all batches; a failed batch is not committed, earlier batches stay committed
+     */
+    public void execute(BatchListener listener) throws Exception {
+        pipeline = new TableWritePipeline(table, "Generate", parallelism, 0, maxMemory);
+        try {
+            for (long from = 0; from < rows; from += batchRows) {
+                long to = Math.min(rows, from + batchRows);
+                pipeline.commit(writeBatch(from, to));
+                batches++;
+                listener.committed(batches, to, table.snapshotManager().latestSnapshotId());
+            }
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    /**
+     * Generate rows [from, to) and return the commit messages of all writers
+     */
+    private List<CommitMessage> writeBatch(long from, long to) throws Exception {
+        pipeline.startWriters();
+        AtomicInteger runningGenerators = new AtomicInteger(parallelism);
+        List<Future<?>> generatorFutures = new ArrayList<>();
+        long step = (to - from + parallelism - 1) / parallelism;
+        for (int i = 0; i < parallelism; i++) {
+            int generatorIndex = i;
+            long rangeStart = Math.min(to, from + i * step);
+            long rangeEnd = Math.min(to, rangeStart + step);
+            generatorFutures.add(pipeline.submit(() -> {
+                try {
+                    runGenerator(generatorIndex, rangeStart, rangeEnd);
+                } finally {
+                    // The last generator to finish tells the writers that no more rows are coming
+                    if (runningGenerators.decrementAndGet() == 0) {
+                        pipeline.endWriters();
+                    }
+                }
+                return null;
+            }));
+        }
+        return pipeline.finish(generatorFutures);
+    }
+
+    /**
+     * Generate rows [from, to), routing each row to the writer of its bucket
+     */
+    private void runGenerator(int generatorIndex, long from, long to) throws Exception {
+        ToIntFunction<InternalRow> router = pipeline.newRouter(generatorIndex);
+        ColumnGenerator.RowRandom random = new ColumnGenerator.RowRandom(seed);
+        int fields = generators.size();
+        int writers = pipeline.getWriters();
+        List<List<InternalRow>> batches = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            batches.add(new ArrayList<>(TableWritePipeline.ROW_BATCH));
+        }
+
+        for (long rowNumber = from; rowNumber < to; rowNumber++) {
+            GenericRow row = new GenericRow(fields);
+            for (int i = 0; i < fields; i++) {
+                random.reset(i, rowNumber);
+                row.setField(i, generators.get(i).generate(rowNumber, random));
+            }
+
+            int writer = router.applyAsInt(row);
+            List<InternalRow> batch = batches.get(writer);
+            batch.add(row);
+            if (batch.size() == TableWritePipeline.ROW_BATCH) {
+                pipeline.send(writer, batch);
+                batches.set(writer, new ArrayList<>(TableWritePipeline.ROW_BATCH));
+            }
+        }
+        for (int i = 0; i < writers; i++) {
+            if (!batches.get(i).isEmpty()) {
+                pipeline.send(i, batches.get(i));
+            }
+        }
+    }
+
+    public long getRowsWritten() {
+        return pipeline == null ? 0 : pipeline.getRowsWritten();
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public int getFilesWritten() {
+        return pipeline == null ? 0 : pipeline.getFilesWritten();
+    }
+
+    public long getBytesWritten() {
+        return pipeline == null ? 0 : pipeline.getBytesWritten();
+    }
+
+    public int getWriters() {
+        return pipeline == null ? 0 : pipeline.getWriters();
+    }
+}
@@ -1,43 +1,105 @@
 package io.tapdata.paimon.cli.service;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import io.tapdata.paimon.cli.catalog.CatalogManager;
+import io.tapdata.paimon.cli.config.StorageConfig;
+import io.tapdata.paimon.cli.jfr.FilterParseEvent;
+import io.tapdata.paimon.cli.jfr.OutputEvent;
+import io.tapdata.paimon.cli.jfr.RowConversionEvent;
+import io.tapdata.paimon.cli.jfr.ScanPlanEvent;
+import io.tapdata.paimon.cli.job.BackgroundJob;
+import org.apache.paimon.CoreOptions;
 import org.apache.paimon.Snapshot;
 import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
 import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.options.MemorySize;
+import org.apache.paimon.predicate.Equal;
+import org.apache.paimon.predicate.LeafPredicate;
 import org.apache.paimon.predicate.Predicate;
 import org.apache.paimon.predicate.PredicateBuilder;
 import org.apache.paimon.reader.RecordReader;
 import org.apache.paimon.table.FileStoreTable;
 import org.apache.paimon.table.Table;
+import org.apache.paimon.table.source.DataSplit;
 import org.apache.paimon.table.source.ReadBuilder;
 import org.apache.paimon.table.source.Split;
 import org.apache.paimon.table.source.TableRead;
 import org.apache.paimon.types.DataField;
 import org.apache.paimon.types.RowType;
+import org.apache.paimon.utils.ProjectedRow;
 import org.apache.paimon.utils.SnapshotManager;
+import org.apache.paimon.utils.TypeUtils;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Data Query Service
  */
-public class DataQueryService {
+public class DataQueryService implements AutoCloseable {
 
     private final CatalogManager catalogManager;
+    private final SketchCache sketchCache = new SketchCache();
+    private final Map<String, PrimaryKeyLookup> primaryKeyLookups = new HashMap<>();
+    private volatile QueryContext currentQuery;
+    private volatile QueryContext lastQuery;
 
     public DataQueryService(CatalogManager catalogManager) {
         this.catalogManager = catalogManager;
     }
 
+    /**
+     * Cancel the running query, if any; called from the interrupt signal handler
+     */
+    public boolean cancelCurrentQuery() {
+        QueryContext query = currentQuery;
+        if (query == null) {
+            return false;
+        }
+        query.cancel();
+        return true;
+    }
+
+    /**
+     * Context of the most recent foreground query, with its scan metrics
+     */
+    public QueryContext getLastQuery() {
+        return lastQuery;
+    }
+
+    /**
+     * Create the context of a new query; queries of background jobs are registered with their job
+     */
+    private QueryContext beginQuery() {
+        QueryContext query = QueryContext.fromOptions(catalogManager.getConfig().getOptions());
+        BackgroundJob job = BackgroundJob.current();
+        if (job != null) {
+            job.attach(query);
+        } else {
+            currentQuery = query;
+            lastQuery = query;
+        }
+        return query;
+    }
+
+    private void endQuery() {
+        if (BackgroundJob.current() == null) {
+            currentQuery = null;
+        }
+    }
+
     /**
      * Count total rows in a table
      */
@@ -49,8 +111,18 @@ public class DataQueryService {
      * Count total rows in a table with optional filter
      */
     public void countTable(String database, String tableName, String filterExpression) {
+        countTable(database, tableName, filterExpression, QueryOptions.defaults());
+    }
+
+    /**
+     * Count rows in a table with optional filter and query options.
+     * With a sample, only the sampled splits are read and the count is scaled to an estimate.
+     */
+    public void countTable(String database, String tableName, String filterExpression, QueryOptions options) {
+        QueryContext context = beginQuery();
         try {
             if (!catalogManager.tableExists(database, tableName)) {
+                context.fail();
                 System.err.println("Table does not exist: " + database + "." + tableName);
                 return;
             }
@@ -72,17 +144,316 @@ public class DataQueryService {
                 }
             }
 
-            long count = countRows(table, predicates);
+            SampleSpec sample = options.getSample();
+            if (sample != null && !(predicates.isEmpty() && hasSnapshotRecordCount(table))) {
+                countRowsBySample(database, tableName, table, predicates, sample, context);
+                return;
+            }
+
+            long count = countRows(table, predicates, context);
 
             String filterInfo = (filterExpression != null && !filterExpression.trim().isEmpty())
                 ? " (with filter)" : "";
             System.out.println("\nTotal rows in table " + database + "." + tableName + filterInfo + ": " + count + "\n");
+        } catch (QueryAbortedException e) {
+            System.err.println("\nQuery aborted: " + e.getMessage() + "\n");
         } catch (Exception e) {
+            context.fail();
             System.err.println("Failed to count rows: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            endQuery();
         }
     }
 
+    /**
+     * Count distinct non-null values of a column with optional filter.
+     * Approximate mode uses HyperLogLog sketches, exact mode a primitive hash set.
+     */
+    public void countDistinct(String database, String tableName, String column, boolean exact,
+                              String filterExpression, QueryOptions options) {
+        QueryContext context = beginQuery();
+        try {
+            if (!catalogManager.tableExists(database, tableName)) {
+                context.fail();
+                System.err.println("Table does not exist: " + database + "." + tableName);
+                return;
+            }
+
+            Table table = catalogManager.getTable(database, tableName);
+            RowType rowType = table.rowType();
+
+            int fieldIndex = findFieldIndex(rowType, column);
+            if (fieldIndex == -1) {
+                context.fail();
+                System.err.println("Field not found: " + column);
+                return;
+            }
+            DataField field = rowType.getFields().get(fieldIndex);
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (filterExpression != null && !filterExpression.trim().isEmpty()) {
+                try {
+                    predicates = parseFilter(filterExpression, rowType);
+                    if (!predicates.isEmpty()) {
+                        System.out.println("\nApplied filter: " + filterExpression);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Failed to parse filter: " + e.getMessage());
+                    System.err.println("Filter will be ignored. Continuing without filter...");
+                }
+            }
+            ReadBuilder readBuilder = newReadBuilder(table, predicates);
+
+            List<Split> splits = planSplits(table, readBuilder, predicates, options.getSample(), context);
+            DistinctCountOperator operator = new DistinctCountOperator(
+                    database + "." + tableName, field.name(), fieldIndex, field.type(), exact, sketchCache);
+            DistinctCountOperator.Result result = operator.execute(readBuilder, splits,
+                    rowPredicates(table, predicates), context);
+
+            String filterInfo = predicates.isEmpty() ? "" : " (with filter)";
+            String mode;
+            if (result.isExact()) {
+                mode = operator.isExactByHash() ? "exact, by 64-bit hash of each value" : "exact";
+            } else {
+                mode = String.format("approximate, HyperLogLog std error %.1f%%", result.getStandardError() * 100);
+                if (exact) {
+                    mode = "more than " + DistinctCountOperator.MAX_EXACT_DISTINCT + " values for exact mode; " + mode;
+                }
+            }
+            // Distinct counts do not scale with the sampled fraction, so a sample only gives a lower bound
+            String scope = options.getSample() == null ? " in table " : " in the sampled splits of table ";
+            if (options.getSample() != null) {
+                mode += "; sample only, not scaled, the whole table may have more";
+            }
+            System.out.println("(Read " + operator.getSplitsRead() + " split(s), "
+                    + operator.getSplitsCached() + " from sketch cache)");
+            System.out.println("\nDistinct values of " + field.name() + scope + database + "." + tableName
+                    + filterInfo + ": " + result.getCount() + " (" + mode + ")\n");
+        } catch (QueryAbortedException e) {
+            System.err.println("\nQuery aborted: " + e.getMessage() + "\n");
+        } catch (Exception e) {
+            context.fail();
+            System.err.println("Failed to count distinct values: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            endQuery();
+        }
+    }
+
+    /**
+     * Look up a single row of a primary-key table by its full primary key, e.g. 'id=42'.
+     * Only the bucket the key routes to is read.
+     */
+    public void getByPrimaryKey(String database, String tableName, String keyExpression) {
+        QueryContext context = beginQuery();
+        try {
+            if (!catalogManager.tableExists(database, tableName)) {
+                context.fail();
+                System.err.println("Table does not exist: " + database + "." + tableName);
+                return;
+            }
+
+            Table table = catalogManager.getTable(database, tableName);
+            List<String> primaryKeys = table.primaryKeys();
+            if (primaryKeys.isEmpty() || !(table instanceof FileStoreTable)) {
+                context.fail();
+                System.err.println("Table " + database + "." + tableName + " has no primary key, use select instead");
+                return;
+            }
+            RowType rowType = table.rowType();
+
+            // Every primary key field needs exactly one equality condition
+            List<Predicate> predicates = parseFilter(keyExpression, rowType);
+            GenericRow keyRow = new GenericRow(rowType.getFieldCount());
+            List<String> boundKeys = new ArrayList<>();
+            for (Predicate predicate : predicates) {
+                if (!(predicate instanceof LeafPredicate) || !(((LeafPredicate) predicate).function() instanceof Equal)
+                        || !primaryKeys.contains(((LeafPredicate) predicate).fieldName())) {
+                    context.fail();
+                    System.err.println("Only equality conditions on primary key fields are supported: " + predicate);
+                    return;
+                }
+                LeafPredicate leaf = (LeafPredicate) predicate;
+                keyRow.setField(rowType.getFieldIndex(leaf.fieldName()), leaf.literals().get(0));
+                boundKeys.add(leaf.fieldName());
+            }
+            if (!boundKeys.containsAll(primaryKeys)) {
+                context.fail();
+                System.err.println("All primary key fields must be specified: " + String.join(", ", primaryKeys));
+                return;
+            }
+
+            FileStoreTable fileStoreTable = (FileStoreTable) table;
+            String cacheKey = database + "." + tableName + "#" + fileStoreTable.schema().id();
+            PrimaryKeyLookup lookup;
+            synchronized (primaryKeyLookups) {
+                lookup = primaryKeyLookups.get(cacheKey);
+                if (lookup == null) {
+                    lookup = new PrimaryKeyLookup(fileStoreTable);
+                    primaryKeyLookups.put(cacheKey, lookup);
+                }
+            }
+
+            context.describe(table.fullName(), TypeUtils.project(rowType, table.partitionKeys()), keyExpression);
+            long start = System.nanoTime();
+            PrimaryKeyLookup.Result result = lookup.lookup(keyRow, predicates, context);
+            long elapsedMicros = (System.nanoTime() - start) / 1000;
+
+            System.out.println("\nTable: " + database + "." + tableName);
+            System.out.println("====================");
+            RowConverter converter = new RowConverter(rowType);
+            List<Object[]> rows = new ArrayList<>();
+            if (result.getRow() != null) {
+                rows.add(converter.convert(result.getRow()));
+            }
+            converter.printJson(rows);
+
+            String bucketInfo = result.isAllPartitions() ? "all partitions"
+                    : result.getBucket() >= 0 ? "bucket " + result.getBucket() : "all buckets";
+            System.out.println(String.format("%n%s (%s, %d of %d file(s) in key range, %s, %.2f ms)%n",
+                    result.getRow() != null ? "Found 1 row" : "Key not found",
+                    bucketInfo, result.getFilesInKeyRange(), result.getFilesInBucket(),
+                    result.isLocalQuery() ? "local table query" : "bucket read", elapsedMicros / 1000.0));
+        } catch (QueryAbortedException e) {
+            System.err.println("\nQuery aborted: " + e.getMessage() + "\n");
+        } catch (Exception e) {
+            context.fail();
+            System.err.println("Failed to look up key: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            endQuery();
+        }
+    }
+
+    /**
+     * Compare two versions of a primary-key table by key, e.g. two snapshots of one table or a
+     * table and its copy. A null snapshot means the latest one. Columns that exist on only one
+     * side (or with a different type) are left out of the comparison.
+     */
+    public void diffTables(String leftDatabase, String leftTable, Long leftSnapshot,
+                           String rightDatabase, String rightTable, Long rightSnapshot, int sampleLimit) {
+        QueryContext context = beginQuery();
+        try {
+            for (String[] name : new String[][] {{leftDatabase, leftTable}, {rightDatabase, rightTable}}) {
+                if (!catalogManager.tableExists(name[0], name[1])) {
+                    context.fail();
+                    System.err.println("Table does not exist: " + name[0] + "." + name[1]);
+                    return;
+                }
+            }
+
+            Table left = atSnapshot(catalogManager.getTable(leftDatabase, leftTable), leftSnapshot);
+            Table right = atSnapshot(catalogManager.getTable(rightDatabase, rightTable), rightSnapshot);
+            List<String> primaryKeys = left.primaryKeys();
+            if (primaryKeys.isEmpty()) {
+                context.fail();
+                System.err.println("Table " + leftDatabase + "." + leftTable + " has no primary key, diff compares rows by key");
+                return;
+            }
+            if (!primaryKeys.equals(right.primaryKeys())) {
+                context.fail();
+                System.err.println("Both tables need the same primary key to be compared: "
+                        + primaryKeys + " vs " + right.primaryKeys());
+                return;
+            }
+
+            // Compare the columns both sides have with the same type, in the order of the left side
+            RowType leftType = left.rowType();
+            RowType rightType = right.rowType();
+            List<String> commonFields = new ArrayList<>();
+            List<String> ignoredFields = new ArrayList<>();
+            for (DataField field : leftType.getFields()) {
+                int index = rightType.getFieldIndex(field.name());
+                if (index >= 0 && rightType.getTypeAt(index).equals(field.type())) {
+                    commonFields.add(field.name());
+                } else {
+                    ignoredFields.add(field.name());
+                }
+            }
+            for (DataField field : rightType.getFields()) {
+                if (leftType.getFieldIndex(field.name()) < 0) {
+                    ignoredFields.add(field.name());
+                }
+            }
+            for (String key : primaryKeys) {
+                if (!commonFields.contains(key)) {
+                    context.fail();
+                    System.err.println("Primary key field " + key + " differs between the two tables");
+                    return;
+                }
+            }
+
+            int[] leftProjection = leftType.getFieldIndices(commonFields);
+            int[] rightProjection = rightType.getFieldIndices(commonFields);
+            RowType rowType = leftType.project(leftProjection);
+            int[] keyIndexes = rowType.getFieldIndices(primaryKeys);
+
+            DiffOperator operator = new DiffOperator(rowType, keyIndexes, sampleLimit, prefetchDepth());
+            operator.execute(left.newReadBuilder().withProjection(leftProjection),
+                    right.newReadBuilder().withProjection(rightProjection), context);
+
+            String leftName = leftDatabase + "." + leftTable + (leftSnapshot == null ? "" : "@" + leftSnapshot);
+            String rightName = rightDatabase + "." + rightTable + (rightSnapshot == null ? "" : "@" + rightSnapshot);
+            System.out.println("\nDiff: " + leftName + " -> " + rightName);
+            System.out.println("====================");
+            if (!ignoredFields.isEmpty()) {
+                System.out.println("Ignored columns: " + String.join(", ", ignoredFields));
+            }
+            System.out.println("Inserted: " + operator.getInserted());
+            System.out.println("Updated:  " + operator.getUpdated());
+            System.out.println("Deleted:  " + operator.getDeleted());
+
+            RowType keyType = rowType.project(keyIndexes);
+            RowConverter keyConverter = new RowConverter(keyType);
+            for (byte[] key : operator.getInsertedKeys()) {
+                System.out.println("  + " + formatKey(keyConverter, key));
+            }
+            for (byte[][] update : operator.getUpdatedRows()) {
+                System.out.println("  ~ " + formatKey(keyConverter, update[0])
+                        + " (" + String.join(", ", operator.changedFields(update[1], update[2])) + ")");
+            }
+            for (byte[] key : operator.getDeletedKeys()) {
+                System.out.println("  - " + formatKey(keyConverter, key));
+            }
+
+            System.out.println(String.format("%nSkipped %d identical bucket(s) (%d file(s)), read %d split(s), "
+                            + "spilled %s to %d partition(s), %s%n",
+                    operator.getBucketsSkipped(), operator.getFilesSkipped(), operator.getSplitsRead(),
+                    new MemorySize(operator.getBytesSpilled()), operator.getPartitions(), context.getMetrics()));
+        } catch (QueryAbortedException e) {
+            System.err.println("\nQuery aborted: " + e.getMessage() + "\n");
+        } catch (Exception e) {
+            context.fail();
+            System.err.println("Failed to diff tables: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            endQuery();
+        }
+    }
+
+    private static Table atSnapshot(Table table, Long snapshotId) {
+        if (snapshotId == null) {
+            return table;
+        }
+        return table.copy(Collections.singletonMap(CoreOptions.SCAN_SNAPSHOT_ID.key(), String.valueOf(snapshotId)));
+    }
+
+    /**
+     * Render a serialized key as "a=1, b=x"
+     */
+    private static String formatKey(RowConverter keyConverter, byte[] key) {
+        Object[] values = keyConverter.convert(DiffOperator.toRow(key, keyConverter.getFieldNames().length));
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(keyConverter.getFieldNames()[i]).append('=').append(values[i]);
+        }
+        return builder.toString();
+    }
+
     /**
      * Query table data with limit support
      */
@@ -94,8 +465,18 @@ public class DataQueryService {
      * Query table data with limit and filter support
      */
     public void selectTable(String database, String tableName, int limit, String filterExpression) {
+        selectTable(database, tableName, limit, filterExpression, QueryOptions.defaults());
+    }
+
+    /**
+     * Query table data with limit, filter and query options (sample, order by)
+     */
+    public void selectTable(String database, String tableName, int limit, String filterExpression,
+                            QueryOptions options) {
+        QueryContext context = beginQuery();
         try {
             if (!catalogManager.tableExists(database, tableName)) {
+                context.fail();
                 System.err.println("Table does not exist: " + database + "." + tableName);
                 return;
             }
@@ -103,17 +484,12 @@ public class DataQueryService {
             Table table = catalogManager.getTable(database, tableName);
             RowType rowType = table.rowType();
 
-            // Build read builder
-            ReadBuilder readBuilder = table.newReadBuilder();
-
             // Parse filter predicates
-            List<Predicate> predicates = new ArrayList<>();
+            List<Predicate> filterPredicates = new ArrayList<>();
             if (filterExpression != null && !filterExpression.trim().isEmpty()) {
                 try {
-                    predicates = parseFilter(filterExpression, rowType);
-                    if (!predicates.isEmpty()) {
-                        // Apply filter to readBuilder for file-level pruning
-                        readBuilder = readBuilder.withFilter(predicates);
+                    filterPredicates = parseFilter(filterExpression, rowType);
+                    if (!filterPredicates.isEmpty()) {
                         System.out.println("\nApplied filter: " + filterExpression);
                     }
                 } catch (Exception e) {
@@ -122,57 +498,172 @@ public class DataQueryService {
                 }
             }
 
+            // Build read builder, applying filter for partition and file-level pruning
+            ReadBuilder readBuilder = newReadBuilder(table, filterPredicates);
+            List<Predicate> predicates = rowPredicates(table, filterPredicates);
+
+            if (options.getOrderBy() != null) {
+                selectTopN(database, tableName, table, readBuilder, predicates, limit, options, context);
+                return;
+            }
+
+            // Read only the selected columns and the columns the row-level filter needs
+            ColumnProjection projection;
+            try {
+                projection = projectColumns(rowType, options, predicates);
+            } catch (IllegalArgumentException e) {
+                context.fail();
+                System.err.println(e.getMessage());
+                return;
+            }
+            RowConverter converter = new RowConverter(rowType);
+            if (projection != null) {
+                readBuilder = readBuilder.withProjection(projection.getReadFields());
+                predicates = projection.remap(predicates);
+                converter = new RowConverter(projection.getReadType(), projection.getOutputFields());
+            }
+
             // Read data into list
-            List<Split> splits = readBuilder.newScan().plan().splits();
-            TableRead tableRead = readBuilder.newRead();
+            List<Split> splits = planSplits(table, readBuilder, filterPredicates, options.getSample(), context);
+            context.setTotalSplits(splits.size());
 
-            List<Map<String, Object>> rows = new ArrayList<>();
+            List<Object[]> rows = new ArrayList<>();
             int rowCount = 0;
             boolean limitReached = false;
 
-            for (Split split : splits) {
-                if (limitReached) {
-                    break;
-                }
-
-                try (RecordReader<InternalRow> reader = tableRead.createReader(split)) {
-                    RecordReader.RecordIterator<InternalRow> iterator;
-                    while ((iterator = reader.readBatch()) != null) {
-                        InternalRow row;
-                        while ((row = iterator.next()) != null) {
-                            // Apply row-level filtering if predicates exist
-                            if (!predicates.isEmpty() && !matchesPredicates(row, predicates)) {
-                                continue;
-                            }
+            // Arrow output streams the selected columns (a prefix of the projected row) to a file
+            ArrowIpcWriter arrowWriter = options.getFormat() != OutputFormat.ARROW ? null
+                    : newArrowWriter(options, projection == null ? rowType
+                            : projection.getReadType().project(projection.getOutputFields()));
+
+            try (SplitPrefetcher prefetcher = newPrefetcher(readBuilder, splits, context)) {
+                RecordReader<InternalRow> next;
+                while (!limitReached && (next = prefetcher.next()) != null) {
+                    try (RecordReader<InternalRow> reader = next) {
+                        RecordReader.RecordIterator<InternalRow> iterator;
+                        while ((iterator = reader.readBatch()) != null) {
+                            RowConversionEvent event = new RowConversionEvent();
+                            event.begin();
+                            long rowsRead = 0;
+                            int batchStart = rowCount;
+                            InternalRow row;
+                            while ((row = iterator.next()) != null) {
+                                rowsRead++;
+                                // Apply row-level filtering if predicates exist
+                                if (!predicates.isEmpty() && !matchesPredicates(row, predicates)) {
+                                    continue;
+                                }
 
-                            Map<String, Object> rowMap = convertRowToMap(row, rowType);
-                            rows.add(rowMap);
-                            rowCount++;
+                                if (arrowWriter != null) {
+                                    arrowWriter.write(row);
+                                } else {
+                                    rows.add(converter.convert(row));
+                                }
+                                rowCount++;
 
-                            if (limit > 0 && rowCount >= limit) {
-                                limitReached = true;
+                                if (limit > 0 && rowCount >= limit) {
+                                    limitReached = true;
+                                    break;
+                                }
+                            }
+                            commitConversion(event, database + "." + tableName, rowsRead, rowCount - batchStart);
+                            iterator.releaseBatch();
+                            if (limitReached) {
                                 break;
                             }
                         }
-                        iterator.releaseBatch();
-                        if (limitReached) {
-                            break;
-                        }
                     }
                 }
+            } finally {
+                if (arrowWriter != null) {
+                    arrowWriter.close();
+                }
             }
 
-            // Print as JSON
+            if (arrowWriter != null) {
+                printArrowSummary(database + "." + tableName, arrowWriter, options);
+                return;
+            }
             System.out.println("\nTable: " + database + "." + tableName);
             System.out.println("====================");
-            printAsJson(rows);
+            printRows(database + "." + tableName, rows, converter, options);
             System.out.println("\nDisplayed " + rowCount + " row(s)\n");
+        } catch (QueryAbortedException e) {
+            System.err.println("\nQuery aborted: " + e.getMessage() + "\n");
         } catch (Exception e) {
+            context.fail();
             System.err.println("Failed to query data: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            endQuery();
         }
     }
 
+    /**
+     * Query the top N rows ordered by a column using a bounded heap per worker
+     */
+    private void selectTopN(String database, String tableName, Table table, ReadBuilder readBuilder,
+                            List<Predicate> predicates, int limit, QueryOptions options, QueryContext context)
+            throws Exception {
+        RowType rowType = table.rowType();
+        OrderBySpec orderBy = options.getOrderBy();
+
+        int fieldIndex = findFieldIndex(rowType, orderBy.getColumn());
+        if (fieldIndex == -1) {
+            System.err.println("Field not found: " + orderBy.getColumn());
+            return;
+        }
+        if (limit <= 0) {
+            System.err.println("Order by requires a positive limit");
+            return;
+        }
+
+        // The heap keeps whole rows, only the selected columns are converted
+        ColumnProjection projection;
+        try {
+            projection = projectColumns(rowType, options, Collections.emptyList());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        RowConverter converter = projection == null ? new RowConverter(rowType)
+                : new RowConverter(rowType, projection.getTableFields());
+
+        List<Split> splits = planSplits(table, readBuilder, predicates, options.getSample(), context);
+        TopNOperator topN = new TopNOperator(table, rowType, fieldIndex, orderBy.isDescending(), limit);
+        List<InternalRow> topRows = topN.execute(readBuilder, splits, predicates, context);
+
+        if (options.getFormat() == OutputFormat.ARROW) {
+            int[] fields = projection == null ? IntStream.range(0, rowType.getFieldCount()).toArray()
+                    : projection.getTableFields();
+            ProjectedRow selected = ProjectedRow.from(fields);
+            ArrowIpcWriter writer = newArrowWriter(options, rowType.project(fields));
+            try {
+                for (InternalRow row : topRows) {
+                    writer.write(selected.replaceRow(row));
+                }
+            } finally {
+                writer.close();
+            }
+            printArrowSummary(database + "." + tableName + " (order by " + orderBy + ")", writer, options);
+            return;
+        }
+
+        RowConversionEvent event = new RowConversionEvent();
+        event.begin();
+        List<Object[]> rows = new ArrayList<>();
+        for (InternalRow row : topRows) {
+            rows.add(converter.convert(row));
+        }
+        commitConversion(event, database + "." + tableName, topRows.size(), rows.size());
+
+        System.out.println("\nTable: " + database + "." + tableName + " (order by " + orderBy + ")");
+        System.out.println("====================");
+        printRows(database + "." + tableName, rows, converter, options);
+        System.out.println("\nDisplayed " + rows.size() + " row(s) (read " + topN.getSplitsRead()
+                + " split(s), skipped " + topN.getSplitsSkipped() + " by statistics)\n");
+    }
+
     /**
      * Query table data with pagination support
      * Default page size is 5 rows, type 'it' to continue to next page
@@ -185,8 +676,18 @@ public class DataQueryService {
      * Query table data with pagination support and custom page size
      */
     public void selectTableWithPagination(String database, String tableName, String filterExpression, int pageSize) {
+        selectTableWithPagination(database, tableName, filterExpression, pageSize, QueryOptions.defaults());
+    }
+
+    /**
+     * Query table data with pagination support, custom page size and query options
+     */
+    public void selectTableWithPagination(String database, String tableName, String filterExpression, int pageSize,
+                                          QueryOptions options) {
+        QueryContext context = beginQuery();
         try {
             if (!catalogManager.tableExists(database, tableName)) {
+                context.fail();
                 System.err.println("Table does not exist: " + database + "." + tableName);
                 return;
             }
@@ -194,17 +695,12 @@ public class DataQueryService {
             Table table = catalogManager.getTable(database, tableName);
             RowType rowType = table.rowType();
 
-            // Build read builder
-            ReadBuilder readBuilder = table.newReadBuilder();
-
             // Parse filter predicates
-            List<Predicate> predicates = new ArrayList<>();
+            List<Predicate> filterPredicates = new ArrayList<>();
             if (filterExpression != null && !filterExpression.trim().isEmpty()) {
                 try {
-                    predicates = parseFilter(filterExpression, rowType);
-                    if (!predicates.isEmpty()) {
-                        // Apply filter to readBuilder for file-level pruning
-                        readBuilder = readBuilder.withFilter(predicates);
+                    filterPredicates = parseFilter(filterExpression, rowType);
+                    if (!filterPredicates.isEmpty()) {
                         System.out.println("\nApplied filter: " + filterExpression);
                     }
                 } catch (Exception e) {
@@ -213,74 +709,244 @@ public class DataQueryService {
                 }
             }
 
+            // Build read builder, applying filter for partition and file-level pruning
+            ReadBuilder readBuilder = newReadBuilder(table, filterPredicates);
+            List<Predicate> predicates = rowPredicates(table, filterPredicates);
+
+            // Read only the selected columns and the columns the row-level filter needs
+            ColumnProjection projection;
+            try {
+                projection = projectColumns(rowType, options, predicates);
+            } catch (IllegalArgumentException e) {
+                context.fail();
+                System.err.println(e.getMessage());
+                return;
+            }
+            RowType readType = rowType;
+            RowConverter converter = new RowConverter(rowType);
+            if (projection != null) {
+                readBuilder = readBuilder.withProjection(projection.getReadFields());
+                predicates = projection.remap(predicates);
+                readType = projection.getReadType();
+                converter = new RowConverter(readType, projection.getOutputFields());
+            }
+
             // Print table header
             System.out.println("\nTable: " + database + "." + tableName);
             System.out.println("====================");
 
-            // Read data with pagination
-            List<Split> splits = readBuilder.newScan().plan().splits();
-            TableRead tableRead = readBuilder.newRead();
+            // Read data with pagination, pages already read are kept in a bounded page buffer
+            List<Split> splits = planSplits(table, readBuilder, filterPredicates, options.getSample(), context);
+            context.setTotalSplits(splits.size());
+            Scanner scanner = new Scanner(System.in);
 
             int totalRowCount = 0;
-            List<Map<String, Object>> currentPageRows = new ArrayList<>();
-            boolean shouldContinue = true;
-            Scanner scanner = new Scanner(System.in);
+            int pagesRead = 0;
+            boolean exhausted = false;
+
+            // The next splits are opened in the background while a page waits for input
+            try (FilteredRowIterator source = new FilteredRowIterator(newPrefetcher(readBuilder, splits, context), predicates);
+                 PageBuffer pageBuffer = new PageBuffer(readType, pageBufferMaxBytes())) {
+                int currentPage = 0;
+                int targetPage = 1;
+                while (targetPage > 0) {
+                    // Read forward from the table up to the requested page
+                    List<Object[]> pageRows = null;
+                    while (pagesRead < targetPage && !exhausted) {
+                        RowConversionEvent event = new RowConversionEvent();
+                        event.begin();
+                        List<Object[]> rows = new ArrayList<>();
+                        InternalRow row;
+                        while (rows.size() < pageSize && (row = source.next()) != null) {
+                            rows.add(converter.convert(row));
+                            pageBuffer.add(row);
+                        }
+                        // Includes reading the rows, which the split read events cover separately
+                        commitConversion(event, database + "." + tableName, rows.size(), rows.size());
+                        if (rows.size() < pageSize) {
+                            exhausted = true;
+                        }
+                        if (rows.isEmpty()) {
+                            break;
+                        }
+                        pageBuffer.finishPage(++pagesRead);
+                        totalRowCount += rows.size();
+                        pageRows = rows;
+                    }
 
-            for (Split split : splits) {
-                if (!shouldContinue) {
-                    break;
+                    if (targetPage > pagesRead) {
+                        if (currentPage == 0) {
+                            break;
+                        }
+                        System.out.println("\nNo more rows, the last page is " + pagesRead);
+                    } else {
+                        if (pageRows == null || targetPage != pagesRead) {
+                            pageRows = pageBuffer.readPage(targetPage, converter);
+                        }
+                        if (pageRows == null) {
+                            System.out.println("\nPage " + targetPage + " is no longer buffered (oldest buffered page: "
+                                    + pageBuffer.getOldestPage() + ", see " + StorageConfig.PAGE_BUFFER_MAX_SIZE + ")");
+                        } else {
+                            currentPage = targetPage;
+                            printRows(database + "." + tableName, pageRows, converter, options);
+                            System.out.println("\n--- Page " + currentPage + (exhausted ? " of " + pagesRead : "")
+                                    + " (" + pageRows.size() + " rows) ---");
+                        }
+                    }
+
+                    // A single page has nothing to navigate
+                    if (exhausted && pagesRead <= 1) {
+                        break;
+                    }
+                    targetPage = readPageCommand(scanner, currentPage);
+                    // Time spent waiting for input does not count against the timeout
+                    context.restartTimer();
                 }
+            }
 
-                try (RecordReader<InternalRow> reader = tableRead.createReader(split)) {
-                    RecordReader.RecordIterator<InternalRow> iterator;
-                    while ((iterator = reader.readBatch()) != null) {
-                        InternalRow row;
-                        while ((row = iterator.next()) != null) {
-                            // Apply row-level filtering if predicates exist
-                            if (!predicates.isEmpty() && !matchesPredicates(row, predicates)) {
-                                continue;
-                            }
+            System.out.println("\nTotal read: " + totalRowCount + " row(s) in " + pagesRead + " page(s)\n");
+        } catch (QueryAbortedException e) {
+            System.err.println("\nQuery aborted: " + e.getMessage() + "\n");
+        } catch (Exception e) {
+            context.fail();
+            System.err.println("Failed to query data: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            endQuery();
+        }
+    }
 
-                            Map<String, Object> rowMap = convertRowToMap(row, rowType);
-                            currentPageRows.add(rowMap);
-                            totalRowCount++;
+    /**
+     * Prompt for the next page to show: 'it'/'next', 'prev' or 'goto <n>'; returns 0 to stop
+     */
+    private int readPageCommand(Scanner scanner, int currentPage) {
+        while (true) {
+            System.out.print("Type 'it' for the next page, 'prev', 'goto <n>', or press Enter to stop: ");
+            if (!scanner.hasNextLine()) {
+                return 0;
+            }
+            String input = scanner.nextLine().trim().toLowerCase();
+            if ("it".equals(input) || "next".equals(input)) {
+                System.out.println();
+                return currentPage + 1;
+            }
+            if ("prev".equals(input)) {
+                if (currentPage <= 1) {
+                    System.out.println("Already at the first page");
+                    continue;
+                }
+                System.out.println();
+                return currentPage - 1;
+            }
+            if (input.startsWith("goto ")) {
+                try {
+                    int page = Integer.parseInt(input.substring(5).trim());
+                    if (page >= 1) {
+                        System.out.println();
+                        return page;
+                    }
+                } catch (NumberFormatException e) {
+                    // Fall through to the message below
+                }
+                System.out.println("Page number must be a positive integer");
+                continue;
+            }
+            return 0;
+        }
+    }
 
-                            // Check if page is full
-                            if (currentPageRows.size() >= pageSize) {
-                                printAsJson(currentPageRows);
-                                System.out.println("\n--- Page complete (" + currentPageRows.size() + " rows) ---");
-                                System.out.print("Type 'it' to continue, or press Enter to stop: ");
+    /**
+     * Projection of the columns clause, or null when all columns are selected
+     */
+    private ColumnProjection projectColumns(RowType rowType, QueryOptions options, List<Predicate> predicates) {
+        return options.getColumns() == null ? null : ColumnProjection.of(rowType, options.getColumns(), predicates);
+    }
 
-                                String input = scanner.nextLine().trim();
+    private long pageBufferMaxBytes() {
+        return MemorySize.parse(catalogManager.getConfig().getOptions()
+                .getOrDefault(StorageConfig.PAGE_BUFFER_MAX_SIZE, StorageConfig.DEFAULT_PAGE_BUFFER_MAX_SIZE)).getBytes();
+    }
 
-                                if (!"it".equalsIgnoreCase(input)) {
-                                    shouldContinue = false;
-                                    iterator.releaseBatch();
-                                    break;
-                                }
+    private SplitPrefetcher newPrefetcher(ReadBuilder readBuilder, List<Split> splits, QueryContext context) {
+        return new SplitPrefetcher(readBuilder, splits, prefetchDepth(), context);
+    }
+
+    private int prefetchDepth() {
+        String depth = catalogManager.getConfig().getOptions().get(StorageConfig.PREFETCH_SPLITS);
+        return depth == null ? StorageConfig.DEFAULT_PREFETCH_SPLITS : Integer.parseInt(depth.trim());
+    }
+
+    /**
+     * Export table data to an Arrow IPC file or stream, with optional filter and row limit (-1 for all rows)
+     */
+    public void exportTable(String database, String tableName, String path, ArrowIpcWriter.Format format,
+                            String filterExpression, long limit) {
+        QueryContext context = beginQuery();
+        try {
+            if (!catalogManager.tableExists(database, tableName)) {
+                context.fail();
+                System.err.println("Table does not exist: " + database + "." + tableName);
+                return;
+            }
+
+            Table table = catalogManager.getTable(database, tableName);
+            RowType rowType = table.rowType();
 
-                                // Reset page and continue
-                                currentPageRows.clear();
-                                System.out.println();
+            List<Predicate> filterPredicates = new ArrayList<>();
+            if (filterExpression != null && !filterExpression.trim().isEmpty()) {
+                filterPredicates = parseFilter(filterExpression, rowType);
+                if (!filterPredicates.isEmpty()) {
+                    System.out.println("\nApplied filter: " + filterExpression);
+                }
+            }
+
+            ReadBuilder readBuilder = newReadBuilder(table, filterPredicates);
+            List<Predicate> predicates = rowPredicates(table, filterPredicates);
+            if (limit >= 0 && predicates.isEmpty()) {
+                readBuilder = readBuilder.withLimit((int) Math.min(limit, Integer.MAX_VALUE));
+            }
+
+            long start = System.nanoTime();
+            List<Split> splits = planScan(table, readBuilder, filterPredicates, context);
+            context.setTotalSplits(splits.size());
+            TableRead tableRead = readBuilder.newRead();
+
+            ArrowIpcWriter writer = new ArrowIpcWriter(new FileOutputStream(path), rowType, format);
+            try {
+                for (Split split : splits) {
+                    if (limit >= 0 && writer.getRowCount() >= limit) {
+                        break;
+                    }
+                    try (RecordReader<InternalRow> reader = context.open(tableRead, split)) {
+                        RecordReader.RecordIterator<InternalRow> iterator;
+                        while ((iterator = reader.readBatch()) != null) {
+                            InternalRow row;
+                            while ((row = iterator.next()) != null
+                                    && (limit < 0 || writer.getRowCount() < limit)) {
+                                if (predicates.isEmpty() || matchesPredicates(row, predicates)) {
+                                    writer.write(row);
+                                }
                             }
-                        }
-                        iterator.releaseBatch();
-                        if (!shouldContinue) {
-                            break;
+                            iterator.releaseBatch();
                         }
                     }
                 }
+            } finally {
+                writer.close();
             }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
 
-            // Print remaining rows if any
-            if (!currentPageRows.isEmpty()) {
-                printAsJson(currentPageRows);
-            }
-
-            System.out.println("\nTotal displayed: " + totalRowCount + " row(s)\n");
+            System.out.println(String.format("%nExported %d row(s) from %s.%s to %s (Arrow IPC %s, %d batch(es), %d bytes, %d ms)%n",
+                    writer.getRowCount(), database, tableName, path, format.name().toLowerCase(),
+                    writer.getBatchCount(), writer.getBytesWritten(), elapsedMillis));
+        } catch (QueryAbortedException e) {
+            System.err.println("\nQuery aborted: " + e.getMessage() + "\n");
         } catch (Exception e) {
-            System.err.println("Failed to query data: " + e.getMessage());
+            context.fail();
+            System.err.println("Failed to export data: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            endQuery();
         }
     }
 
@@ -288,12 +954,17 @@ public class DataQueryService {
      * Count total rows in a table using snapshot statistics (optimized)
      * Falls back to full scan if statistics are not available
      */
-    private long countRows(Table table, List<Predicate> predicates) throws Exception {
+    private long countRows(Table table, List<Predicate> predicates, QueryContext context) throws Exception {
+        // Filters on partition keys only can be answered from manifest row counts
+        if (predicates != null && !predicates.isEmpty() && rowPredicates(table, predicates).isEmpty()) {
+            return countRowsByPartitionMetadata(table, predicates, context);
+        }
+
         // If filter is applied, we cannot use snapshot statistics
         // Must perform full scan with row-level filtering
         if (predicates != null && !predicates.isEmpty()) {
             System.out.println("(Performing full table scan with filter - this may take a while for large tables)");
-            return countRowsByFullScan(table, predicates);
+            return countRowsByFullScan(table, predicates, context);
         }
 
         // Try to get count from snapshot statistics first (fast path)
@@ -321,149 +992,227 @@ public class DataQueryService {
 
         // Fallback: full table scan (slow path)
         System.out.println("(Performing full table scan to count rows - this may take a while for large tables)");
-        return countRowsByFullScan(table, predicates);
+        return countRowsByFullScan(table, predicates, context);
     }
 
     /**
-     * Count rows by full table scan (fallback method)
+     * Check whether the latest snapshot carries a total record count (fast count path)
      */
-    private long countRowsByFullScan(Table table, List<Predicate> predicates) throws Exception {
-        ReadBuilder readBuilder = table.newReadBuilder();
-
-        // Apply filter to readBuilder for file-level pruning if predicates exist
-        if (predicates != null && !predicates.isEmpty()) {
-            readBuilder = readBuilder.withFilter(predicates);
+    private boolean hasSnapshotRecordCount(Table table) {
+        try {
+            if (table instanceof FileStoreTable) {
+                Snapshot snapshot = ((FileStoreTable) table).snapshotManager().latestSnapshot();
+                return snapshot != null && snapshot.totalRecordCount() != null;
+            }
+        } catch (Exception e) {
+            // Treat as unavailable
         }
+        return false;
+    }
 
-        List<Split> splits = readBuilder.newScan().plan().splits();
+    /**
+     * Estimate the row count by reading only a random sample of splits
+     */
+    private void countRowsBySample(String database, String tableName, Table table, List<Predicate> predicates,
+                                   SampleSpec sample, QueryContext context) throws Exception {
+        ReadBuilder readBuilder = newReadBuilder(table, predicates);
+        List<Predicate> rowPredicates = rowPredicates(table, predicates);
+
+        SplitSampler.SampledSplits sampled = new SplitSampler().sample(planScan(table, readBuilder, predicates, context), sample);
         TableRead tableRead = readBuilder.newRead();
 
-        long count = 0;
-        for (Split split : splits) {
-            try (RecordReader<InternalRow> reader = tableRead.createReader(split)) {
-                RecordReader.RecordIterator<InternalRow> iterator;
-                while ((iterator = reader.readBatch()) != null) {
-                    InternalRow row;
-                    while ((row = iterator.next()) != null) {
-                        // Apply row-level filtering if predicates exist
-                        if (predicates != null && !predicates.isEmpty() && !matchesPredicates(row, predicates)) {
-                            continue;
-                        }
-                        count++;
-                    }
-                    iterator.releaseBatch();
-                }
-            }
+        List<Split> splits = sampled.getSplits();
+        context.setTotalSplits(splits.size());
+        long[] matchedPerSplit = new long[splits.size()];
+        for (int i = 0; i < splits.size(); i++) {
+            matchedPerSplit[i] = countSplit(tableRead, splits.get(i), rowPredicates, context);
         }
 
-        return count;
+        SplitSampler.Estimate estimate = sampled.estimate(matchedPerSplit);
+        System.out.println(String.format("(Sampled %d of %d splits, %.1f%% of rows)",
+                splits.size(), sampled.getTotalSplits(), sampled.getRowFraction()));
+
+        String filterInfo = predicates.isEmpty() ? "" : " (with filter)";
+        String label = sampled.isComplete() ? "Total rows" : "Estimated rows";
+        System.out.println("\n" + label + " in table " + database + "." + tableName + filterInfo + ": " + estimate + "\n");
     }
 
     /**
-     * Calculate optimal column widths based on actual data
+     * Plan splits for a read, keeping only a random subset when a sample is requested
      */
-    private Map<Integer, Integer> calculateColumnWidths(Table table, RowType rowType, ReadBuilder readBuilder, int limit) {
-        Map<Integer, Integer> widths = new HashMap<>();
-        List<DataField> fields = rowType.getFields();
-
-        // Initialize with header widths
-        for (int i = 0; i < fields.size(); i++) {
-            widths.put(i, Math.max(fields.get(i).name().length(), 10));
+    private List<Split> planSplits(Table table, ReadBuilder readBuilder, List<Predicate> predicates, SampleSpec sample,
+                                   QueryContext context) {
+        List<Split> splits = planScan(table, readBuilder, predicates, context);
+        if (sample == null) {
+            return splits;
         }
 
-        try {
-            // Sample data to calculate widths (limit to first 100 rows for performance)
-            List<Split> splits = readBuilder.newScan().plan().splits();
-            TableRead tableRead = readBuilder.newRead();
-
-            int sampleCount = 0;
-            int maxSample = Math.min(limit > 0 ? limit : 100, 100);
-            boolean done = false;
+        SplitSampler.SampledSplits sampled = new SplitSampler().sample(splits, sample);
+        System.out.println(String.format("(Sample %s: reading %d of %d splits, %.1f%% of rows)",
+                sample, sampled.getSplits().size(), sampled.getTotalSplits(), sampled.getRowFraction()));
+        return sampled.getSplits();
+    }
 
+    /**
+     * Plan the splits of a read, recording the planning as a JFR event and describing the query for
+     * the events of its split reads
+     */
+    private List<Split> planScan(Table table, ReadBuilder readBuilder, List<Predicate> predicates,
+                                 QueryContext context) {
+        String predicate = predicates == null || predicates.isEmpty() ? null
+                : predicates.stream().map(Object::toString).collect(Collectors.joining(" AND "));
+        context.describe(table.fullName(), TypeUtils.project(table.rowType(), table.partitionKeys()), predicate);
+
+        ScanPlanEvent event = new ScanPlanEvent();
+        event.begin();
+        List<Split> splits = readBuilder.newScan().plan().splits();
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table.fullName();
+            event.predicate = predicate;
+            event.splits = splits.size();
             for (Split split : splits) {
-                if (done) break;
-
-                try (RecordReader<InternalRow> reader = tableRead.createReader(split)) {
-                    RecordReader.RecordIterator<InternalRow> iterator;
-                    while ((iterator = reader.readBatch()) != null) {
-                        InternalRow row;
-                        while ((row = iterator.next()) != null) {
-                            for (int i = 0; i < fields.size(); i++) {
-                                Object value = extractValue(row, i, fields.get(i));
-                                String valueStr = value == null ? "NULL" : value.toString();
-                                int currentWidth = widths.get(i);
-                                widths.put(i, Math.max(currentWidth, Math.min(valueStr.length(), 50)));
-                            }
-                            sampleCount++;
-                            if (sampleCount >= maxSample) {
-                                done = true;
-                                break;
-                            }
-                        }
-                        iterator.releaseBatch();
-                        if (done) break;
-                    }
+                if (split instanceof DataSplit) {
+                    event.files += ((DataSplit) split).dataFiles().size();
                 }
+                event.bytes += QueryContext.splitBytes(split);
             }
-        } catch (Exception e) {
-            // If sampling fails, use default widths
+            event.commit();
         }
-
-        return widths;
+        return splits;
     }
 
     /**
-     * Print table header with dynamic column widths
+     * Count rows by full table scan (fallback method)
      */
-    private void printHeader(RowType rowType, Map<Integer, Integer> columnWidths) {
-        List<DataField> fields = rowType.getFields();
+    private long countRowsByFullScan(Table table, List<Predicate> predicates, QueryContext context) throws Exception {
+        // Apply filter to readBuilder for file-level pruning if predicates exist
+        ReadBuilder readBuilder = newReadBuilder(table, predicates);
+        List<Predicate> rowPredicates = rowPredicates(table, predicates);
+
+        List<Split> splits = planScan(table, readBuilder, predicates, context);
+        context.setTotalSplits(splits.size());
+        if (!rowPredicates.isEmpty()) {
+            // Only the filter columns are needed to count matching rows
+            ColumnProjection projection = ColumnProjection.of(table.rowType(), Collections.emptyList(), rowPredicates);
+            readBuilder = readBuilder.withProjection(projection.getReadFields());
+            rowPredicates = projection.remap(rowPredicates);
+        }
 
-        StringBuilder line = new StringBuilder();
-        StringBuilder separator = new StringBuilder();
+        // Upcoming splits are opened on the prefetch threads; for system tables such as $files that
+        // is where the manifests of each partition are read
+        long count = 0;
+        try (SplitPrefetcher prefetcher = newPrefetcher(readBuilder, splits, context)) {
+            RecordReader<InternalRow> reader;
+            while ((reader = prefetcher.next()) != null) {
+                count += countReader(reader, rowPredicates);
+            }
+        }
 
-        for (int i = 0; i < fields.size(); i++) {
-            int width = columnWidths.getOrDefault(i, 20);
-            String header = fields.get(i).name();
+        return count;
+    }
 
-            line.append(String.format("%-" + width + "s", header));
-            if (i < fields.size() - 1) {
-                line.append(" | ");
-            }
+    /**
+     * Count rows of the partitions kept by partition-only predicates from split metadata.
+     * Row counts come from the manifests; only splits whose merged row count is unknown
+     * (primary-key files that still need merging) are read.
+     */
+    private long countRowsByPartitionMetadata(Table table, List<Predicate> predicates, QueryContext context)
+            throws Exception {
+        ReadBuilder readBuilder = newReadBuilder(table, predicates);
+        List<Split> splits = planScan(table, readBuilder, predicates, context);
+        context.setTotalSplits(splits.size());
+        TableRead tableRead = null;
 
-            separator.append("-".repeat(width));
-            if (i < fields.size() - 1) {
-                separator.append("-+-");
+        long count = 0;
+        int splitsRead = 0;
+        for (Split split : splits) {
+            if (split instanceof DataSplit && ((DataSplit) split).mergedRowCountAvailable()) {
+                count += ((DataSplit) split).mergedRowCount();
+                context.splitSkipped();
+                continue;
+            }
+            if (tableRead == null) {
+                tableRead = readBuilder.newRead();
             }
+            count += countSplit(tableRead, split, Collections.emptyList(), context);
+            splitsRead++;
         }
 
-        System.out.println(line);
-        System.out.println(separator);
+        if (splitsRead == 0) {
+            System.out.println("(Using manifest row counts of matching partitions for fast count)");
+        } else {
+            System.out.println("(Using manifest row counts of matching partitions, read " + splitsRead
+                    + " of " + splits.size() + " split(s) that need merging)");
+        }
+        return count;
     }
 
     /**
-     * Print data row with dynamic column widths
+     * Create a read builder with predicates pushed down for file-level pruning. For data tables,
+     * Paimon turns the predicates that only reference partition keys into the partition filter of
+     * the manifest scan, so non-matching partitions are pruned before any data file is considered.
      */
-    private void printRow(InternalRow row, RowType rowType, Map<Integer, Integer> columnWidths) {
-        StringBuilder line = new StringBuilder();
-        List<DataField> fields = rowType.getFields();
+    private ReadBuilder newReadBuilder(Table table, List<Predicate> predicates) {
+        ReadBuilder readBuilder = table.newReadBuilder();
+        if (predicates == null || predicates.isEmpty()) {
+            return readBuilder;
+        }
+        return readBuilder.withFilter(predicates);
+    }
 
-        for (int i = 0; i < fields.size(); i++) {
-            int width = columnWidths.getOrDefault(i, 20);
-            Object value = extractValue(row, i, fields.get(i));
-            String valueStr = value == null ? "NULL" : value.toString();
+    /**
+     * Predicates that still need row-level evaluation. A predicate is dropped only when it is fully
+     * represented in the pushed-down partition filter: the table is a data table and the predicate
+     * references partition keys only, so the scan already evaluated it against every partition.
+     */
+    private List<Predicate> rowPredicates(Table table, List<Predicate> predicates) {
+        if (predicates == null || predicates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (!(table instanceof FileStoreTable) || table.partitionKeys().isEmpty()) {
+            return predicates;
+        }
 
-            // Truncate if too long
-            if (valueStr.length() > width) {
-                valueStr = valueStr.substring(0, width - 3) + "...";
+        Set<String> nonPartitionFields = new HashSet<>(table.rowType().getFieldNames());
+        nonPartitionFields.removeAll(table.partitionKeys());
+        List<Predicate> rowPredicates = new ArrayList<>();
+        for (Predicate predicate : predicates) {
+            if (PredicateBuilder.containsFields(predicate, nonPartitionFields)) {
+                rowPredicates.add(predicate);
             }
+        }
+        return rowPredicates;
+    }
+
+    /**
+     * Count rows of a single split that match the predicates
+     */
+    private long countSplit(TableRead tableRead, Split split, List<Predicate> predicates, QueryContext context)
+            throws Exception {
+        return countReader(context.open(tableRead, split), predicates);
+    }
 
-            line.append(String.format("%-" + width + "s", valueStr));
-            if (i < fields.size() - 1) {
-                line.append(" | ");
+    /**
+     * Count rows of an opened split reader that match the predicates, closing the reader
+     */
+    private long countReader(RecordReader<InternalRow> splitReader, List<Predicate> predicates) throws Exception {
+        long count = 0;
+        try (RecordReader<InternalRow> reader = splitReader) {
+            RecordReader.RecordIterator<InternalRow> iterator;
+            while ((iterator = reader.readBatch()) != null) {
+                InternalRow row;
+                while ((row = iterator.next()) != null) {
+                    // Apply row-level filtering if predicates exist
+                    if (predicates != null && !predicates.isEmpty() && !matchesPredicates(row, predicates)) {
+                        continue;
+                    }
+                    count++;
+                }
+                iterator.releaseBatch();
             }
         }
-
-        System.out.println(line);
+        return count;
     }
 
     /**
@@ -472,6 +1221,8 @@ public class DataQueryService {
      * Multiple conditions can be combined with AND
      */
     private List<Predicate> parseFilter(String filterExpression, RowType rowType) {
+        FilterParseEvent event = new FilterParseEvent();
+        event.begin();
         List<Predicate> predicates = new ArrayList<>();
         PredicateBuilder builder = new PredicateBuilder(rowType);
 
@@ -490,6 +1241,12 @@ public class DataQueryService {
             }
         }
 
+        event.end();
+        if (event.shouldCommit()) {
+            event.filter = filterExpression;
+            event.predicates = predicates.size();
+            event.commit();
+        }
         return predicates;
     }
 
@@ -517,22 +1274,12 @@ public class DataQueryService {
         }
 
         // Find field index
-        List<DataField> fields = rowType.getFields();
-        int fieldIndex = -1;
-        DataField field = null;
-
-        for (int i = 0; i < fields.size(); i++) {
-            if (fields.get(i).name().equalsIgnoreCase(fieldName)) {
-                fieldIndex = i;
-                field = fields.get(i);
-                break;
-            }
-        }
-
+        int fieldIndex = findFieldIndex(rowType, fieldName);
         if (fieldIndex == -1) {
             System.err.println("Field not found: " + fieldName);
             return null;
         }
+        DataField field = rowType.getFields().get(fieldIndex);
 
         try {
             // Build predicate based on operator and type
@@ -561,6 +1308,19 @@ public class DataQueryService {
         }
     }
 
+    /**
+     * Find field index by name (case insensitive), -1 if not found
+     */
+    private int findFieldIndex(RowType rowType, String fieldName) {
+        List<DataField> fields = rowType.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).name().equalsIgnoreCase(fieldName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Parse value string to appropriate type
      */
@@ -589,73 +1349,59 @@ public class DataQueryService {
         }
     }
 
-    /**
-     * Extract value from InternalRow
-     */
-    private Object extractValue(InternalRow row, int pos, DataField field) {
-        if (row.isNullAt(pos)) {
-            return null;
-        }
-
-        switch (field.type().getTypeRoot()) {
-            case BOOLEAN:
-                return row.getBoolean(pos);
-            case TINYINT:
-                return row.getByte(pos);
-            case SMALLINT:
-                return row.getShort(pos);
-            case INTEGER:
-                return row.getInt(pos);
-            case BIGINT:
-                return row.getLong(pos);
-            case FLOAT:
-                return row.getFloat(pos);
-            case DOUBLE:
-                return row.getDouble(pos);
-            case CHAR:
-            case VARCHAR:
-                return row.getString(pos).toString();
-            case DECIMAL:
-                // For DECIMAL type, use default precision
-                return row.getDecimal(pos, 10, 2);
-            case DATE:
-                return row.getInt(pos); // Date as int
-            case TIMESTAMP_WITHOUT_TIME_ZONE:
-            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
-                return row.getTimestamp(pos, 3);
-            default:
-                // For other types, try to convert to string
-                try {
-                    return row.getString(pos).toString();
-                } catch (Exception e) {
-                    return "N/A";
-                }
+    private static void commitConversion(RowConversionEvent event, String table, long rowsRead, long rowsConverted) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.rowsRead = rowsRead;
+            event.rowsConverted = rowsConverted;
+            event.commit();
         }
     }
 
     /**
-     * Convert InternalRow to Map
+     * Print a page of rows in the requested output format
      */
-    private Map<String, Object> convertRowToMap(InternalRow row, RowType rowType) {
-        Map<String, Object> rowMap = new LinkedHashMap<>();
-        List<DataField> fields = rowType.getFields();
-
-        for (int i = 0; i < fields.size(); i++) {
-            DataField field = fields.get(i);
-            Object value = extractValue(row, i, field);
-            rowMap.put(field.name(), value);
+    private void printRows(String table, List<Object[]> rows, RowConverter converter, QueryOptions options)
+            throws Exception {
+        OutputEvent event = new OutputEvent();
+        event.begin();
+        if (options.getFormat() == OutputFormat.TABLE) {
+            new TableRenderer(converter.getFieldNames()).render(rows);
+        } else {
+            converter.printJson(rows);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.format = options.getFormat().name().toLowerCase();
+            event.rows = rows.size();
+            event.commit();
+        }
+    }
+
+    private ArrowIpcWriter newArrowWriter(QueryOptions options, RowType outputType) throws IOException {
+        return new ArrowIpcWriter(new FileOutputStream(options.getOutputPath()), outputType,
+                ArrowIpcWriter.Format.FILE);
+    }
 
-        return rowMap;
+    private void printArrowSummary(String table, ArrowIpcWriter writer, QueryOptions options) {
+        System.out.println(String.format("%nWrote %d row(s) from %s to %s (Arrow IPC file, %d batch(es), %d bytes)%n",
+                writer.getRowCount(), table, options.getOutputPath(), writer.getBatchCount(),
+                writer.getBytesWritten()));
     }
 
     /**
-     * Print list of rows as pretty JSON
+     * Release lookup resources held for the session
      */
-    private void printAsJson(List<Map<String, Object>> rows) {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        String json = gson.toJson(rows);
-        System.out.println(json);
+    @Override
+    public void close() throws Exception {
+        synchronized (primaryKeyLookups) {
+            for (PrimaryKeyLookup lookup : primaryKeyLookups.values()) {
+                lookup.close();
+            }
+            primaryKeyLookups.clear();
+        }
     }
 
     /**
@@ -0,0 +1,495 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.BinaryRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.serializer.InternalRowSerializer;
+import org.apache.paimon.io.DataFileMeta;
+import org.apache.paimon.memory.MemorySegment;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.DeletionFile;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.types.RowKind;
+import org.apache.paimon.types.RowType;
+import org.apache.paimon.utils.ProjectedRow;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Key-based diff of two versions of a table through hash partitioned spill files
+ */
+public class DiffOperator {
+
+    private static final long PARTITION_TARGET_BYTES = 32L << 20;
+    private static final int MIN_PARTITIONS = 16;
+    // Spill files open at once per side on the first pass, larger partitions are split again later
+    private static final int MAX_FAN_OUT = 256;
+
+    private final RowType rowType;
+    private final int[] keyIndexes;
+    private final int sampleLimit;
+    private final int prefetchDepth;
+    private final long partitionTargetBytes;
+
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final List<byte[]> insertedKeys = Collections.synchronizedList(new ArrayList<>());
+    private final List<byte[][]> updatedRows = Collections.synchronizedList(new ArrayList<>());
+    private final List<byte[]> deletedKeys = Collections.synchronizedList(new ArrayList<>());
+
+    private int bucketsSkipped;
+    private int filesSkipped;
+    private int splitsRead;
+    private final AtomicInteger partitions = new AtomicInteger();
+    private final AtomicLong bytesSpilled = new AtomicLong();
+
+    /**
+     * @param rowType       projected row type read from both sides
+     * @param keyIndexes    positions of the key fields in the projected row type
+     * @param sampleLimit   number of keys to keep per kind of change for display
+     * @param prefetchDepth splits opened ahead while reading each side
+     */
+    public DiffOperator(RowType rowType, int[] keyIndexes, int sampleLimit, int prefetchDepth) {
+        this(rowType, keyIndexes, sampleLimit, prefetchDepth, PARTITION_TARGET_BYTES);
+    }
+
+    /**
+     * @param partitionTargetBytes spilled bytes of the left side above which a partition is split again
+     */
+    DiffOperator(RowType rowType, int[] keyIndexes, int sampleLimit, int prefetchDepth, long partitionTargetBytes) {
+        this.rowType = rowType;
+        this.keyIndexes = keyIndexes;
+        this.sampleLimit = sampleLimit;
+        this.prefetchDepth = prefetchDepth;
+        this.partitionTargetBytes = partitionTargetBytes;
+    }
+
+    /**
+     * Compare the rows read by the two read builders, which must use the same projection
+     */
+    public void execute(ReadBuilder left, ReadBuilder right, QueryContext context) throws Exception {
+        List<Split> leftSplits = left.newScan().plan().splits();
+        List<Split> rightSplits = right.newScan().plan().splits();
+
+        // Skip buckets whose data files are identical on both sides
+        Map<String, String> leftFiles = bucketFiles(leftSplits);
+        Map<String, String> rightFiles = bucketFiles(rightSplits);
+        List<Split> leftToRead = new ArrayList<>();
+        List<Split> rightToRead = new ArrayList<>();
+        for (Map.Entry<String, String> entry : leftFiles.entrySet()) {
+            if (entry.getValue().equals(rightFiles.get(entry.getKey()))) {
+                bucketsSkipped++;
+                filesSkipped += entry.getValue().isEmpty() ? 0 : entry.getValue().split("\n").length;
+            }
+        }
+        long bytesToRead = Math.max(
+                selectChanged(leftSplits, leftFiles, rightFiles, leftToRead),
+                selectChanged(rightSplits, rightFiles, leftFiles, rightToRead));
+        splitsRead = leftToRead.size() + rightToRead.size();
+        context.setTotalSplits(splitsRead);
+        // Data files are compressed, so this only gives a lower bound of the partitions needed
+        int fanOut = (int) Math.max(MIN_PARTITIONS, Math.min(MAX_FAN_OUT, bytesToRead / partitionTargetBytes + 1));
+
+        File spillDir = Files.createTempDirectory("paimon-cli-diff-").toFile();
+        int parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), fanOut));
+        ExecutorService executor = ParallelTasks.newPool(parallelism, "diff");
+        try {
+            // Spill both sides at the same time, each on its own thread
+            Future<Void> leftSpill = executor.submit(() -> {
+                spill(left, leftToRead, spillDir, "left", fanOut, context);
+                return null;
+            });
+            Future<Void> rightSpill = executor.submit(() -> {
+                spill(right, rightToRead, spillDir, "right", fanOut, context);
+                return null;
+            });
+            leftSpill.get();
+            rightSpill.get();
+
+            ConcurrentLinkedQueue<SpillPartition> pending = new ConcurrentLinkedQueue<>();
+            for (int p = 0; p < fanOut; p++) {
+                pending.add(new SpillPartition(spillDir, String.valueOf(p), 0, true));
+            }
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(executor.submit(() -> {
+                    SpillPartition partition;
+                    while ((partition = pending.poll()) != null) {
+                        context.checkpoint();
+                        if (partition.splittable && partition.left.length() > partitionTargetBytes) {
+                            pending.addAll(split(partition));
+                        } else {
+                            partitions.incrementAndGet();
+                            compare(partition.left, partition.right);
+                        }
+                        partition.left.delete();
+                        partition.right.delete();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+            File[] files = spillDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            spillDir.delete();
+        }
+    }
+
+    /**
+     * Data and deletion files of each (partition, bucket), keyed by partition and bucket
+     */
+    private static Map<String, String> bucketFiles(List<Split> splits) {
+        Map<String, List<String>> files = new HashMap<>();
+        for (Split split : splits) {
+            if (!(split instanceof DataSplit)) {
+                continue;
+            }
+            DataSplit dataSplit = (DataSplit) split;
+            List<String> names = files.computeIfAbsent(bucketKey(dataSplit), k -> new ArrayList<>());
+            for (DataFileMeta file : dataSplit.dataFiles()) {
+                names.add(file.fileName() + ":" + file.fileSize());
+            }
+            // A bucket with the same data files can still differ by its deletion vectors
+            dataSplit.deletionFiles().ifPresent(deletionFiles -> {
+                for (DeletionFile file : deletionFiles) {
+                    if (file != null) {
+                        names.add(file.path() + "@" + file.offset() + ":" + file.length());
+                    }
+                }
+            });
+        }
+        Map<String, String> signatures = new TreeMap<>();
+        for (Map.Entry<String, List<String>> entry : files.entrySet()) {
+            Collections.sort(entry.getValue());
+            signatures.put(entry.getKey(), String.join("\n", entry.getValue()));
+        }
+        return signatures;
+    }
+
+    private static String bucketKey(DataSplit split) {
+        return Base64.getEncoder().encodeToString(split.partition().toBytes()) + "/" + split.bucket();
+    }
+
+    /**
+     * Add the splits of buckets that differ from the other side, returns their data file bytes
+     */
+    private static long selectChanged(List<Split> splits, Map<String, String> files, Map<String, String> otherFiles,
+                                      List<Split> selected) {
+        long bytes = 0;
+        for (Split split : splits) {
+            if (split instanceof DataSplit) {
+                String key = bucketKey((DataSplit) split);
+                if (files.get(key).equals(otherFiles.get(key))) {
+                    continue;
+                }
+                for (DataFileMeta file : ((DataSplit) split).dataFiles()) {
+                    bytes += file.fileSize();
+                }
+            }
+            selected.add(split);
+        }
+        return bytes;
+    }
+
+    /**
+     * Spill files of one hash partition of the keys; a partition is numbered by its path of
+     * partition numbers, one per level of splitting, e.g. "12.3"
+     */
+    private static final class SpillPartition {
+
+        private final String name;
+        private final int level;
+        private final File left;
+        private final File right;
+        // False once splitting stopped making the partition smaller, i.e. its keys share one hash
+        private final boolean splittable;
+
+        private SpillPartition(File spillDir, String name, int level, boolean splittable) {
+            this.name = name;
+            this.level = level;
+            this.left = new File(spillDir, "left-" + name);
+            this.right = new File(spillDir, "right-" + name);
+            this.splittable = splittable;
+        }
+    }
+
+    /**
+     * Write each row as (key bytes, row bytes) to the spill file of its key hash partition
+     */
+    private void spill(ReadBuilder readBuilder, List<Split> splits, File spillDir, String side, int fanOut,
+                       QueryContext context) throws IOException {
+        InternalRowSerializer rowSerializer = new InternalRowSerializer(rowType);
+        InternalRowSerializer keySerializer = new InternalRowSerializer(rowType.project(keyIndexes));
+        ProjectedRow keyRow = ProjectedRow.from(keyIndexes);
+
+        DataOutputStream[] outputs = new DataOutputStream[fanOut];
+        try (SplitPrefetcher prefetcher = new SplitPrefetcher(readBuilder, splits, prefetchDepth, context)) {
+            for (int p = 0; p < fanOut; p++) {
+                outputs[p] = create(new File(spillDir, side + "-" + p));
+            }
+            RecordReader<InternalRow> next;
+            while ((next = prefetcher.next()) != null) {
+                try (RecordReader<InternalRow> reader = next) {
+                    RecordReader.RecordIterator<InternalRow> iterator;
+                    while ((iterator = reader.readBatch()) != null) {
+                        InternalRow row;
+                        while ((row = iterator.next()) != null) {
+                            // The same row reads as +I or +U depending on how it was written, compare values only
+                            BinaryRow key = keySerializer.toBinaryRow(keyRow.replaceRow(row));
+                            key.setRowKind(RowKind.INSERT);
+                            byte[] keyBytes = key.toBytes();
+                            byte[] rowBytes = rowSerializer.toBinaryRow(row).toBytes();
+                            rowBytes[0] = RowKind.INSERT.toByteValue();
+                            writeEntry(outputs[partitionOf(keyBytes, 0, fanOut)], keyBytes, rowBytes);
+                        }
+                        iterator.releaseBatch();
+                    }
+                }
+            }
+        } finally {
+            close(outputs);
+        }
+    }
+
+    /**
+     * Split both sides of a partition into sub-partitions by another hash of the key
+     */
+    private List<SpillPartition> split(SpillPartition partition) throws IOException {
+        int level = partition.level + 1;
+        List<SpillPartition> children = new ArrayList<>();
+        for (int p = 0; p < MIN_PARTITIONS; p++) {
+            children.add(new SpillPartition(partition.left.getParentFile(), partition.name + "." + p, level, true));
+        }
+        splitSide(partition.left, children, true, level);
+        splitSide(partition.right, children, false, level);
+
+        List<SpillPartition> result = new ArrayList<>();
+        for (SpillPartition child : children) {
+            boolean smaller = child.left.length() < partition.left.length();
+            result.add(smaller ? child : new SpillPartition(child.left.getParentFile(), child.name, level, false));
+        }
+        return result;
+    }
+
+    private void splitSide(File input, List<SpillPartition> children, boolean left, int level) throws IOException {
+        DataOutputStream[] outputs = new DataOutputStream[children.size()];
+        try (DataInputStream in = open(input)) {
+            for (int p = 0; p < outputs.length; p++) {
+                outputs[p] = create(left ? children.get(p).left : children.get(p).right);
+            }
+            byte[][] entry;
+            while ((entry = readEntry(in)) != null) {
+                writeEntry(outputs[partitionOf(entry[0], level, outputs.length)], entry[0], entry[1]);
+            }
+        } finally {
+            close(outputs);
+        }
+    }
+
+    /**
+     * Partition of a serialized key, with an independent hash at each level of splitting
+     */
+    private static int partitionOf(byte[] key, int level, int fanOut) {
+        int hash = Arrays.hashCode(key) ^ (level * 0x9E3779B9);
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % fanOut;
+    }
+
+    private void writeEntry(DataOutputStream out, byte[] key, byte[] row) throws IOException {
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeInt(row.length);
+        out.write(row);
+        bytesSpilled.addAndGet(8 + key.length + row.length);
+    }
+
+    private static DataOutputStream create(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+    }
+
+    private static void close(DataOutputStream[] outputs) throws IOException {
+        for (DataOutputStream out : outputs) {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Load the left side of a partition into a map and probe it with the right side
+     */
+    private void compare(File leftFile, File rightFile) throws IOException {
+        Map<ByteBuffer, byte[]> leftRows = new HashMap<>();
+        try (DataInputStream in = open(leftFile)) {
+            byte[][] entry;
+            while ((entry = readEntry(in)) != null) {
+                leftRows.put(ByteBuffer.wrap(entry[0]), entry[1]);
+            }
+        }
+
+        try (DataInputStream in = open(rightFile)) {
+            byte[][] entry;
+            while ((entry = readEntry(in)) != null) {
+                byte[] leftRow = leftRows.remove(ByteBuffer.wrap(entry[0]));
+                if (leftRow == null) {
+                    inserted.incrementAndGet();
+                    sample(insertedKeys, entry[0]);
+                } else if (!Arrays.equals(leftRow, entry[1])) {
+                    updated.incrementAndGet();
+                    sample(updatedRows, new byte[][] {entry[0], leftRow, entry[1]});
+                }
+            }
+        }
+
+        deleted.addAndGet(leftRows.size());
+        for (ByteBuffer key : leftRows.keySet()) {
+            if (deletedKeys.size() >= sampleLimit) {
+                break;
+            }
+            deletedKeys.add(key.array());
+        }
+    }
+
+    private <T> void sample(List<T> samples, T value) {
+        if (samples.size() < sampleLimit) {
+            samples.add(value);
+        }
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+    }
+
+    private static byte[][] readEntry(DataInputStream in) throws IOException {
+        int keyLength;
+        try {
+            keyLength = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        byte[] key = new byte[keyLength];
+        in.readFully(key);
+        byte[] row = new byte[in.readInt()];
+        in.readFully(row);
+        return new byte[][] {key, row};
+    }
+
+    /**
+     * Names of the fields that differ between two serialized rows
+     */
+    public List<String> changedFields(byte[] before, byte[] after) {
+        InternalRow left = toRow(before, rowType.getFieldCount());
+        InternalRow right = toRow(after, rowType.getFieldCount());
+        List<String> changed = new ArrayList<>();
+        for (int i = 0; i < rowType.getFieldCount(); i++) {
+            InternalRow.FieldGetter getter = InternalRow.createFieldGetter(rowType.getTypeAt(i), i);
+            if (!Objects.equals(getter.getFieldOrNull(left), getter.getFieldOrNull(right))) {
+                changed.add(rowType.getFieldNames().get(i));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * View serialized bytes as a binary row with the given number of fields
+     */
+    public static InternalRow toRow(byte[] bytes, int arity) {
+        BinaryRow row = new BinaryRow(arity);
+        row.pointTo(MemorySegment.wrap(bytes), 0, bytes.length);
+        return row;
+    }
+
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    public long getUpdated() {
+        return updated.get();
+    }
+
+    public long getDeleted() {
+        return deleted.get();
+    }
+
+    public List<byte[]> getInsertedKeys() {
+        return insertedKeys;
+    }
+
+    /**
+     * Sampled updates as {key, row before, row after}
+     */
+    public List<byte[][]> getUpdatedRows() {
+        return updatedRows;
+    }
+
+    public List<byte[]> getDeletedKeys() {
+        return deletedKeys;
+    }
+
+    public int getBucketsSkipped() {
+        return bucketsSkipped;
+    }
+
+    public int getFilesSkipped() {
+        return filesSkipped;
+    }
+
+    public int getSplitsRead() {
+        return splitsRead;
+    }
+
+    /**
+     * Number of partitions compared in memory
+     */
+    public int getPartitions() {
+        return partitions.get();
+    }
+
+    /**
+     * Bytes written to spill files, counting rows again each time their partition is split
+     */
+    public long getBytesSpilled() {
+        return bytesSpilled.get();
+    }
+}
@@ -0,0 +1,368 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.Decimal;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.Timestamp;
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.DeletionFile;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.table.source.TableRead;
+import org.apache.paimon.types.DataType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distinct count of a single column, computed per split in parallel.
+ * Approximate mode merges one HyperLogLog sketch per split; sketches of unfiltered
+ * single-file splits are kept in the sketch cache, so re-runs only read new files.
+ * Exact mode collects values (integral types) or 64-bit hashes (other types) in primitive hash sets
+ * sharing one budget, and falls back to HyperLogLog when the budget is exceeded.
+ */
+public class DistinctCountOperator {
+
+    /**
+     * Maximum number of distinct values kept in exact mode, over all worker threads
+     */
+    public static final int MAX_EXACT_DISTINCT = 500_000;
+
+    private final String tableName;
+    private final String column;
+    private final int fieldIndex;
+    private final DataType type;
+    private final boolean exact;
+    private final SketchCache sketchCache;
+    private final int maxExactDistinct;
+    private final boolean storesValues;
+
+    private final AtomicInteger splitsRead = new AtomicInteger();
+    private final AtomicInteger splitsCached = new AtomicInteger();
+    // Values held by the exact sets of all workers, a value held by two workers counts twice
+    private final AtomicInteger exactValues = new AtomicInteger();
+    private volatile boolean exactOverflow;
+
+    public DistinctCountOperator(String tableName, String column, int fieldIndex, DataType type, boolean exact,
+                                 SketchCache sketchCache) {
+        this(tableName, column, fieldIndex, type, exact, sketchCache, MAX_EXACT_DISTINCT);
+    }
+
+    DistinctCountOperator(String tableName, String column, int fieldIndex, DataType type, boolean exact,
+                          SketchCache sketchCache, int maxExactDistinct) {
+        this.tableName = tableName;
+        this.column = column;
+        this.fieldIndex = fieldIndex;
+        this.type = type;
+        this.exact = exact;
+        this.sketchCache = sketchCache;
+        this.maxExactDistinct = maxExactDistinct;
+        this.storesValues = storesValues(type);
+    }
+
+    /**
+     * Read the splits in parallel and count distinct non-null values of the column.
+     * Without predicates only the counted column is read.
+     */
+    public Result execute(ReadBuilder readBuilder, List<Split> splits, List<Predicate> predicates,
+                          QueryContext context) throws Exception {
+        boolean project = predicates.isEmpty();
+        ReadBuilder builder = project ? readBuilder.withProjection(new int[] {fieldIndex}) : readBuilder;
+        InternalRow.FieldGetter getter = InternalRow.createFieldGetter(type, project ? 0 : fieldIndex);
+
+        ConcurrentLinkedQueue<Split> pending = new ConcurrentLinkedQueue<>(SplitUtils.expandToFiles(splits));
+        context.setTotalSplits(pending.size());
+        int parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), pending.size()));
+        ExecutorService executor = ParallelTasks.newPool(parallelism, "distinct");
+
+        // Each worker may add one more value after another one crossed the budget
+        int maxSetSize = maxExactDistinct + parallelism;
+        List<Object> partials = new ArrayList<>();
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(executor.submit(() -> exact
+                        ? runExactWorker(builder, getter, pending, predicates, context, maxSetSize)
+                        : runSketchWorker(builder, getter, pending, predicates, context)));
+            }
+            for (Future<Object> future : futures) {
+                partials.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (exact && !exactOverflow) {
+            LongHashSet values = new LongHashSet(maxSetSize);
+            for (Object partial : partials) {
+                values.addAll((LongHashSet) partial);
+            }
+            return new Result(values.size(), 0.0, true);
+        }
+        HyperLogLog sketch = new HyperLogLog();
+        for (Object partial : partials) {
+            sketch.merge(partial instanceof LongHashSet ? toSketch((LongHashSet) partial) : (HyperLogLog) partial);
+        }
+        return new Result(sketch.estimate(), sketch.standardError(), false);
+    }
+
+    /**
+     * True if exact counts compare 64-bit hashes of the values rather than the values themselves
+     */
+    public boolean isExactByHash() {
+        return !storesValues;
+    }
+
+    public int getSplitsRead() {
+        return splitsRead.get();
+    }
+
+    public int getSplitsCached() {
+        return splitsCached.get();
+    }
+
+    private HyperLogLog runSketchWorker(ReadBuilder readBuilder, InternalRow.FieldGetter getter,
+                                        ConcurrentLinkedQueue<Split> pending, List<Predicate> predicates,
+                                        QueryContext context)
+            throws Exception {
+        TableRead tableRead = readBuilder.newRead();
+        HyperLogLog merged = new HyperLogLog();
+
+        Split split;
+        while ((split = pending.poll()) != null) {
+            String cacheKey = predicates.isEmpty() ? cacheKey(split) : null;
+            HyperLogLog splitSketch = cacheKey == null ? null : sketchCache.get(cacheKey);
+            if (splitSketch != null) {
+                splitsCached.incrementAndGet();
+                context.splitSkipped();
+                merged.merge(splitSketch);
+                continue;
+            }
+
+            splitSketch = new HyperLogLog();
+            splitsRead.incrementAndGet();
+            try (RecordReader<InternalRow> reader = context.open(tableRead, split)) {
+                RecordReader.RecordIterator<InternalRow> iterator;
+                while ((iterator = reader.readBatch()) != null) {
+                    InternalRow row;
+                    while ((row = iterator.next()) != null) {
+                        if (!matches(row, predicates)) {
+                            continue;
+                        }
+                        Object value = getter.getFieldOrNull(row);
+                        if (value != null) {
+                            splitSketch.addHash(hash64(value));
+                        }
+                    }
+                    iterator.releaseBatch();
+                }
+            }
+
+            if (cacheKey != null) {
+                sketchCache.put(cacheKey, splitSketch);
+            }
+            merged.merge(splitSketch);
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the worker's exact set, or its sketch once the shared budget was exceeded
+     */
+    private Object runExactWorker(ReadBuilder readBuilder, InternalRow.FieldGetter getter,
+                                  ConcurrentLinkedQueue<Split> pending, List<Predicate> predicates,
+                                  QueryContext context, int maxSetSize)
+            throws Exception {
+        TableRead tableRead = readBuilder.newRead();
+        LongHashSet values = new LongHashSet(maxSetSize);
+        HyperLogLog fallback = null;
+
+        Split split;
+        while ((split = pending.poll()) != null) {
+            splitsRead.incrementAndGet();
+            try (RecordReader<InternalRow> reader = context.open(tableRead, split)) {
+                RecordReader.RecordIterator<InternalRow> iterator;
+                while ((iterator = reader.readBatch()) != null) {
+                    InternalRow row;
+                    while ((row = iterator.next()) != null) {
+                        if (!matches(row, predicates)) {
+                            continue;
+                        }
+                        Object value = getter.getFieldOrNull(row);
+                        if (value == null) {
+                            continue;
+                        }
+                        if (fallback == null && exactOverflow) {
+                            fallback = toSketch(values);
+                            values = null;
+                        }
+                        if (fallback != null) {
+                            fallback.addHash(hash64(value));
+                        } else if (values.add(exactKey(value)) && exactValues.incrementAndGet() > maxExactDistinct) {
+                            exactOverflow = true;
+                        }
+                    }
+                    iterator.releaseBatch();
+                }
+            }
+        }
+        return fallback != null ? fallback : values;
+    }
+
+    /**
+     * Sketch of the values of an exact set, equal to the sketch of the values themselves
+     */
+    private HyperLogLog toSketch(LongHashSet values) {
+        HyperLogLog sketch = new HyperLogLog();
+        values.forEach(key -> sketch.addHash(storesValues ? mix64(key) : key));
+        return sketch;
+    }
+
+    /**
+     * Cache key of a split's sketch: only immutable single data files without deletion vectors are cached
+     */
+    private String cacheKey(Split split) {
+        if (!(split instanceof DataSplit)) {
+            return null;
+        }
+        DataSplit dataSplit = (DataSplit) split;
+        if (!dataSplit.rawConvertible() || dataSplit.dataFiles().size() != 1) {
+            return null;
+        }
+        List<DeletionFile> deletionFiles = dataSplit.deletionFiles().orElse(null);
+        if (deletionFiles != null && deletionFiles.get(0) != null) {
+            return null;
+        }
+        return tableName + "/" + column + "/" + dataSplit.dataFiles().get(0).fileName();
+    }
+
+    /**
+     * Integral values are stored as-is so exact counts are truly exact, other values by their 64-bit hash
+     */
+    private long exactKey(Object value) {
+        if (!storesValues) {
+            return hash64(value);
+        }
+        return value instanceof Boolean ? (((Boolean) value) ? 1 : 0) : ((Number) value).longValue();
+    }
+
+    private static boolean storesValues(DataType type) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 64-bit hash of an internal value
+     */
+    private long hash64(Object value) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return mix64(((Boolean) value) ? 1 : 0);
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+                return mix64(((Number) value).longValue());
+            case FLOAT:
+                return mix64(Float.floatToIntBits((Float) value));
+            case DOUBLE:
+                return mix64(Double.doubleToLongBits((Double) value));
+            case DECIMAL:
+                Decimal decimal = (Decimal) value;
+                return decimal.isCompact() ? mix64(decimal.toUnscaledLong()) : hashBytes(decimal.toUnscaledBytes());
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                Timestamp timestamp = (Timestamp) value;
+                return mix64(timestamp.getMillisecond() * 1_000_000L + timestamp.getNanoOfMillisecond());
+            case CHAR:
+            case VARCHAR:
+                return hashBytes(((BinaryString) value).toBytes());
+            case BINARY:
+            case VARBINARY:
+                return hashBytes((byte[]) value);
+            default:
+                return hashBytes(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreads all input bits over the output
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long hashBytes(byte[] bytes) {
+        // FNV-1a over the bytes, then mixed so low-entropy inputs still fill all bits
+        long h = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        return mix64(h ^ bytes.length);
+    }
+
+    private boolean matches(InternalRow row, List<Predicate> predicates) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Distinct count with its relative standard error (0 for exact counts)
+     */
+    public static class Result {
+
+        private final long count;
+        private final double standardError;
+        private final boolean exact;
+
+        Result(long count, double standardError, boolean exact) {
+            this.count = count;
+            this.standardError = standardError;
+            this.exact = exact;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getStandardError() {
+            return standardError;
+        }
+
+        /**
+         * False for approximate counts, including exact mode over its budget
+         */
+        public boolean isExact() {
+            return exact;
+        }
+    }
+}
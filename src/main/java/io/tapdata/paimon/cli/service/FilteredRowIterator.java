@@ -0,0 +1,80 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.reader.RecordReader;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Pull-style iteration over the rows of prefetched splits that match the row-level predicates.
+ * A returned row is only valid until the next call, as the underlying batch may be reused.
+ */
+public class FilteredRowIterator implements AutoCloseable {
+
+    private final SplitPrefetcher prefetcher;
+    private final List<Predicate> predicates;
+
+    private RecordReader<InternalRow> reader;
+    private RecordReader.RecordIterator<InternalRow> batch;
+    private boolean finished;
+
+    public FilteredRowIterator(SplitPrefetcher prefetcher, List<Predicate> predicates) {
+        this.prefetcher = prefetcher;
+        this.predicates = predicates;
+    }
+
+    /**
+     * Next matching row, or null when all splits are exhausted
+     */
+    public InternalRow next() throws IOException {
+        while (!finished) {
+            if (batch != null) {
+                InternalRow row;
+                while ((row = batch.next()) != null) {
+                    if (matches(row)) {
+                        return row;
+                    }
+                }
+                batch.releaseBatch();
+                batch = null;
+            }
+            if (reader != null) {
+                batch = reader.readBatch();
+                if (batch != null) {
+                    continue;
+                }
+                reader.close();
+                reader = null;
+            }
+            reader = prefetcher.next();
+            if (reader == null) {
+                finished = true;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(InternalRow row) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (batch != null) {
+            batch.releaseBatch();
+            batch = null;
+        }
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        prefetcher.close();
+    }
+}
@@ -0,0 +1,99 @@
+package io.tapdata.paimon.cli.service;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of primitive longs, avoiding boxing for exact distinct counting
+ */
+public class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final int maxSize;
+    private long[] keys;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    /**
+     * @param maxSize maximum number of entries, adding beyond it throws IllegalStateException
+     */
+    public LongHashSet(int maxSize) {
+        this.maxSize = maxSize;
+        allocate(64);
+    }
+
+    /**
+     * Add a value, returns true if it was not present
+     */
+    public boolean add(long value) {
+        int slot = slot(value);
+        while (used[slot]) {
+            if (keys[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size >= maxSize) {
+            throw new IllegalStateException("Distinct value limit of " + maxSize + " exceeded");
+        }
+        used[slot] = true;
+        keys[slot] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Add all values of another set
+     */
+    public void addAll(LongHashSet other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.used[i]) {
+                add(other.keys[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    private int slot(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldKeys[i]);
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+            }
+        }
+    }
+}
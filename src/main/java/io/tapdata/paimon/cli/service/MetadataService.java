@@ -1,10 +1,13 @@
 package io.tapdata.paimon.cli.service;
 
 import io.tapdata.paimon.cli.catalog.CatalogManager;
+import org.apache.paimon.table.FileStoreTable;
 import org.apache.paimon.table.Table;
 import org.apache.paimon.types.DataField;
 import org.apache.paimon.types.RowType;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -109,5 +112,111 @@ public class MetadataService {
             e.printStackTrace();
         }
     }
-}
 
+    /**
+     * Show file layout health of a table from the manifests of its latest snapshot, with the
+     * buckets and partitions that would benefit most from compaction
+     */
+    public void analyzeHealth(String database, String tableName, int top) {
+        try {
+            if (!catalogManager.tableExists(database, tableName)) {
+                System.err.println("Table does not exist: " + database + "." + tableName);
+                return;
+            }
+
+            Table table = catalogManager.getTable(database, tableName);
+            if (!(table instanceof FileStoreTable)) {
+                System.err.println("Table " + database + "." + tableName + " is not a file store table");
+                return;
+            }
+
+            long start = System.nanoTime();
+            TableHealthAnalyzer analyzer = new TableHealthAnalyzer((FileStoreTable) table);
+            if (!analyzer.analyze()) {
+                System.out.println("\nTable " + database + "." + tableName + " has no snapshot yet\n");
+                return;
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            TableHealthAnalyzer.BucketHealth total = analyzer.getTotal();
+            System.out.println("\nTable health: " + database + "." + tableName);
+            System.out.println("====================");
+            System.out.println("Snapshot:           " + analyzer.getSnapshot().id() + " (" + analyzer.getManifestsRead()
+                    + " manifest(s) read in " + elapsedMillis + " ms)");
+            System.out.println("Files:              " + total.getFiles() + " in " + analyzer.getBuckets().size()
+                    + " bucket(s), " + formatSize(total.getBytes()) + ", " + total.getRows() + " row(s)");
+            System.out.println("Small files:        " + total.getSmallFiles() + " (< "
+                    + formatSize(analyzer.getSmallFileSize()) + "), " + total.getExtraFiles()
+                    + " more than needed at the target file size");
+            if (analyzer.isPrimaryKeyTable()) {
+                System.out.println("Sorted runs:        max " + total.getSortedRuns() + " per bucket, "
+                        + total.getLevel0Files() + " level 0 file(s) (compaction triggers at "
+                        + analyzer.getSortedRunTrigger() + " runs)");
+            }
+            System.out.println("Deletion vectors:   " + (analyzer.hasDeletionVectors()
+                    ? total.getDeletedRows() + " deleted row(s) (" + formatPercent(total.getDeletionRatio()) + ")"
+                    : "disabled"));
+            System.out.println("Read amplification: " + formatAmplification(total.getReadAmplification())
+                    + " rows read per live row in a full scan");
+            System.out.println("Compaction benefit: " + formatSize((long) total.getBenefit())
+                    + " scan cost saved per full scan (rows no longer read plus open cost of removed files)");
+
+            if (!table.partitionKeys().isEmpty()) {
+                System.out.println("\nTop partitions by compaction benefit:");
+                printHealth(analyzer.getPartitions(), top, false);
+            }
+            System.out.println("\nTop buckets by compaction benefit:");
+            printHealth(analyzer.getBuckets(), top, true);
+            System.out.println();
+        } catch (Exception e) {
+            System.err.println("Failed to analyze table: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void printHealth(List<TableHealthAnalyzer.BucketHealth> entries, int top, boolean withBucket)
+            throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (TableHealthAnalyzer.BucketHealth entry : entries.subList(0, Math.min(top, entries.size()))) {
+            List<Object> row = new ArrayList<>();
+            row.add(entry.getPartition().isEmpty() ? "-" : entry.getPartition());
+            if (withBucket) {
+                row.add(entry.getBucket());
+            }
+            row.add(entry.getFiles());
+            row.add(entry.getSmallFiles());
+            row.add(entry.getSortedRuns());
+            row.add(formatSize(entry.getBytes()));
+            row.add(formatPercent(entry.getDeletionRatio()));
+            row.add(formatAmplification(entry.getReadAmplification()));
+            row.add(formatSize((long) entry.getBenefit()));
+            rows.add(row.toArray());
+        }
+        String[] columns = withBucket
+                ? new String[] {"partition", "bucket", "files", "small", "runs", "size", "deleted", "read amp", "benefit"}
+                : new String[] {"partition", "files", "small", "max runs", "size", "deleted", "read amp", "benefit"};
+        new TableRenderer(columns).render(rows);
+    }
+
+    /**
+     * Size rounded to one decimal in the largest fitting unit, e.g. "89.6 mb"
+     */
+    private static String formatSize(long bytes) {
+        String[] units = {"bytes", "kb", "mb", "gb", "tb"};
+        double size = bytes;
+        int unit = 0;
+        while (size >= 1024 && unit < units.length - 1) {
+            size /= 1024;
+            unit++;
+        }
+        return unit == 0 ? bytes + " bytes" : String.format("%.1f %s", size, units[unit]);
+    }
+
+    private static String formatPercent(double ratio) {
+        return String.format("%.1f%%", ratio * 100);
+    }
+
+    private static String formatAmplification(double amplification) {
+        return String.format("%.2fx", amplification);
+    }
+}
@@ -0,0 +1,28 @@
+package io.tapdata.paimon.cli.service;
+
+/**
+ * Order by clause of a query: a single column with a direction
+ */
+public class OrderBySpec {
+
+    private final String column;
+    private final boolean descending;
+
+    public OrderBySpec(String column, boolean descending) {
+        this.column = column;
+        this.descending = descending;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    @Override
+    public String toString() {
+        return column + (descending ? " DESC" : " ASC");
+    }
+}
@@ -0,0 +1,19 @@
+package io.tapdata.paimon.cli.service;
+
+/**
+ * Output format of select results
+ */
+public enum OutputFormat {
+    /**
+     * Pretty-printed JSON array, one object per row
+     */
+    JSON,
+    /**
+     * Aligned text table
+     */
+    TABLE,
+    /**
+     * Arrow IPC file written to the output path of the query instead of the console
+     */
+    ARROW
+}
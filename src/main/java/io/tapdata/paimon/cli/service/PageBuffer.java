@@ -0,0 +1,143 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.serializer.InternalRowSerializer;
+import org.apache.paimon.io.DataInputDeserializer;
+import org.apache.paimon.io.DataOutputSerializer;
+import org.apache.paimon.types.RowType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Pages already shown in pagination mode, kept as serialized binary rows in a memory-mapped
+ * temp file so going back needs neither a re-read of the table nor heap space.
+ * The file is used as a ring of at most {@code capacity} bytes: when a new page does not fit,
+ * the oldest pages are dropped and can no longer be revisited.
+ */
+public class PageBuffer implements AutoCloseable {
+
+    private final InternalRowSerializer serializer;
+    private final DataOutputSerializer staging = new DataOutputSerializer(4096);
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final int capacity;
+    private final Deque<PageEntry> pages = new ArrayDeque<>();
+
+    private int writePosition;
+    private int stagedRows;
+
+    public PageBuffer(RowType rowType, long maxBytes) throws IOException {
+        this.serializer = new InternalRowSerializer(rowType);
+        this.capacity = (int) Math.min(Math.max(maxBytes, 0), Integer.MAX_VALUE);
+        this.file = Files.createTempFile("paimon-cli-pages-", ".bin");
+        file.toFile().deleteOnExit();
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // The mapping is sparse, only the bytes written take page cache or disk space
+        this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /**
+     * Serialize a row of the page being read; rows are only valid until the next batch, so they
+     * are copied here right away
+     */
+    public void add(InternalRow row) throws IOException {
+        serializer.serialize(row, staging);
+        stagedRows++;
+    }
+
+    /**
+     * Store the rows added since the last call as page {@code pageNumber}
+     */
+    public void finishPage(int pageNumber) {
+        int length = staging.length();
+        if (length <= capacity) {
+            if (writePosition + length > capacity) {
+                // Pages at the end of the file are the oldest ones, drop them before wrapping
+                evictOverlapping(writePosition, capacity);
+                writePosition = 0;
+            }
+            evictOverlapping(writePosition, writePosition + length);
+            ByteBuffer target = mapped.duplicate();
+            target.position(writePosition);
+            target.put(staging.getSharedBuffer(), 0, length);
+            pages.addLast(new PageEntry(pageNumber, writePosition, length, stagedRows));
+            writePosition += length;
+        } else {
+            // A single page larger than the whole buffer cannot be kept
+            pages.clear();
+            writePosition = 0;
+        }
+        staging.clear();
+        stagedRows = 0;
+    }
+
+    private void evictOverlapping(int start, int end) {
+        while (!pages.isEmpty()) {
+            PageEntry oldest = pages.peekFirst();
+            if (oldest.offset < end && start < oldest.offset + oldest.length) {
+                pages.removeFirst();
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Rows of a buffered page converted for display, or null when the page was dropped or never read
+     */
+    public List<Object[]> readPage(int pageNumber, RowConverter converter) throws IOException {
+        for (PageEntry page : pages) {
+            if (page.pageNumber == pageNumber) {
+                ByteBuffer source = mapped.duplicate();
+                source.position(page.offset).limit(page.offset + page.length);
+                DataInputDeserializer input = new DataInputDeserializer(source);
+                List<Object[]> rows = new ArrayList<>(page.rowCount);
+                for (int i = 0; i < page.rowCount; i++) {
+                    rows.add(converter.convert(serializer.deserialize(input)));
+                }
+                return rows;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lowest page number that can still be revisited, or -1 when nothing is buffered
+     */
+    public int getOldestPage() {
+        return pages.isEmpty() ? -1 : pages.peekFirst().pageNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pages.clear();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    private static class PageEntry {
+
+        private final int pageNumber;
+        private final int offset;
+        private final int length;
+        private final int rowCount;
+
+        PageEntry(int pageNumber, int offset, int length, int rowCount) {
+            this.pageNumber = pageNumber;
+            this.offset = offset;
+            this.length = length;
+            this.rowCount = rowCount;
+        }
+    }
+}
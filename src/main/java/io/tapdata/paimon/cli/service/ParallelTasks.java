@@ -0,0 +1,60 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.job.BackgroundJob;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daemon thread pools of the maintenance and write operations
+ */
+final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * Fixed pool of daemon threads named paimon-cli-&lt;name&gt;-&lt;n&gt;, part of the caller's background job if any
+     */
+    static ExecutorService newPool(int threads, String name) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(BackgroundJob.propagate(runnable),
+                    "paimon-cli-" + name + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Run the tasks on up to {@code parallelism} threads and return their results in task order.
+     * The first failure in task order is rethrown unwrapped, and the other tasks are interrupted.
+     */
+    static <T> List<T> runAll(List<? extends Callable<T>> tasks, int parallelism, String name) throws Exception {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ExecutorService executor = newPool(Math.min(parallelism, tasks.size()), name);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
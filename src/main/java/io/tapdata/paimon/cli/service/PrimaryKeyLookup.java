@@ -0,0 +1,307 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.BinaryRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.serializer.InternalRowSerializer;
+import org.apache.paimon.disk.IOManager;
+import org.apache.paimon.io.DataFileMeta;
+import org.apache.paimon.predicate.CompareUtils;
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.table.BucketMode;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.query.LocalTableQuery;
+import org.apache.paimon.table.sink.RowKeyExtractor;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.DeletionFile;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.table.source.TableRead;
+import org.apache.paimon.types.DataField;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point lookup of a primary-key table by its full primary key, routed to its partition and bucket
+ */
+public class PrimaryKeyLookup implements AutoCloseable {
+
+    private final FileStoreTable table;
+    private final RowKeyExtractor keyExtractor;
+    private final List<InternalRow.FieldGetter> keyGetters = new ArrayList<>();
+    private final List<DataField> keyFields;
+    private final boolean fixedBucket;
+    private final boolean crossPartition;
+
+    // Files each partition/bucket was last refreshed with, to refresh the local query incrementally
+    private final Map<BinaryRow, Map<Integer, List<DataFileMeta>>> knownFiles = new HashMap<>();
+
+    private IOManager ioManager;
+    private LocalTableQuery localQuery;
+    private boolean localQueryFailed;
+
+    public PrimaryKeyLookup(FileStoreTable table) {
+        this.table = table;
+        this.keyExtractor = table.createRowKeyExtractor();
+        this.keyFields = table.schema().trimmedPrimaryKeysFields();
+        for (int i = 0; i < keyFields.size(); i++) {
+            keyGetters.add(InternalRow.createFieldGetter(keyFields.get(i).type(), i));
+        }
+        this.fixedBucket = table.bucketMode() == BucketMode.HASH_FIXED;
+        this.crossPartition = table.bucketMode() == BucketMode.CROSS_PARTITION;
+    }
+
+    /**
+     * Look up the row whose primary key equals the key fields of the given row.
+     *
+     * @param keyRow     row of the table type with all primary key fields set
+     * @param predicates equality predicates on the primary key fields, used for pruning
+     * @param context    cancellation flag and limits of the query
+     */
+    public synchronized Result lookup(InternalRow keyRow, List<Predicate> predicates, QueryContext context)
+            throws Exception {
+        keyExtractor.setRecord(keyRow);
+        BinaryRow partition = keyExtractor.partition().copy();
+        BinaryRow key = keyExtractor.trimmedPrimaryKey().copy();
+
+        ReadBuilder readBuilder = table.newReadBuilder().withFilter(predicates);
+        int bucket = -1;
+        if (fixedBucket) {
+            bucket = keyExtractor.bucket();
+            readBuilder = readBuilder.withBucket(bucket);
+        }
+
+        List<DataSplit> splits = new ArrayList<>();
+        for (Split split : readBuilder.newScan().plan().splits()) {
+            DataSplit dataSplit = (DataSplit) split;
+            if (crossPartition || dataSplit.partition().equals(partition)) {
+                splits.add(dataSplit);
+            }
+        }
+
+        context.setTotalSplits(splits.size());
+        Result result = new Result(bucket, crossPartition);
+        for (DataSplit split : splits) {
+            result.filesInBucket += split.dataFiles().size();
+            for (DataFileMeta file : split.dataFiles()) {
+                if (inKeyRange(key, file)) {
+                    result.filesInKeyRange++;
+                }
+            }
+        }
+
+        if (fixedBucket && !localQueryFailed && splits.size() == 1) {
+            context.checkpoint();
+            try {
+                result.row = lookupLocal(partition, bucket, key, splits.get(0).dataFiles());
+                result.localQuery = true;
+                return result;
+            } catch (Exception e) {
+                // Fall back to reading the bucket for this and later lookups
+                localQueryFailed = true;
+                System.out.println("(Local table query unavailable, reading bucket files instead: "
+                        + e.getMessage() + ")");
+            }
+        }
+
+        result.row = lookupByRead(readBuilder, splits, key, predicates, context);
+        return result;
+    }
+
+    /**
+     * Look up through the local table query after bringing its file view up to date
+     */
+    private InternalRow lookupLocal(BinaryRow partition, int bucket, BinaryRow key, List<DataFileMeta> files)
+            throws Exception {
+        if (localQuery == null) {
+            File tempDir = new File(System.getProperty("java.io.tmpdir"), "paimon-cli-lookup");
+            tempDir.mkdirs();
+            ioManager = IOManager.create(tempDir.getAbsolutePath());
+            localQuery = table.newLocalTableQuery().withIOManager(ioManager);
+        }
+
+        Map<Integer, List<DataFileMeta>> buckets = knownFiles.computeIfAbsent(partition, p -> new HashMap<>());
+        List<DataFileMeta> known = buckets.get(bucket);
+        if (known == null) {
+            localQuery.refreshFiles(partition, bucket, Collections.emptyList(), files);
+        } else {
+            List<DataFileMeta> removed = new ArrayList<>(known);
+            removed.removeAll(files);
+            List<DataFileMeta> added = new ArrayList<>(files);
+            added.removeAll(known);
+            if (!removed.isEmpty() || !added.isEmpty()) {
+                localQuery.refreshFiles(partition, bucket, removed, added);
+            }
+        }
+        buckets.put(bucket, new ArrayList<>(files));
+
+        return localQuery.lookup(partition, bucket, key);
+    }
+
+    /**
+     * Look up by reading only the files whose key range contains the key
+     */
+    private InternalRow lookupByRead(ReadBuilder readBuilder, List<DataSplit> splits, BinaryRow key,
+                                     List<Predicate> predicates, QueryContext context) throws Exception {
+        TableRead tableRead = readBuilder.newRead();
+        for (DataSplit split : splits) {
+            DataSplit pruned = pruneToKeyRange(split, key);
+            if (pruned == null) {
+                context.splitSkipped();
+                continue;
+            }
+
+            try (RecordReader<InternalRow> reader = context.open(tableRead, pruned)) {
+                RecordReader.RecordIterator<InternalRow> iterator;
+                while ((iterator = reader.readBatch()) != null) {
+                    InternalRow row;
+                    while ((row = iterator.next()) != null) {
+                        if (matches(row, predicates)) {
+                            InternalRow copy = copyRow(row);
+                            iterator.releaseBatch();
+                            return copy;
+                        }
+                    }
+                    iterator.releaseBatch();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keep only the files of a split whose key range contains the key.
+     * Dropping the other files is safe for merging, since they hold no version of the key.
+     */
+    private DataSplit pruneToKeyRange(DataSplit split, BinaryRow key) {
+        List<DataFileMeta> files = new ArrayList<>();
+        List<DeletionFile> deletionFiles = split.deletionFiles().orElse(null);
+        List<DeletionFile> keptDeletionFiles = deletionFiles == null ? null : new ArrayList<>();
+        for (int i = 0; i < split.dataFiles().size(); i++) {
+            DataFileMeta file = split.dataFiles().get(i);
+            if (inKeyRange(key, file)) {
+                files.add(file);
+                if (keptDeletionFiles != null) {
+                    keptDeletionFiles.add(deletionFiles.get(i));
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            return null;
+        }
+
+        DataSplit.Builder builder = DataSplit.builder()
+                .withSnapshot(split.snapshotId())
+                .withPartition(split.partition())
+                .withBucket(split.bucket())
+                .withBucketPath(split.bucketPath())
+                .withTotalBuckets(split.totalBuckets())
+                .withDataFiles(files)
+                .isStreaming(false)
+                .rawConvertible(split.rawConvertible());
+        if (keptDeletionFiles != null) {
+            builder.withDataDeletionFiles(keptDeletionFiles);
+        }
+        return builder.build();
+    }
+
+    private boolean inKeyRange(BinaryRow key, DataFileMeta file) {
+        return compareKeys(key, file.minKey()) >= 0 && compareKeys(key, file.maxKey()) <= 0;
+    }
+
+    private int compareKeys(InternalRow a, InternalRow b) {
+        for (int i = 0; i < keyFields.size(); i++) {
+            Object left = keyGetters.get(i).getFieldOrNull(a);
+            Object right = keyGetters.get(i).getFieldOrNull(b);
+            if (left == null || right == null) {
+                if (left != right) {
+                    return left == null ? -1 : 1;
+                }
+                continue;
+            }
+            int cmp = CompareUtils.compareLiteral(keyFields.get(i).type(), left, right);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private InternalRow copyRow(InternalRow row) {
+        return new InternalRowSerializer(table.rowType()).copy(row);
+    }
+
+    private boolean matches(InternalRow row, List<Predicate> predicates) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (localQuery != null) {
+            localQuery.close();
+            localQuery = null;
+        }
+        if (ioManager != null) {
+            ioManager.close();
+            ioManager = null;
+        }
+    }
+
+    /**
+     * Lookup result with routing information
+     */
+    public static class Result {
+
+        private final int bucket;
+        private final boolean allPartitions;
+        private InternalRow row;
+        private int filesInBucket;
+        private int filesInKeyRange;
+        private boolean localQuery;
+
+        Result(int bucket, boolean allPartitions) {
+            this.bucket = bucket;
+            this.allPartitions = allPartitions;
+        }
+
+        public InternalRow getRow() {
+            return row;
+        }
+
+        /**
+         * Target bucket, -1 when the bucket cannot be computed from the key (dynamic bucket tables)
+         */
+        public int getBucket() {
+            return bucket;
+        }
+
+        /**
+         * Whether every partition was planned because the key cannot be routed to one (cross-partition tables)
+         */
+        public boolean isAllPartitions() {
+            return allPartitions;
+        }
+
+        public int getFilesInBucket() {
+            return filesInBucket;
+        }
+
+        public int getFilesInKeyRange() {
+            return filesInKeyRange;
+        }
+
+        public boolean isLocalQuery() {
+            return localQuery;
+        }
+    }
+}
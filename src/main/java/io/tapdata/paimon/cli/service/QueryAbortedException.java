@@ -0,0 +1,14 @@
+package io.tapdata.paimon.cli.service;
+
+/**
+ * Thrown from the read loops when a query is cancelled or exceeds one of its limits.
+ * The message carries the reason and the work done up to that point.
+ */
+public class QueryAbortedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QueryAbortedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,300 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.config.StorageConfig;
+import io.tapdata.paimon.cli.jfr.SplitReadEvent;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.io.DataFileMeta;
+import org.apache.paimon.options.MemorySize;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.table.source.TableRead;
+import org.apache.paimon.types.RowType;
+import org.apache.paimon.utils.InternalRowPartitionComputer;
+import org.apache.paimon.utils.TimeUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancellation flag, limits and scan metrics of one running query.
+ * Readers are opened through {@link #open}, which charges the split against the split and byte
+ * budgets, and checks cancellation, wall time and the row budget at every batch. Checks are
+ * cooperative: a query stops at the next split or batch boundary of each of its read threads.
+ * Bytes are the data file sizes of the opened splits, charged before they are read.
+ * Every opened split is recorded as a {@link SplitReadEvent} when its reader is closed.
+ */
+public class QueryContext {
+
+    private final long timeoutNanos;
+    private final long maxRows;
+    private final long maxBytes;
+    private final long maxSplits;
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong rowsScanned = new AtomicLong();
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong splitsOpened = new AtomicLong();
+    private final AtomicLong splitsDone = new AtomicLong();
+
+    private volatile String table;
+    private volatile RowType partitionType;
+    private volatile String predicate;
+    private volatile long totalSplits;
+    private volatile long deadlineNanos;
+    private volatile String abortReason;
+    private volatile boolean cancelled;
+    private volatile boolean failed;
+
+    public QueryContext(long timeoutMillis, long maxRows, long maxBytes, long maxSplits) {
+        this.timeoutNanos = timeoutMillis * 1_000_000;
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.maxSplits = maxSplits;
+        restartTimer();
+    }
+
+    /**
+     * Limits from the cli.query.* options; missing options mean no limit
+     */
+    public static QueryContext fromOptions(Map<String, String> options) {
+        String timeout = options.get(StorageConfig.QUERY_TIMEOUT);
+        String maxRows = options.get(StorageConfig.QUERY_MAX_ROWS);
+        String maxBytes = options.get(StorageConfig.QUERY_MAX_BYTES);
+        String maxSplits = options.get(StorageConfig.QUERY_MAX_SPLITS);
+        return new QueryContext(
+                timeout == null ? 0 : TimeUtils.parseDuration(timeout).toMillis(),
+                maxRows == null ? 0 : Long.parseLong(maxRows.trim()),
+                maxBytes == null ? 0 : MemorySize.parse(maxBytes).getBytes(),
+                maxSplits == null ? 0 : Long.parseLong(maxSplits.trim()));
+    }
+
+    /**
+     * Start the wall time limit over, e.g. after waiting for user input
+     */
+    public void restartTimer() {
+        deadlineNanos = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : 0;
+    }
+
+    /**
+     * Table and pushed-down predicate of the query, recorded in the JFR events of its split reads
+     */
+    public void describe(String table, RowType partitionType, String predicate) {
+        this.table = table;
+        this.partitionType = partitionType;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Number of splits the query plans to read, for progress reporting
+     */
+    public void setTotalSplits(long totalSplits) {
+        this.totalSplits = totalSplits;
+    }
+
+    /**
+     * Count a planned split that was pruned without being opened as done
+     */
+    public void splitSkipped() {
+        splitsDone.incrementAndGet();
+    }
+
+    /**
+     * Ask the query to stop at its next checkpoint; safe to call from any thread
+     */
+    public void cancel() {
+        cancelled = true;
+        if (abortReason == null) {
+            abortReason = "cancelled";
+        }
+    }
+
+    /**
+     * Record that the query failed with an error it reported itself
+     */
+    public void fail() {
+        failed = true;
+    }
+
+    /**
+     * True if the query failed, or was aborted by a limit rather than cancelled
+     */
+    public boolean isFailed() {
+        return failed || (abortReason != null && !cancelled);
+    }
+
+    /**
+     * Open a reader for a split after charging it against the split and byte budgets
+     */
+    public RecordReader<InternalRow> open(TableRead tableRead, Split split) throws IOException {
+        SplitReadEvent event = new SplitReadEvent();
+        event.begin();
+        checkpoint();
+        long bytes = splitBytes(split);
+        if (maxSplits > 0 && splitsOpened.get() + 1 > maxSplits) {
+            abort("split budget of " + maxSplits + " exceeded");
+        }
+        if (maxBytes > 0 && bytesScanned.get() + bytes > maxBytes) {
+            abort("byte budget of " + new MemorySize(maxBytes) + " exceeded");
+        }
+        splitsOpened.incrementAndGet();
+        bytesScanned.addAndGet(bytes);
+        return new CheckedReader(tableRead.createReader(split), event, split);
+    }
+
+    /**
+     * Throw if the query was cancelled or ran out of time or rows
+     */
+    public void checkpoint() {
+        if (abortReason != null) {
+            throw new QueryAbortedException(abortReason + " (" + getMetrics() + ")");
+        }
+        if (deadlineNanos > 0 && System.nanoTime() - deadlineNanos > 0) {
+            abort("timeout of " + timeoutNanos / 1_000_000 + " ms exceeded");
+        }
+        if (maxRows > 0 && rowsScanned.get() > maxRows) {
+            abort("row budget of " + maxRows + " exceeded");
+        }
+    }
+
+    private void abort(String reason) {
+        // Record the first reason so the other read threads stop as well
+        if (abortReason == null) {
+            abortReason = reason;
+        }
+        throw new QueryAbortedException(reason + " (" + getMetrics() + ")");
+    }
+
+    /**
+     * Work done so far, e.g. "scanned 1200 row(s), 3 split(s), 12 mb in 450 ms"
+     */
+    public String getMetrics() {
+        return "scanned " + rowsScanned.get() + " row(s), " + splitsOpened.get() + " split(s), "
+                + new MemorySize(bytesScanned.get()) + " in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms";
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned.get();
+    }
+
+    public long getBytesScanned() {
+        return bytesScanned.get();
+    }
+
+    public long getSplitsOpened() {
+        return splitsOpened.get();
+    }
+
+    /**
+     * Splits whose reader was closed or that were skipped without being opened
+     */
+    public long getSplitsDone() {
+        return splitsDone.get();
+    }
+
+    /**
+     * Progress so far, e.g. "splits 3/10, 12000 row(s), 5000 rows/s"
+     */
+    public String getProgress() {
+        long rows = rowsScanned.get();
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        return "splits " + splitsDone.get() + "/" + totalSplits + ", " + rows + " row(s), "
+                + rows * 1000 / elapsedMillis + " rows/s";
+    }
+
+    static long splitBytes(Split split) {
+        if (!(split instanceof DataSplit)) {
+            return 0;
+        }
+        long bytes = 0;
+        for (DataFileMeta file : ((DataSplit) split).dataFiles()) {
+            bytes += file.fileSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Counts the rows of each batch and checks the limits before reading the next one
+     */
+    private class CheckedReader implements RecordReader<InternalRow> {
+
+        private final RecordReader<InternalRow> delegate;
+        private final SplitReadEvent event;
+        private final Split split;
+        private long rows;
+
+        CheckedReader(RecordReader<InternalRow> delegate, SplitReadEvent event, Split split) {
+            this.delegate = delegate;
+            this.event = event;
+            this.split = split;
+        }
+
+        @Override
+        public RecordIterator<InternalRow> readBatch() throws IOException {
+            checkpoint();
+            RecordIterator<InternalRow> batch = delegate.readBatch();
+            return batch == null ? null : new CountingIterator(batch, this);
+        }
+
+        @Override
+        public void close() throws IOException {
+            splitsDone.incrementAndGet();
+            try {
+                delegate.close();
+            } finally {
+                commitEvent();
+            }
+        }
+
+        private void commitEvent() {
+            event.end();
+            if (!event.shouldCommit()) {
+                return;
+            }
+            event.table = table;
+            event.predicate = predicate;
+            event.rows = rows;
+            if (split instanceof DataSplit) {
+                DataSplit dataSplit = (DataSplit) split;
+                RowType partitions = partitionType;
+                event.partition = partitions == null || partitions.getFieldCount() == 0 ? ""
+                        : InternalRowPartitionComputer.partToSimpleString(partitions, dataSplit.partition(), "/", 200);
+                event.bucket = dataSplit.bucket();
+                event.snapshot = dataSplit.snapshotId();
+                event.files = dataSplit.dataFiles().size();
+                event.bytes = splitBytes(split);
+            }
+            event.commit();
+        }
+    }
+
+    private class CountingIterator implements RecordReader.RecordIterator<InternalRow> {
+
+        private final RecordReader.RecordIterator<InternalRow> delegate;
+        private final CheckedReader reader;
+        private long rows;
+
+        CountingIterator(RecordReader.RecordIterator<InternalRow> delegate, CheckedReader reader) {
+            this.delegate = delegate;
+            this.reader = reader;
+        }
+
+        @Override
+        public InternalRow next() throws IOException {
+            InternalRow row = delegate.next();
+            if (row != null) {
+                rows++;
+            }
+            return row;
+        }
+
+        @Override
+        public void releaseBatch() {
+            rowsScanned.addAndGet(rows);
+            reader.rows += rows;
+            rows = 0;
+            delegate.releaseBatch();
+        }
+    }
+}
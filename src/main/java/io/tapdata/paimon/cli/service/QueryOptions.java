@@ -0,0 +1,70 @@
+package io.tapdata.paimon.cli.service;
+
+import java.util.List;
+
+/**
+ * Optional clauses of a select/count query
+ */
+public class QueryOptions {
+
+    private SampleSpec sample;
+    private OrderBySpec orderBy;
+    private OutputFormat format = OutputFormat.JSON;
+    private List<String> columns;
+    private String outputPath;
+
+    public static QueryOptions defaults() {
+        return new QueryOptions();
+    }
+
+    public SampleSpec getSample() {
+        return sample;
+    }
+
+    public QueryOptions withSample(SampleSpec sample) {
+        this.sample = sample;
+        return this;
+    }
+
+    public OrderBySpec getOrderBy() {
+        return orderBy;
+    }
+
+    public QueryOptions withOrderBy(OrderBySpec orderBy) {
+        this.orderBy = orderBy;
+        return this;
+    }
+
+    public OutputFormat getFormat() {
+        return format;
+    }
+
+    public QueryOptions withFormat(OutputFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Selected columns, or null for all columns
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public QueryOptions withColumns(List<String> columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    /**
+     * File the rows are written to with {@link OutputFormat#ARROW}
+     */
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public QueryOptions withOutputPath(String outputPath) {
+        this.outputPath = outputPath;
+        return this;
+    }
+}
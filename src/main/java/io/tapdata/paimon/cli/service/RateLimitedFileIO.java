@@ -0,0 +1,173 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.catalog.CatalogContext;
+import org.apache.paimon.fs.FileIO;
+import org.apache.paimon.fs.FileStatus;
+import org.apache.paimon.fs.Path;
+import org.apache.paimon.fs.PositionOutputStream;
+import org.apache.paimon.fs.RemoteIterator;
+import org.apache.paimon.fs.SeekableInputStream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Optional;
+
+/**
+ * FileIO that spaces out listing, status and delete requests to at most a given number per
+ * second across all threads, so that parallel maintenance does not get throttled by an object
+ * store. Reads and writes of file contents are not limited.
+ */
+public class RateLimitedFileIO implements FileIO {
+
+    private static final long serialVersionUID = 1L;
+
+    private final FileIO delegate;
+    private final long intervalNanos;
+    private long nextRequestNanos;
+
+    public RateLimitedFileIO(FileIO delegate, int requestsPerSecond) {
+        this.delegate = delegate;
+        this.intervalNanos = 1_000_000_000L / Math.max(1, requestsPerSecond);
+        this.nextRequestNanos = System.nanoTime();
+    }
+
+    /**
+     * Wait for the next free request slot
+     */
+    private void acquire() throws IOException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextRequestNanos);
+            nextRequestNanos = slot + intervalNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the request rate limit");
+            }
+        }
+    }
+
+    @Override
+    public void configure(CatalogContext context) {
+        delegate.configure(context);
+    }
+
+    @Override
+    public boolean isObjectStore() {
+        return delegate.isObjectStore();
+    }
+
+    @Override
+    public SeekableInputStream newInputStream(Path file) throws IOException {
+        return delegate.newInputStream(file);
+    }
+
+    @Override
+    public PositionOutputStream newOutputStream(Path file, boolean overwrite) throws IOException {
+        return delegate.newOutputStream(file, overwrite);
+    }
+
+    @Override
+    public FileStatus getFileStatus(Path file) throws IOException {
+        acquire();
+        return delegate.getFileStatus(file);
+    }
+
+    @Override
+    public FileStatus[] listStatus(Path file) throws IOException {
+        acquire();
+        return delegate.listStatus(file);
+    }
+
+    @Override
+    public FileStatus[] listFiles(Path file, boolean recursive) throws IOException {
+        acquire();
+        return delegate.listFiles(file, recursive);
+    }
+
+    @Override
+    public RemoteIterator<FileStatus> listFilesIterative(Path file, boolean recursive) throws IOException {
+        acquire();
+        return delegate.listFilesIterative(file, recursive);
+    }
+
+    @Override
+    public FileStatus[] listDirectories(Path file) throws IOException {
+        acquire();
+        return delegate.listDirectories(file);
+    }
+
+    @Override
+    public boolean exists(Path file) throws IOException {
+        acquire();
+        return delegate.exists(file);
+    }
+
+    @Override
+    public boolean delete(Path file, boolean recursive) throws IOException {
+        acquire();
+        return delegate.delete(file, recursive);
+    }
+
+    @Override
+    public boolean mkdirs(Path file) throws IOException {
+        return delegate.mkdirs(file);
+    }
+
+    @Override
+    public boolean rename(Path src, Path dst) throws IOException {
+        return delegate.rename(src, dst);
+    }
+
+    @Override
+    public long getFileSize(Path file) throws IOException {
+        acquire();
+        return delegate.getFileSize(file);
+    }
+
+    @Override
+    public boolean isDir(Path file) throws IOException {
+        acquire();
+        return delegate.isDir(file);
+    }
+
+    @Override
+    public boolean tryToWriteAtomic(Path file, String content) throws IOException {
+        return delegate.tryToWriteAtomic(file, content);
+    }
+
+    @Override
+    public void writeFile(Path file, String content, boolean overwrite) throws IOException {
+        delegate.writeFile(file, content, overwrite);
+    }
+
+    @Override
+    public void overwriteFileUtf8(Path file, String content) throws IOException {
+        delegate.overwriteFileUtf8(file, content);
+    }
+
+    @Override
+    public void overwriteHintFile(Path file, String content) throws IOException {
+        delegate.overwriteHintFile(file, content);
+    }
+
+    @Override
+    public Optional<String> readOverwrittenFileUtf8(Path file) throws IOException {
+        return delegate.readOverwrittenFileUtf8(file);
+    }
+
+    @Override
+    public void copyFile(Path src, Path dst, boolean overwrite) throws IOException {
+        delegate.copyFile(src, dst, overwrite);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The delegate belongs to the catalog
+    }
+}
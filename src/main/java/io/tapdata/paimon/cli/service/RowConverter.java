@@ -0,0 +1,149 @@
+package io.tapdata.paimon.cli.service;
+
+import com.google.gson.stream.JsonWriter;
+import org.apache.paimon.casting.CastExecutor;
+import org.apache.paimon.casting.CastExecutors;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.types.DataField;
+import org.apache.paimon.types.DataType;
+import org.apache.paimon.types.DataTypeChecks;
+import org.apache.paimon.types.RowType;
+import org.apache.paimon.utils.DateTimeUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Row converter compiled once per query from the row type.
+ * Each field gets a getter resolved up front with its exact DECIMAL precision/scale and TIMESTAMP
+ * precision, so converting a row is one array fill with no per-cell type switch, and pages are
+ * written to the output as a JSON stream without building intermediate maps.
+ */
+public class RowConverter {
+
+    private final String[] fieldNames;
+    private final InternalRow.FieldGetter[] getters;
+
+    public RowConverter(RowType rowType) {
+        this(rowType, IntStream.range(0, rowType.getFieldCount()).toArray());
+    }
+
+    /**
+     * Converter of only the given field positions of rows of the row type
+     */
+    public RowConverter(RowType rowType, int[] positions) {
+        List<DataField> fields = rowType.getFields();
+        this.fieldNames = new String[positions.length];
+        this.getters = new InternalRow.FieldGetter[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            DataField field = fields.get(positions[i]);
+            fieldNames[i] = field.name();
+            getters[i] = createGetter(field.type(), positions[i]);
+        }
+    }
+
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * Display values of a row: numbers and booleans as is, everything else as text
+     */
+    public Object[] convert(InternalRow row) {
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            values[i] = getters[i].getFieldOrNull(row);
+        }
+        return values;
+    }
+
+    /**
+     * Print rows as a pretty JSON array of objects; null fields are omitted
+     */
+    public void printJson(List<Object[]> rows) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        JsonWriter json = new JsonWriter(out);
+        json.setIndent("  ");
+        json.setSerializeNulls(false);
+        json.setLenient(true);
+        json.beginArray();
+        for (Object[] values : rows) {
+            json.beginObject();
+            for (int i = 0; i < values.length; i++) {
+                json.name(fieldNames[i]);
+                Object value = values[i];
+                if (value == null) {
+                    json.nullValue();
+                } else if (value instanceof Number) {
+                    json.value((Number) value);
+                } else if (value instanceof Boolean) {
+                    json.value((boolean) value);
+                } else {
+                    json.value((String) value);
+                }
+            }
+            json.endObject();
+        }
+        json.endArray();
+        out.write(System.lineSeparator());
+        out.flush();
+    }
+
+    private static InternalRow.FieldGetter createGetter(DataType type, int pos) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return row -> row.isNullAt(pos) ? null : row.getBoolean(pos);
+            case TINYINT:
+                return row -> row.isNullAt(pos) ? null : row.getByte(pos);
+            case SMALLINT:
+                return row -> row.isNullAt(pos) ? null : row.getShort(pos);
+            case INTEGER:
+                return row -> row.isNullAt(pos) ? null : row.getInt(pos);
+            case BIGINT:
+                return row -> row.isNullAt(pos) ? null : row.getLong(pos);
+            case FLOAT:
+                return row -> row.isNullAt(pos) ? null : row.getFloat(pos);
+            case DOUBLE:
+                return row -> row.isNullAt(pos) ? null : row.getDouble(pos);
+            case CHAR:
+            case VARCHAR:
+                return row -> row.isNullAt(pos) ? null : row.getString(pos).toString();
+            case DECIMAL: {
+                int precision = DataTypeChecks.getPrecision(type);
+                int scale = DataTypeChecks.getScale(type);
+                return row -> row.isNullAt(pos) ? null : row.getDecimal(pos, precision, scale).toBigDecimal();
+            }
+            case DATE:
+                return row -> row.isNullAt(pos) ? null : DateTimeUtils.formatDate(row.getInt(pos));
+            case TIME_WITHOUT_TIME_ZONE:
+                return row -> row.isNullAt(pos) ? null : DateTimeUtils.toLocalTime(row.getInt(pos)).toString();
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE: {
+                int precision = DataTypeChecks.getPrecision(type);
+                return row -> row.isNullAt(pos)
+                        ? null
+                        : DateTimeUtils.formatTimestamp(row.getTimestamp(pos, precision), precision);
+            }
+            case BINARY:
+            case VARBINARY:
+                return row -> row.isNullAt(pos) ? null : Base64.getEncoder().encodeToString(row.getBinary(pos));
+            default: {
+                // Nested and remaining types use Paimon's own string cast
+                @SuppressWarnings("unchecked")
+                CastExecutor<Object, BinaryString> cast =
+                        (CastExecutor<Object, BinaryString>) CastExecutors.resolveToString(type);
+                InternalRow.FieldGetter getter = InternalRow.createFieldGetter(type, pos);
+                return row -> {
+                    Object value = getter.getFieldOrNull(row);
+                    return value == null ? null : cast.cast(value).toString();
+                };
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.tapdata.paimon.cli.service;
+
+/**
+ * Sample clause of a query: a percentage of splits or an approximate number of rows
+ */
+public class SampleSpec {
+
+    public enum Mode {
+        PERCENT,
+        ROWS
+    }
+
+    private final Mode mode;
+    private final double value;
+
+    private SampleSpec(Mode mode, double value) {
+        this.mode = mode;
+        this.value = value;
+    }
+
+    /**
+     * Sample the given percentage of splits, e.g. 'sample 10%'
+     */
+    public static SampleSpec percent(double percent) {
+        if (percent <= 0 || percent > 100) {
+            throw new IllegalArgumentException("Sample percentage must be in (0, 100]: " + percent);
+        }
+        return new SampleSpec(Mode.PERCENT, percent);
+    }
+
+    /**
+     * Sample splits until they hold at least the given number of rows, e.g. 'sample 10000 rows'
+     */
+    public static SampleSpec rows(long rows) {
+        if (rows <= 0) {
+            throw new IllegalArgumentException("Sample row count must be positive: " + rows);
+        }
+        return new SampleSpec(Mode.ROWS, rows);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.PERCENT ? value + "%" : (long) value + " rows";
+    }
+}
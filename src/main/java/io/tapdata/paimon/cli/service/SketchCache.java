@@ -0,0 +1,43 @@
+package io.tapdata.paimon.cli.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Session-wide LRU cache of per data file HyperLogLog sketches.
+ * Paimon data files are immutable, so a sketch keyed by table, column and file name never goes stale.
+ */
+public class SketchCache {
+
+    /**
+     * Default number of cached sketches (about 16 MB with the default precision)
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private final Map<String, HyperLogLog> sketches;
+
+    public SketchCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public SketchCache(int maxEntries) {
+        this.sketches = new LinkedHashMap<String, HyperLogLog>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HyperLogLog> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized HyperLogLog get(String key) {
+        return sketches.get(key);
+    }
+
+    public synchronized void put(String key, HyperLogLog sketch) {
+        sketches.put(key, sketch);
+    }
+
+    public synchronized int size() {
+        return sketches.size();
+    }
+}
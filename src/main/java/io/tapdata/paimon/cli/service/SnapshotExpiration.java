@@ -0,0 +1,234 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.Snapshot;
+import org.apache.paimon.consumer.ConsumerManager;
+import org.apache.paimon.manifest.FileEntry;
+import org.apache.paimon.manifest.FileKind;
+import org.apache.paimon.manifest.ManifestEntry;
+import org.apache.paimon.manifest.ManifestFileMeta;
+import org.apache.paimon.manifest.ManifestList;
+import org.apache.paimon.operation.FileStoreScan;
+import org.apache.paimon.options.ExpireConfig;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.utils.SnapshotManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Plans and runs snapshot expiration with explicit retention. The plan picks the snapshots the
+ * same way Paimon's expiration does (at least retainMin and at most retainMax snapshots, and none
+ * newer than the time retention or still needed by a consumer) and estimates what expiring them
+ * frees: data files deleted by the expired snapshots, and manifests that neither the first
+ * retained snapshot nor a tag still uses. Manifests are read in parallel.
+ */
+public class SnapshotExpiration {
+
+    private final FileStoreTable table;
+    private final ExpireConfig config;
+    private final int parallelism;
+
+    private long beginInclusive;
+    private long endExclusive;
+    private int dataFiles;
+    private long dataBytes;
+    private int manifests;
+    private long manifestBytes;
+    private long manifestEntries;
+    private int manifestLists;
+    private long manifestListBytes;
+
+    public SnapshotExpiration(FileStoreTable table, int retainMin, int retainMax, Duration timeRetain,
+                              int parallelism) {
+        this.table = table;
+        this.config = ExpireConfig.builder()
+                .snapshotRetainMin(retainMin)
+                .snapshotRetainMax(retainMax)
+                .snapshotTimeRetain(timeRetain)
+                .snapshotMaxDeletes(Integer.MAX_VALUE)
+                .build();
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Work out the snapshots to expire and what that frees, returns false if there is nothing to expire
+     */
+    public boolean plan() throws Exception {
+        if (config.getSnapshotRetainMax() < config.getSnapshotRetainMin()) {
+            throw new IllegalArgumentException("retain_max (" + config.getSnapshotRetainMax()
+                    + ") must not be less than retain_min (" + config.getSnapshotRetainMin() + ")");
+        }
+        SnapshotManager snapshotManager = table.snapshotManager();
+        Long latest = snapshotManager.latestSnapshotId();
+        Long earliest = snapshotManager.earliestSnapshotId();
+        if (latest == null || earliest == null) {
+            return false;
+        }
+
+        long min = Math.max(latest - config.getSnapshotRetainMax() + 1, earliest);
+        long maxExclusive = latest - config.getSnapshotRetainMin() + 1;
+        maxExclusive = Math.min(maxExclusive, new ConsumerManager(table.fileIO(), table.location(), table.coreOptions().branch())
+                .minNextSnapshot().orElse(Long.MAX_VALUE));
+        long olderThanMillis = System.currentTimeMillis() - config.getSnapshotTimeRetain().toMillis();
+        long end = maxExclusive;
+        for (long id = min; id < maxExclusive; id++) {
+            if (snapshotManager.snapshotExists(id) && olderThanMillis <= snapshotManager.snapshot(id).timeMillis()) {
+                end = id;
+                break;
+            }
+        }
+        beginInclusive = earliest;
+        endExclusive = end;
+        if (endExclusive <= beginInclusive) {
+            return false;
+        }
+
+        estimate(snapshotManager);
+        return true;
+    }
+
+    private void estimate(SnapshotManager snapshotManager) throws Exception {
+        ManifestList manifestList = table.store().manifestListFactory().create();
+        FileStoreScan scan = table.store().newScan();
+
+        // Manifests and data files that must survive: those of the first retained snapshot and of tags
+        List<Snapshot> kept = new ArrayList<>(table.tagManager().taggedSnapshots());
+        if (snapshotManager.snapshotExists(endExclusive)) {
+            kept.add(snapshotManager.snapshot(endExclusive));
+        }
+        Set<String> keptManifests = new HashSet<>();
+        for (Snapshot snapshot : kept) {
+            for (ManifestFileMeta manifest : manifestList.readAllManifests(snapshot)) {
+                keptManifests.add(manifest.fileName());
+            }
+        }
+        Set<String> taggedFiles = new HashSet<>();
+        List<Callable<List<ManifestEntry>>> tagReads = new ArrayList<>();
+        for (Snapshot tag : table.tagManager().taggedSnapshots()) {
+            if (tag.id() >= beginInclusive && tag.id() < endExclusive) {
+                tagReads.add(() -> {
+                    List<ManifestEntry> entries = new ArrayList<>();
+                    for (ManifestFileMeta manifest : manifestList.readDataManifests(tag)) {
+                        entries.addAll(scan.readManifest(manifest));
+                    }
+                    return new ArrayList<>(FileEntry.mergeEntries(entries));
+                });
+            }
+        }
+        for (List<ManifestEntry> entries : ParallelTasks.runAll(tagReads, parallelism, "expire")) {
+            for (ManifestEntry entry : entries) {
+                taggedFiles.add(entry.fileName());
+            }
+        }
+
+        // Data files deleted by snapshots (begin, end] are no longer referenced once the older ones are gone
+        List<Callable<List<ManifestEntry>>> deltaReads = new ArrayList<>();
+        for (long id = beginInclusive + 1; id <= endExclusive; id++) {
+            if (!snapshotManager.snapshotExists(id)) {
+                continue;
+            }
+            Snapshot snapshot = snapshotManager.snapshot(id);
+            deltaReads.add(() -> {
+                List<ManifestEntry> deleted = new ArrayList<>();
+                for (ManifestFileMeta manifest : manifestList.readDeltaManifests(snapshot)) {
+                    for (ManifestEntry entry : scan.readManifest(manifest)) {
+                        if (entry.kind() == FileKind.DELETE) {
+                            deleted.add(entry);
+                        }
+                    }
+                }
+                return deleted;
+            });
+        }
+        Map<String, Long> freedFiles = new HashMap<>();
+        for (List<ManifestEntry> entries : ParallelTasks.runAll(deltaReads, parallelism, "expire")) {
+            for (ManifestEntry entry : entries) {
+                if (!taggedFiles.contains(entry.fileName())) {
+                    freedFiles.put(entry.fileName(), entry.file().fileSize());
+                }
+            }
+        }
+        dataFiles = freedFiles.size();
+        for (long size : freedFiles.values()) {
+            dataBytes += size;
+        }
+
+        // Manifests and manifest lists of the expired snapshots
+        List<Callable<List<ManifestFileMeta>>> listReads = new ArrayList<>();
+        for (long id = beginInclusive; id < endExclusive; id++) {
+            if (!snapshotManager.snapshotExists(id)) {
+                continue;
+            }
+            Snapshot snapshot = snapshotManager.snapshot(id);
+            manifestLists += 2;
+            manifestListBytes += nullToZero(snapshot.baseManifestListSize()) + nullToZero(snapshot.deltaManifestListSize());
+            listReads.add(() -> manifestList.readAllManifests(snapshot));
+        }
+        Map<String, ManifestFileMeta> freedManifests = new HashMap<>();
+        for (List<ManifestFileMeta> snapshotManifests : ParallelTasks.runAll(listReads, parallelism, "expire")) {
+            for (ManifestFileMeta manifest : snapshotManifests) {
+                if (!keptManifests.contains(manifest.fileName())) {
+                    freedManifests.put(manifest.fileName(), manifest);
+                }
+            }
+        }
+        manifests = freedManifests.size();
+        for (ManifestFileMeta manifest : freedManifests.values()) {
+            manifestBytes += manifest.fileSize();
+            manifestEntries += manifest.numAddedFiles() + manifest.numDeletedFiles();
+        }
+    }
+
+    private static long nullToZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Expire the planned snapshots through Paimon, returns the number of snapshots expired
+     */
+    public int expire() {
+        return table.newExpireSnapshots().config(config).expire();
+    }
+
+    public long getBeginInclusive() {
+        return beginInclusive;
+    }
+
+    public long getEndExclusive() {
+        return endExclusive;
+    }
+
+    public int getDataFiles() {
+        return dataFiles;
+    }
+
+    public long getDataBytes() {
+        return dataBytes;
+    }
+
+    public int getManifests() {
+        return manifests;
+    }
+
+    public long getManifestBytes() {
+        return manifestBytes;
+    }
+
+    public long getManifestEntries() {
+        return manifestEntries;
+    }
+
+    public int getManifestLists() {
+        return manifestLists;
+    }
+
+    public long getManifestListBytes() {
+        return manifestListBytes;
+    }
+}
@@ -0,0 +1,181 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.job.BackgroundJob;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.table.source.TableRead;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens the readers of upcoming splits on background threads while the current split is consumed.
+ * At most {@code depth} splits are opened ahead, each with its first batch already read (which is
+ * where the footer and first row group are fetched), and readers are handed out in split order.
+ * Readers opened ahead are registered under the prefetcher's lock until they are handed out, so
+ * closing the prefetcher closes each of them exactly once, including those still being opened.
+ */
+public class SplitPrefetcher implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final List<Split> splits;
+    private final int depth;
+    private final ExecutorService executor;
+    private final ThreadLocal<TableRead> tableReads;
+    private final QueryContext context;
+    private final Deque<Future<RecordReader<InternalRow>>> pending = new ArrayDeque<>();
+    // Readers opened ahead and not handed out yet, guarded by this
+    private final Set<RecordReader<InternalRow>> openedAhead = new HashSet<>();
+
+    private int nextToSubmit;
+    private boolean closed;
+
+    public SplitPrefetcher(ReadBuilder readBuilder, List<Split> splits, int depth, QueryContext context) {
+        this.splits = splits;
+        this.context = context;
+        this.depth = Math.max(1, Math.min(depth, splits.size()));
+        this.executor = Executors.newFixedThreadPool(this.depth, runnable -> {
+            Thread thread = new Thread(BackgroundJob.propagate(runnable),
+                    "paimon-cli-prefetch-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // TableRead is not thread-safe, each prefetch thread gets its own
+        this.tableReads = ThreadLocal.withInitial(readBuilder::newRead);
+    }
+
+    /**
+     * Reader of the next split in order, or null when all splits have been returned
+     */
+    public RecordReader<InternalRow> next() throws IOException {
+        fill();
+        Future<RecordReader<InternalRow>> head = pending.poll();
+        if (head == null) {
+            return null;
+        }
+        try {
+            RecordReader<InternalRow> reader = head.get();
+            synchronized (this) {
+                openedAhead.remove(reader);
+            }
+            fill();
+            return reader;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for split reader", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void fill() {
+        while (pending.size() < depth && nextToSubmit < splits.size()) {
+            Split split = splits.get(nextToSubmit++);
+            pending.add(executor.submit(() -> open(split)));
+        }
+    }
+
+    private RecordReader<InternalRow> open(Split split) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+        }
+        RecordReader<InternalRow> reader = context.open(tableReads.get(), split);
+        PrefetchedReader prefetched;
+        try {
+            prefetched = new PrefetchedReader(reader, reader.readBatch());
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        synchronized (this) {
+            if (!closed) {
+                openedAhead.add(prefetched);
+                return prefetched;
+            }
+        }
+        // Closed while opening: nobody will take this reader
+        prefetched.close();
+        return null;
+    }
+
+    /**
+     * Stop prefetching and close the readers opened ahead that were not handed out
+     */
+    @Override
+    public void close() {
+        List<RecordReader<InternalRow>> discarded;
+        synchronized (this) {
+            closed = true;
+            discarded = new ArrayList<>(openedAhead);
+            openedAhead.clear();
+        }
+        for (Future<RecordReader<InternalRow>> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+        executor.shutdown();
+        for (RecordReader<InternalRow> reader : discarded) {
+            try {
+                reader.close();
+            } catch (Exception e) {
+                // Ignore, the reader is being discarded
+            }
+        }
+    }
+
+    /**
+     * Reader whose first batch was already read on the prefetch thread
+     */
+    private static class PrefetchedReader implements RecordReader<InternalRow> {
+
+        private final RecordReader<InternalRow> delegate;
+        private RecordIterator<InternalRow> firstBatch;
+        private boolean firstBatchTaken;
+
+        PrefetchedReader(RecordReader<InternalRow> delegate, RecordIterator<InternalRow> firstBatch) {
+            this.delegate = delegate;
+            this.firstBatch = firstBatch;
+        }
+
+        @Override
+        public RecordIterator<InternalRow> readBatch() throws IOException {
+            if (!firstBatchTaken) {
+                firstBatchTaken = true;
+                RecordIterator<InternalRow> batch = firstBatch;
+                firstBatch = null;
+                return batch;
+            }
+            return delegate.readBatch();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (firstBatch != null) {
+                firstBatch.releaseBatch();
+                firstBatch = null;
+            }
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.table.source.Split;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks a random subset of splits from a scan plan and scales counts read from them
+ * back to the whole table
+ */
+public class SplitSampler {
+
+    /**
+     * z-value of the 95% confidence interval reported with estimates
+     */
+    private static final double Z_95 = 1.96;
+
+    private final Random random;
+
+    public SplitSampler() {
+        this(new Random());
+    }
+
+    public SplitSampler(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Sample splits according to the sample spec
+     */
+    public SampledSplits sample(List<Split> splits, SampleSpec spec) {
+        List<Split> units = SplitUtils.expandToFiles(splits);
+
+        long totalRows = 0;
+        for (Split split : units) {
+            totalRows += split.rowCount();
+        }
+
+        List<Split> shuffled = new ArrayList<>(units);
+        Collections.shuffle(shuffled, random);
+
+        List<Split> selected = new ArrayList<>();
+        long sampledRows = 0;
+        if (units.isEmpty()) {
+            // Nothing to sample: an empty plan is complete and estimates to zero
+        } else if (spec.getMode() == SampleSpec.Mode.PERCENT) {
+            int target = (int) Math.ceil(units.size() * spec.getValue() / 100.0);
+            target = Math.max(1, Math.min(target, units.size()));
+            for (int i = 0; i < target; i++) {
+                selected.add(shuffled.get(i));
+                sampledRows += shuffled.get(i).rowCount();
+            }
+        } else {
+            for (Split split : shuffled) {
+                if (!selected.isEmpty() && sampledRows >= spec.getValue()) {
+                    break;
+                }
+                selected.add(split);
+                sampledRows += split.rowCount();
+            }
+        }
+
+        return new SampledSplits(selected, units.size(), totalRows, sampledRows);
+    }
+
+    /**
+     * Splits chosen by a sample, with the row counts needed to scale results
+     */
+    public static class SampledSplits {
+
+        private final List<Split> splits;
+        private final int totalSplits;
+        private final long totalRows;
+        private final long sampledRows;
+
+        SampledSplits(List<Split> splits, int totalSplits, long totalRows, long sampledRows) {
+            this.splits = splits;
+            this.totalSplits = totalSplits;
+            this.totalRows = totalRows;
+            this.sampledRows = sampledRows;
+        }
+
+        public List<Split> getSplits() {
+            return splits;
+        }
+
+        public int getTotalSplits() {
+            return totalSplits;
+        }
+
+        public long getTotalRows() {
+            return totalRows;
+        }
+
+        public long getSampledRows() {
+            return sampledRows;
+        }
+
+        public boolean isComplete() {
+            return splits.size() >= totalSplits;
+        }
+
+        /**
+         * Percentage of the table's rows (by file statistics) covered by the sample
+         */
+        public double getRowFraction() {
+            return totalRows == 0 ? 100.0 : sampledRows * 100.0 / totalRows;
+        }
+
+        /**
+         * Estimate the number of matching rows in the whole table from the matching
+         * rows counted in each sampled split (same order as {@link #getSplits()}).
+         * Uses a ratio estimator over splits with a finite population correction.
+         */
+        public Estimate estimate(long[] matchedPerSplit) {
+            int n = splits.size();
+            long matched = 0;
+            for (long m : matchedPerSplit) {
+                matched += m;
+            }
+
+            if (isComplete()) {
+                return new Estimate(matched, 0.0);
+            }
+            if (sampledRows == 0) {
+                return new Estimate(0, Double.NaN);
+            }
+
+            double ratio = (double) matched / sampledRows;
+            long value = Math.round(ratio * totalRows);
+            if (n < 2) {
+                return new Estimate(value, Double.NaN);
+            }
+
+            double sumSquares = 0;
+            for (int i = 0; i < n; i++) {
+                double residual = matchedPerSplit[i] - ratio * splits.get(i).rowCount();
+                sumSquares += residual * residual;
+            }
+            double meanRows = (double) sampledRows / n;
+            double finiteCorrection = 1.0 - (double) n / totalSplits;
+            double ratioVariance = finiteCorrection * (sumSquares / (n - 1)) / (n * meanRows * meanRows);
+            double errorBound = Z_95 * Math.sqrt(ratioVariance) * totalRows;
+
+            return new Estimate(value, errorBound);
+        }
+    }
+
+    /**
+     * Scaled estimate with a 95% error bound (NaN when it cannot be computed)
+     */
+    public static class Estimate {
+
+        private final long value;
+        private final double errorBound;
+
+        Estimate(long value, double errorBound) {
+            this.value = value;
+            this.errorBound = errorBound;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public double getErrorBound() {
+            return errorBound;
+        }
+
+        @Override
+        public String toString() {
+            if (Double.isNaN(errorBound)) {
+                return value + " (error bound unavailable, sample more splits)";
+            }
+            if (errorBound == 0.0) {
+                return String.valueOf(value);
+            }
+            return value + " +/- " + Math.round(errorBound) + " (95% confidence)";
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.io.DataFileMeta;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.DeletionFile;
+import org.apache.paimon.table.source.Split;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helpers for working with scan plan splits
+ */
+public final class SplitUtils {
+
+    private SplitUtils() {
+    }
+
+    /**
+     * Break raw-convertible data splits into one split per data file, so that
+     * splits can be sampled, pruned or scheduled at file (row group set) granularity
+     * instead of bucket granularity.
+     * Splits that need merging (primary-key tables with overlapping files) are kept whole.
+     */
+    public static List<Split> expandToFiles(List<Split> splits) {
+        List<Split> units = new ArrayList<>();
+        for (Split split : splits) {
+            if (!(split instanceof DataSplit)) {
+                units.add(split);
+                continue;
+            }
+
+            DataSplit dataSplit = (DataSplit) split;
+            List<DataFileMeta> files = dataSplit.dataFiles();
+            if (!dataSplit.rawConvertible() || files.size() <= 1) {
+                units.add(split);
+                continue;
+            }
+
+            List<DeletionFile> deletionFiles = dataSplit.deletionFiles().orElse(null);
+            for (int i = 0; i < files.size(); i++) {
+                DataSplit.Builder builder = DataSplit.builder()
+                        .withSnapshot(dataSplit.snapshotId())
+                        .withPartition(dataSplit.partition())
+                        .withBucket(dataSplit.bucket())
+                        .withBucketPath(dataSplit.bucketPath())
+                        .withTotalBuckets(dataSplit.totalBuckets())
+                        .withDataFiles(Collections.singletonList(files.get(i)))
+                        .isStreaming(false)
+                        .rawConvertible(true);
+                if (deletionFiles != null) {
+                    builder.withDataDeletionFiles(Collections.singletonList(deletionFiles.get(i)));
+                }
+                units.add(builder.build());
+            }
+        }
+        return units;
+    }
+}
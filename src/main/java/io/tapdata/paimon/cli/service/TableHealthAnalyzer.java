@@ -0,0 +1,357 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.CoreOptions;
+import org.apache.paimon.FileStore;
+import org.apache.paimon.Snapshot;
+import org.apache.paimon.deletionvectors.DeletionVectorsIndexFile;
+import org.apache.paimon.index.DeletionVectorMeta;
+import org.apache.paimon.io.DataFileMeta;
+import org.apache.paimon.manifest.FileEntry;
+import org.apache.paimon.manifest.IndexManifestEntry;
+import org.apache.paimon.manifest.ManifestEntry;
+import org.apache.paimon.manifest.ManifestFileMeta;
+import org.apache.paimon.operation.FileStoreScan;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.types.RowType;
+import org.apache.paimon.utils.InternalRowPartitionComputer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+
+/**
+ * File layout health of the latest snapshot of a table, computed from its manifests only.
+ * The data manifests are read in parallel and merged into the live files, which are grouped by
+ * (partition, bucket). For each bucket the analyzer derives the small file count, the sorted run
+ * depth, the deletion vector ratio and the expected read amplification, and a compaction benefit:
+ * the bytes a full scan would stop reading plus the open cost of the files compaction would remove.
+ */
+public class TableHealthAnalyzer {
+
+    private final FileStoreTable table;
+    private final CoreOptions options;
+    private final boolean primaryKeyTable;
+    private final boolean deletionVectors;
+    private final long smallFileSize;
+    private final long targetFileSize;
+    private final long openFileCost;
+
+    private Snapshot snapshot;
+    private int manifestsRead;
+    private final List<BucketHealth> buckets = new ArrayList<>();
+
+    public TableHealthAnalyzer(FileStoreTable table) {
+        this.table = table;
+        this.options = table.coreOptions();
+        this.primaryKeyTable = !table.primaryKeys().isEmpty();
+        this.deletionVectors = options.deletionVectorsEnabled();
+        this.smallFileSize = options.compactionFileSize(primaryKeyTable);
+        this.targetFileSize = options.targetFileSize(primaryKeyTable);
+        this.openFileCost = options.splitOpenFileCost();
+    }
+
+    /**
+     * Analyze the latest snapshot, returns false if the table has no snapshot yet
+     */
+    public boolean analyze() throws Exception {
+        snapshot = table.snapshotManager().latestSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+
+        FileStore<?> store = table.store();
+        List<ManifestFileMeta> manifests = store.manifestListFactory().create().readDataManifests(snapshot);
+        manifestsRead = manifests.size();
+        Collection<ManifestEntry> files = FileEntry.mergeEntries(readManifests(store.newScan(), manifests));
+        Map<String, Long> deletedRows = deletionVectors ? readDeletionVectors(store) : new HashMap<>();
+
+        RowType partitionType = table.schema().logicalPartitionType();
+        Map<String, BucketHealth> byBucket = new LinkedHashMap<>();
+        for (ManifestEntry entry : files) {
+            String partition = partitionType.getFieldCount() == 0 ? "" : InternalRowPartitionComputer
+                    .partToSimpleString(partitionType, entry.partition(), "/", 200);
+            BucketHealth bucket = byBucket.computeIfAbsent(partition + "#" + entry.bucket(),
+                    k -> new BucketHealth(partition, entry.bucket()));
+            bucket.add(entry.file(), deletedRows.getOrDefault(entry.file().fileName(), 0L));
+        }
+        buckets.addAll(byBucket.values());
+        buckets.sort(Comparator.comparingDouble(BucketHealth::getBenefit).reversed());
+        return true;
+    }
+
+    /**
+     * Read the manifests on a pool, keeping their order so that deletes merge with earlier adds
+     */
+    private List<ManifestEntry> readManifests(FileStoreScan scan, List<ManifestFileMeta> manifests)
+            throws Exception {
+        Integer configured = options.scanManifestParallelism();
+        int parallelism = Math.max(1, Math.min(manifests.size(),
+                configured != null ? configured : Runtime.getRuntime().availableProcessors()));
+        List<Callable<List<ManifestEntry>>> reads = new ArrayList<>();
+        for (ManifestFileMeta manifest : manifests) {
+            reads.add(() -> scan.readManifest(manifest));
+        }
+        List<ManifestEntry> entries = new ArrayList<>();
+        for (List<ManifestEntry> manifestEntries : ParallelTasks.runAll(reads, parallelism, "manifest")) {
+            entries.addAll(manifestEntries);
+        }
+        return entries;
+    }
+
+    /**
+     * Deleted row count of each data file, from the deletion vector index of the snapshot
+     */
+    private Map<String, Long> readDeletionVectors(FileStore<?> store) {
+        Map<String, Long> deletedRows = new HashMap<>();
+        for (IndexManifestEntry entry : store.newIndexFileHandler()
+                .scan(snapshot, DeletionVectorsIndexFile.DELETION_VECTORS_INDEX)) {
+            if (entry.indexFile().deletionVectorMetas() == null) {
+                continue;
+            }
+            for (DeletionVectorMeta meta : entry.indexFile().deletionVectorMetas().values()) {
+                if (meta.cardinality() != null) {
+                    deletedRows.merge(meta.dataFileName(), meta.cardinality(), Long::sum);
+                }
+            }
+        }
+        return deletedRows;
+    }
+
+    /**
+     * Buckets ordered by compaction benefit, highest first
+     */
+    public List<BucketHealth> getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Buckets aggregated per partition, ordered by compaction benefit, highest first
+     */
+    public List<BucketHealth> getPartitions() {
+        Map<String, BucketHealth> partitions = new LinkedHashMap<>();
+        for (BucketHealth bucket : buckets) {
+            partitions.computeIfAbsent(bucket.getPartition(), k -> new BucketHealth(k, -1)).merge(bucket);
+        }
+        List<BucketHealth> result = new ArrayList<>(partitions.values());
+        result.sort(Comparator.comparingDouble(BucketHealth::getBenefit).reversed());
+        return result;
+    }
+
+    /**
+     * All buckets together
+     */
+    public BucketHealth getTotal() {
+        BucketHealth total = new BucketHealth("", -1);
+        for (BucketHealth bucket : buckets) {
+            total.merge(bucket);
+        }
+        return total;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int getManifestsRead() {
+        return manifestsRead;
+    }
+
+    public boolean isPrimaryKeyTable() {
+        return primaryKeyTable;
+    }
+
+    public boolean hasDeletionVectors() {
+        return deletionVectors;
+    }
+
+    public long getSmallFileSize() {
+        return smallFileSize;
+    }
+
+    public int getSortedRunTrigger() {
+        return options.numSortedRunCompactionTrigger();
+    }
+
+    /**
+     * Health of one bucket, or the sum of several buckets (bucket -1) for partition and table totals
+     */
+    public class BucketHealth {
+
+        private final String partition;
+        private final int bucket;
+        private final TreeSet<Integer> levels = new TreeSet<>();
+        private int files;
+        private int smallFiles;
+        private int level0Files;
+        private int maxSortedRuns;
+        private long bytes;
+        private long rows;
+        private long deletedRows;
+        private long rowsRead;
+        private long liveRows;
+        private long extraFiles;
+        private double benefit;
+        // Rows of each sorted run above level 0, by level
+        private final Map<Integer, Long> levelRows = new HashMap<>();
+        private long largestLevel0File;
+        private final boolean aggregate;
+
+        BucketHealth(String partition, int bucket) {
+            this.partition = partition;
+            this.bucket = bucket;
+            this.aggregate = bucket < 0;
+        }
+
+        void add(DataFileMeta file, long deleted) {
+            files++;
+            bytes += file.fileSize();
+            rows += file.rowCount();
+            deletedRows += deleted;
+            if (file.fileSize() < smallFileSize) {
+                smallFiles++;
+            }
+            levels.add(file.level());
+            if (file.level() == 0) {
+                level0Files++;
+                largestLevel0File = Math.max(largestLevel0File, file.rowCount());
+            } else {
+                levelRows.merge(file.level(), file.rowCount(), Long::sum);
+            }
+            update();
+        }
+
+        /**
+         * Recompute the derived figures after adding a file
+         */
+        private void update() {
+            maxSortedRuns = getSortedRuns();
+            if (!primaryKeyTable) {
+                rowsRead = rows;
+                liveRows = rows - deletedRows;
+            } else if (deletionVectors) {
+                // Level 0 is not visible to batch reads of deletion vector tables until compacted
+                rowsRead = rows - rowsAtLevel0();
+                liveRows = rowsRead - deletedRows;
+            } else {
+                // Merge on read: each key is read once per sorted run holding it. Assuming newer runs
+                // mostly update existing keys, the largest run bounds the number of live rows.
+                rowsRead = rows;
+                long largestRun = largestLevel0File;
+                for (long runRows : levelRows.values()) {
+                    largestRun = Math.max(largestRun, runRows);
+                }
+                liveRows = largestRun;
+            }
+            long idealFiles = Math.max(1, (bytes + targetFileSize - 1) / targetFileSize);
+            extraFiles = Math.max(0, files - idealFiles);
+            benefit = bytes * (1 - 1 / getReadAmplification()) + (double) extraFiles * openFileCost;
+        }
+
+        private long rowsAtLevel0() {
+            long level0Rows = rows;
+            for (long runRows : levelRows.values()) {
+                level0Rows -= runRows;
+            }
+            return level0Rows;
+        }
+
+        void merge(BucketHealth other) {
+            files += other.files;
+            smallFiles += other.smallFiles;
+            level0Files += other.level0Files;
+            maxSortedRuns = Math.max(maxSortedRuns, other.maxSortedRuns);
+            levels.addAll(other.levels);
+            bytes += other.bytes;
+            rows += other.rows;
+            deletedRows += other.deletedRows;
+            rowsRead += other.rowsRead;
+            liveRows += other.liveRows;
+            extraFiles += other.extraFiles;
+            benefit += other.benefit;
+        }
+
+        public String getPartition() {
+            return partition;
+        }
+
+        public int getBucket() {
+            return bucket;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getSmallFiles() {
+            return smallFiles;
+        }
+
+        public int getLevel0Files() {
+            return level0Files;
+        }
+
+        /**
+         * Sorted runs a read of this bucket merges: every level 0 file plus one per higher level.
+         * For aggregates, the deepest bucket.
+         */
+        public int getSortedRuns() {
+            if (aggregate) {
+                return maxSortedRuns;
+            }
+            if (!primaryKeyTable) {
+                return files == 0 ? 0 : 1;
+            }
+            return level0Files + levelRows.size();
+        }
+
+        public int getLevels() {
+            return levels.size();
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getDeletedRows() {
+            return deletedRows;
+        }
+
+        /**
+         * Deleted rows over rows in the data files
+         */
+        public double getDeletionRatio() {
+            return rows == 0 ? 0 : (double) deletedRows / rows;
+        }
+
+        /**
+         * Rows a full scan reads per live row it returns
+         */
+        public double getReadAmplification() {
+            return liveRows <= 0 ? 1 : Math.max(1, (double) rowsRead / liveRows);
+        }
+
+        /**
+         * Files compaction would remove, compared to files of the target size
+         */
+        public long getExtraFiles() {
+            return extraFiles;
+        }
+
+        /**
+         * Estimated bytes a full scan saves after compaction, counting each removed file at its open cost
+         */
+        public double getBenefit() {
+            return benefit;
+        }
+    }
+}
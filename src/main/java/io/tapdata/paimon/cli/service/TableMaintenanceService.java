@@ -0,0 +1,511 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.catalog.CatalogManager;
+import io.tapdata.paimon.cli.config.StorageConfig;
+import org.apache.paimon.CoreOptions;
+import org.apache.paimon.Snapshot;
+import org.apache.paimon.catalog.Catalog;
+import org.apache.paimon.catalog.Identifier;
+import org.apache.paimon.fs.FileIO;
+import org.apache.paimon.fs.Path;
+import org.apache.paimon.operation.CleanOrphanFilesResult;
+import org.apache.paimon.operation.LocalOrphanFilesClean;
+import org.apache.paimon.options.MemorySize;
+import org.apache.paimon.options.Options;
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.predicate.PredicateBuilder;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.FileStoreTableFactory;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.types.DataField;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Table Maintenance Service, for operations that change table files
+ */
+public class TableMaintenanceService {
+
+    private static final int ORPHAN_FILES_SHOWN = 20;
+
+    private final CatalogManager catalogManager;
+
+    public TableMaintenanceService(CatalogManager catalogManager) {
+        this.catalogManager = catalogManager;
+    }
+
+    /**
+     * Compact a table, or the given partitions (e.g. 'dt=2024-01-01' or 'dt=2024-01-01,hr=10'), and
+     * commit the result as one snapshot
+     */
+    public void compactTable(String database, String tableName, List<String> partitionSpecs, int parallelism) {
+        try {
+            FileStoreTable fileStoreTable = getFileStoreTable(database, tableName);
+            if (fileStoreTable == null) {
+                return;
+            }
+
+            Predicate partitionFilter = null;
+            if (!partitionSpecs.isEmpty()) {
+                List<Map<String, String>> partitions = new ArrayList<>();
+                for (String spec : partitionSpecs) {
+                    Map<String, String> partition = parsePartitionSpec(spec, fileStoreTable.partitionKeys());
+                    if (partition == null) {
+                        return;
+                    }
+                    partitions.add(partition);
+                }
+                partitionFilter = PredicateBuilder.partitions(partitions, fileStoreTable.rowType(),
+                        fileStoreTable.coreOptions().partitionDefaultName());
+            }
+
+            long maxMemory = MemorySize.parse(catalogManager.getConfig().getOptions()
+                    .getOrDefault(StorageConfig.COMPACT_MAX_MEMORY, StorageConfig.DEFAULT_COMPACT_MAX_MEMORY)).getBytes();
+            Snapshot before = fileStoreTable.snapshotManager().latestSnapshot();
+
+            long start = System.nanoTime();
+            CompactOperator operator = new CompactOperator(fileStoreTable, partitionFilter, parallelism, maxMemory);
+            operator.execute();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            catalogManager.invalidateTable(database, tableName);
+
+            System.out.println("\nCompact: " + database + "." + tableName);
+            System.out.println("====================");
+            if (operator.getBucketsCompacted() == 0) {
+                System.out.println("Nothing to compact (" + elapsedMillis + " ms)\n");
+                return;
+            }
+            Snapshot after = fileStoreTable.snapshotManager().latestSnapshot();
+            System.out.println("Compacted:  " + operator.getBucketsCompacted() + " bucket(s) in "
+                    + operator.getPartitionsCompacted() + " partition(s)");
+            System.out.println("Files:      " + operator.getFilesBefore() + " -> " + operator.getFilesAfter());
+            System.out.println("Size:       " + new MemorySize(operator.getBytesBefore()) + " -> "
+                    + new MemorySize(operator.getBytesAfter()));
+            System.out.println("Snapshot:   " + (before == null ? "-" : before.id()) + " -> " + after.id());
+            System.out.println("Time:       " + elapsedMillis + " ms (parallelism " + parallelism + ", memory "
+                    + new MemorySize(maxMemory) + ")\n");
+        } catch (Exception e) {
+            System.err.println("Failed to compact table: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Load a file, or all files of a directory, into a table and commit the rows as one snapshot
+     *
+     * @param format    csv, json or parquet, or null to detect each file's format from its extension
+     * @param delimiter CSV field delimiter
+     */
+    public void loadFiles(String database, String tableName, String path, String format, char delimiter,
+                          int parallelism) {
+        try {
+            FileStoreTable fileStoreTable = getFileStoreTable(database, tableName);
+            if (fileStoreTable == null) {
+                return;
+            }
+            BulkLoader.Format loadFormat = null;
+            if (format != null) {
+                try {
+                    loadFormat = BulkLoader.Format.valueOf(format.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Unknown format: " + format + ", expected csv, json or parquet");
+                    return;
+                }
+            }
+            List<java.nio.file.Path> files = listInputFiles(Paths.get(path), loadFormat);
+            if (files == null) {
+                return;
+            }
+
+            // Leave at least half of the heap to the rows in flight between the parsers and the writers
+            long maxMemory = Math.min(Runtime.getRuntime().maxMemory() / 2, MemorySize.parse(catalogManager.getConfig()
+                    .getOptions().getOrDefault(StorageConfig.LOAD_MAX_MEMORY, StorageConfig.DEFAULT_LOAD_MAX_MEMORY)).getBytes());
+            Snapshot before = fileStoreTable.snapshotManager().latestSnapshot();
+
+            long start = System.nanoTime();
+            BulkLoader loader = new BulkLoader(fileStoreTable, files, loadFormat, delimiter, parallelism, maxMemory);
+            loader.execute();
+            long elapsedNanos = Math.max(1, System.nanoTime() - start);
+            catalogManager.invalidateTable(database, tableName);
+
+            System.out.println("\nLoad: " + path + " -> " + database + "." + tableName);
+            System.out.println("====================");
+            if (loader.getRowsLoaded() == 0) {
+                System.out.println("No rows to load (" + elapsedNanos / 1_000_000 + " ms)\n");
+                return;
+            }
+            Snapshot after = fileStoreTable.snapshotManager().latestSnapshot();
+            double seconds = elapsedNanos / 1e9;
+            System.out.println("Read:       " + loader.getFilesRead() + " file(s), " + new MemorySize(loader.getBytesRead()));
+            System.out.println("Loaded:     " + loader.getRowsLoaded() + " rows");
+            System.out.println("Written:    " + loader.getFilesWritten() + " file(s), " + new MemorySize(loader.getBytesWritten()));
+            System.out.println("Snapshot:   " + (before == null ? "-" : before.id()) + " -> " + after.id());
+            System.out.println("Time:       " + elapsedNanos / 1_000_000 + " ms (parallelism " + parallelism + ", "
+                    + loader.getWriters() + " writer(s), memory " + new MemorySize(maxMemory) + ")");
+            System.out.println(String.format("Throughput: %.0f rows/s, %.1f MB/s\n", loader.getRowsLoaded() / seconds,
+                    loader.getBytesRead() / seconds / (1024 * 1024)));
+        } catch (Exception e) {
+            System.err.println("Failed to load files: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Generate synthetic rows into a table, creating it first if it does not exist, and commit them
+     * in batches of {@code batchRows} rows
+     *
+     * @param columnSpecs  column generator specs, see {@link ColumnGenerator}; columns without one get a default
+     * @param primaryKeys  primary key of a new table, may be empty
+     * @param partitionKeys partition keys of a new table, may be empty
+     * @param buckets      buckets of a new table, or null for 4 with a primary key and unaware buckets without
+     */
+    public void generateData(String database, String tableName, long rows, List<String> columnSpecs,
+                             List<String> primaryKeys, List<String> partitionKeys, Integer buckets, long batchRows,
+                             int parallelism, long seed) {
+        DataGenerator generator = null;
+        try {
+            List<ColumnGenerator> specs = new ArrayList<>();
+            try {
+                for (String spec : columnSpecs) {
+                    specs.add(ColumnGenerator.parse(spec));
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+
+            boolean created = false;
+            if (!catalogManager.tableExists(database, tableName)) {
+                if (!createGeneratedTable(database, tableName, specs, primaryKeys, partitionKeys, buckets)) {
+                    return;
+                }
+                created = true;
+            } else if (!primaryKeys.isEmpty() || !partitionKeys.isEmpty() || buckets != null) {
+                System.err.println("Table " + database + "." + tableName + " already exists, primary-key, partition "
+                        + "and buckets only apply when creating a table");
+                return;
+            }
+            FileStoreTable fileStoreTable = getFileStoreTable(database, tableName);
+            if (fileStoreTable == null) {
+                return;
+            }
+            List<ColumnGenerator> generators = bindGenerators(fileStoreTable, specs);
+            if (generators == null) {
+                return;
+            }
+
+            // Leave at least half of the heap to the rows in flight between the generators and the writers
+            long maxMemory = Math.min(Runtime.getRuntime().maxMemory() / 2, MemorySize.parse(catalogManager.getConfig()
+                    .getOptions().getOrDefault(StorageConfig.GENERATE_MAX_MEMORY, StorageConfig.DEFAULT_GENERATE_MAX_MEMORY)).getBytes());
+            Snapshot before = fileStoreTable.snapshotManager().latestSnapshot();
+
+            System.out.println("\nGenerate: " + database + "." + tableName + (created ? " (created)" : ""));
+            System.out.println("====================");
+            for (ColumnGenerator column : generators) {
+                System.out.println(String.format("  %-20s %s", column.getColumn(), column));
+            }
+            System.out.println();
+
+            long start = System.nanoTime();
+            long totalBatches = (rows + batchRows - 1) / batchRows;
+            generator = new DataGenerator(fileStoreTable, generators, rows, batchRows, parallelism, maxMemory, seed);
+            generator.execute((batch, rowsCommitted, snapshotId) -> {
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                System.out.println(String.format("Batch %d/%d: %d rows, snapshot %d, %.1f s, %.0f rows/s",
+                        batch, totalBatches, rowsCommitted, snapshotId, elapsed, rowsCommitted / elapsed));
+            });
+            long elapsedNanos = Math.max(1, System.nanoTime() - start);
+            catalogManager.invalidateTable(database, tableName);
+
+            Snapshot after = fileStoreTable.snapshotManager().latestSnapshot();
+            double seconds = elapsedNanos / 1e9;
+            System.out.println();
+            System.out.println("Generated:  " + generator.getRowsWritten() + " rows in " + generator.getBatches()
+                    + " commit(s)");
+            System.out.println("Written:    " + generator.getFilesWritten() + " file(s), "
+                    + new MemorySize(generator.getBytesWritten()));
+            System.out.println("Snapshot:   " + (before == null ? "-" : before.id()) + " -> "
+                    + (after == null ? "-" : after.id()));
+            System.out.println("Time:       " + elapsedNanos / 1_000_000 + " ms (parallelism " + parallelism + ", "
+                    + generator.getWriters() + " writer(s), memory " + new MemorySize(maxMemory) + ")");
+            System.out.println(String.format("Throughput: %.0f rows/s, %.1f MB/s\n", generator.getRowsWritten() / seconds,
+                    generator.getBytesWritten() / seconds / (1024 * 1024)));
+        } catch (Exception e) {
+            System.err.println("Failed to generate data: " + e.getMessage());
+            if (generator != null && generator.getBatches() > 0) {
+                catalogManager.invalidateTable(database, tableName);
+                System.err.println("(" + generator.getBatches() + " batch(es) were committed before the failure)");
+            }
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Create a table from the types of the column generator specs, returns false if a spec has no type
+     */
+    private boolean createGeneratedTable(String database, String tableName, List<ColumnGenerator> specs,
+                                         List<String> primaryKeys, List<String> partitionKeys, Integer buckets)
+            throws Exception {
+        if (specs.isEmpty()) {
+            System.err.println("Table " + database + "." + tableName + " does not exist, give its columns as "
+                    + "column <name>:<type>=<generator> to create it");
+            return false;
+        }
+        Schema.Builder schema = Schema.newBuilder();
+        for (ColumnGenerator spec : specs) {
+            if (spec.getType() == null) {
+                System.err.println("Column " + spec.getColumn() + " needs a type to create table "
+                        + database + "." + tableName + ", e.g. " + spec.getColumn() + ":bigint=" + spec);
+                return false;
+            }
+            schema.column(spec.getColumn(), spec.getType());
+        }
+        schema.primaryKey(primaryKeys).partitionKeys(partitionKeys);
+        if (buckets != null) {
+            schema.option(CoreOptions.BUCKET.key(), String.valueOf(buckets));
+            if (primaryKeys.isEmpty() && buckets > 0) {
+                // Append tables with fixed buckets need a bucket key, use the first non-partition column
+                for (ColumnGenerator spec : specs) {
+                    if (!partitionKeys.contains(spec.getColumn())) {
+                        schema.option(CoreOptions.BUCKET_KEY.key(), spec.getColumn());
+                        break;
+                    }
+                }
+            }
+        } else {
+            // Dynamic buckets of primary key tables cannot be written from the CLI
+            schema.option(CoreOptions.BUCKET.key(), primaryKeys.isEmpty() ? "-1" : "4");
+        }
+
+        Catalog catalog = catalogManager.getCatalog();
+        catalog.createDatabase(database, true);
+        catalog.createTable(Identifier.create(database, tableName), schema.build(), false);
+        return true;
+    }
+
+    /**
+     * One generator per table field: the spec naming the field (ignoring case), or a default
+     */
+    private static List<ColumnGenerator> bindGenerators(FileStoreTable table, List<ColumnGenerator> specs) {
+        Map<String, ColumnGenerator> byName = new LinkedHashMap<>();
+        for (ColumnGenerator spec : specs) {
+            byName.put(spec.getColumn().toLowerCase(), spec);
+        }
+        List<ColumnGenerator> generators = new ArrayList<>();
+        for (DataField field : table.rowType().getFields()) {
+            ColumnGenerator spec = byName.remove(field.name().toLowerCase());
+            if (spec == null) {
+                generators.add(ColumnGenerator.defaultFor(field.name(), field.type(),
+                        table.primaryKeys().contains(field.name()), table.partitionKeys().contains(field.name())));
+                continue;
+            }
+            if (spec.getType() != null && !spec.getType().copy(true).equals(field.type().copy(true))) {
+                System.err.println("Column " + field.name() + " is " + field.type() + ", not " + spec.getType());
+                return null;
+            }
+            try {
+                generators.add(spec.withType(field.type()));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                return null;
+            }
+        }
+        if (!byName.isEmpty()) {
+            System.err.println("Unknown column(s): " + String.join(", ", byName.keySet()) + ", expected some of "
+                    + table.rowType().getFieldNames());
+            return null;
+        }
+        return generators;
+    }
+
+    /**
+     * The file itself, or the files of a directory and its subdirectories in name order, skipping
+     * hidden files and, unless a format is given, files of unknown formats
+     */
+    private static List<java.nio.file.Path> listInputFiles(java.nio.file.Path path, BulkLoader.Format format)
+            throws IOException {
+        if (!Files.exists(path)) {
+            System.err.println("File does not exist: " + path);
+            return null;
+        }
+        if (!Files.isDirectory(path)) {
+            return Collections.singletonList(path);
+        }
+        List<java.nio.file.Path> files = new ArrayList<>();
+        try (Stream<java.nio.file.Path> stream = Files.walk(path)) {
+            stream.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith(".")
+                            && !file.getFileName().toString().startsWith("_"))
+                    .filter(file -> format != null || BulkLoader.Format.fromFileName(file.getFileName().toString()) != null)
+                    .sorted()
+                    .forEach(files::add);
+        }
+        if (files.isEmpty()) {
+            System.err.println("No csv, json or parquet files in " + path);
+            return null;
+        }
+        return files;
+    }
+
+    /**
+     * Expire old snapshots with the given retention (null means the table's own setting), or only
+     * report what would be freed when {@code dryRun} is set
+     */
+    public void expireSnapshots(String database, String tableName, Integer retainMin, Integer retainMax,
+                                Duration timeRetain, int parallelism, boolean dryRun) {
+        try {
+            FileStoreTable table = getFileStoreTable(database, tableName);
+            if (table == null) {
+                return;
+            }
+            FileStoreTable maintenanceTable = maintenanceTable(table, parallelism);
+            CoreOptions options = table.coreOptions();
+
+            long start = System.nanoTime();
+            SnapshotExpiration expiration = new SnapshotExpiration(maintenanceTable,
+                    retainMin != null ? retainMin : options.snapshotNumRetainMin(),
+                    retainMax != null ? retainMax : options.snapshotNumRetainMax(),
+                    timeRetain != null ? timeRetain : options.snapshotTimeRetain(),
+                    parallelism);
+            boolean planned = expiration.plan();
+
+            System.out.println("\nExpire snapshots: " + database + "." + tableName + (dryRun ? " (dry run)" : ""));
+            System.out.println("====================");
+            if (!planned) {
+                System.out.println("No snapshot to expire (" + (System.nanoTime() - start) / 1_000_000 + " ms)\n");
+                return;
+            }
+            long begin = expiration.getBeginInclusive();
+            long end = expiration.getEndExclusive();
+            System.out.println("Snapshots:      " + begin + ".." + (end - 1) + " (" + (end - begin) + " snapshot(s))");
+            System.out.println("Data files:     " + expiration.getDataFiles() + " (" + new MemorySize(expiration.getDataBytes()) + ")");
+            System.out.println("Manifests:      " + expiration.getManifests() + " (" + new MemorySize(expiration.getManifestBytes())
+                    + ", " + expiration.getManifestEntries() + " entries)");
+            System.out.println("Manifest lists: " + expiration.getManifestLists() + " ("
+                    + new MemorySize(expiration.getManifestListBytes()) + ")");
+            System.out.println((dryRun ? "Would free:     " : "Freed:          ") + new MemorySize(expiration.getDataBytes()
+                    + expiration.getManifestBytes() + expiration.getManifestListBytes()));
+            if (!dryRun) {
+                int expired = expiration.expire();
+                catalogManager.invalidateTable(database, tableName);
+                System.out.println("Expired:        " + expired + " snapshot(s)");
+            }
+            System.out.println("Time:           " + (System.nanoTime() - start) / 1_000_000 + " ms (parallelism "
+                    + parallelism + ")\n");
+        } catch (Exception e) {
+            System.err.println("Failed to expire snapshots: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Delete files under the table directory that no snapshot, tag or branch references and that are
+     * older than {@code olderThan}, or only list them when {@code dryRun} is set
+     */
+    public void removeOrphanFiles(String database, String tableName, Duration olderThan, int parallelism,
+                                  boolean dryRun) {
+        try {
+            FileStoreTable table = getFileStoreTable(database, tableName);
+            if (table == null) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            LocalOrphanFilesClean clean = new LocalOrphanFilesClean(maintenanceTable(table, parallelism),
+                    System.currentTimeMillis() - olderThan.toMillis(), dryRun);
+            CleanOrphanFilesResult result = clean.clean();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println("\nRemove orphan files: " + database + "." + tableName + (dryRun ? " (dry run)" : ""));
+            System.out.println("====================");
+            List<Path> paths = result.getDeletedFilesPath();
+            if (dryRun && paths != null) {
+                for (Path path : paths.subList(0, Math.min(ORPHAN_FILES_SHOWN, paths.size()))) {
+                    System.out.println("  " + path);
+                }
+                if (paths.size() > ORPHAN_FILES_SHOWN) {
+                    System.out.println("  ... " + (paths.size() - ORPHAN_FILES_SHOWN) + " more");
+                }
+            }
+            System.out.println((dryRun ? "Would delete: " : "Deleted:      ") + result.getDeletedFileCount()
+                    + " file(s) (" + new MemorySize(result.getDeletedFileTotalLenInBytes()) + ") older than "
+                    + formatDuration(olderThan));
+            System.out.println("Time:         " + elapsedMillis + " ms (parallelism " + parallelism + ")\n");
+        } catch (Exception e) {
+            System.err.println("Failed to remove orphan files: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Duration in the largest unit that divides it, e.g. "3 d" or "90 min"
+     */
+    private static String formatDuration(Duration duration) {
+        long millis = duration.toMillis();
+        long[] units = {86_400_000L, 3_600_000L, 60_000L, 1000L};
+        String[] names = {"d", "h", "min", "s"};
+        for (int i = 0; i < units.length; i++) {
+            if (millis > 0 && millis % units[i] == 0) {
+                return millis / units[i] + " " + names[i];
+            }
+        }
+        return millis + " ms";
+    }
+
+    private FileStoreTable getFileStoreTable(String database, String tableName) throws Exception {
+        if (!catalogManager.tableExists(database, tableName)) {
+            System.err.println("Table does not exist: " + database + "." + tableName);
+            return null;
+        }
+        Table table = catalogManager.getTable(database, tableName);
+        if (!(table instanceof FileStoreTable)) {
+            System.err.println("Table " + database + "." + tableName + " is not a file store table");
+            return null;
+        }
+        return (FileStoreTable) table;
+    }
+
+    /**
+     * The table with file deletion spread over {@code parallelism} threads and, on object stores or
+     * when configured, listing and delete requests rate limited
+     */
+    private FileStoreTable maintenanceTable(FileStoreTable table, int parallelism) {
+        String configured = catalogManager.getConfig().getOptions().get(StorageConfig.MAINTENANCE_MAX_REQUESTS);
+        int maxRequests = configured != null ? Integer.parseInt(configured.trim())
+                : table.fileIO().isObjectStore() ? StorageConfig.DEFAULT_OBJECT_STORE_MAX_REQUESTS : 0;
+        FileIO fileIO = maxRequests > 0 ? new RateLimitedFileIO(table.fileIO(), maxRequests) : table.fileIO();
+
+        Options dynamicOptions = new Options();
+        dynamicOptions.set(CoreOptions.DELETE_FILE_THREAD_NUM, Math.max(1, parallelism));
+        return FileStoreTableFactory.create(fileIO, table.location(), table.schema(), dynamicOptions,
+                table.catalogEnvironment());
+    }
+
+    /**
+     * Parse 'a=1,b=2' into an ordered map, checking the keys against the partition keys
+     */
+    private static Map<String, String> parsePartitionSpec(String spec, List<String> partitionKeys) {
+        Map<String, String> partition = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            int eq = part.indexOf('=');
+            String key = eq > 0 ? part.substring(0, eq).trim() : "";
+            if (!partitionKeys.contains(key)) {
+                System.err.println("Invalid partition '" + spec + "', expected <key>=<value>[,<key>=<value>...] with keys in "
+                        + partitionKeys);
+                return null;
+            }
+            partition.put(key, part.substring(eq + 1).trim());
+        }
+        return partition;
+    }
+}
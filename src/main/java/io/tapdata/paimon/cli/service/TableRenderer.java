@@ -0,0 +1,112 @@
+package io.tapdata.paimon.cli.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aligned table output for pages of rows.
+ * Column widths are taken from the page being printed, so sizing needs no extra read of the table.
+ * Lines are built in one reusable StringBuilder with plain padding instead of per-cell format
+ * strings, and written through a buffered writer that is flushed once per page.
+ */
+public class TableRenderer {
+
+    public static final int MAX_COLUMN_WIDTH = 50;
+
+    private static final String NULL_VALUE = "NULL";
+    private static final String ELLIPSIS = "...";
+    private static final String COLUMN_SEPARATOR = " | ";
+    private static final char[] SPACES = new char[MAX_COLUMN_WIDTH];
+    private static final char[] DASHES = new char[MAX_COLUMN_WIDTH];
+
+    static {
+        Arrays.fill(SPACES, ' ');
+        Arrays.fill(DASHES, '-');
+    }
+
+    private final String[] columns;
+    private final Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+    private final StringBuilder line = new StringBuilder(256);
+
+    public TableRenderer(String[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * Print a header, separator and one line per row, sized to this page
+     */
+    public void render(List<Object[]> rows) throws IOException {
+        String[][] cells = new String[rows.size()][];
+        int[] widths = new int[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            widths[c] = Math.min(columns[c].length(), MAX_COLUMN_WIDTH);
+        }
+
+        for (int r = 0; r < cells.length; r++) {
+            Object[] row = rows.get(r);
+            String[] rowCells = new String[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                String cell = toCell(row[c]);
+                rowCells[c] = cell;
+                widths[c] = Math.max(widths[c], Math.min(cell.length(), MAX_COLUMN_WIDTH));
+            }
+            cells[r] = rowCells;
+        }
+
+        writeLine(columns, widths);
+        for (int c = 0; c < columns.length; c++) {
+            if (c > 0) {
+                line.append("-+-");
+            }
+            line.append(DASHES, 0, widths[c]);
+        }
+        flushLine();
+        for (String[] rowCells : cells) {
+            writeLine(rowCells, widths);
+        }
+        out.flush();
+    }
+
+    private void writeLine(String[] values, int[] widths) throws IOException {
+        for (int c = 0; c < values.length; c++) {
+            if (c > 0) {
+                line.append(COLUMN_SEPARATOR);
+            }
+            String value = values[c];
+            if (value.length() > widths[c]) {
+                line.append(value, 0, widths[c] - ELLIPSIS.length()).append(ELLIPSIS);
+            } else {
+                line.append(value);
+                // No trailing padding after the last column
+                if (c < values.length - 1) {
+                    line.append(SPACES, 0, widths[c] - value.length());
+                }
+            }
+        }
+        flushLine();
+    }
+
+    private void flushLine() throws IOException {
+        line.append(System.lineSeparator());
+        out.append(line);
+        line.setLength(0);
+    }
+
+    /**
+     * Cell text of a value; line breaks and tabs would break the alignment and are shown as spaces
+     */
+    private static String toCell(Object value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        String text = value.toString();
+        if (text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0 || text.indexOf('\t') >= 0) {
+            text = text.replace('\n', ' ').replace('\r', ' ').replace('\t', ' ');
+        }
+        return text;
+    }
+}
@@ -0,0 +1,282 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.CoreOptions;
+import org.apache.paimon.data.BinaryRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.disk.IOManager;
+import org.apache.paimon.io.DataFileMeta;
+import org.apache.paimon.memory.HeapMemorySegmentPool;
+import org.apache.paimon.table.BucketMode;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.sink.BatchTableCommit;
+import org.apache.paimon.table.sink.BatchTableWrite;
+import org.apache.paimon.table.sink.BatchWriteBuilder;
+import org.apache.paimon.table.sink.CommitMessage;
+import org.apache.paimon.table.sink.CommitMessageImpl;
+import org.apache.paimon.table.sink.RowKeyExtractor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writer threads of load and generate, each owning the table write of its buckets
+ */
+class TableWritePipeline implements AutoCloseable {
+
+    static final int ROW_BATCH = 1024;
+    private static final int WRITER_QUEUE_BATCHES = 4;
+
+    private final FileStoreTable table;
+    private final String operation;
+    private final int writers;
+    private final long memoryPerWriter;
+    private final BatchWriteBuilder writeBuilder;
+    private final int pageSize;
+    private final ExecutorService executor;
+    private final IOManager ioManager;
+
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private int filesWritten;
+    private long bytesWritten;
+
+    private List<BlockingQueue<List<InternalRow>>> writerQueues;
+    private List<Future<List<CommitMessage>>> writerFutures;
+    private volatile Throwable failure;
+
+    /**
+     * @param operation    name of the operation in errors and thread names, e.g. "Load"
+     * @param parallelism  number of producer threads, and of writer threads unless the table has fewer buckets
+     * @param extraThreads threads of other stages that run on the pool
+     * @param maxMemory    memory budget shared by the writer threads
+     */
+    TableWritePipeline(FileStoreTable table, String operation, int parallelism, int extraThreads, long maxMemory) {
+        BucketMode bucketMode = table.bucketMode();
+        if (bucketMode == BucketMode.HASH_DYNAMIC || bucketMode == BucketMode.CROSS_PARTITION) {
+            throw new UnsupportedOperationException(operation + " does not support tables with dynamic buckets");
+        }
+        this.table = table;
+        this.operation = operation;
+        this.writers = bucketMode == BucketMode.HASH_FIXED && table.partitionKeys().isEmpty()
+                ? Math.min(parallelism, table.coreOptions().bucket()) : parallelism;
+        this.memoryPerWriter = maxMemory / writers;
+
+        FileStoreTable bounded = table.copy(Collections.singletonMap(CoreOptions.WRITE_BUFFER_SPILLABLE.key(), "true"));
+        this.writeBuilder = bounded.newBatchWriteBuilder();
+        this.pageSize = bounded.coreOptions().pageSize();
+        this.executor = ParallelTasks.newPool(parallelism + writers + extraThreads,
+                operation.toLowerCase(Locale.ROOT));
+        this.ioManager = IOManager.create(System.getProperty("java.io.tmpdir"));
+    }
+
+    int getWriters() {
+        return writers;
+    }
+
+    /**
+     * Start a writer thread per writer queue for the next commit
+     */
+    void startWriters() {
+        writerQueues = new ArrayList<>();
+        writerFutures = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            BlockingQueue<List<InternalRow>> queue = new ArrayBlockingQueue<>(WRITER_QUEUE_BATCHES);
+            writerQueues.add(queue);
+            writerFutures.add(executor.submit(() -> runWriter(queue,
+                    new HeapMemorySegmentPool(memoryPerWriter, pageSize))));
+        }
+    }
+
+    /**
+     * Run a producer stage on the pool; its failure aborts the other stages
+     */
+    Future<?> submit(Callable<?> stage) {
+        return executor.submit(() -> {
+            try {
+                return stage.call();
+            } catch (Throwable t) {
+                fail(t);
+                throw t;
+            }
+        });
+    }
+
+    /**
+     * Writer index of each row, one router per producer thread. Rows of a fixed bucket always go to the
+     * same writer, and so do the versions of a key in postponed buckets; rows of append tables without
+     * buckets stay with the writer of their producer.
+     */
+    ToIntFunction<InternalRow> newRouter(int producerIndex) {
+        RowKeyExtractor extractor = table.createRowKeyExtractor();
+        BucketMode bucketMode = table.bucketMode();
+        boolean primaryKeyTable = !table.primaryKeys().isEmpty();
+        return row -> {
+            if (bucketMode == BucketMode.HASH_FIXED) {
+                extractor.setRecord(row);
+                BinaryRow partition = extractor.partition();
+                return Math.floorMod(31 * partition.hashCode() + extractor.bucket(), writers);
+            } else if (primaryKeyTable) {
+                // Postponed buckets: keep all versions of a key in one writer
+                extractor.setRecord(row);
+                return Math.floorMod(extractor.trimmedPrimaryKey().hashCode(), writers);
+            }
+            return producerIndex % writers;
+        };
+    }
+
+    /**
+     * Hand a batch of rows to a writer
+     */
+    void send(int writer, List<InternalRow> batch) throws InterruptedException {
+        put(writerQueues.get(writer), batch);
+    }
+
+    /**
+     * Tell the writers that no more rows are coming
+     */
+    void endWriters() throws InterruptedException {
+        for (BlockingQueue<List<InternalRow>> queue : writerQueues) {
+            put(queue, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Wait for the producer stages and then the writers, returns the commit messages of all writers.
+     * On any failure the files of the writers that finished are deleted and the first failure is thrown.
+     */
+    List<CommitMessage> finish(List<Future<?>> stages) throws Exception {
+        List<CommitMessage> messages = new ArrayList<>();
+        try {
+            for (Future<?> stage : stages) {
+                stage.get();
+            }
+            for (Future<List<CommitMessage>> future : writerFutures) {
+                messages.addAll(future.get());
+            }
+            if (failure != null) {
+                throw new IllegalStateException(operation + " failed", failure);
+            }
+            return messages;
+        } catch (Exception e) {
+            abort(messages);
+            // Report the first failure rather than the stages it aborted
+            Throwable cause = failure != null ? failure : e instanceof ExecutionException ? e.getCause() : e;
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Commit the messages as one snapshot
+     */
+    void commit(List<CommitMessage> messages) throws Exception {
+        for (CommitMessage message : messages) {
+            for (DataFileMeta file : ((CommitMessageImpl) message).newFilesIncrement().newFiles()) {
+                filesWritten++;
+                bytesWritten += file.fileSize();
+            }
+        }
+        try (BatchTableCommit commit = writeBuilder.newCommit()) {
+            commit.commit(messages);
+        }
+    }
+
+    /**
+     * Delete the files of writers that finished; the files of a failed writer are left to orphan file cleanup
+     */
+    void abort(List<CommitMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        try (BatchTableCommit commit = writeBuilder.newCommit()) {
+            commit.abort(messages);
+        } catch (Exception e) {
+            // Best effort, the original failure matters more
+        }
+    }
+
+    /**
+     * Write rows until the empty end batch, returns the commit messages of the writer
+     */
+    private List<CommitMessage> runWriter(BlockingQueue<List<InternalRow>> queue, HeapMemorySegmentPool memoryPool)
+            throws Exception {
+        try (BatchTableWrite write = writeBuilder.newWrite()) {
+            write.withIOManager(ioManager);
+            write.withMemoryPool(memoryPool);
+            while (true) {
+                List<InternalRow> batch = take(queue);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (InternalRow row : batch) {
+                    write.write(row);
+                }
+                rowsWritten.addAndGet(batch.size());
+            }
+            return failure == null ? write.prepareCommit() : Collections.emptyList();
+        } catch (Throwable t) {
+            fail(t);
+            throw t;
+        }
+    }
+
+    synchronized void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+        }
+    }
+
+    boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Put into a bounded queue, giving up when another stage has failed
+     */
+    <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            if (failure != null) {
+                throw new IllegalStateException(operation + " aborted", failure);
+            }
+        }
+    }
+
+    <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        while (true) {
+            T item = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+            if (failure != null) {
+                throw new IllegalStateException(operation + " aborted", failure);
+            }
+        }
+    }
+
+    long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    int getFilesWritten() {
+        return filesWritten;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdownNow();
+        ioManager.close();
+    }
+}
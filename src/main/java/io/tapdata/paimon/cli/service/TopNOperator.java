@@ -0,0 +1,283 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.serializer.InternalRowSerializer;
+import org.apache.paimon.predicate.CompareUtils;
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.stats.SimpleStatsEvolutions;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.table.source.TableRead;
+import org.apache.paimon.types.DataField;
+import org.apache.paimon.types.DataType;
+import org.apache.paimon.types.RowType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Top-N operator for 'order by <col> [desc] limit N'.
+ * Each worker keeps a bounded heap of N rows over the splits it reads, and the heaps
+ * are merged at the end, so memory is O(N * workers) regardless of table size.
+ * Workers share the best Nth value seen so far, which is used to skip data files whose
+ * min/max statistics show they cannot contain a better row.
+ */
+public class TopNOperator {
+
+    private final RowType rowType;
+    private final int fieldIndex;
+    private final DataField field;
+    private final boolean descending;
+    private final int limit;
+    private final InternalRow.FieldGetter keyGetter;
+    private final SimpleStatsEvolutions statsEvolutions;
+
+    private final AtomicInteger splitsRead = new AtomicInteger();
+    private final AtomicInteger splitsSkipped = new AtomicInteger();
+
+    // Best Nth value among all workers whose heap is full; rows not better than it cannot make the result
+    private volatile Object threshold;
+
+    public TopNOperator(Table table, RowType rowType, int fieldIndex, boolean descending, int limit) {
+        this.rowType = rowType;
+        this.fieldIndex = fieldIndex;
+        this.field = rowType.getFields().get(fieldIndex);
+        this.descending = descending;
+        this.limit = limit;
+        this.keyGetter = InternalRow.createFieldGetter(field.type(), fieldIndex);
+        this.statsEvolutions = createStatsEvolutions(table, field.type());
+    }
+
+    /**
+     * Read the splits in parallel and return the top N matching rows, best first
+     */
+    public List<InternalRow> execute(ReadBuilder readBuilder, List<Split> splits, List<Predicate> predicates,
+                                     QueryContext context) throws Exception {
+        List<Split> units = SplitUtils.expandToFiles(splits);
+        if (statsEvolutions != null) {
+            // Most promising files first, so the threshold tightens early and more files are skipped
+            units.sort(Comparator.comparing(this::bestPossibleValue, this::compareBestFirst));
+        }
+
+        ConcurrentLinkedQueue<Split> pending = new ConcurrentLinkedQueue<>(units);
+        context.setTotalSplits(pending.size());
+        int parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), units.size()));
+        ExecutorService executor = ParallelTasks.newPool(parallelism, "topn");
+
+        List<PriorityQueue<Entry>> heaps = new ArrayList<>();
+        try {
+            List<Future<PriorityQueue<Entry>>> futures = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(executor.submit(() -> runWorker(readBuilder, pending, predicates, context)));
+            }
+            for (Future<PriorityQueue<Entry>> future : futures) {
+                heaps.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Final merge of the per-worker heaps
+        PriorityQueue<Entry> merged = newHeap();
+        for (PriorityQueue<Entry> heap : heaps) {
+            for (Entry entry : heap) {
+                offer(merged, entry);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(merged);
+        entries.sort((a, b) -> compareBestFirst(a.key, b.key));
+        List<InternalRow> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            result.add(entry.row);
+        }
+        return result;
+    }
+
+    public int getSplitsRead() {
+        return splitsRead.get();
+    }
+
+    public int getSplitsSkipped() {
+        return splitsSkipped.get();
+    }
+
+    private PriorityQueue<Entry> runWorker(ReadBuilder readBuilder, ConcurrentLinkedQueue<Split> pending,
+                                           List<Predicate> predicates, QueryContext context) throws Exception {
+        // TableRead and the serializer are not thread-safe, create them per worker
+        TableRead tableRead = readBuilder.newRead();
+        InternalRowSerializer serializer = new InternalRowSerializer(rowType);
+        PriorityQueue<Entry> heap = newHeap();
+
+        Split split;
+        while ((split = pending.poll()) != null) {
+            if (canSkip(split)) {
+                splitsSkipped.incrementAndGet();
+                context.splitSkipped();
+                continue;
+            }
+            splitsRead.incrementAndGet();
+
+            try (RecordReader<InternalRow> reader = context.open(tableRead, split)) {
+                RecordReader.RecordIterator<InternalRow> iterator;
+                while ((iterator = reader.readBatch()) != null) {
+                    InternalRow row;
+                    while ((row = iterator.next()) != null) {
+                        if (!matches(row, predicates)) {
+                            continue;
+                        }
+
+                        Object key = keyGetter.getFieldOrNull(row);
+                        Object currentThreshold = threshold;
+                        if (currentThreshold != null && !isBetter(key, currentThreshold)) {
+                            continue;
+                        }
+                        if (heap.size() >= limit && !isBetter(key, heap.peek().key)) {
+                            continue;
+                        }
+
+                        // Rows returned by the reader are reused, copy only those that enter the heap
+                        InternalRow copy = serializer.copy(row);
+                        offer(heap, new Entry(keyGetter.getFieldOrNull(copy), copy));
+                        if (heap.size() >= limit) {
+                            updateThreshold(heap.peek().key);
+                        }
+                    }
+                    iterator.releaseBatch();
+                }
+            }
+        }
+        return heap;
+    }
+
+    /**
+     * Heap with the worst row on top, so it can be evicted when a better row arrives
+     */
+    private PriorityQueue<Entry> newHeap() {
+        return new PriorityQueue<>(limit + 1, (a, b) -> compareBestFirst(b.key, a.key));
+    }
+
+    private void offer(PriorityQueue<Entry> heap, Entry entry) {
+        if (heap.size() < limit) {
+            heap.add(entry);
+        } else if (isBetter(entry.key, heap.peek().key)) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    private synchronized void updateThreshold(Object key) {
+        if (threshold == null || isBetter(key, threshold)) {
+            threshold = key;
+        }
+    }
+
+    /**
+     * Check whether file statistics prove the split cannot contain a row better than the threshold
+     */
+    private boolean canSkip(Split split) {
+        Object currentThreshold = threshold;
+        if (currentThreshold == null) {
+            return false;
+        }
+        Object best = bestPossibleValue(split);
+        return best != null && !isBetter(best, currentThreshold);
+    }
+
+    /**
+     * Best key value a split can produce according to its file statistics, or null if unknown
+     */
+    private Object bestPossibleValue(Split split) {
+        if (statsEvolutions == null || !(split instanceof DataSplit)) {
+            return null;
+        }
+        DataSplit dataSplit = (DataSplit) split;
+        // Merged rows of primary-key tables may not be bounded by file statistics (e.g. aggregation)
+        if (!dataSplit.rawConvertible()) {
+            return null;
+        }
+        try {
+            return descending
+                    ? dataSplit.maxValue(fieldIndex, field, statsEvolutions)
+                    : dataSplit.minValue(fieldIndex, field, statsEvolutions);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compare two keys in output order, nulls last
+     */
+    private int compareBestFirst(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        int cmp = CompareUtils.compareLiteral(field.type(), a, b);
+        return descending ? -cmp : cmp;
+    }
+
+    private boolean isBetter(Object key, Object other) {
+        return compareBestFirst(key, other) < 0;
+    }
+
+    private boolean matches(InternalRow row, List<Predicate> predicates) {
+        for (Predicate predicate : predicates) {
+            if (!predicate.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Statistics are only trusted for types whose min/max are stored exactly
+     * (string statistics may be truncated)
+     */
+    private static SimpleStatsEvolutions createStatsEvolutions(Table table, DataType type) {
+        if (!(table instanceof FileStoreTable)) {
+            return null;
+        }
+        switch (type.getTypeRoot()) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case FLOAT:
+            case DOUBLE:
+            case DECIMAL:
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                FileStoreTable fileStoreTable = (FileStoreTable) table;
+                return new SimpleStatsEvolutions(
+                        schemaId -> fileStoreTable.schemaManager().schema(schemaId).fields(),
+                        fileStoreTable.schema().id());
+            default:
+                return null;
+        }
+    }
+
+    private static class Entry {
+        private final Object key;
+        private final InternalRow row;
+
+        Entry(Object key, InternalRow row) {
+            this.key = key;
+            this.row = row;
+        }
+    }
+}
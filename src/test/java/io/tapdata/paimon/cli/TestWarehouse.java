@@ -0,0 +1,95 @@
+package io.tapdata.paimon.cli;
+
+import io.tapdata.paimon.cli.catalog.CatalogManager;
+import io.tapdata.paimon.cli.config.StorageConfig;
+import org.apache.paimon.catalog.Identifier;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.table.sink.BatchTableCommit;
+import org.apache.paimon.table.sink.BatchTableWrite;
+import org.apache.paimon.table.sink.BatchWriteBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Local warehouse in a temporary directory for tests that need real tables
+ */
+public final class TestWarehouse implements AutoCloseable {
+
+    private final CatalogManager catalogManager;
+
+    public TestWarehouse(Path directory) throws Exception {
+        this.catalogManager = new CatalogManager(StorageConfig.createLocal(directory.toString()));
+    }
+
+    public CatalogManager getCatalogManager() {
+        return catalogManager;
+    }
+
+    /**
+     * Create a table, creating its database if needed
+     */
+    public Table createTable(String database, String tableName, Schema schema) throws Exception {
+        catalogManager.getCatalog().createDatabase(database, true);
+        catalogManager.getCatalog().createTable(Identifier.create(database, tableName), schema, false);
+        return catalogManager.getTable(database, tableName);
+    }
+
+    /**
+     * Write the rows in one batch commit
+     */
+    public void write(String database, String tableName, List<? extends InternalRow> rows) throws Exception {
+        write(database, tableName, rows, -1);
+    }
+
+    /**
+     * Write the rows in one batch commit to the given bucket, for dynamic bucket tables whose
+     * buckets are assigned by the writer; -1 lets the table compute the bucket
+     */
+    public void write(String database, String tableName, List<? extends InternalRow> rows, int bucket)
+            throws Exception {
+        catalogManager.invalidateTable(database, tableName);
+        BatchWriteBuilder builder = catalogManager.getTable(database, tableName).newBatchWriteBuilder();
+        try (BatchTableWrite write = builder.newWrite(); BatchTableCommit commit = builder.newCommit()) {
+            for (InternalRow row : rows) {
+                if (bucket < 0) {
+                    write.write(row);
+                } else {
+                    write.write(row, bucket);
+                }
+            }
+            commit.commit(write.prepareCommit());
+        }
+        catalogManager.invalidateTable(database, tableName);
+    }
+
+    /**
+     * Run the action and return what it printed to System.out
+     */
+    public static String captureOutput(ThrowingRunnable action) throws Exception {
+        PrintStream original = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.setOut(original);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws Exception {
+        catalogManager.close();
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
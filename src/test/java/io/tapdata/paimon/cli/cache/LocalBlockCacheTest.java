@@ -0,0 +1,213 @@
+package io.tapdata.paimon.cli.cache;
+
+import org.apache.paimon.fs.Path;
+import org.apache.paimon.fs.local.LocalFileIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalBlockCacheTest {
+
+    private static final int BLOCK = LocalBlockCache.BLOCK_SIZE;
+
+    @TempDir
+    File directory;
+
+    private static byte[] block(int seed, int size) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Warehouse file with the given content
+     */
+    private Path dataFile(byte[] content) throws IOException {
+        File file = new File(directory, "data.bin");
+        Files.write(file.toPath(), content);
+        return new Path(file.toURI());
+    }
+
+    private CachingInputStream open(Path path, long length, LocalBlockCache cache) {
+        return new CachingInputStream(LocalFileIO.create(), path, length, cache);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBlocksAtMaxSize() {
+        LocalBlockCache cache = new LocalBlockCache(new File(directory, "cache"), 3L * 1000);
+        for (int i = 0; i < 3; i++) {
+            cache.writeBlock("file", 10_000, i, block(i, 1000), 1000);
+        }
+        assertEquals(3000, cache.getTotalBytes());
+        assertEquals(0, cache.getEvictions());
+
+        // Touch block 0 so block 1 becomes the least recently used
+        byte[] buffer = new byte[1000];
+        assertTrue(cache.readBlock("file", 10_000, 0, buffer, 1000));
+        cache.writeBlock("file", 10_000, 3, block(3, 1000), 1000);
+
+        assertEquals(1, cache.getEvictions());
+        assertEquals(3000, cache.getTotalBytes());
+        assertEquals(3, cache.getBlockCount());
+        assertFalse(cache.readBlock("file", 10_000, 1, buffer, 1000));
+        assertTrue(cache.readBlock("file", 10_000, 0, buffer, 1000));
+        assertArrayEquals(block(0, 1000), buffer);
+        assertTrue(cache.readBlock("file", 10_000, 3, buffer, 1000));
+        assertArrayEquals(block(3, 1000), buffer);
+    }
+
+    @Test
+    void blocksLargerThanTheCacheAreNotStored() {
+        LocalBlockCache cache = new LocalBlockCache(new File(directory, "cache"), 500);
+        cache.writeBlock("file", 1000, 0, block(0, 1000), 1000);
+        assertEquals(0, cache.getBlockCount());
+        assertEquals(1000, cache.getBytesDownloaded());
+    }
+
+    @Test
+    void indexSurvivesARestart() {
+        File cacheDir = new File(directory, "cache");
+        new LocalBlockCache(cacheDir, 1 << 20).writeBlock("file", 2000, 1, block(1, 1000), 1000);
+
+        LocalBlockCache reopened = new LocalBlockCache(cacheDir, 1 << 20);
+        byte[] buffer = new byte[1000];
+        assertEquals(2000, reopened.cachedLength("file"));
+        assertTrue(reopened.readBlock("file", 2000, 1, buffer, 1000));
+        assertArrayEquals(block(1, 1000), buffer);
+        // A rewritten file with another length never hits the old blocks
+        assertFalse(reopened.readBlock("file", 3000, 1, buffer, 1000));
+    }
+
+    @Test
+    void fileStateGoesWithItsLastBlock() {
+        File cacheDir = new File(directory, "cache");
+        LocalBlockCache cache = new LocalBlockCache(cacheDir, 2L * 1000);
+        cache.writeBlock("a", 2000, 0, block(0, 1000), 1000);
+        cache.writeBlock("a", 2000, 1, block(1, 1000), 1000);
+        assertEquals(2000, cache.cachedLength("a"));
+
+        // Evicting one block of a keeps its length, evicting the last one drops it and its directory
+        cache.writeBlock("b", 5000, 0, block(2, 1000), 1000);
+        assertEquals(2000, cache.cachedLength("a"));
+        cache.writeBlock("b", 5000, 1, block(3, 1000), 1000);
+        assertEquals(-1, cache.cachedLength("a"));
+        assertEquals(5000, cache.cachedLength("b"));
+        assertEquals(1, cacheDir.list().length);
+
+        // The old version of a rewritten file goes without taking the new length with it
+        cache.writeBlock("b", 6000, 0, block(4, 1000), 1000);
+        cache.writeBlock("b", 6000, 1, block(5, 1000), 1000);
+        assertEquals(6000, cache.cachedLength("b"));
+        assertEquals(1, cacheDir.list().length);
+
+        // Empty directories left behind are removed on startup
+        assertTrue(new File(cacheDir, "0123abcd-42").mkdirs());
+        LocalBlockCache reopened = new LocalBlockCache(cacheDir, 2L * 1000);
+        assertEquals(1, cacheDir.list().length);
+        assertEquals(6000, reopened.cachedLength("b"));
+
+        // Blocks removed on a bad read count as well
+        byte[] buffer = new byte[1000];
+        assertFalse(reopened.readBlock("b", 6000, 0, buffer, 999));
+        assertEquals(6000, reopened.cachedLength("b"));
+        assertFalse(reopened.readBlock("b", 6000, 1, buffer, 999));
+        assertEquals(-1, reopened.cachedLength("b"));
+        assertEquals(0, reopened.getTotalBytes());
+        assertEquals(0, cacheDir.list().length);
+    }
+
+    @Test
+    void readsAcrossBlockBoundaries() throws IOException {
+        byte[] content = block(7, BLOCK * 2 + BLOCK / 2);
+        Path path = dataFile(content);
+        LocalBlockCache cache = new LocalBlockCache(new File(directory, "cache"), 64L << 20);
+
+        try (CachingInputStream in = open(path, content.length, cache)) {
+            // One read spanning the end of block 0, all of block 1 and the start of block 2
+            in.seek(BLOCK - 10);
+            byte[] buffer = new byte[BLOCK + 20];
+            assertEquals(buffer.length, in.read(buffer, 0, buffer.length));
+            assertArrayEquals(Arrays.copyOfRange(content, BLOCK - 10, 2 * BLOCK + 10), buffer);
+            assertEquals(2 * BLOCK + 10, in.getPos());
+
+            // Single-byte reads across the next boundary and up to the end of the file
+            in.seek(2L * BLOCK - 2);
+            for (int i = 2 * BLOCK - 2; i < 2 * BLOCK + 2; i++) {
+                assertEquals(content[i] & 0xFF, in.read());
+            }
+            in.seek(content.length - 1);
+            assertEquals(content[content.length - 1] & 0xFF, in.read());
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(buffer, 0, 1));
+        }
+        assertEquals(3, cache.getBlockCount());
+
+        // A second stream is served from the cache without downloading again
+        long downloaded = cache.getBytesDownloaded();
+        long fromCache = cache.getBytesFromCache();
+        try (CachingInputStream in = open(path, content.length, cache)) {
+            byte[] all = new byte[content.length];
+            assertEquals(all.length, in.read(all, 0, all.length));
+            assertArrayEquals(content, all);
+        }
+        assertEquals(downloaded, cache.getBytesDownloaded());
+        assertEquals(fromCache + content.length, cache.getBytesFromCache());
+    }
+
+    @Test
+    void concurrentReadersOfOneBlockSeeTheSameBytes() throws Exception {
+        byte[] content = block(11, BLOCK + BLOCK / 4);
+        Path path = dataFile(content);
+        LocalBlockCache cache = new LocalBlockCache(new File(directory, "cache"), 64L << 20);
+
+        int readers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int r = 0; r < readers; r++) {
+                int offset = r * 1000;
+                results.add(executor.submit((Callable<byte[]>) () -> {
+                    start.await();
+                    byte[] buffer = new byte[BLOCK / 2];
+                    for (int round = 0; round < 20; round++) {
+                        try (CachingInputStream in = open(path, content.length, cache)) {
+                            in.seek(offset);
+                            int read = 0;
+                            while (read < buffer.length) {
+                                read += in.read(buffer, read, buffer.length - read);
+                            }
+                        }
+                    }
+                    return buffer;
+                }));
+            }
+            start.countDown();
+            for (int r = 0; r < readers; r++) {
+                assertArrayEquals(Arrays.copyOfRange(content, r * 1000, r * 1000 + BLOCK / 2), results.get(r).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, cache.getBlockCount());
+        assertEquals(BLOCK, cache.getTotalBytes());
+        assertTrue(cache.getHits() > 0);
+    }
+}
@@ -0,0 +1,70 @@
+package io.tapdata.paimon.cli.config;
+
+import io.tapdata.paimon.cli.catalog.CatalogManager;
+import org.apache.paimon.options.MemorySize;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageConfigTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void validOptionValuesAreAccepted() {
+        assertDoesNotThrow(() -> StorageConfig.validateOption(StorageConfig.CACHE_ENABLED, "TRUE"));
+        assertDoesNotThrow(() -> StorageConfig.validateOption(StorageConfig.CACHE_MAX_SIZE, "2 gb"));
+        assertDoesNotThrow(() -> StorageConfig.validateOption(StorageConfig.PREFETCH_SPLITS, "8"));
+        assertDoesNotThrow(() -> StorageConfig.validateOption(StorageConfig.QUERY_TIMEOUT, "30s"));
+        // Query budgets are longs
+        assertDoesNotThrow(() -> StorageConfig.validateOption(StorageConfig.QUERY_MAX_ROWS, "10000000000"));
+        assertDoesNotThrow(() -> StorageConfig.validateOption(StorageConfig.QUERY_MAX_SPLITS, " 3000000000 "));
+        // Hadoop options are checked when the file system is created
+        assertDoesNotThrow(() -> StorageConfig.validateOption("fs.s3a.connection.maximum", "anything"));
+    }
+
+    @Test
+    void invalidOptionValuesAreRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.CACHE_ENABLED, "yes"));
+        assertTrue(e.getMessage().contains(StorageConfig.CACHE_ENABLED), e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.CACHE_MAX_SIZE, "lots"));
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.PREFETCH_SPLITS, "abc"));
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.QUERY_MAX_ROWS, "-1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.QUERY_MAX_SPLITS, "99999999999999999999"));
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.PREFETCH_SPLITS, "10000000000"));
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.QUERY_TIMEOUT, "soon"));
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.CACHE_DIR, " "));
+        assertThrows(IllegalArgumentException.class,
+                () -> StorageConfig.validateOption(StorageConfig.S3_PROFILE, "interactive-random-read"));
+        assertThrows(IllegalArgumentException.class, () -> StorageConfig.validateOption("cli.unknown", "1"));
+    }
+
+    @Test
+    void enabledCacheWithoutSizeUsesTheDefault() throws Exception {
+        StorageConfig config = StorageConfig.createLocal(directory.resolve("warehouse").toString());
+        config.getOptions().put(StorageConfig.CACHE_ENABLED, "true");
+        config.getOptions().put(StorageConfig.CACHE_DIR, directory.resolve("cache").toString());
+
+        try (CatalogManager catalogManager = new CatalogManager(config)) {
+            assertNotNull(catalogManager.getBlockCache());
+            assertEquals(MemorySize.parse(StorageConfig.DEFAULT_CACHE_MAX_SIZE).getBytes(),
+                    catalogManager.getBlockCache().getMaxBytes());
+        }
+    }
+}
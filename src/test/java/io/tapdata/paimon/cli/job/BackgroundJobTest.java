@@ -0,0 +1,141 @@
+package io.tapdata.paimon.cli.job;
+
+import io.tapdata.paimon.cli.service.QueryContext;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackgroundJobTest {
+
+    @Test
+    void outputIsCappedToTheTail() {
+        BackgroundJob job = new BackgroundJob(1, "select t", "db", 100);
+        byte[] written = new byte[1000];
+        for (int i = 0; i < written.length; i++) {
+            written[i] = (byte) i;
+            job.appendOutput(written, i, 1);
+        }
+
+        byte[] output = job.getOutput();
+        assertEquals(100, output.length);
+        for (int i = 0; i < output.length; i++) {
+            assertEquals(written[900 + i], output[i]);
+        }
+        assertEquals(900, job.getDroppedOutputBytes());
+    }
+
+    @Test
+    void smallOutputIsKeptWhole() {
+        BackgroundJob job = new BackgroundJob(1, "count t", "db", 100);
+        byte[] bytes = "Total rows: 42\n".getBytes(StandardCharsets.UTF_8);
+        job.appendOutput(bytes);
+        assertArrayEquals(bytes, job.getOutput());
+        assertEquals(0, job.getDroppedOutputBytes());
+    }
+
+    @Test
+    void jobThreadsPrintIntoTheirOwnBoundedBuffer() throws InterruptedException {
+        BackgroundJob job;
+        try (JobManager jobManager = new JobManager(1, finished -> { })) {
+            job = jobManager.submit("select t", "db", () -> {
+                for (int i = 0; i < 30_000; i++) {
+                    System.out.println("row " + i + " padded to make the line about fifty bytes long");
+                }
+            });
+            assertTrue(job.await(30, TimeUnit.SECONDS));
+        }
+
+        assertEquals(BackgroundJob.Status.DONE, job.getStatus());
+        byte[] output = job.getOutput();
+        assertEquals(BackgroundJob.MAX_OUTPUT_BYTES, output.length);
+        assertTrue(job.getDroppedOutputBytes() > 0);
+        String text = new String(output, StandardCharsets.UTF_8);
+        assertTrue(text.endsWith("row 29999 padded to make the line about fifty bytes long" + System.lineSeparator()));
+    }
+
+    private static BackgroundJob.Status runQueries(Consumer<BackgroundJob> queries) throws InterruptedException {
+        BackgroundJob job;
+        try (JobManager jobManager = new JobManager(1, finished -> { })) {
+            job = jobManager.submit("count t", "db", () -> queries.accept(BackgroundJob.current()));
+            assertTrue(job.await(30, TimeUnit.SECONDS));
+        }
+        return job.getStatus();
+    }
+
+    @Test
+    void failedOrAbortedQueriesFailTheJob() throws InterruptedException {
+        assertEquals(BackgroundJob.Status.DONE, runQueries(job -> job.attach(new QueryContext(0, 0, 0, 0))));
+        assertEquals(BackgroundJob.Status.FAILED, runQueries(job -> {
+            QueryContext query = new QueryContext(0, 0, 0, 0);
+            job.attach(query);
+            query.fail();
+        }));
+        // A failed query is not hidden by a later one that succeeds
+        assertEquals(BackgroundJob.Status.FAILED, runQueries(job -> {
+            QueryContext query = new QueryContext(0, 0, 0, 0);
+            job.attach(query);
+            query.fail();
+            job.attach(new QueryContext(0, 0, 0, 0));
+        }));
+        assertEquals(BackgroundJob.Status.FAILED, runQueries(job -> {
+            QueryContext query = new QueryContext(1, 0, 0, 0);
+            job.attach(query);
+            try {
+                Thread.sleep(10);
+                query.checkpoint();
+            } catch (Exception e) {
+                // Reported by the query itself, like the services do
+            }
+        }));
+        assertEquals(BackgroundJob.Status.CANCELLED, runQueries(job -> {
+            QueryContext query = new QueryContext(0, 0, 0, 0);
+            job.attach(query);
+            job.cancel();
+            try {
+                query.checkpoint();
+            } catch (Exception e) {
+                // Reported by the query itself, like the services do
+            }
+        }));
+    }
+
+    @Test
+    void onlyPropagatedThreadsBelongToTheJob() throws Exception {
+        ExecutorService shared = Executors.newSingleThreadExecutor();
+        AtomicReference<BackgroundJob> inSharedPool = new AtomicReference<>();
+        AtomicReference<BackgroundJob> inQueryThread = new AtomicReference<>();
+        AtomicReference<BackgroundJob> submitted = new AtomicReference<>();
+        try {
+            runQueries(job -> {
+                submitted.set(job);
+                try {
+                    // The shared pool creates its thread here, from the job thread
+                    inSharedPool.set(shared.submit(BackgroundJob::current).get());
+                    Thread thread = new Thread(BackgroundJob.propagate(
+                            () -> inQueryThread.set(BackgroundJob.current())));
+                    thread.start();
+                    thread.join();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertNull(inSharedPool.get());
+            assertSame(submitted.get(), inQueryThread.get());
+            // Later work on the shared thread is not printed into the finished job
+            assertNull(shared.submit(BackgroundJob::current).get());
+        } finally {
+            shared.shutdownNow();
+        }
+    }
+}
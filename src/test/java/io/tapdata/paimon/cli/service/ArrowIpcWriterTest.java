@@ -0,0 +1,428 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.TimeStampMicroTZVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.TimeStampNanoVector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.ByteArrayReadableSeekableByteChannel;
+import org.apache.arrow.vector.util.Text;
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.Decimal;
+import org.apache.paimon.data.GenericArray;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.Timestamp;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.types.DataTypes;
+import org.apache.paimon.types.DecimalType;
+import org.apache.paimon.types.RowType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes rows of every supported type and reads them back with Arrow Java
+ */
+class ArrowIpcWriterTest {
+
+    private static final RowType ROW_TYPE = RowType.builder()
+            .field("b", DataTypes.BOOLEAN())
+            .field("i8", DataTypes.TINYINT())
+            .field("i16", DataTypes.SMALLINT())
+            .field("i32", DataTypes.INT())
+            .field("i64", DataTypes.BIGINT())
+            .field("f32", DataTypes.FLOAT())
+            .field("f64", DataTypes.DOUBLE())
+            .field("dec_compact", DataTypes.DECIMAL(10, 2))
+            .field("dec_wide", DataTypes.DECIMAL(30, 5))
+            .field("d", DataTypes.DATE())
+            .field("t", DataTypes.TIME())
+            .field("ts3", DataTypes.TIMESTAMP(3))
+            .field("ts9", DataTypes.TIMESTAMP(9))
+            .field("ltz6", DataTypes.TIMESTAMP_WITH_LOCAL_TIME_ZONE(6))
+            .field("c", DataTypes.CHAR(4))
+            .field("s", DataTypes.STRING())
+            .field("bin", DataTypes.BINARY(2))
+            .field("vbin", DataTypes.BYTES())
+            .field("arr", DataTypes.ARRAY(DataTypes.INT()))
+            .build();
+
+    private BufferAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new RootAllocator();
+    }
+
+    @AfterEach
+    void tearDown() {
+        allocator.close();
+    }
+
+    /**
+     * Column c of row i is null when (i + c) % 7 == 0, so every column has nulls in every batch
+     */
+    private static boolean isNull(int row, int column) {
+        return (row + column) % 7 == 0;
+    }
+
+    private static BigDecimal wideDecimal(int row) {
+        return new BigDecimal(BigInteger.TEN.pow(22).multiply(BigInteger.valueOf(row - 70_000)).add(BigInteger.valueOf(row)), 5);
+    }
+
+    private static GenericRow row(int i) {
+        Object[] values = {
+                i % 3 == 0,
+                (byte) i,
+                (short) i,
+                i * 31,
+                i * 1_000_003L,
+                i / 4f,
+                i / 3.0,
+                Decimal.fromUnscaledLong(i * 101L - 5000, 10, 2),
+                Decimal.fromBigDecimal(wideDecimal(i), 30, 5),
+                i - 50_000,
+                (i * 1000) % 86_400_000,
+                Timestamp.fromEpochMillis(i * 1000L + 123),
+                Timestamp.fromEpochMillis(i * 1000L, 456_789),
+                Timestamp.fromEpochMillis(i * 1000L + 7, 5_000),
+                BinaryString.fromString("ab" + (i % 10) + "x"),
+                BinaryString.fromString(i % 2 == 0 ? "row-" + i : "é-" + i),
+                new byte[] {(byte) i, (byte) (i >>> 8)},
+                new byte[i % 5],
+                new GenericArray(new int[] {i, i + 1})
+        };
+        GenericRow row = new GenericRow(values.length);
+        for (int c = 0; c < values.length; c++) {
+            row.setField(c, isNull(i, c) ? null : values[c]);
+        }
+        return row;
+    }
+
+    /**
+     * Value Arrow Java should read back for column c of row i
+     */
+    private static Object expected(int i, int c) {
+        if (isNull(i, c)) {
+            return null;
+        }
+        switch (c) {
+            case 0: return i % 3 == 0;
+            case 1: return (byte) i;
+            case 2: return (short) i;
+            case 3: return i * 31;
+            case 4: return i * 1_000_003L;
+            case 5: return i / 4f;
+            case 6: return i / 3.0;
+            case 7: return BigDecimal.valueOf(i * 101L - 5000, 2);
+            case 8: return wideDecimal(i);
+            case 9: return i - 50_000;
+            case 10: return (i * 1000) % 86_400_000;
+            case 11: return (i * 1000L + 123) * 1000;
+            case 12: return i * 1000L * 1_000_000 + 456_789;
+            case 13: return (i * 1000L + 7) * 1000 + 5;
+            case 14: return "ab" + (i % 10) + "x";
+            case 15: return i % 2 == 0 ? "row-" + i : "é-" + i;
+            case 16: return ByteBuffer.wrap(new byte[] {(byte) i, (byte) (i >>> 8)});
+            case 17: return ByteBuffer.wrap(new byte[i % 5]);
+            default: return "[" + i + ", " + (i + 1) + "]";
+        }
+    }
+
+    /**
+     * Read a value in the form of {@link #expected}
+     */
+    private static Object actual(FieldVector vector, int index) {
+        if (vector.isNull(index)) {
+            return null;
+        }
+        if (vector instanceof DateDayVector) {
+            return ((DateDayVector) vector).get(index);
+        }
+        if (vector instanceof TimeMilliVector) {
+            return ((TimeMilliVector) vector).get(index);
+        }
+        if (vector instanceof TimeStampVector) {
+            return ((TimeStampVector) vector).get(index);
+        }
+        Object value = vector.getObject(index);
+        if (value instanceof Text) {
+            return value.toString();
+        }
+        if (value instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) value);
+        }
+        return value;
+    }
+
+    private static byte[] write(int rows, ArrowIpcWriter.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowIpcWriter writer = new ArrowIpcWriter(out, ROW_TYPE, format)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(row(i));
+            }
+            assertEquals(rows, writer.getRowCount());
+        }
+        return out.toByteArray();
+    }
+
+    private ArrowReader reader(byte[] bytes, ArrowIpcWriter.Format format) {
+        return format == ArrowIpcWriter.Format.FILE
+                ? new ArrowFileReader(new ByteArrayReadableSeekableByteChannel(bytes), allocator)
+                : new ArrowStreamReader(new ByteArrayInputStream(bytes), allocator);
+    }
+
+    /**
+     * Read every batch back and compare with the written rows, returns the number of batches
+     */
+    private int readBack(byte[] bytes, ArrowIpcWriter.Format format, int rows) throws IOException {
+        int batches = 0;
+        int row = 0;
+        try (ArrowReader reader = reader(bytes, format)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<Field> fields = root.getSchema().getFields();
+            assertEquals(ROW_TYPE.getFieldCount(), fields.size());
+            for (int c = 0; c < fields.size(); c++) {
+                assertEquals(ROW_TYPE.getFieldNames().get(c), fields.get(c).getName());
+                assertTrue(fields.get(c).isNullable());
+            }
+            assertInstanceOf(ArrowType.Decimal.class, fields.get(8).getType());
+            assertEquals(30, ((ArrowType.Decimal) fields.get(8).getType()).getPrecision());
+
+            while (reader.loadNextBatch()) {
+                batches++;
+                assertTrue(root.getRowCount() <= ArrowIpcWriter.BATCH_ROWS);
+                assertInstanceOf(BitVector.class, root.getVector(0));
+                assertInstanceOf(TimeStampMicroVector.class, root.getVector(11));
+                assertInstanceOf(TimeStampNanoVector.class, root.getVector(12));
+                assertInstanceOf(TimeStampMicroTZVector.class, root.getVector(13));
+                for (int i = 0; i < root.getRowCount(); i++, row++) {
+                    for (int c = 0; c < fields.size(); c++) {
+                        assertEquals(expected(row, c), actual(root.getVector(c), i),
+                                "row " + row + " column " + fields.get(c).getName());
+                    }
+                }
+            }
+        }
+        assertEquals(rows, row);
+        return batches;
+    }
+
+    @Test
+    void fileRoundTripAcrossSeveralBatches() throws IOException {
+        int rows = 2 * ArrowIpcWriter.BATCH_ROWS + 1000;
+        byte[] bytes = write(rows, ArrowIpcWriter.Format.FILE);
+        assertEquals(3, readBack(bytes, ArrowIpcWriter.Format.FILE, rows));
+
+        try (ArrowFileReader reader = new ArrowFileReader(new ByteArrayReadableSeekableByteChannel(bytes), allocator)) {
+            assertEquals(3, reader.getRecordBlocks().size());
+        }
+    }
+
+    @Test
+    void streamRoundTripAcrossSeveralBatches() throws IOException {
+        int rows = ArrowIpcWriter.BATCH_ROWS + 1;
+        assertEquals(2, readBack(write(rows, ArrowIpcWriter.Format.STREAM), ArrowIpcWriter.Format.STREAM, rows));
+    }
+
+    @Test
+    void smallBatchRoundTrip() throws IOException {
+        for (ArrowIpcWriter.Format format : ArrowIpcWriter.Format.values()) {
+            assertEquals(1, readBack(write(10, format), format, 10));
+        }
+    }
+
+    @Test
+    void emptyTableHasSchemaAndNoBatches() throws IOException {
+        for (ArrowIpcWriter.Format format : ArrowIpcWriter.Format.values()) {
+            byte[] bytes = write(0, format);
+            try (ArrowReader reader = reader(bytes, format)) {
+                assertEquals(ROW_TYPE.getFieldCount(), reader.getVectorSchemaRoot().getSchema().getFields().size());
+                assertFalse(reader.loadNextBatch());
+            }
+        }
+    }
+
+    @Test
+    void nonNullableColumnsAreDeclaredSo() throws IOException {
+        RowType rowType = RowType.builder().field("id", DataTypes.INT().notNull()).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowIpcWriter writer = new ArrowIpcWriter(out, rowType, ArrowIpcWriter.Format.STREAM)) {
+            writer.write(GenericRow.of(42));
+        }
+        try (ArrowReader reader = reader(out.toByteArray(), ArrowIpcWriter.Format.STREAM)) {
+            assertFalse(reader.getVectorSchemaRoot().getSchema().getFields().get(0).isNullable());
+            assertTrue(reader.loadNextBatch());
+            assertEquals(42, reader.getVectorSchemaRoot().getVector(0).getObject(0));
+        }
+    }
+
+    @Test
+    void selectWritesTheSelectedColumnsToAnArrowFile(@TempDir Path directory) throws Exception {
+        try (TestWarehouse warehouse = new TestWarehouse(directory)) {
+            warehouse.createTable("db", "users", Schema.newBuilder()
+                    .column("id", DataTypes.INT())
+                    .column("name", DataTypes.STRING())
+                    .column("age", DataTypes.INT())
+                    .build());
+            List<GenericRow> rows = new ArrayList<>();
+            for (int id = 0; id < 100; id++) {
+                rows.add(GenericRow.of(id, BinaryString.fromString("user" + id), id % 50));
+            }
+            warehouse.write("db", "users", rows);
+            DataQueryService service = new DataQueryService(warehouse.getCatalogManager());
+
+            // The filter column is read for the predicate but not written
+            String path = directory.resolve("adults.arrow").toString();
+            String output = TestWarehouse.captureOutput(() -> service.selectTable("db", "users", 0, "age>=18",
+                    QueryOptions.defaults().withFormat(OutputFormat.ARROW).withOutputPath(path)
+                            .withColumns(Arrays.asList("name", "id"))));
+            assertTrue(output.contains("Wrote 64 row(s)"), output);
+            try (ArrowFileReader reader = new ArrowFileReader(Files.newByteChannel(Paths.get(path)), allocator)) {
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                assertEquals(Arrays.asList("name", "id"), root.getSchema().getFields().stream()
+                        .map(Field::getName).collect(Collectors.toList()));
+                int read = 0;
+                while (reader.loadNextBatch()) {
+                    for (int i = 0; i < root.getRowCount(); i++) {
+                        int id = (Integer) root.getVector(1).getObject(i);
+                        assertTrue(id % 50 >= 18);
+                        assertEquals("user" + id, root.getVector(0).getObject(i).toString());
+                    }
+                    read += root.getRowCount();
+                }
+                assertEquals(64, read);
+            }
+
+            String top = directory.resolve("top.arrow").toString();
+            TestWarehouse.captureOutput(() -> service.selectTable("db", "users", 3, null,
+                    QueryOptions.defaults().withFormat(OutputFormat.ARROW).withOutputPath(top)
+                            .withOrderBy(new OrderBySpec("id", true)).withColumns(Arrays.asList("id"))));
+            try (ArrowFileReader reader = new ArrowFileReader(Files.newByteChannel(Paths.get(top)), allocator)) {
+                assertTrue(reader.loadNextBatch());
+                VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                assertEquals(1, root.getSchema().getFields().size());
+                assertEquals(Arrays.asList(99, 98, 97), Arrays.asList(root.getVector(0).getObject(0),
+                        root.getVector(0).getObject(1), root.getVector(0).getObject(2)));
+            }
+        }
+    }
+
+    @Test
+    void timestampUnitFollowsThePrecision() {
+        for (int precision = 0; precision <= 9; precision++) {
+            TimeUnit unit = precision > 6 ? TimeUnit.NANOSECOND : TimeUnit.MICROSECOND;
+            assertEquals(new ArrowType.Timestamp(unit, null),
+                    ArrowIpcWriter.arrowType(DataTypes.TIMESTAMP(precision)), "precision " + precision);
+            assertEquals(new ArrowType.Timestamp(unit, "UTC"),
+                    ArrowIpcWriter.arrowType(DataTypes.TIMESTAMP_WITH_LOCAL_TIME_ZONE(precision)));
+        }
+    }
+
+    /**
+     * Nullable booleans, the widest decimals and sub-microsecond timestamps, at their limits
+     */
+    @Test
+    void edgeValuesRoundTrip() throws IOException {
+        RowType rowType = RowType.builder()
+                .field("flag", DataTypes.BOOLEAN())
+                .field("dec19", DataTypes.DECIMAL(19, 0))
+                .field("dec38", DataTypes.DECIMAL(38, 10))
+                .field("ts7", DataTypes.TIMESTAMP(7))
+                .field("ts8", DataTypes.TIMESTAMP(8))
+                .field("ltz9", DataTypes.TIMESTAMP_WITH_LOCAL_TIME_ZONE(9))
+                .build();
+        BigDecimal max38 = new BigDecimal(BigInteger.TEN.pow(38).subtract(BigInteger.ONE), 10);
+        BigDecimal max19 = new BigDecimal(BigInteger.TEN.pow(19).subtract(BigInteger.ONE), 0);
+        // 1677-09-22 and 2262-04-11, inside the range of nanoseconds since the epoch
+        Timestamp earliest = Timestamp.fromEpochMillis(-9_223_372_036_854L, 224_193);
+        Timestamp latest = Timestamp.fromEpochMillis(9_223_372_036_854L, 775_807);
+        Object[][] rows = {
+                {null, null, null, null, null, null},
+                {false, max19, max38, earliest, latest, Timestamp.fromEpochMillis(0, 1)},
+                {true, max19.negate(), max38.negate(), Timestamp.fromEpochMillis(-1, 999_999), latest, earliest},
+                {null, BigDecimal.ONE, BigDecimal.ZERO.setScale(10), Timestamp.fromEpochMillis(1, 100), earliest,
+                        latest}
+        };
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowIpcWriter writer = new ArrowIpcWriter(out, rowType, ArrowIpcWriter.Format.STREAM)) {
+            for (Object[] values : rows) {
+                GenericRow row = new GenericRow(values.length);
+                for (int c = 0; c < values.length; c++) {
+                    Object value = values[c];
+                    if (value instanceof BigDecimal) {
+                        DecimalType decimalType = (DecimalType) rowType.getTypeAt(c);
+                        value = Decimal.fromBigDecimal((BigDecimal) value, decimalType.getPrecision(),
+                                decimalType.getScale());
+                    }
+                    row.setField(c, value);
+                }
+                writer.write(row);
+            }
+        }
+
+        try (ArrowReader reader = reader(out.toByteArray(), ArrowIpcWriter.Format.STREAM)) {
+            assertTrue(reader.loadNextBatch());
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(rows.length, root.getRowCount());
+            for (int i = 0; i < rows.length; i++) {
+                for (int c = 0; c < rows[i].length; c++) {
+                    Object value = rows[i][c];
+                    Object expected = value;
+                    if (value instanceof Timestamp) {
+                        Timestamp timestamp = (Timestamp) value;
+                        expected = timestamp.getMillisecond() * 1_000_000 + timestamp.getNanoOfMillisecond();
+                    }
+                    assertEquals(expected, actual(root.getVector(c), i), "row " + i + " column " + c);
+                }
+            }
+            assertEquals(2, root.getVector(0).getNullCount());
+        }
+    }
+
+    @Test
+    void nanosecondTimestampsOutOfRangeAreRejected() throws IOException {
+        RowType rowType = RowType.builder().field("ts", DataTypes.TIMESTAMP(9)).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ArrowIpcWriter writer = new ArrowIpcWriter(out, rowType, ArrowIpcWriter.Format.STREAM)) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> writer.write(GenericRow.of(Timestamp.fromEpochMillis(9_223_372_036_855L))));
+            assertTrue(e.getMessage().contains("1677 to 2262"), e.getMessage());
+        }
+    }
+}
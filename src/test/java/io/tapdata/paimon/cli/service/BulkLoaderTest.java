@@ -0,0 +1,132 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory.resolve("warehouse"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    private FileStoreTable createTable(String name) throws Exception {
+        return (FileStoreTable) warehouse.createTable("db", name, Schema.newBuilder()
+                .column("id", DataTypes.INT())
+                .column("v", DataTypes.STRING())
+                .primaryKey("id")
+                .option("bucket", "4")
+                .build());
+    }
+
+    /**
+     * Value of each key in the table
+     */
+    private Map<Integer, String> readTable(String name) throws Exception {
+        warehouse.getCatalogManager().invalidateTable("db", name);
+        ReadBuilder readBuilder = warehouse.getCatalogManager().getTable("db", name).newReadBuilder();
+        Map<Integer, String> values = new HashMap<>();
+        try (RecordReader<InternalRow> reader = readBuilder.newRead()
+                .createReader(readBuilder.newScan().plan())) {
+            reader.forEachRemaining(row -> values.put(row.getInt(0), row.getString(1).toString()));
+        }
+        return values;
+    }
+
+    private void load(FileStoreTable table, List<Path> files, int parallelism) throws Exception {
+        new BulkLoader(table, files, null, ',', parallelism, 64L << 20).execute();
+    }
+
+    @Test
+    void lastRecordOfAKeyWinsAcrossChunksAndFiles() throws Exception {
+        // 3 files of 3 chunks each, every key appears in every chunk
+        List<Path> files = new ArrayList<>();
+        int rowsPerFile = 10_000;
+        int keys = 50;
+        for (int f = 0; f < 3; f++) {
+            StringBuilder csv = new StringBuilder("id,v\n");
+            for (int i = f * rowsPerFile; i < (f + 1) * rowsPerFile; i++) {
+                csv.append(i % keys).append(",row-").append(i).append('\n');
+            }
+            Path file = directory.resolve("part-" + f + ".csv");
+            Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            String name = "events_" + round;
+            load(createTable(name), files, 4);
+            Map<Integer, String> values = readTable(name);
+            assertEquals(keys, values.size());
+            for (int key = 0; key < keys; key++) {
+                assertEquals("row-" + (3 * rowsPerFile - keys + key), values.get(key), "key " + key);
+            }
+        }
+    }
+
+    @Test
+    void quotedFieldsMaySpanManyLines() throws Exception {
+        StringBuilder text = new StringBuilder("line 0");
+        for (int i = 1; i < 5000; i++) {
+            text.append("\nline ").append(i).append(i % 100 == 0 ? " with \"\"quotes\"\", and a comma" : "");
+        }
+        String csv = "id,v\n1,\"" + text + "\"\n2,plain\n3,\"\"\n";
+        Path file = directory.resolve("multiline.csv");
+        Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+
+        load(createTable("notes"), List.of(file), 2);
+        Map<Integer, String> values = readTable("notes");
+        assertEquals(3, values.size());
+        assertEquals(text.toString().replace("\"\"", "\""), values.get(1));
+        assertEquals("plain", values.get(2));
+        assertEquals("", values.get(3));
+    }
+
+    @Test
+    void aBadRecordFailsTheLoadWithoutCommitting() throws Exception {
+        StringBuilder csv = new StringBuilder("id,v\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append(i == 6000 ? "six thousand" : String.valueOf(i)).append(",row-").append(i).append('\n');
+        }
+        Path file = directory.resolve("bad.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        FileStoreTable table = createTable("broken");
+        // The header is line 1, so record 6000 is on line 6002
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> load(table, List.of(file), 4));
+        assertTrue(e.getMessage().startsWith(file + ":6002: "), e.getMessage());
+        assertNull(table.snapshotManager().latestSnapshot());
+    }
+}
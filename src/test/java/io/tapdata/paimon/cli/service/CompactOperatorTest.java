@@ -0,0 +1,183 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.predicate.PredicateBuilder;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactOperatorTest {
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    private FileStoreTable table(String name) throws Exception {
+        warehouse.getCatalogManager().invalidateTable("db", name);
+        return (FileStoreTable) warehouse.getCatalogManager().getTable("db", name);
+    }
+
+    /**
+     * Value of each row of the table, keyed by partition and id
+     */
+    private Map<String, String> readTable(String name) throws Exception {
+        ReadBuilder readBuilder = table(name).newReadBuilder();
+        Map<String, String> values = new HashMap<>();
+        try (RecordReader<InternalRow> reader = readBuilder.newRead().createReader(readBuilder.newScan().plan())) {
+            reader.forEachRemaining(row -> values.put(row.getString(0) + "/" + row.getInt(1),
+                    row.getString(2).toString()));
+        }
+        return values;
+    }
+
+    /**
+     * Number of data files of each partition in the latest snapshot
+     */
+    private Map<String, Integer> filesPerPartition(String name) throws Exception {
+        Map<String, Integer> files = new HashMap<>();
+        for (Split split : table(name).newSnapshotReader().read().splits()) {
+            DataSplit dataSplit = (DataSplit) split;
+            files.merge(dataSplit.partition().getString(0).toString(), dataSplit.dataFiles().size(), Integer::sum);
+        }
+        return files;
+    }
+
+    private static String text(int id, int round) {
+        StringBuilder text = new StringBuilder("round-" + round + "-");
+        while (text.length() < 100) {
+            text.append((char) ('a' + (id + text.length()) % 26));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the given number of commits to each partition, each commit updating every key
+     */
+    private Map<String, String> writeRounds(String name, int rounds, int keys) throws Exception {
+        Map<String, String> expected = new HashMap<>();
+        for (int round = 0; round < rounds; round++) {
+            for (String partition : new String[]{"a", "b"}) {
+                List<GenericRow> rows = new ArrayList<>();
+                for (int id = 0; id < keys; id++) {
+                    String value = text(id, round);
+                    rows.add(GenericRow.of(BinaryString.fromString(partition), id, BinaryString.fromString(value)));
+                    expected.put(partition + "/" + id, value);
+                }
+                warehouse.write("db", name, rows);
+            }
+        }
+        return expected;
+    }
+
+    private CompactOperator compact(String name, String partition, long maxMemory) throws Exception {
+        FileStoreTable table = table(name);
+        CompactOperator operator = new CompactOperator(table,
+                PredicateBuilder.partitions(Collections.singletonList(Collections.singletonMap("p", partition)),
+                        table.rowType(), table.coreOptions().partitionDefaultName()),
+                2, maxMemory);
+        operator.execute();
+        return operator;
+    }
+
+    @Test
+    void compactsOnePartitionOfAPrimaryKeyTableWithinTheMemoryBudget() throws Exception {
+        warehouse.createTable("db", "users", Schema.newBuilder()
+                .column("p", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .column("v", DataTypes.STRING())
+                .partitionKeys("p")
+                .primaryKey("p", "id")
+                .option("bucket", "2")
+                // Keep every sorted run until the compaction, and merge at most two of them in memory
+                .option("num-sorted-run.compaction-trigger", "100")
+                .option("num-sorted-run.stop-trigger", "200")
+                .option("sort-spill-threshold", "2")
+                .build());
+        Map<String, String> expected = writeRounds("users", 8, 5000);
+        long snapshotBefore = table("users").snapshotManager().latestSnapshotId();
+        Map<String, Integer> filesBefore = filesPerPartition("users");
+        assertEquals(16, filesBefore.get("a"));
+
+        // Far less memory than the 4 MB of rows in partition a
+        CompactOperator operator = compact("users", "a", 1L << 20);
+
+        assertEquals(2, operator.getBucketsCompacted());
+        assertEquals(1, operator.getPartitionsCompacted());
+        assertEquals(16, operator.getFilesBefore());
+        assertEquals(2, operator.getFilesAfter());
+        assertTrue(operator.getBytesAfter() < operator.getBytesBefore());
+        // One snapshot for the whole compaction
+        assertEquals(snapshotBefore + 1, table("users").snapshotManager().latestSnapshotId());
+        Map<String, Integer> filesAfter = filesPerPartition("users");
+        assertEquals(2, filesAfter.get("a"));
+        assertEquals(filesBefore.get("b"), filesAfter.get("b"));
+        assertEquals(expected, readTable("users"));
+    }
+
+    @Test
+    void compactsSmallFilesOfAnAppendTable() throws Exception {
+        warehouse.createTable("db", "events", Schema.newBuilder()
+                .column("p", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .column("v", DataTypes.STRING())
+                .partitionKeys("p")
+                .option("bucket", "-1")
+                .build());
+        List<GenericRow> rows = new ArrayList<>();
+        Map<String, String> expected = new HashMap<>();
+        for (int commit = 0; commit < 12; commit++) {
+            for (String partition : new String[]{"a", "b"}) {
+                rows.clear();
+                for (int i = 0; i < 100; i++) {
+                    int id = commit * 100 + i;
+                    rows.add(GenericRow.of(BinaryString.fromString(partition), id,
+                            BinaryString.fromString(text(id, commit))));
+                    expected.put(partition + "/" + id, text(id, commit));
+                }
+                warehouse.write("db", "events", rows);
+            }
+        }
+
+        CompactOperator operator = compact("events", "b", 4L << 20);
+
+        assertEquals(1, operator.getPartitionsCompacted());
+        assertEquals(12, operator.getFilesBefore());
+        Map<String, Integer> files = filesPerPartition("events");
+        assertEquals(12, files.get("a"));
+        assertEquals(operator.getFilesAfter(), files.get("b"));
+        assertTrue(files.get("b") < 12);
+        assertEquals(expected, readTable("events"));
+    }
+}
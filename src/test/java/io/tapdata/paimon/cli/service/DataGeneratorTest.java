@@ -0,0 +1,103 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataGeneratorTest {
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    private FileStoreTable createTable(String name, int buckets) throws Exception {
+        return (FileStoreTable) warehouse.createTable("db", name, Schema.newBuilder()
+                .column("id", DataTypes.INT())
+                .column("v", DataTypes.STRING())
+                .primaryKey("id")
+                .option("bucket", String.valueOf(buckets))
+                .build());
+    }
+
+    private static List<ColumnGenerator> generators() {
+        return Arrays.asList(ColumnGenerator.parse("id:int=seq"), ColumnGenerator.parse("v:string=string(4,12)"));
+    }
+
+    private Map<Integer, String> readTable(String name) throws Exception {
+        warehouse.getCatalogManager().invalidateTable("db", name);
+        ReadBuilder readBuilder = warehouse.getCatalogManager().getTable("db", name).newReadBuilder();
+        Map<Integer, String> values = new HashMap<>();
+        try (RecordReader<InternalRow> reader = readBuilder.newRead()
+                .createReader(readBuilder.newScan().plan())) {
+            reader.forEachRemaining(row -> values.put(row.getInt(0), row.getString(1).toString()));
+        }
+        return values;
+    }
+
+    @Test
+    void commitsEachBatchAndDoesNotDependOnParallelism() throws Exception {
+        List<Long> snapshots = new ArrayList<>();
+        DataGenerator generator = new DataGenerator(createTable("parallel", 4), generators(), 25_000, 10_000, 3,
+                64L << 20, 7);
+        generator.execute((batch, rowsCommitted, snapshotId) -> snapshots.add(snapshotId));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), snapshots);
+        assertEquals(3, generator.getBatches());
+        assertEquals(25_000, generator.getRowsWritten());
+        assertEquals(3, generator.getWriters());
+        assertTrue(generator.getFilesWritten() >= 4);
+        assertTrue(generator.getBytesWritten() > 0);
+
+        new DataGenerator(createTable("serial", 4), generators(), 25_000, 25_000, 1, 64L << 20, 7)
+                .execute((batch, rowsCommitted, snapshotId) -> { });
+        Map<Integer, String> parallel = readTable("parallel");
+        assertEquals(25_000, parallel.size());
+        assertEquals(readTable("serial"), parallel);
+    }
+
+    @Test
+    void writersAreCappedByTheBucketsOfAnUnpartitionedTable() throws Exception {
+        DataGenerator generator = new DataGenerator(createTable("two_buckets", 2), generators(), 5000, 5000, 8,
+                64L << 20, 7);
+        generator.execute((batch, rowsCommitted, snapshotId) -> { });
+        assertEquals(2, generator.getWriters());
+        assertEquals(5000, readTable("two_buckets").size());
+    }
+
+    @Test
+    void dynamicBucketTablesAreRejected() throws Exception {
+        DataGenerator generator = new DataGenerator(createTable("dynamic", -1), generators(), 10, 10, 1,
+                64L << 20, 7);
+        assertThrows(UnsupportedOperationException.class, () -> generator.execute((b, r, s) -> { }));
+    }
+}
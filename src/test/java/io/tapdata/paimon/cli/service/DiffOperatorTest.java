@@ -0,0 +1,123 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.CoreOptions;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.types.DataTypes;
+import org.apache.paimon.types.RowKind;
+import org.apache.paimon.types.RowType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiffOperatorTest {
+
+    private static final int ROWS = 20_000;
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+        warehouse.createTable("db", "users", Schema.newBuilder()
+                .column("id", DataTypes.INT())
+                .column("name", DataTypes.STRING())
+                .column("age", DataTypes.INT())
+                .primaryKey("id")
+                .option("bucket", "2")
+                .build());
+
+        List<GenericRow> rows = new ArrayList<>();
+        for (int id = 0; id < ROWS; id++) {
+            rows.add(GenericRow.of(id, BinaryString.fromString("user-" + id), id % 90));
+        }
+        warehouse.write("db", "users", rows);
+
+        // Snapshot 2: 0-9 upserted unchanged, 10-14 upserted with a new age, 20-22 deleted, 5 new keys
+        rows.clear();
+        for (int id = 0; id < 15; id++) {
+            rows.add(GenericRow.ofKind(RowKind.UPDATE_AFTER, id, BinaryString.fromString("user-" + id),
+                    id < 10 ? id % 90 : 100 + id));
+        }
+        for (int id = 20; id < 23; id++) {
+            rows.add(GenericRow.ofKind(RowKind.DELETE, id, BinaryString.fromString("user-" + id), id % 90));
+        }
+        for (int id = ROWS; id < ROWS + 5; id++) {
+            rows.add(GenericRow.of(id, BinaryString.fromString("user-" + id), 30));
+        }
+        warehouse.write("db", "users", rows);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    private DiffOperator diff(long partitionTargetBytes) throws Exception {
+        Table table = warehouse.getCatalogManager().getTable("db", "users");
+        Table before = table.copy(Collections.singletonMap(CoreOptions.SCAN_SNAPSHOT_ID.key(), "1"));
+        Table after = table.copy(Collections.singletonMap(CoreOptions.SCAN_SNAPSHOT_ID.key(), "2"));
+        RowType rowType = table.rowType();
+        DiffOperator operator = new DiffOperator(rowType, new int[] {0}, 100, 2, partitionTargetBytes);
+        operator.execute(before.newReadBuilder(), after.newReadBuilder(), new QueryContext(0, 0, 0, 0));
+        return operator;
+    }
+
+    private static TreeSet<Integer> keys(List<byte[]> keys) {
+        TreeSet<Integer> ids = new TreeSet<>();
+        for (byte[] key : keys) {
+            ids.add(DiffOperator.toRow(key, 1).getInt(0));
+        }
+        return ids;
+    }
+
+    private static void assertChanges(DiffOperator operator) {
+        assertEquals(5, operator.getInserted());
+        assertEquals(5, operator.getUpdated());
+        assertEquals(3, operator.getDeleted());
+        assertEquals(new TreeSet<>(List.of(ROWS, ROWS + 1, ROWS + 2, ROWS + 3, ROWS + 4)),
+                keys(operator.getInsertedKeys()));
+        assertEquals(new TreeSet<>(List.of(20, 21, 22)), keys(operator.getDeletedKeys()));
+        List<byte[]> updatedKeys = new ArrayList<>();
+        for (byte[][] update : operator.getUpdatedRows()) {
+            updatedKeys.add(update[0]);
+            assertEquals(List.of("age"), operator.changedFields(update[1], update[2]));
+        }
+        assertEquals(new TreeSet<>(List.of(10, 11, 12, 13, 14)), keys(updatedKeys));
+    }
+
+    @Test
+    void upsertsWithoutChangesAreNotUpdates() throws Exception {
+        DiffOperator operator = diff(32L << 20);
+        assertChanges(operator);
+        assertEquals(16, operator.getPartitions());
+    }
+
+    @Test
+    void partitionsOverTheBudgetAreSplitAgain() throws Exception {
+        DiffOperator operator = diff(32L << 20);
+        long spilledOnce = operator.getBytesSpilled();
+
+        // Far more rows than fit in 4 KB partitions, whatever the first fan-out
+        DiffOperator split = diff(4 << 10);
+        assertChanges(split);
+        assertTrue(split.getPartitions() > 16 * 16, "partitions " + split.getPartitions());
+        assertTrue(split.getBytesSpilled() > spilledOnce, "spilled " + split.getBytesSpilled());
+    }
+}
@@ -0,0 +1,104 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DistinctCountOperatorTest {
+
+    private static final int DISTINCT = 6000;
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+    private Table table;
+
+    /**
+     * Four files of 3000 rows, each distinct value of id and name appearing in two of them
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+        warehouse.createTable("db", "events", Schema.newBuilder()
+                .column("id", DataTypes.BIGINT())
+                .column("name", DataTypes.STRING())
+                .build());
+        for (int file = 0; file < 4; file++) {
+            List<GenericRow> rows = new ArrayList<>();
+            for (int i = 0; i < DISTINCT / 2; i++) {
+                long id = (file % 2) * (DISTINCT / 2) + i;
+                rows.add(GenericRow.of(id, BinaryString.fromString("name-" + id)));
+            }
+            rows.add(GenericRow.of(null, null));
+            warehouse.write("db", "events", rows);
+        }
+        table = warehouse.getCatalogManager().getTable("db", "events");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    private DistinctCountOperator.Result count(DistinctCountOperator operator) throws Exception {
+        ReadBuilder readBuilder = table.newReadBuilder();
+        return operator.execute(readBuilder, readBuilder.newScan().plan().splits(), Collections.emptyList(),
+                new QueryContext(0, 0, 0, 0));
+    }
+
+    @Test
+    void exactCountsWithinTheBudget() throws Exception {
+        DistinctCountOperator ids = new DistinctCountOperator("db.events", "id", 0, DataTypes.BIGINT(), true,
+                new SketchCache(), DISTINCT);
+        DistinctCountOperator.Result result = count(ids);
+        assertTrue(result.isExact());
+        assertEquals(DISTINCT, result.getCount());
+        assertFalse(ids.isExactByHash());
+
+        DistinctCountOperator names = new DistinctCountOperator("db.events", "name", 1, DataTypes.STRING(), true,
+                new SketchCache(), DISTINCT);
+        result = count(names);
+        assertTrue(result.isExact());
+        assertEquals(DISTINCT, result.getCount());
+        assertTrue(names.isExactByHash());
+    }
+
+    @Test
+    void exactModeOverTheBudgetFallsBackToTheSketch() throws Exception {
+        DistinctCountOperator.Result approximate = count(new DistinctCountOperator("db.events", "name", 1,
+                DataTypes.STRING(), false, new SketchCache()));
+        for (int budget : new int[] {1, 1000, 4000}) {
+            for (int column = 0; column < 2; column++) {
+                DistinctCountOperator operator = new DistinctCountOperator("db.events", column == 0 ? "id" : "name",
+                        column, column == 0 ? DataTypes.BIGINT() : DataTypes.STRING(), true, new SketchCache(), budget);
+                DistinctCountOperator.Result result = count(operator);
+                assertFalse(result.isExact());
+                assertEquals(approximate.getStandardError(), result.getStandardError());
+                // The values collected before the overflow are carried into the sketch with the same hashes
+                assertTrue(Math.abs(result.getCount() - DISTINCT) <= 3 * result.getStandardError() * DISTINCT,
+                        "budget " + budget + ", column " + column + ": " + result.getCount());
+                if (column == 1) {
+                    assertEquals(approximate.getCount(), result.getCount());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.tapdata.paimon.cli.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    private static HyperLogLog sketch(long from, long to) {
+        HyperLogLog hll = new HyperLogLog();
+        for (long value = from; value < to; value++) {
+            hll.addHash(DistinctCountOperator.mix64(value));
+        }
+        return hll;
+    }
+
+    @Test
+    void estimateIsWithinThreeStandardErrors() {
+        double standardError = new HyperLogLog().standardError();
+        assertEquals(0.016, standardError, 0.001);
+        for (long cardinality : new long[] {10, 100, 1_000, 5_000, 10_000, 20_000, 50_000, 100_000, 1_000_000}) {
+            long estimate = sketch(0, cardinality).estimate();
+            double relativeError = Math.abs(estimate - cardinality) / (double) cardinality;
+            assertTrue(relativeError <= 3 * standardError,
+                    "cardinality " + cardinality + " estimated as " + estimate);
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheEstimate() {
+        HyperLogLog once = sketch(0, 10_000);
+        HyperLogLog twice = sketch(0, 10_000);
+        for (long value = 0; value < 10_000; value++) {
+            twice.addHash(DistinctCountOperator.mix64(value));
+        }
+        assertEquals(once.estimate(), twice.estimate());
+    }
+
+    @Test
+    void emptySketchEstimatesZero() {
+        assertEquals(0, new HyperLogLog().estimate());
+    }
+
+    @Test
+    void mergeEqualsTheSketchOfTheUnion() {
+        HyperLogLog union = sketch(0, 30_000);
+
+        HyperLogLog left = sketch(0, 10_000);
+        left.merge(sketch(10_000, 20_000));
+        left.merge(sketch(20_000, 30_000));
+        assertEquals(union.estimate(), left.estimate());
+
+        // (a + b) + c == a + (b + c), with overlapping inputs
+        HyperLogLog a = sketch(0, 15_000);
+        HyperLogLog b = sketch(5_000, 25_000);
+        HyperLogLog c = sketch(20_000, 30_000);
+        HyperLogLog ab = sketch(0, 15_000);
+        ab.merge(b);
+        ab.merge(c);
+        HyperLogLog bc = sketch(5_000, 25_000);
+        bc.merge(c);
+        a.merge(bc);
+        assertEquals(ab.estimate(), a.estimate());
+        assertEquals(union.estimate(), a.estimate());
+    }
+
+    @Test
+    void mergeRejectsDifferentPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void precisionIsBounded() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+        assertEquals(4096, new HyperLogLog().sizeInBytes());
+    }
+}
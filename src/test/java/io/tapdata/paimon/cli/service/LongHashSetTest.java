@@ -0,0 +1,88 @@
+package io.tapdata.paimon.cli.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    @Test
+    void growsAndKeepsEveryValue() {
+        LongHashSet set = new LongHashSet(Integer.MAX_VALUE);
+        Random random = new Random(7);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextLong() % 100_000;
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value : expected) {
+            assertFalse(set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+    }
+
+    @Test
+    void specialValuesAreOrdinaryKeys() {
+        LongHashSet set = new LongHashSet(100);
+        long[] values = {0L, Long.MIN_VALUE, Long.MAX_VALUE, -1L, 1L};
+        for (long value : values) {
+            assertTrue(set.add(value));
+        }
+        for (long value : values) {
+            assertFalse(set.add(value));
+        }
+        assertEquals(values.length, set.size());
+    }
+
+    @Test
+    void collidingValuesAreProbedAcrossGrowth() {
+        // Values that share a slot in the initial 64-slot table (same hash as LongHashSet.slot)
+        List<Long> colliding = new ArrayList<>();
+        for (long value = 0; colliding.size() < 40; value++) {
+            long h = value * 0x9E3779B97F4A7C15L;
+            if (((int) (h ^ (h >>> 32)) & 63) == 5) {
+                colliding.add(value);
+            }
+        }
+        LongHashSet set = new LongHashSet(1000);
+        for (long value : colliding) {
+            assertTrue(set.add(value));
+        }
+        for (long value : colliding) {
+            assertFalse(set.add(value));
+        }
+        assertEquals(colliding.size(), set.size());
+    }
+
+    @Test
+    void addAllMergesSets() {
+        LongHashSet left = new LongHashSet(1000);
+        LongHashSet right = new LongHashSet(1000);
+        for (long value = 0; value < 300; value++) {
+            left.add(value);
+            right.add(value + 200);
+        }
+        left.addAll(right);
+        assertEquals(500, left.size());
+    }
+
+    @Test
+    void maxSizeIsEnforced() {
+        LongHashSet set = new LongHashSet(3);
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        assertFalse(set.add(3));
+        assertThrows(IllegalStateException.class, () -> set.add(4));
+    }
+}
@@ -0,0 +1,148 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.data.serializer.InternalRowSerializer;
+import org.apache.paimon.io.DataOutputSerializer;
+import org.apache.paimon.types.DataTypes;
+import org.apache.paimon.types.RowType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageBufferTest {
+
+    private static final RowType ROW_TYPE = RowType.of(DataTypes.INT(), DataTypes.STRING());
+    private static final RowConverter CONVERTER = new RowConverter(ROW_TYPE);
+
+    /**
+     * Rows of a page, the text length sets the size of each row
+     */
+    private static List<InternalRow> page(int pageNumber, int rowCount, int textLength) {
+        List<InternalRow> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int c = 0; c < textLength; c++) {
+                text.append((char) ('a' + (pageNumber + i + c) % 26));
+            }
+            rows.add(GenericRow.of(pageNumber * 1000 + i, BinaryString.fromString(text.toString())));
+        }
+        return rows;
+    }
+
+    /**
+     * Bytes the rows take in the buffer
+     */
+    private static int pageBytes(List<InternalRow> rows) throws IOException {
+        DataOutputSerializer output = new DataOutputSerializer(64);
+        InternalRowSerializer serializer = new InternalRowSerializer(ROW_TYPE);
+        for (InternalRow row : rows) {
+            serializer.serialize(row, output);
+        }
+        return output.length();
+    }
+
+    private static void store(PageBuffer buffer, int pageNumber, List<InternalRow> rows) throws IOException {
+        for (InternalRow row : rows) {
+            buffer.add(row);
+        }
+        buffer.finishPage(pageNumber);
+    }
+
+    private static void assertPage(List<InternalRow> expected, List<Object[]> actual) {
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(CONVERTER.convert(expected.get(i)), actual.get(i));
+        }
+    }
+
+    @Test
+    void wrapAroundKeepsTheNewestPagesThatFit() throws IOException {
+        Random random = new Random(42);
+        int capacity = 16 * 1024;
+        Map<Integer, List<InternalRow>> written = new HashMap<>();
+        Map<Integer, Integer> sizes = new HashMap<>();
+        int largestPage = 0;
+
+        try (PageBuffer buffer = new PageBuffer(ROW_TYPE, capacity)) {
+            for (int pageNumber = 1; pageNumber <= 300; pageNumber++) {
+                List<InternalRow> rows = page(pageNumber, 1 + random.nextInt(20), random.nextInt(200));
+                written.put(pageNumber, rows);
+                sizes.put(pageNumber, pageBytes(rows));
+                largestPage = Math.max(largestPage, sizes.get(pageNumber));
+                store(buffer, pageNumber, rows);
+
+                // The kept pages are the newest ones, contiguous and within the capacity
+                int oldest = buffer.getOldestPage();
+                assertTrue(oldest >= 1 && oldest <= pageNumber, "oldest " + oldest);
+                int keptBytes = 0;
+                for (int kept = oldest; kept <= pageNumber; kept++) {
+                    assertPage(written.get(kept), buffer.readPage(kept, CONVERTER));
+                    keptBytes += sizes.get(kept);
+                }
+                assertTrue(keptBytes <= capacity, "kept " + keptBytes);
+                for (int dropped = 1; dropped < oldest; dropped++) {
+                    assertNull(buffer.readPage(dropped, CONVERTER), "page " + dropped);
+                }
+                // At most the gap left at the end of the ring before wrapping is lost
+                if (oldest > 1) {
+                    assertTrue(keptBytes + sizes.get(oldest - 1) > capacity - largestPage,
+                            "page " + (oldest - 1) + " was dropped too early");
+                }
+            }
+        }
+    }
+
+    @Test
+    void pagesThatExactlyFillTheBufferWrapToTheStart() throws IOException {
+        List<InternalRow> first = page(1, 5, 40);
+        int size = pageBytes(first);
+        try (PageBuffer buffer = new PageBuffer(ROW_TYPE, 2L * size)) {
+            store(buffer, 1, first);
+            store(buffer, 2, page(2, 5, 40));
+            assertEquals(1, buffer.getOldestPage());
+
+            // Page 3 overwrites page 1 at the start of the buffer, page 2 stays readable
+            store(buffer, 3, page(3, 5, 40));
+            assertNull(buffer.readPage(1, CONVERTER));
+            assertEquals(2, buffer.getOldestPage());
+            assertPage(page(2, 5, 40), buffer.readPage(2, CONVERTER));
+            assertPage(page(3, 5, 40), buffer.readPage(3, CONVERTER));
+            // Never read pages are not buffered either
+            assertNull(buffer.readPage(4, CONVERTER));
+        }
+    }
+
+    @Test
+    void pageLargerThanTheBufferDropsEverything() throws IOException {
+        try (PageBuffer buffer = new PageBuffer(ROW_TYPE, 1000)) {
+            store(buffer, 1, page(1, 2, 10));
+            assertPage(page(1, 2, 10), buffer.readPage(1, CONVERTER));
+
+            List<InternalRow> large = page(2, 50, 100);
+            assertTrue(pageBytes(large) > 1000);
+            store(buffer, 2, large);
+            assertNull(buffer.readPage(1, CONVERTER));
+            assertNull(buffer.readPage(2, CONVERTER));
+            assertEquals(-1, buffer.getOldestPage());
+
+            // The buffer is usable again from the start for the next page
+            store(buffer, 3, page(3, 3, 10));
+            assertEquals(3, buffer.getOldestPage());
+            assertPage(page(3, 3, 10), buffer.readPage(3, CONVERTER));
+        }
+    }
+}
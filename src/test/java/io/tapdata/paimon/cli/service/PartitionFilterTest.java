@@ -0,0 +1,97 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filters on partition keys of a real table partitioned by (dt, region): 2 dates x 3 regions x 10 rows
+ */
+class PartitionFilterTest {
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+    private DataQueryService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+        warehouse.createTable("db", "events", Schema.newBuilder()
+                .column("dt", DataTypes.STRING())
+                .column("region", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .partitionKeys("dt", "region")
+                .build());
+        List<GenericRow> rows = new ArrayList<>();
+        for (String dt : new String[] {"a", "b"}) {
+            for (String region : new String[] {"x", "y", "z"}) {
+                for (int id = 0; id < 10; id++) {
+                    rows.add(GenericRow.of(BinaryString.fromString(dt), BinaryString.fromString(region), id));
+                }
+            }
+        }
+        warehouse.write("db", "events", rows);
+        service = new DataQueryService(warehouse.getCatalogManager());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    private long count(String filter) throws Exception {
+        String output = TestWarehouse.captureOutput(() -> service.countTable("db", "events", filter));
+        Matcher matcher = Pattern.compile("Total rows in table db\\.events.*: (\\d+)").matcher(output);
+        assertTrue(matcher.find(), output);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private long selectCount(String filter) throws Exception {
+        String output = TestWarehouse.captureOutput(() -> service.selectTable("db", "events", 1000, filter));
+        Matcher matcher = Pattern.compile("Displayed (\\d+) row\\(s\\)").matcher(output);
+        assertTrue(matcher.find(), output);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    @Test
+    void equalityOnOnePartitionKeyKeepsTheOtherConditions() throws Exception {
+        assertEquals(20, count("dt='a' AND region!='y'"));
+        assertEquals(20, selectCount("dt='a' AND region!='y'"));
+    }
+
+    @Test
+    void contradictoryEqualitiesMatchNothing() throws Exception {
+        assertEquals(0, count("dt='a' AND dt='b'"));
+        assertEquals(0, selectCount("dt='a' AND dt='b'"));
+    }
+
+    @Test
+    void partitionOnlyFilterCountsFromManifests() throws Exception {
+        String output = TestWarehouse.captureOutput(() -> service.countTable("db", "events", "dt='b' AND region>'x'"));
+        assertTrue(output.contains("manifest row counts"), output);
+        assertTrue(output.contains(": 20"), output);
+    }
+
+    @Test
+    void mixedFilterEvaluatesRowConditions() throws Exception {
+        assertEquals(20, count("region!='y' AND id>=5"));
+        assertEquals(20, selectCount("region!='y' AND id>=5"));
+    }
+}
@@ -0,0 +1,134 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import io.tapdata.paimon.cli.config.StorageConfig;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.BucketMode;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrimaryKeyLookupTest {
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+    private DataQueryService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+        service = new DataQueryService(warehouse.getCatalogManager());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.close();
+        warehouse.close();
+    }
+
+    /**
+     * Table partitioned by dt whose primary key is id alone, with ids 0..19 except 10 alternating
+     * between two dates, so the key range of each partition covers every id
+     */
+    private FileStoreTable crossPartitionTable() throws Exception {
+        warehouse.createTable("db", "users", Schema.newBuilder()
+                .column("dt", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .column("name", DataTypes.STRING())
+                .partitionKeys("dt")
+                .primaryKey("id")
+                .build());
+        List<GenericRow> rows = new ArrayList<>();
+        for (int id = 0; id < 20; id++) {
+            if (id == 10) {
+                continue;
+            }
+            rows.add(GenericRow.of(BinaryString.fromString(id % 2 == 0 ? "a" : "b"), id,
+                    BinaryString.fromString("user" + id)));
+        }
+        warehouse.write("db", "users", rows, 0);
+        return (FileStoreTable) warehouse.getCatalogManager().getTable("db", "users");
+    }
+
+    @Test
+    void crossPartitionKeyIsFoundInAnyPartition() throws Exception {
+        FileStoreTable table = crossPartitionTable();
+        assertEquals(BucketMode.CROSS_PARTITION, table.bucketMode());
+
+        String output = TestWarehouse.captureOutput(() -> service.getByPrimaryKey("db", "users", "id=15"));
+        assertTrue(output.contains("Found 1 row"), output);
+        assertTrue(output.contains("user15"), output);
+        assertTrue(output.contains("all partitions"), output);
+
+        output = TestWarehouse.captureOutput(() -> service.getByPrimaryKey("db", "users", "id=3"));
+        assertTrue(output.contains("user3"), output);
+
+        output = TestWarehouse.captureOutput(() -> service.getByPrimaryKey("db", "users", "id=10"));
+        assertTrue(output.contains("Key not found"), output);
+        assertTrue(output.contains("2 of 2 file(s) in key range"), output);
+    }
+
+    @Test
+    void fixedBucketKeyIsRoutedToItsBucket() throws Exception {
+        warehouse.createTable("db", "orders", Schema.newBuilder()
+                .column("dt", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .column("amount", DataTypes.BIGINT())
+                .partitionKeys("dt")
+                .primaryKey("dt", "id")
+                .option("bucket", "4")
+                .build());
+        List<GenericRow> rows = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            rows.add(GenericRow.of(BinaryString.fromString(id % 2 == 0 ? "a" : "b"), id, id * 10L));
+        }
+        warehouse.write("db", "orders", rows);
+
+        String output = TestWarehouse.captureOutput(() -> service.getByPrimaryKey("db", "orders", "dt='b' AND id=41"));
+        assertTrue(output.contains("Found 1 row"), output);
+        assertTrue(output.contains("410"), output);
+        assertTrue(output.contains("(bucket "), output);
+
+        output = TestWarehouse.captureOutput(() -> service.getByPrimaryKey("db", "orders", "dt='a' AND id=41"));
+        assertTrue(output.contains("Key not found"), output);
+    }
+
+    @Test
+    void lookupRunsUnderTheQueryLimits() throws Exception {
+        crossPartitionTable();
+        warehouse.getCatalogManager().getConfig().getOptions().put(StorageConfig.QUERY_MAX_SPLITS, "1");
+
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+        String output;
+        try {
+            // A missing key in the key range of both partitions needs two splits
+            output = TestWarehouse.captureOutput(() -> service.getByPrimaryKey("db", "users", "id=10"));
+        } finally {
+            System.setErr(originalErr);
+        }
+        String errors = err.toString(StandardCharsets.UTF_8);
+        assertFalse(output.contains("Key not found"), output);
+        assertTrue(errors.contains("Query aborted: split budget of 1 exceeded"), errors);
+        assertEquals(1, service.getLastQuery().getSplitsOpened());
+    }
+}
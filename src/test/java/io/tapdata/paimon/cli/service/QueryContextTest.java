@@ -0,0 +1,202 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import io.tapdata.paimon.cli.config.StorageConfig;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.table.source.TableRead;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryContextTest {
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+    private ReadBuilder readBuilder;
+    private List<Split> splits;
+
+    /**
+     * Table with one split per partition, 8 partitions of 10 rows
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+        warehouse.createTable("db", "events", Schema.newBuilder()
+                .column("p", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .partitionKeys("p")
+                .build());
+        List<GenericRow> rows = new ArrayList<>();
+        for (int p = 0; p < 8; p++) {
+            for (int id = 0; id < 10; id++) {
+                rows.add(GenericRow.of(BinaryString.fromString("p" + p), id));
+            }
+        }
+        warehouse.write("db", "events", rows);
+        readBuilder = warehouse.getCatalogManager().getTable("db", "events").newReadBuilder();
+        splits = readBuilder.newScan().plan().splits();
+        assertEquals(8, splits.size());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    /**
+     * Read every split through the context, returns the rows read
+     */
+    private long readAll(QueryContext context) throws IOException {
+        TableRead tableRead = readBuilder.newRead();
+        long rows = 0;
+        for (Split split : splits) {
+            try (RecordReader<InternalRow> reader = context.open(tableRead, split)) {
+                RecordReader.RecordIterator<InternalRow> batch;
+                while ((batch = reader.readBatch()) != null) {
+                    while (batch.next() != null) {
+                        rows++;
+                    }
+                    batch.releaseBatch();
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void unlimitedQueryRecordsItsMetrics() throws IOException {
+        QueryContext context = new QueryContext(0, 0, 0, 0);
+        context.setTotalSplits(splits.size());
+        assertEquals(80, readAll(context));
+        assertEquals(80, context.getRowsScanned());
+        assertEquals(8, context.getSplitsOpened());
+        assertEquals(8, context.getSplitsDone());
+        assertTrue(context.getBytesScanned() > 0);
+        assertTrue(context.getProgress().startsWith("splits 8/8, 80 row(s)"), context.getProgress());
+    }
+
+    @Test
+    void cancelStopsTheQueryAtTheNextBatch() throws IOException {
+        QueryContext context = new QueryContext(0, 0, 0, 0);
+        TableRead tableRead = readBuilder.newRead();
+        try (RecordReader<InternalRow> reader = context.open(tableRead, splits.get(0))) {
+            context.cancel();
+            QueryAbortedException e = assertThrows(QueryAbortedException.class, reader::readBatch);
+            assertTrue(e.getMessage().startsWith("cancelled ("), e.getMessage());
+        }
+        // Opening further splits is refused as well
+        assertThrows(QueryAbortedException.class, () -> context.open(tableRead, splits.get(1)));
+        assertEquals(1, context.getSplitsOpened());
+    }
+
+    @Test
+    void rowBudgetIsEnforced() {
+        QueryContext context = new QueryContext(0, 25, 0, 0);
+        QueryAbortedException e = assertThrows(QueryAbortedException.class, () -> readAll(context));
+        assertTrue(e.getMessage().startsWith("row budget of 25 exceeded"), e.getMessage());
+        // Rows are counted per batch, so the query stops at the batch after the one that crossed the budget
+        assertEquals(30, context.getRowsScanned());
+        assertEquals(3, context.getSplitsOpened());
+    }
+
+    @Test
+    void splitBudgetIsEnforcedBeforeOpening() {
+        QueryContext context = new QueryContext(0, 0, 0, 3);
+        QueryAbortedException e = assertThrows(QueryAbortedException.class, () -> readAll(context));
+        assertTrue(e.getMessage().startsWith("split budget of 3 exceeded"), e.getMessage());
+        assertEquals(3, context.getSplitsOpened());
+        assertEquals(30, context.getRowsScanned());
+    }
+
+    @Test
+    void byteBudgetIsEnforcedBeforeOpening() {
+        long firstSplitBytes = QueryContext.splitBytes(splits.get(0));
+        assertTrue(firstSplitBytes > 0);
+        QueryContext context = new QueryContext(0, 0, firstSplitBytes, 0);
+        QueryAbortedException e = assertThrows(QueryAbortedException.class, () -> readAll(context));
+        assertTrue(e.getMessage().startsWith("byte budget of "), e.getMessage());
+        assertEquals(1, context.getSplitsOpened());
+        assertEquals(firstSplitBytes, context.getBytesScanned());
+    }
+
+    @Test
+    void timeoutIsEnforcedAndCanBeRestarted() throws InterruptedException {
+        QueryContext context = new QueryContext(50, 0, 0, 0);
+        assertDoesNotThrow(context::checkpoint);
+        Thread.sleep(80);
+        QueryAbortedException e = assertThrows(QueryAbortedException.class, context::checkpoint);
+        assertTrue(e.getMessage().startsWith("timeout of 50 ms exceeded"), e.getMessage());
+
+        QueryContext waiting = new QueryContext(50, 0, 0, 0);
+        Thread.sleep(80);
+        // Time spent waiting for user input does not count
+        waiting.restartTimer();
+        assertDoesNotThrow(waiting::checkpoint);
+    }
+
+    @Test
+    void firstAbortReasonIsKept() {
+        QueryContext context = new QueryContext(0, 5, 0, 0);
+        assertThrows(QueryAbortedException.class, () -> readAll(context));
+        context.cancel();
+        QueryAbortedException e = assertThrows(QueryAbortedException.class, context::checkpoint);
+        assertTrue(e.getMessage().startsWith("row budget of 5 exceeded"), e.getMessage());
+    }
+
+    @Test
+    void limitsAreReadFromOptions() {
+        Map<String, String> options = new HashMap<>();
+        options.put(StorageConfig.QUERY_MAX_SPLITS, " 2 ");
+        options.put(StorageConfig.QUERY_MAX_BYTES, "1 kb");
+        options.put(StorageConfig.QUERY_TIMEOUT, "1 min");
+        QueryContext context = QueryContext.fromOptions(options);
+        assertThrows(QueryAbortedException.class, () -> readAll(context));
+        assertTrue(context.getSplitsOpened() <= 2);
+        assertTrue(context.getBytesScanned() <= 1024);
+    }
+
+    @Test
+    void countReportsAbortedQueries() throws Exception {
+        warehouse.getCatalogManager().getConfig().getOptions().put(StorageConfig.QUERY_MAX_ROWS, "25");
+        DataQueryService service = new DataQueryService(warehouse.getCatalogManager());
+
+        PrintStream originalErr = System.err;
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+        String output;
+        try {
+            output = TestWarehouse.captureOutput(() -> service.countTable("db", "events", "id>=0"));
+        } finally {
+            System.setErr(originalErr);
+        }
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Query aborted: row budget of 25 exceeded"),
+                err.toString(StandardCharsets.UTF_8));
+        assertTrue(!output.contains("Total rows"), output);
+        assertTrue(service.getLastQuery().getRowsScanned() > 25);
+    }
+}
@@ -0,0 +1,178 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.table.source.DataSplit;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.table.source.TableRead;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SplitPrefetcherTest {
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+    private ReadBuilder readBuilder;
+    private List<Split> splits;
+
+    /**
+     * Table with one split per partition, 32 partitions of 10 rows
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+        warehouse.createTable("db", "events", Schema.newBuilder()
+                .column("p", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .partitionKeys("p")
+                .build());
+        List<GenericRow> rows = new ArrayList<>();
+        for (int p = 0; p < 32; p++) {
+            for (int id = 0; id < 10; id++) {
+                rows.add(GenericRow.of(BinaryString.fromString("p" + p), id));
+            }
+        }
+        warehouse.write("db", "events", rows);
+        Table table = warehouse.getCatalogManager().getTable("db", "events");
+        readBuilder = table.newReadBuilder();
+        splits = readBuilder.newScan().plan().splits();
+        assertEquals(32, splits.size());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    private static QueryContext unlimited() {
+        return new QueryContext(0, 0, 0, 0);
+    }
+
+    /**
+     * Read builder whose readers take a random 0-2 ms to read their first batch and 3 ms to close,
+     * like readers of an object store, so opens are still running when the prefetcher is closed
+     */
+    @SuppressWarnings("unchecked")
+    private static ReadBuilder slowReads(ReadBuilder delegate) {
+        return delegating(ReadBuilder.class, delegate, (method, result) -> !"newRead".equals(method.getName())
+                ? result
+                : delegating(TableRead.class, (TableRead) result, (readMethod, reader) ->
+                        !"createReader".equals(readMethod.getName()) ? reader
+                                : new SlowReader((RecordReader<InternalRow>) reader)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T delegating(Class<T> type, T delegate, BiFunction<Method, Object, Object> wrapResult) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            try {
+                return wrapResult.apply(method, method.invoke(delegate, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private static class SlowReader implements RecordReader<InternalRow> {
+
+        private final RecordReader<InternalRow> delegate;
+
+        SlowReader(RecordReader<InternalRow> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public RecordIterator<InternalRow> readBatch() throws IOException {
+            pause(ThreadLocalRandom.current().nextInt(3));
+            return delegate.readBatch();
+        }
+
+        @Override
+        public void close() throws IOException {
+            pause(3);
+            delegate.close();
+        }
+
+        private static void pause(int millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void readersAreHandedOutInSplitOrder() throws Exception {
+        QueryContext context = unlimited();
+        long rows = 0;
+        try (SplitPrefetcher prefetcher = new SplitPrefetcher(readBuilder, splits, 4, context)) {
+            RecordReader<InternalRow> next;
+            int index = 0;
+            while ((next = prefetcher.next()) != null) {
+                try (RecordReader<InternalRow> reader = next) {
+                    RecordReader.RecordIterator<InternalRow> batch;
+                    while ((batch = reader.readBatch()) != null) {
+                        InternalRow row;
+                        while ((row = batch.next()) != null) {
+                            assertEquals(((DataSplit) splits.get(index)).partition().getString(0), row.getString(0));
+                            rows++;
+                        }
+                        batch.releaseBatch();
+                    }
+                }
+                index++;
+            }
+            assertEquals(splits.size(), index);
+        }
+        assertEquals(320, rows);
+        assertEquals(32, context.getSplitsOpened());
+        assertEquals(32, context.getSplitsDone());
+    }
+
+    @Test
+    void closeWhileOpeningClosesEveryReaderExactlyOnce() throws Exception {
+        for (int round = 0; round < 60; round++) {
+            QueryContext context = unlimited();
+            SplitPrefetcher prefetcher = new SplitPrefetcher(slowReads(readBuilder), splits, 8, context);
+            // Take a few readers so that more opens are submitted, then close while they run
+            for (int i = 0; i < round % 4; i++) {
+                prefetcher.next().close();
+            }
+            prefetcher.close();
+
+            // Opens still in flight finish on their own; each must close its reader once
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (context.getSplitsDone() != context.getSplitsOpened() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(context.getSplitsOpened(), context.getSplitsDone(), "round " + round);
+            Thread.sleep(2);
+            assertEquals(context.getSplitsOpened(), context.getSplitsDone(), "round " + round + " after settling");
+            assertTrue(context.getSplitsOpened() <= splits.size());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.tapdata.paimon.cli.service;
+
+import org.apache.paimon.table.source.Split;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SplitSamplerTest {
+
+    /**
+     * Split of a synthetic table: its row count and how many of its rows match the filter
+     */
+    private static class FakeSplit implements Split {
+        final long rows;
+        final long matched;
+
+        FakeSplit(long rows, long matched) {
+            this.rows = rows;
+            this.matched = matched;
+        }
+
+        @Override
+        public long rowCount() {
+            return rows;
+        }
+    }
+
+    /**
+     * 400 splits of 500 to 1500 rows, with a match rate that varies between splits
+     */
+    private static List<Split> table(long seed) {
+        Random random = new Random(seed);
+        List<Split> splits = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            long rows = 500 + random.nextInt(1001);
+            double rate = 0.2 + 0.4 * random.nextDouble();
+            splits.add(new FakeSplit(rows, Math.round(rows * rate)));
+        }
+        return splits;
+    }
+
+    private static long[] matched(List<Split> splits) {
+        long[] matched = new long[splits.size()];
+        for (int i = 0; i < splits.size(); i++) {
+            matched[i] = ((FakeSplit) splits.get(i)).matched;
+        }
+        return matched;
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Test
+    void estimateIntervalCoversTheTrueCount() {
+        List<Split> table = table(1);
+        long totalRows = table.stream().mapToLong(Split::rowCount).sum();
+        long trueMatched = sum(matched(table));
+
+        int trials = 400;
+        int covered = 0;
+        double sumOfEstimates = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            SplitSampler.SampledSplits sampled = new SplitSampler(new Random(trial))
+                    .sample(table, SampleSpec.percent(10));
+            assertEquals(40, sampled.getSplits().size());
+            assertEquals(totalRows, sampled.getTotalRows());
+            assertFalse(sampled.isComplete());
+
+            SplitSampler.Estimate estimate = sampled.estimate(matched(sampled.getSplits()));
+            assertTrue(estimate.getErrorBound() > 0);
+            sumOfEstimates += estimate.getValue();
+            if (Math.abs(estimate.getValue() - trueMatched) <= estimate.getErrorBound()) {
+                covered++;
+            }
+        }
+        // The ratio estimator is nearly unbiased: the mean of the estimates is close to the truth
+        assertEquals(trueMatched, sumOfEstimates / trials, trueMatched * 0.01);
+        // Nominal 95% coverage; allow for the approximation of the ratio estimator
+        double coverage = covered / (double) trials;
+        assertTrue(coverage >= 0.88 && coverage <= 0.995, "coverage " + coverage);
+    }
+
+    @Test
+    void fullSampleIsExact() {
+        List<Split> table = table(2);
+        SplitSampler.SampledSplits sampled = new SplitSampler(new Random(0)).sample(table, SampleSpec.percent(100));
+
+        assertTrue(sampled.isComplete());
+        assertEquals(100.0, sampled.getRowFraction(), 1e-9);
+        SplitSampler.Estimate estimate = sampled.estimate(matched(sampled.getSplits()));
+        assertEquals(sum(matched(table)), estimate.getValue());
+        assertEquals(0.0, estimate.getErrorBound());
+    }
+
+    @Test
+    void rowSampleLargerThanTheTableReadsEverything() {
+        List<Split> table = table(3);
+        long totalRows = table.stream().mapToLong(Split::rowCount).sum();
+        SplitSampler.SampledSplits sampled = new SplitSampler(new Random(0))
+                .sample(table, SampleSpec.rows(totalRows * 2));
+
+        assertTrue(sampled.isComplete());
+        assertEquals(totalRows, sampled.getSampledRows());
+        assertEquals(sum(matched(table)), sampled.estimate(matched(sampled.getSplits())).getValue());
+    }
+
+    @Test
+    void rowSampleStopsOnceEnoughRowsAreCovered() {
+        List<Split> table = table(4);
+        SplitSampler.SampledSplits sampled = new SplitSampler(new Random(0)).sample(table, SampleSpec.rows(10_000));
+
+        assertTrue(sampled.getSampledRows() >= 10_000);
+        // The last split added is the one that crossed the target
+        long withoutLast = sampled.getSampledRows()
+                - sampled.getSplits().get(sampled.getSplits().size() - 1).rowCount();
+        assertTrue(withoutLast < 10_000);
+    }
+
+    @Test
+    void emptyPlanSamplesNothingAndEstimatesZero() {
+        for (SampleSpec spec : new SampleSpec[] {SampleSpec.percent(10), SampleSpec.rows(100)}) {
+            SplitSampler.SampledSplits sampled = new SplitSampler(new Random(0)).sample(Collections.emptyList(), spec);
+            assertTrue(sampled.getSplits().isEmpty());
+            assertTrue(sampled.isComplete());
+            SplitSampler.Estimate estimate = sampled.estimate(new long[0]);
+            assertEquals(0, estimate.getValue());
+            assertEquals("0", estimate.toString());
+        }
+    }
+
+    @Test
+    void singleSampledSplitHasNoErrorBound() {
+        List<Split> table = table(5);
+        SplitSampler.SampledSplits sampled = new SplitSampler(new Random(0)).sample(table, SampleSpec.percent(0.1));
+
+        assertEquals(1, sampled.getSplits().size());
+        SplitSampler.Estimate estimate = sampled.estimate(matched(sampled.getSplits()));
+        assertTrue(Double.isNaN(estimate.getErrorBound()));
+        assertTrue(estimate.toString().contains("unavailable"));
+    }
+
+    @Test
+    void invalidSpecsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SampleSpec.percent(0));
+        assertThrows(IllegalArgumentException.class, () -> SampleSpec.percent(101));
+        assertThrows(IllegalArgumentException.class, () -> SampleSpec.rows(0));
+    }
+}
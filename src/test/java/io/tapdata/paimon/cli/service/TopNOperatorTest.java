@@ -0,0 +1,166 @@
+package io.tapdata.paimon.cli.service;
+
+import io.tapdata.paimon.cli.TestWarehouse;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.predicate.Predicate;
+import org.apache.paimon.predicate.PredicateBuilder;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.table.source.Split;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopNOperatorTest {
+
+    private static final int FILES = 40;
+    private static final int ROWS_PER_FILE = 100;
+
+    @TempDir
+    Path directory;
+
+    private TestWarehouse warehouse;
+    private Table table;
+    // Value of v for each id, null included
+    private final Map<Integer, Long> values = new HashMap<>();
+
+    /**
+     * Two partitions of 20 files each; the v values of file f lie in [f * 1000, f * 1000 + 999]
+     * and about one row in twenty has a null v. Files are written in random order.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        warehouse = new TestWarehouse(directory);
+        table = warehouse.createTable("db", "events", Schema.newBuilder()
+                .column("p", DataTypes.STRING())
+                .column("id", DataTypes.INT())
+                .column("v", DataTypes.BIGINT())
+                .partitionKeys("p")
+                .build());
+
+        Random random = new Random(7);
+        List<Integer> order = new ArrayList<>();
+        for (int f = 0; f < FILES; f++) {
+            order.add(f);
+        }
+        Collections.shuffle(order, random);
+        for (int f : order) {
+            List<GenericRow> rows = new ArrayList<>();
+            for (int i = 0; i < ROWS_PER_FILE; i++) {
+                int id = f * ROWS_PER_FILE + i;
+                Long v = random.nextInt(20) == 0 ? null : f * 1000L + random.nextInt(1000);
+                values.put(id, v);
+                rows.add(GenericRow.of(BinaryString.fromString("p" + f % 2), id, v));
+            }
+            warehouse.write("db", "events", rows);
+        }
+        table = warehouse.getCatalogManager().getTable("db", "events");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        warehouse.close();
+    }
+
+    /**
+     * Values of v of the top rows by a full sort of every row matching the filter, nulls last
+     */
+    private List<Long> fullSort(boolean descending, int limit, int minId) {
+        Comparator<Long> order = descending ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        List<Long> sorted = new ArrayList<>();
+        values.forEach((id, v) -> {
+            if (id >= minId) {
+                sorted.add(v);
+            }
+        });
+        sorted.sort(Comparator.nullsLast(order));
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    private TopNOperator topN(boolean descending, int limit) {
+        return new TopNOperator(table, table.rowType(), 2, descending, limit);
+    }
+
+    /**
+     * Run the operator and check its rows against the full sort, returns the operator for its counters
+     */
+    private TopNOperator runAndCompare(boolean descending, int limit, int minId) throws Exception {
+        ReadBuilder readBuilder = table.newReadBuilder();
+        List<Split> splits = readBuilder.newScan().plan().splits();
+        List<Predicate> predicates = minId > 0
+                ? Collections.singletonList(new PredicateBuilder(table.rowType()).greaterOrEqual(1, minId))
+                : Collections.emptyList();
+        TopNOperator topN = topN(descending, limit);
+        List<InternalRow> rows = topN.execute(readBuilder, splits, predicates, new QueryContext(0, 0, 0, 0));
+
+        List<Long> keys = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (InternalRow row : rows) {
+            int id = row.getInt(1);
+            Long v = row.isNullAt(2) ? null : row.getLong(2);
+            assertTrue(ids.add(id), "row " + id + " returned twice");
+            assertTrue(id >= minId, "row " + id + " does not match the filter");
+            assertEquals(values.get(id), v, "row " + id);
+            keys.add(v);
+        }
+        String query = (descending ? "desc" : "asc") + " limit " + limit + " id>=" + minId;
+        assertEquals(fullSort(descending, limit, minId), keys, query);
+        return topN;
+    }
+
+    @Test
+    void matchesAFullSortInBothDirections() throws Exception {
+        for (boolean descending : new boolean[]{false, true}) {
+            for (int limit : new int[]{1, 10, 150, 1000}) {
+                runAndCompare(descending, limit, 0);
+                runAndCompare(descending, limit, 2500);
+            }
+        }
+    }
+
+    @Test
+    void nullsComeLastWhenTheLimitReachesThem() throws Exception {
+        long nulls = values.values().stream().filter(v -> v == null).count();
+        assertTrue(nulls > 0);
+        int all = FILES * ROWS_PER_FILE;
+        for (boolean descending : new boolean[]{false, true}) {
+            TopNOperator topN = runAndCompare(descending, all + 5, 0);
+            // Every file is needed, so none can be skipped
+            assertEquals(0, topN.getSplitsSkipped());
+            runAndCompare(descending, all - (int) nulls + 3, 0);
+        }
+    }
+
+    @Test
+    void filesThatCannotBeatTheThresholdAreSkipped() throws Exception {
+        int units = SplitUtils.expandToFiles(table.newReadBuilder().newScan().plan().splits()).size();
+        assertEquals(FILES, units);
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), units);
+        for (boolean descending : new boolean[]{false, true}) {
+            TopNOperator topN = runAndCompare(descending, 10, 0);
+            assertEquals(units, topN.getSplitsRead() + topN.getSplitsSkipped());
+            // Files are read best first, and each worker's first file alone fills the heap
+            assertTrue(topN.getSplitsSkipped() >= units - parallelism,
+                    "read " + topN.getSplitsRead() + ", skipped " + topN.getSplitsSkipped());
+        }
+    }
+}